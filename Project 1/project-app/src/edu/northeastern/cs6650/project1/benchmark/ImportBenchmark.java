@@ -0,0 +1,132 @@
+package edu.northeastern.cs6650.project1.benchmark;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.server.BaseServer;
+import edu.northeastern.cs6650.project1.server.BulkImporter;
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+import edu.northeastern.cs6650.project1.store.StoreFactory;
+
+/*
+ * Benchmark of the bulk import of a file into a fresh store
+ *
+ * The same records are written into a CSV file and into a binary dump. The baseline reads the
+ * CSV file line by line on one thread and puts every record into the store, as a client that
+ * replays PUTs does without the network. The bulk importer then loads the CSV file without and
+ * with sizing the tables ahead of time, and loads the dump. Every run starts from an empty store.
+ */
+public class ImportBenchmark {
+
+    public static void main(String[] arguments) throws IOException {
+
+        if(arguments.length < 1 || arguments.length > 3) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.benchmark.ImportBenchmark <number of records> [<value size>] [<store type>].");
+            return;
+        }
+
+        int numberOfRecords = Integer.parseInt(arguments[0]);
+        int valueSize = arguments.length >= 2 ? Integer.parseInt(arguments[1]) : 100;
+        StoreType storeType = arguments.length >= 3 ? StoreType.valueOf(arguments[2].toUpperCase()) : StoreType.HASH;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        File csvFile = File.createTempFile("import-benchmark", ".csv");
+        File dumpFile = File.createTempFile("import-benchmark", ".dump");
+        csvFile.deleteOnExit();
+        dumpFile.deleteOnExit();
+        writeFiles(csvFile, dumpFile, numberOfRecords, valueSize);
+
+        System.out.println("Importing " + String.valueOf(numberOfRecords) + " records with values of " + String.valueOf(valueSize) + " bytes into the " + storeType.name().toLowerCase() + " store on " + String.valueOf(Runtime.getRuntime().availableProcessors()) + " cores.");
+        System.out.println("load\ttime (ms)\tthroughput (records/s)");
+
+        report("sequential puts", numberOfRecords, putSequentially(csvFile, storeType));
+        report("csv import", numberOfRecords, importFile(csvFile, storeType, false));
+        report("csv import, presized", numberOfRecords, importFile(csvFile, storeType, true));
+        report("dump import, presized", numberOfRecords, importFile(dumpFile, storeType, true));
+
+    }
+
+    private static void writeFiles(File csvFile, File dumpFile, int numberOfRecords, int valueSize) throws IOException {
+
+        String padding = "v".repeat(valueSize);
+        try (BufferedWriter csvWriter = new BufferedWriter(new FileWriter(csvFile), 1 << 16);
+                BulkImporter.DumpWriter dumpWriter = new BulkImporter.DumpWriter(dumpFile.getPath())) {
+            for(int i = 0; i < numberOfRecords; i++) {
+                String key = "key" + String.valueOf(i);
+                csvWriter.write(key);
+                csvWriter.write(',');
+                csvWriter.write(padding);
+                csvWriter.newLine();
+                dumpWriter.write(key, padding);
+            }
+        }
+
+    }
+
+    /*
+     * Returns the time in nanoseconds taken to put every line of the file into a store on one thread
+     */
+    private static long putSequentially(File csvFile, StoreType storeType) throws IOException {
+
+        System.gc();
+        long startTime = System.nanoTime();
+        KeyValueStore keyValueStore = StoreFactory.createStore(storeType);
+        try (BufferedReader reader = new BufferedReader(new FileReader(csvFile), 1 << 16)) {
+            String line;
+            long version = 0;
+            while((line = reader.readLine()) != null) {
+                int separator = line.indexOf(',');
+                keyValueStore.put(line.substring(0, separator), new StoreEntry(line.substring(separator + 1), ++version));
+            }
+        }
+
+        return System.nanoTime() - startTime;
+
+    }
+
+    /*
+     * Returns the time in nanoseconds taken by the bulk importer to load the file into a new server
+     */
+    private static long importFile(File file, StoreType storeType, boolean presizes) throws IOException {
+
+        System.gc();
+        long startTime = System.nanoTime();
+        BaseServer server = new BaseServer(storeType) {
+            public void spin() {
+            }
+        };
+        BulkImporter bulkImporter = new BulkImporter(server);
+        bulkImporter.setPresizing(presizes);
+        bulkImporter.importFile(file.getPath());
+
+        return System.nanoTime() - startTime;
+
+    }
+
+    private static void report(String load, int numberOfRecords, long elapsedTime) {
+        System.out.println(String.format("%s\t%d\t%.0f", load, elapsedTime / 1000000, numberOfRecords * 1e9 / elapsedTime));
+    }
+}
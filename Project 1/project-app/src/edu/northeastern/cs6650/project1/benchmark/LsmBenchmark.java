@@ -0,0 +1,120 @@
+package edu.northeastern.cs6650.project1.benchmark;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+import edu.northeastern.cs6650.project1.store.StoreFactory;
+
+/*
+ * Benchmark of the write throughput and the point read latency of the LSM store with more data than fits in the heap
+ * 
+ * The number of keys is chosen so that the keys and values take the given multiple of the maximum
+ * heap size, 10 by default, so the benchmark should be run with a small heap, for example -Xmx256m.
+ * The keys are written once in a scattered order, which makes every flushed table overlap the others,
+ * then random keys are read back, and then keys that were never written, which the bloom filters
+ * answer without reading a block. The latency of every operation is measured on its own, so the 
+ * writes that waited for the background thread show up in the highest percentiles.
+ */
+public class LsmBenchmark {
+
+    private static final int KEY_LENGTH = 16;
+    private static final long KEY_STRIDE = 2654435761L;
+
+    public static void main(String[] arguments) {
+
+        if(arguments.length > 3) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -Xmx<heap size> -classpath classes edu.northeastern.cs6650.project1.benchmark.LsmBenchmark [<dataset size as a multiple of the heap>] [<value size>] [<number of reads>].");
+            return;
+        }
+
+        double multiple = arguments.length >= 1 ? Double.parseDouble(arguments[0]) : 10;
+        int valueSize = arguments.length >= 2 ? Integer.parseInt(arguments[1]) : 1000;
+        int numberOfReads = arguments.length >= 3 ? Integer.parseInt(arguments[2]) : 100000;
+
+        long datasetSize = (long) (multiple * Runtime.getRuntime().maxMemory());
+        int numberOfKeys = (int) Math.min(Integer.MAX_VALUE, datasetSize / (KEY_LENGTH + valueSize));
+        KeyValueStore keyValueStore = StoreFactory.createStore(StoreType.LSM);
+        String padding = "v".repeat(valueSize);
+
+        System.out.println("Writing " + String.valueOf(numberOfKeys) + " keys with values of " + String.valueOf(valueSize) + " bytes, " + String.valueOf(datasetSize >> 20) + " MiB in total, with a heap of " + String.valueOf(Runtime.getRuntime().maxMemory() >> 20) + " MiB.");
+        System.out.println("phase\tthroughput (operations/s)\tp50 (ns)\tp99 (ns)\tp99.9 (ns)\tmax (ns)");
+
+        long[] latencies = new long[numberOfKeys];
+        long benchmarkStartTime = System.nanoTime();
+        for(int i = 0; i < numberOfKeys; i++) {
+            long id = (i * KEY_STRIDE) % numberOfKeys;
+            String key = createKey(id);
+            String value = key + padding.substring(KEY_LENGTH);
+
+            long startTime = System.nanoTime();
+            keyValueStore.put(key, new StoreEntry(value, i + 1));
+            latencies[i] = System.nanoTime() - startTime;
+        }
+        print("put", latencies, System.nanoTime() - benchmarkStartTime);
+
+        latencies = new long[numberOfReads];
+        int missingKeys = 0;
+        benchmarkStartTime = System.nanoTime();
+        for(int i = 0; i < numberOfReads; i++) {
+            String key = createKey(ThreadLocalRandom.current().nextInt(numberOfKeys));
+
+            long startTime = System.nanoTime();
+            StoreEntry entry = keyValueStore.get(key);
+            latencies[i] = System.nanoTime() - startTime;
+            missingKeys += entry == null ? 1 : 0;
+        }
+        print("get", latencies, System.nanoTime() - benchmarkStartTime);
+
+        benchmarkStartTime = System.nanoTime();
+        for(int i = 0; i < numberOfReads; i++) {
+            String key = createKey(numberOfKeys + ThreadLocalRandom.current().nextInt(numberOfKeys));
+
+            long startTime = System.nanoTime();
+            StoreEntry entry = keyValueStore.get(key);
+            latencies[i] = System.nanoTime() - startTime;
+            missingKeys += entry == null ? 0 : 1;
+        }
+        print("get missing key", latencies, System.nanoTime() - benchmarkStartTime);
+
+        if(missingKeys > 0) {
+            System.err.println(String.valueOf(missingKeys) + " reads did not return the expected result.");
+        }
+
+    }
+
+    private static String createKey(long id) {
+        return String.format("user:%011d", id);
+    }
+
+    private static void print(String phase, long[] latencies, long elapsedTime) {
+
+        long[] sortedLatencies = latencies.clone();
+        Arrays.sort(sortedLatencies);
+        System.out.println(phase + "\t" + String.format("%.0f", latencies.length * 1e9 / elapsedTime)
+            + "\t" + String.valueOf(getPercentile(sortedLatencies, 500)) + "\t" + String.valueOf(getPercentile(sortedLatencies, 990))
+            + "\t" + String.valueOf(getPercentile(sortedLatencies, 999)) + "\t" + String.valueOf(sortedLatencies[sortedLatencies.length - 1]));
+
+    }
+
+    private static long getPercentile(long[] sortedLatencies, int permille) {
+        return sortedLatencies[Math.min(sortedLatencies.length - 1, (int) (sortedLatencies.length * (long) permille / 1000))];
+    }
+}
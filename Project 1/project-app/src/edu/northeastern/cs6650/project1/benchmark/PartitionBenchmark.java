@@ -0,0 +1,113 @@
+package edu.northeastern.cs6650.project1.benchmark;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.common.RequestType;
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.common.Utils;
+import edu.northeastern.cs6650.project1.server.PartitionRouter;
+import edu.northeastern.cs6650.project1.server.PartitionSession;
+
+/*
+ * Benchmark of the throughput of the store partitions as the number of cores grows
+ * 
+ * For every partition count from 1 up to the given maximum, doubling each time, as many
+ * producer threads as partitions send an even mix of PUT and GET requests over a fixed
+ * keyspace through their own partition sessions. The network is left out, so the numbers
+ * show how the store itself scales. Request logging is turned off while the benchmark runs.
+ */
+public class PartitionBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 100000;
+
+    public static void main(String[] arguments) throws InterruptedException {
+
+        if(arguments.length != 2) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.benchmark.PartitionBenchmark <maximum partitions> <requests per thread>.");
+            return;
+        }
+
+        int maximumPartitions = Integer.parseInt(arguments[0]);
+        int requestsPerThread = Integer.parseInt(arguments[1]);
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        System.out.println("partitions\tthroughput (requests/s)\tspeedup");
+
+        double baseline = 0;
+        for(int partitions = 1; partitions <= maximumPartitions; partitions *= 2) {
+            double throughput = run(partitions, requestsPerThread);
+            if(partitions == 1) {
+                baseline = throughput;
+            }
+
+            System.out.println(String.format("%d\t%.0f\t%.2f", partitions, throughput, throughput / baseline));
+        }
+
+    }
+
+    /*
+     * Runs the workload with the given number of partitions and producer threads and returns the throughput
+     */
+    private static double run(int partitions, int requestsPerThread) throws InterruptedException {
+
+        PartitionRouter partitionRouter = new PartitionRouter(partitions, StoreType.HASH);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        CountDownLatch doneSignal = new CountDownLatch(partitions);
+        LongAdder completedRequests = new LongAdder();
+
+        List<Thread> producers = new ArrayList<Thread>();
+        for(int i = 0; i < partitions; i++) {
+            Thread producer = new Thread(() -> {
+                PartitionSession session = partitionRouter.acquireSession();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                try {
+                    startSignal.await();
+                    for(int j = 0; j < requestsPerThread; j++) {
+                        String key = "key" + String.valueOf(random.nextInt(NUMBER_OF_KEYS));
+                        StringBuffer requestBody = (j % 2 == 0) ? Utils.createRequestBody(RequestType.PUT, key, "value" + String.valueOf(j)) : Utils.createRequestBody(RequestType.GET, key);
+                        session.submit(requestBody, "benchmark", 0);
+                        completedRequests.increment();
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    partitionRouter.releaseSession(session);
+                    doneSignal.countDown();
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+
+        long startTime = System.nanoTime();
+        startSignal.countDown();
+        doneSignal.await();
+        long elapsedTime = System.nanoTime() - startTime;
+
+        partitionRouter.shutdown();
+        return completedRequests.sum() / (elapsedTime / 1e9);
+
+    }
+}
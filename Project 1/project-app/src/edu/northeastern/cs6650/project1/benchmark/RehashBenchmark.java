@@ -0,0 +1,98 @@
+package edu.northeastern.cs6650.project1.benchmark;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+import edu.northeastern.cs6650.project1.store.StoreFactory;
+
+/*
+ * Benchmark of the tail latency of PUT requests while a hash store grows from empty
+ *
+ * Every store type inserts the same keys into a store that starts empty, so the table doubles
+ * many times along the way, and the latency of every PUT is measured on its own. The hash store
+ * rehashes all its keys in the PUT that crosses the load factor, which shows up in the highest
+ * percentiles and in the number of slow PUTs, while the incremental store spreads the work over
+ * the following PUTs. Garbage collection pauses hit all the stores alike, so the benchmark is
+ * best run with a heap large enough to hold all the keys, for example -Xmx4g for 10 million keys.
+ */
+public class RehashBenchmark {
+
+    private static final long SLOW_PUT_NANOS = 1000000;
+
+    public static void main(String[] arguments) {
+
+        if(arguments.length < 1) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -Xmx<heap size> -classpath classes edu.northeastern.cs6650.project1.benchmark.RehashBenchmark <number of keys> [<store type> ...].");
+            return;
+        }
+
+        int numberOfKeys = Integer.parseInt(arguments[0]);
+        List<StoreType> storeTypes = new ArrayList<StoreType>();
+        for(int i = 1; i < arguments.length; i++) {
+            storeTypes.add(StoreType.valueOf(arguments[i].toUpperCase()));
+        }
+        if(storeTypes.isEmpty()) {
+            storeTypes.add(StoreType.HASH);
+            storeTypes.add(StoreType.INCREMENTAL);
+        }
+
+        System.out.println("store\tthroughput (puts/s)\tp50 (ns)\tp99 (ns)\tp99.9 (ns)\tp99.99 (ns)\tmax (ns)\tputs over 1 ms");
+        for(StoreType storeType : storeTypes) {
+            run(storeType, numberOfKeys);
+        }
+
+    }
+
+    private static void run(StoreType storeType, int numberOfKeys) {
+
+        System.gc();
+        KeyValueStore keyValueStore = StoreFactory.createStore(storeType);
+        long[] latencies = new long[numberOfKeys];
+        StoreEntry entry = new StoreEntry("value", 1);
+
+        long benchmarkStartTime = System.nanoTime();
+        for(int i = 0; i < numberOfKeys; i++) {
+            String key = "key:" + String.valueOf(i);
+
+            long startTime = System.nanoTime();
+            keyValueStore.put(key, entry);
+            latencies[i] = System.nanoTime() - startTime;
+        }
+        long elapsedTime = System.nanoTime() - benchmarkStartTime;
+
+        if(keyValueStore.size() != numberOfKeys) {
+            System.err.println("The " + storeType.name().toLowerCase() + " store holds " + String.valueOf(keyValueStore.size()) + " keys instead of " + String.valueOf(numberOfKeys) + ".");
+        }
+
+        long slowPuts = Arrays.stream(latencies).filter(latency -> latency > SLOW_PUT_NANOS).count();
+        Arrays.sort(latencies);
+        System.out.println(storeType.name().toLowerCase() + "\t" + String.format("%.0f", numberOfKeys * 1e9 / elapsedTime)
+            + "\t" + String.valueOf(getPercentile(latencies, 5000)) + "\t" + String.valueOf(getPercentile(latencies, 9900))
+            + "\t" + String.valueOf(getPercentile(latencies, 9990)) + "\t" + String.valueOf(getPercentile(latencies, 9999))
+            + "\t" + String.valueOf(latencies[latencies.length - 1]) + "\t" + String.valueOf(slowPuts));
+
+    }
+
+    private static long getPercentile(long[] sortedLatencies, int basisPoints) {
+        return sortedLatencies[Math.min(sortedLatencies.length - 1, (int) (sortedLatencies.length * (long) basisPoints / 10000))];
+    }
+}
@@ -0,0 +1,164 @@
+package edu.northeastern.cs6650.project1.benchmark;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+import edu.northeastern.cs6650.project1.store.StoreFactory;
+
+/*
+ * Benchmark of the memory footprint and the latency of the storage engines
+ * 
+ * The keys share long prefixes, in the form tenant:region:user:id, as the keys of a
+ * multi tenant application do, with the user ids of every tenant and region allocated in sequence. For every store type the benchmark inserts all the keys,
+ * measures the heap retained by the store, then reads every key back in a random order.
+ * Ordered stores additionally serve prefix scans of a hundred keys. The latency of every
+ * operation is measured on its own and reported as percentiles.
+ */
+public class StoreBenchmark {
+
+    private static final int NUMBER_OF_TENANTS = 16;
+    private static final int NUMBER_OF_REGIONS = 4;
+    private static final int SCAN_PAGE_SIZE = 100;
+    private static final int NUMBER_OF_SCANS = 1000;
+
+    public static void main(String[] arguments) {
+
+        if(arguments.length < 1) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.benchmark.StoreBenchmark <number of keys> [<store type> ...].");
+            return;
+        }
+
+        int numberOfKeys = Integer.parseInt(arguments[0]);
+        List<StoreType> storeTypes = new ArrayList<StoreType>();
+        for(int i = 1; i < arguments.length; i++) {
+            storeTypes.add(StoreType.valueOf(arguments[i].toUpperCase()));
+        }
+        if(storeTypes.isEmpty()) {
+            storeTypes.addAll(Arrays.asList(StoreType.values()));
+        }
+
+        List<String> keys = createKeys(numberOfKeys);
+
+        System.out.println("store\tbytes/key\tput p50 (ns)\tput p99 (ns)\tget p50 (ns)\tget p99 (ns)\tscan p50 (ns)\tscan p99 (ns)");
+        for(StoreType storeType : storeTypes) {
+            run(storeType, keys);
+        }
+
+    }
+
+    /*
+     * Inserts and reads all the keys with one store type and prints its measurements
+     */
+    private static void run(StoreType storeType, List<String> keys) {
+
+        long heapBefore = getUsedHeap();
+        KeyValueStore keyValueStore = StoreFactory.createStore(storeType);
+
+        long[] putLatencies = new long[keys.size()];
+        for(int i = 0; i < keys.size(); i++) {
+            // Every store gets its own copy of the key, as it would from a request
+            String key = new String(keys.get(i));
+            StoreEntry entry = new StoreEntry("value" + String.valueOf(i), i + 1);
+
+            long startTime = System.nanoTime();
+            keyValueStore.put(key, entry);
+            putLatencies[i] = System.nanoTime() - startTime;
+        }
+
+        long bytesPerKey = (getUsedHeap() - heapBefore) / keys.size();
+
+        List<String> shuffledKeys = new ArrayList<String>(keys);
+        Collections.shuffle(shuffledKeys);
+        long[] getLatencies = new long[shuffledKeys.size()];
+        for(int i = 0; i < shuffledKeys.size(); i++) {
+            long startTime = System.nanoTime();
+            keyValueStore.get(shuffledKeys.get(i));
+            getLatencies[i] = System.nanoTime() - startTime;
+        }
+
+        String scanLatencies = "-\t-";
+        if(keyValueStore.isOrdered()) {
+            long[] latencies = new long[NUMBER_OF_SCANS];
+            for(int i = 0; i < NUMBER_OF_SCANS; i++) {
+                String startKey = shuffledKeys.get(i % shuffledKeys.size());
+                String prefix = startKey.substring(0, startKey.lastIndexOf(':') + 1);
+
+                long startTime = System.nanoTime();
+                Iterator<Map.Entry<String, StoreEntry>> iterator = keyValueStore.scan(prefix, true);
+                for(int j = 0; j < SCAN_PAGE_SIZE && iterator.hasNext(); j++) {
+                    if(!iterator.next().getKey().startsWith(prefix)) {
+                        break;
+                    }
+                }
+                latencies[i] = System.nanoTime() - startTime;
+            }
+            scanLatencies = String.valueOf(getPercentile(latencies, 50)) + "\t" + String.valueOf(getPercentile(latencies, 99));
+        }
+
+        System.out.println(storeType.name().toLowerCase() + "\t" + String.valueOf(bytesPerKey) 
+            + "\t" + String.valueOf(getPercentile(putLatencies, 50)) + "\t" + String.valueOf(getPercentile(putLatencies, 99))
+            + "\t" + String.valueOf(getPercentile(getLatencies, 50)) + "\t" + String.valueOf(getPercentile(getLatencies, 99))
+            + "\t" + scanLatencies);
+
+        // Keeps the store reachable until its memory has been measured
+        if(keyValueStore.size() != keys.size()) {
+            System.err.println("The " + storeType.name().toLowerCase() + " store holds " + String.valueOf(keyValueStore.size()) + " keys instead of " + String.valueOf(keys.size()) + ".");
+        }
+
+    }
+
+    /*
+     * Creates the keys of the benchmark, which are spread evenly over the tenants and regions
+     */
+    private static List<String> createKeys(int numberOfKeys) {
+
+        List<String> keys = new ArrayList<String>(numberOfKeys);
+        for(int i = 0; i < numberOfKeys; i++) {
+            keys.add(String.format("tenant-%04d:region-%02d:user:%010d", i % NUMBER_OF_TENANTS, (i / NUMBER_OF_TENANTS) % NUMBER_OF_REGIONS, i / (NUMBER_OF_TENANTS * NUMBER_OF_REGIONS)));
+        }
+
+        return keys;
+
+    }
+
+    private static long getUsedHeap() {
+
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+
+    }
+
+    private static long getPercentile(long[] latencies, int percentile) {
+
+        long[] sortedLatencies = latencies.clone();
+        Arrays.sort(sortedLatencies);
+        return sortedLatencies[Math.min(sortedLatencies.length - 1, sortedLatencies.length * percentile / 100)];
+
+    }
+}
@@ -0,0 +1,283 @@
+package edu.northeastern.cs6650.project1.benchmark;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.client.BaseClient;
+import edu.northeastern.cs6650.project1.client.SharedMemoryClient;
+import edu.northeastern.cs6650.project1.client.TCPClient;
+import edu.northeastern.cs6650.project1.client.UDPClient;
+import edu.northeastern.cs6650.project1.common.RequestType;
+import edu.northeastern.cs6650.project1.common.ServerType;
+import edu.northeastern.cs6650.project1.common.Utils;
+import edu.northeastern.cs6650.project1.server.TraceRecorder;
+
+/*
+ * Replays a trace recorded by a server against a server, and reports the latency of every request type
+ * 
+ * Every key of the trace is replaced by a key derived from its hash code, so the replay has the
+ * same number of keys and the same skew, and every value by a value of the same length. The 
+ * requests are sent at their recorded times divided by the speed, or as fast as possible for
+ * the speed max, by several client threads. The requests of a key are always sent by the same
+ * thread, in their recorded order. The latency of a request is measured from the time at which
+ * it should have been sent, so a server that falls behind the trace is not hidden by the client
+ * waiting for it.
+ */
+public class TraceReplay {
+
+    private static final String MAXIMUM_SPEED = "max";
+    private static final int DEFAULT_CONNECTIONS = 8;
+
+    /*
+     * A request of the trace, with the time at which it arrived in nanoseconds since the start of the trace
+     */
+    private static class TraceRecord {
+        final long time;
+        final RequestType requestType;
+        final int keyHash;
+        final int requestLength;
+
+        TraceRecord(long time, RequestType requestType, int keyHash, int requestLength) {
+            this.time = time;
+            this.requestType = requestType;
+            this.keyHash = keyHash;
+            this.requestLength = requestLength;
+        }
+    }
+
+    public static void main(String[] arguments) throws Exception {
+
+        if(arguments.length != 5 && arguments.length != 6) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.benchmark.TraceReplay <trace path> <server ip address or path> <server port> <server type> <speed or max> <connections>.");
+            return;
+        }
+
+        List<TraceRecord> records = readTrace(arguments[0]);
+        ServerType serverType = ServerType.valueOf(arguments[3].toUpperCase());
+        double speed = arguments[4].equalsIgnoreCase(MAXIMUM_SPEED) ? 0 : Double.parseDouble(arguments[4]);
+        int numberOfConnections = arguments.length == 6 ? Integer.parseInt(arguments[5]) : DEFAULT_CONNECTIONS;
+
+        // The replayed keys may not exist, so the errors of the requests are expected and not logged
+        Logger.getLogger("").setLevel(Level.OFF);
+
+        // The requests of a key go to one thread, which keeps them in order
+        List<List<TraceRecord>> recordsPerThread = new ArrayList<List<TraceRecord>>();
+        for(int i = 0; i < numberOfConnections; i++) {
+            recordsPerThread.add(new ArrayList<TraceRecord>());
+        }
+        for(TraceRecord record : records) {
+            recordsPerThread.get(Math.floorMod(record.keyHash, numberOfConnections)).add(record);
+        }
+
+        RequestType[] requestTypes = RequestType.values();
+        long[][][] latenciesPerThread = new long[numberOfConnections][][];
+        AtomicLong failedRequests = new AtomicLong();
+        long startTime = System.nanoTime();
+
+        Thread[] threads = new Thread[numberOfConnections];
+        for(int i = 0; i < numberOfConnections; i++) {
+            BaseClient client = createClient(arguments[1], Integer.parseInt(arguments[2]), serverType);
+            List<TraceRecord> threadRecords = recordsPerThread.get(i);
+            long[][] latencies = new long[requestTypes.length][];
+            int[] counts = new int[requestTypes.length];
+            for(TraceRecord record : threadRecords) {
+                counts[record.requestType.ordinal()]++;
+            }
+            for(int j = 0; j < requestTypes.length; j++) {
+                latencies[j] = new long[counts[j]];
+            }
+            latenciesPerThread[i] = latencies;
+
+            threads[i] = new Thread(() -> {
+                int[] measured = new int[requestTypes.length];
+                for(TraceRecord record : threadRecords) {
+                    StringBuffer requestBody = createRequestBody(record);
+
+                    long sendTime = speed == 0 ? System.nanoTime() : startTime + (long) (record.time / speed);
+                    long delay;
+                    while((delay = sendTime - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(delay);
+                    }
+
+                    if(client.makeServerRequest(requestBody) == null) {
+                        failedRequests.incrementAndGet();
+                    }
+                    latencies[record.requestType.ordinal()][measured[record.requestType.ordinal()]++] = System.nanoTime() - sendTime;
+                }
+            });
+            threads[i].start();
+        }
+
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        long duration = System.nanoTime() - startTime;
+
+        System.out.println(String.format("Replayed %d requests in %.2f s (%.0f requests/s), %d without a response.", records.size(), duration / 1e9, records.size() / (duration / 1e9), failedRequests.get()));
+        System.out.println("request\tcount\tp50 (us)\tp90 (us)\tp99 (us)\tp99.9 (us)\tmax (us)");
+
+        List<long[]> allLatencies = new ArrayList<long[]>();
+        for(RequestType requestType : requestTypes) {
+            List<long[]> typeLatencies = new ArrayList<long[]>();
+            for(long[][] latencies : latenciesPerThread) {
+                typeLatencies.add(latencies[requestType.ordinal()]);
+            }
+
+            long[] merged = merge(typeLatencies);
+            if(merged.length > 0) {
+                printLatencies(requestType.name(), merged);
+                allLatencies.add(merged);
+            }
+        }
+
+        long[] merged = merge(allLatencies);
+        if(merged.length > 0) {
+            printLatencies("ALL", merged);
+        }
+
+    }
+
+    /*
+     * Reads the records of a trace, sorted by their arrival time
+     * 
+     * Records are reserved in the file in a slightly different order than their arrival times,
+     * and the records that were never written, at the end of the file, are skipped.
+     */
+    private static List<TraceRecord> readTrace(String tracePath) throws IOException {
+
+        try(FileChannel channel = FileChannel.open(Paths.get(tracePath), StandardOpenOption.READ)) {
+            MappedByteBuffer trace = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(trace.limit() < TraceRecorder.HEADER_SIZE || trace.getInt(0) != TraceRecorder.MAGIC || trace.getInt(4) != TraceRecorder.RECORD_SIZE) {
+                throw new IOException("The file is not a trace recorded by the server.");
+            }
+
+            // The number of records is only known if the trace was closed
+            long numberOfRecords = (trace.limit() - TraceRecorder.HEADER_SIZE) / TraceRecorder.RECORD_SIZE;
+            if(trace.getLong(16) > 0) {
+                numberOfRecords = Math.min(numberOfRecords, trace.getLong(16));
+            }
+
+            RequestType[] requestTypes = RequestType.values();
+            List<TraceRecord> records = new ArrayList<TraceRecord>();
+            for(long i = 0; i < numberOfRecords; i++) {
+                int offset = (int) (TraceRecorder.HEADER_SIZE + i * TraceRecorder.RECORD_SIZE);
+                int requestType = trace.get(offset + 8);
+                if(requestType <= 0 || requestType > requestTypes.length) {
+                    continue;
+                }
+
+                records.add(new TraceRecord(trace.getLong(offset), requestTypes[requestType - 1], trace.getInt(offset + 9), trace.getInt(offset + 13)));
+            }
+
+            records.sort(Comparator.comparingLong((TraceRecord record) -> record.time));
+            return records;
+        }
+
+    }
+
+    /*
+     * Creates a request of the same type, on a key with the same hash code and with a request body of about the same length
+     */
+    private static StringBuffer createRequestBody(TraceRecord record) {
+
+        String key = "trace:" + Integer.toHexString(record.keyHash);
+        RequestType requestType = record.requestType;
+        int overhead = requestType.name().length() + key.length() + Utils.END_OF_MESSAGE.length() + 3;
+        String value = "x".repeat(Math.max(1, record.requestLength - overhead));
+
+        switch(requestType) {
+            case PUT:
+            case PUT_IF_ABSENT:
+            case DELETE_IF_VALUE:
+            case APPEND:
+            case ZRANK:
+            case ZREM:
+            case PFADD:
+            case PFMERGE:
+            case BFADD:
+            case BFEXISTS:
+                return Utils.createRequestBody(requestType, key, value);
+            case PUT_IF_VERSION:
+            case SETRANGE:
+            case ZADD:
+                return Utils.createRequestBody(requestType, key, value, 0);
+            case INCRBY:
+                return Utils.createRequestBody(requestType, key, "1");
+            case GET_IF_CHANGED:
+                return Utils.createRequestBody(requestType, key, "0");
+            case GETRANGE:
+            case ZRANGE:
+                return Utils.createRequestBody(requestType, key, "0", -1);
+            default:
+                return Utils.createRequestBody(requestType, key);
+        }
+
+    }
+
+    private static BaseClient createClient(String serverAddress, int serverPort, ServerType serverType) {
+
+        switch(serverType) {
+            case UDP:
+                return new UDPClient(serverAddress, serverPort);
+            case UNIX:
+                return new TCPClient(serverAddress);
+            case SHM:
+                return new SharedMemoryClient(serverAddress);
+            default:
+                return new TCPClient(serverAddress, serverPort);
+        }
+
+    }
+
+    private static long[] merge(List<long[]> latencies) {
+
+        long[] merged = new long[latencies.stream().mapToInt(array -> array.length).sum()];
+        int position = 0;
+        for(long[] array : latencies) {
+            System.arraycopy(array, 0, merged, position, array.length);
+            position += array.length;
+        }
+
+        Arrays.sort(merged);
+        return merged;
+
+    }
+
+    private static void printLatencies(String requestType, long[] sortedLatencies) {
+
+        System.out.println(String.format("%s\t%d\t%.1f\t%.1f\t%.1f\t%.1f\t%.1f", requestType, sortedLatencies.length, 
+            getPercentile(sortedLatencies, 50.0) / 1e3, getPercentile(sortedLatencies, 90.0) / 1e3, getPercentile(sortedLatencies, 99.0) / 1e3,
+            getPercentile(sortedLatencies, 99.9) / 1e3, sortedLatencies[sortedLatencies.length - 1] / 1e3));
+
+    }
+
+    private static long getPercentile(long[] sortedLatencies, double percentile) {
+        return sortedLatencies[Math.min(sortedLatencies.length - 1, (int) (sortedLatencies.length * percentile / 100))];
+    }
+}
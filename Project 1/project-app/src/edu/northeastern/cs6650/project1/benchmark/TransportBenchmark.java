@@ -0,0 +1,154 @@
+package edu.northeastern.cs6650.project1.benchmark;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.client.BaseClient;
+import edu.northeastern.cs6650.project1.client.SharedMemoryClient;
+import edu.northeastern.cs6650.project1.client.TCPClient;
+import edu.northeastern.cs6650.project1.common.RequestType;
+import edu.northeastern.cs6650.project1.common.Utils;
+
+/*
+ * Benchmark of the round trip latency of a TCP server over loopback TCP and over a Unix domain socket
+ * 
+ * Two servers are started beforehand on the same host, one listening on a TCP port and one on
+ * a Unix domain socket. If the path of the file of a shared memory server is given as well, the
+ * shared memory transport is measured too, with a client that keeps its slot for all requests. For every transport the benchmark measures GET requests sent one at a
+ * time on a single open connection, which shows the cost of the transport itself, and requests
+ * sent by the TCP client, which opens a new connection for every request. The first tenth of
+ * the requests warms up the connection and is not measured.
+ */
+public class TransportBenchmark {
+
+    private static final String BENCHMARK_KEY = "benchmark";
+
+    public static void main(String[] arguments) throws IOException {
+
+        if(arguments.length != 4 && arguments.length != 5) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.benchmark.TransportBenchmark <server ip address> <server port> <server socket path> <number of requests> <shared memory server path>.");
+            return;
+        }
+
+        String serverIPAddress = arguments[0];
+        int serverPort = Integer.parseInt(arguments[1]);
+        String serverSocketPath = arguments[2];
+        int numberOfRequests = Integer.parseInt(arguments[3]);
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        System.out.println("transport\tconnection\tp50 (us)\tp99 (us)\tmean (us)");
+
+        printLatencies("tcp", "persistent", measurePersistentConnection(new InetSocketAddress(serverIPAddress, serverPort), numberOfRequests));
+        printLatencies("unix", "persistent", measurePersistentConnection(UnixDomainSocketAddress.of(serverSocketPath), numberOfRequests));
+        printLatencies("tcp", "per request", measureClient(new TCPClient(serverIPAddress, serverPort), numberOfRequests));
+        printLatencies("unix", "per request", measureClient(new TCPClient(serverSocketPath), numberOfRequests));
+
+        if(arguments.length == 5) {
+            printLatencies("shm", "persistent", measureClient(new SharedMemoryClient(arguments[4]), numberOfRequests));
+        }
+
+    }
+
+    /*
+     * Sends GET requests one at a time on a single connection and returns their round trip latencies
+     */
+    private static long[] measurePersistentConnection(SocketAddress serverAddress, int numberOfRequests) throws IOException {
+
+        try(SocketChannel channel = SocketChannel.open(serverAddress)) {
+            if(serverAddress instanceof InetSocketAddress) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+
+            BufferedReader serverReader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel)));
+            BufferedWriter serverWriter = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel)));
+
+            sendRequest(serverReader, serverWriter, Utils.createRequestBody(RequestType.PUT, BENCHMARK_KEY, "value"));
+
+            int warmupRequests = numberOfRequests / 10;
+            long[] latencies = new long[numberOfRequests - warmupRequests];
+            for(int i = 0; i < numberOfRequests; i++) {
+                long startTime = System.nanoTime();
+                sendRequest(serverReader, serverWriter, Utils.createRequestBody(RequestType.GET, BENCHMARK_KEY));
+                if(i >= warmupRequests) {
+                    latencies[i - warmupRequests] = System.nanoTime() - startTime;
+                }
+            }
+
+            return latencies;
+        }
+
+    }
+
+    /*
+     * Sends GET requests with a client, where the TCP client connects to the server for every request
+     */
+    private static long[] measureClient(BaseClient client, int numberOfRequests) {
+
+        client.makeServerRequest(Utils.createRequestBody(RequestType.PUT, BENCHMARK_KEY, "value"));
+
+        int warmupRequests = numberOfRequests / 10;
+        long[] latencies = new long[numberOfRequests - warmupRequests];
+        for(int i = 0; i < numberOfRequests; i++) {
+            long startTime = System.nanoTime();
+            client.makeServerRequest(Utils.createRequestBody(RequestType.GET, BENCHMARK_KEY));
+            if(i >= warmupRequests) {
+                latencies[i - warmupRequests] = System.nanoTime() - startTime;
+            }
+        }
+
+        return latencies;
+
+    }
+
+    private static void sendRequest(BufferedReader serverReader, BufferedWriter serverWriter, StringBuffer requestBody) throws IOException {
+
+        serverWriter.write(requestBody.toString());
+        serverWriter.newLine();
+        serverWriter.flush();
+
+        if(Utils.readMessage(serverReader) == null) {
+            throw new IOException("The server closed the connection.");
+        }
+
+    }
+
+    private static void printLatencies(String transport, String connection, long[] latencies) {
+
+        Arrays.sort(latencies);
+        long total = 0;
+        for(long latency : latencies) {
+            total += latency;
+        }
+
+        System.out.println(String.format("%s\t%s\t%.1f\t%.1f\t%.1f", transport, connection, 
+            latencies[latencies.length / 2] / 1e3, latencies[Math.min(latencies.length - 1, latencies.length * 99 / 100)] / 1e3, total / 1e3 / latencies.length));
+
+    }
+}
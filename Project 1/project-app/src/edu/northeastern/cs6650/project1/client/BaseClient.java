@@ -15,6 +15,7 @@ package edu.northeastern.cs6650.project1.client;
  * limitations under the License.
  */
 
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import edu.northeastern.cs6650.project1.common.RequestType;
@@ -27,7 +28,10 @@ public abstract class BaseClient {
 
     private static final Logger LOGGER = Logger.getLogger(BaseClient.class.getName());
 
-    public abstract void makeServerRequest(StringBuffer requestBody);
+    /*
+     * Sends a request to the server and returns the response body, or null if no response was received
+     */
+    public abstract StringBuffer makeServerRequest(StringBuffer requestBody);
 
     /*
      * Processes a response body received from a server
@@ -38,18 +42,23 @@ public abstract class BaseClient {
 
         String[] lines = responseBody.toString().split("\n");
 
-        // Response from a server in this application always has three lines
-        if(lines.length != 3) {
+        // Response from a server in this application has at least three lines
+        // Only the SCAN, AGGREGATE and HOTKEYS responses have more than one message line
+        if(lines.length < 3) {
             LOGGER.severe("Invalid response from the server.");
         } else {
             try {
                 ServerResponseCode serverResponseCode = ServerResponseCode.parseString(lines[0]);
                 switch(serverResponseCode) {
                     case SUCCESS:
-                        LOGGER.info(lines[1]);
+                        LOGGER.info(String.join("\n", Arrays.copyOfRange(lines, 1, lines.length - 1)));
+                        break;
+                    case NOT_MODIFIED:
+                        LOGGER.info("The value held by the client is up to date : " + lines[1]);
                         break;
                     case FAILED:
                     case BAD_REQUEST:
+                    case CONFLICT:
                         LOGGER.severe("Error processing request by the server : " + lines[1]);
                 }
             } catch (Exception exp) {
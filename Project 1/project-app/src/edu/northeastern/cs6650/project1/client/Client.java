@@ -25,13 +25,16 @@ import java.util.logging.Logger;
 
 import edu.northeastern.cs6650.project1.client.TCPClient;
 import edu.northeastern.cs6650.project1.client.UDPClient;
+import edu.northeastern.cs6650.project1.client.SharedMemoryClient;
 import edu.northeastern.cs6650.project1.client.BaseClient;
 import edu.northeastern.cs6650.project1.common.Utils;
 import edu.northeastern.cs6650.project1.common.ServerType;
 import edu.northeastern.cs6650.project1.common.RequestType;
 
 /*
- * A factory that creates a TCP or a UDP client object
+ * A factory that creates a TCP, a UDP, a Unix domain socket or a shared memory client object
+ * 
+ * A Unix domain socket or shared memory client uses the file at the server address and ignores the port.
  */
 class ClientFactory {
     public static BaseClient createClient(String serverIPAddress, int serverPort, ServerType serverType) {
@@ -40,6 +43,10 @@ class ClientFactory {
             return new TCPClient(serverIPAddress, serverPort);
         } else if(serverType == ServerType.UDP) {
             return new UDPClient(serverIPAddress, serverPort);
+        } else if(serverType == ServerType.UNIX) {
+            return new TCPClient(serverIPAddress);
+        } else if(serverType == ServerType.SHM) {
+            return new SharedMemoryClient(serverIPAddress);
         }
         return null;
 
@@ -50,7 +57,9 @@ class ClientFactory {
  * The main client application class
  * 
  * Based on the arguments provided, either a TCP or a UDP client is created and 
- * started. The client listens for a user to input the type of operation to perform
+ * started. A unix or shm client connects to the socket path or shared memory file of
+ * a server on the same host, which is given in place of the server ip address and
+ * port number. The client listens for a user to input the type of operation to perform
  * on the server and the arguments for that operation. The cloent application is 
  * terminated on the press of Control-C.
  */
@@ -69,17 +78,49 @@ public class Client
         return userInput;
 
     }
+
+    /*
+     * Fetches the results of a range or prefix scan one page at a time
+     * 
+     * The cursor returned with each page is sent back with the next request, and the
+     * user is asked before every additional page is fetched.
+     */
+    private static void scanPages(BaseClient client, String startKey, String endKey, String prefix) throws IOException {
+
+        String cursor = null;
+        do {
+            StringBuffer requestBody;
+            if(prefix != null) {
+                requestBody = Utils.createPrefixScanRequestBody(prefix, Utils.SCAN_MAX_PAGE_SIZE, cursor);
+            } else {
+                requestBody = Utils.createRangeScanRequestBody(startKey, endKey, Utils.SCAN_MAX_PAGE_SIZE, cursor);
+            }
+
+            cursor = Utils.getScanCursor(client.makeServerRequest(requestBody));
+            if(!Utils.isKeyValid(cursor)) {
+                break;
+            }
+
+            System.out.print("Fetch the next page? (y/n) : ");
+            String userInput = Client.readUserInput();
+            if(userInput == null || !userInput.trim().equalsIgnoreCase("y")) {
+                break;
+            }
+        } while(true);
+
+    }
+
     public static void main(String[] arguments)
     {
-        if(arguments.length != 3) {
-            LOGGER.severe("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.client.Client <server ip address> <server port number> <server type>.");
+        if(arguments.length != 3 && !(arguments.length == 2 && (arguments[1].equalsIgnoreCase(ServerType.UNIX.name()) || arguments[1].equalsIgnoreCase(ServerType.SHM.name())))) {
+            LOGGER.severe("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.client.Client <server ip address> <server port number> <server type> or <server path> unix or <server path> shm.");
         } else {
             try {
 
                 // Fetch user arguments
                 String serverIPAddress = arguments[0];
-                int serverPort = Integer.parseInt(arguments[1]);
-                ServerType serverType = ServerType.valueOf(arguments[2].toUpperCase());
+                int serverPort = arguments.length == 3 ? Integer.parseInt(arguments[1]) : 0;
+                ServerType serverType = ServerType.valueOf(arguments[arguments.length - 1].toUpperCase());
 
                 // Create a client based on the server type
                 BaseClient client = ClientFactory.createClient(serverIPAddress, serverPort, serverType);
@@ -103,7 +144,7 @@ public class Client
                 }
 
                 while(true) {
-                    System.out.print("Type a request to make (PUT/GET/DELETE) : ");                    
+                    System.out.print("Type a request to make (PUT/GET/GET_IF_CHANGED/DELETE/SCAN/PUT_IF_VERSION/PUT_IF_ABSENT/DELETE_IF_VALUE/INCR/DECR/INCRBY/APPEND/GETRANGE/SETRANGE/ZADD/ZRANGE/ZRANK/ZREM/PFADD/PFCOUNT/PFMERGE/BFADD/BFEXISTS/AGGREGATE/HOTKEYS/DELETE_PREFIX/DELETE_RANGE) : ");                    
                     String userInput = Client.readUserInput();
                     
                     if(userInput != null && RequestType.parseString(userInput) != RequestType.NONE) {
@@ -120,6 +161,24 @@ public class Client
                                     client.makeServerRequest(requestBody);
                                 }
 
+                                break;
+                            case GET_IF_CHANGED:
+                                System.out.print("Type a key to get : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type the version held by the client : ");     
+                                String knownVersion = Client.readUserInput();
+
+                                if(!Utils.isKeyValid(key)) {
+                                    LOGGER.severe("Key is invalid. Please try again.");
+                                } else {
+                                    try {
+                                        StringBuffer requestBody = Utils.createRequestBody(requestType, key, String.valueOf(Long.parseLong(knownVersion.trim())));
+                                        client.makeServerRequest(requestBody);
+                                    } catch (NumberFormatException nfe) {
+                                        LOGGER.severe("Version should be an integer. Please try again.");
+                                    }
+                                }
+
                                 break;
                             case PUT:
                                 System.out.print("Type a key to put : ");     
@@ -147,6 +206,317 @@ public class Client
                                 }
 
                                 break;  
+                            case SCAN:
+                                System.out.print("Type a scan mode (RANGE/PREFIX) : ");     
+                                String scanMode = Client.readUserInput();
+
+                                if(Utils.SCAN_MODE_RANGE.equalsIgnoreCase(scanMode)) {
+                                    System.out.print("Type a start key : ");     
+                                    String startKey = Client.readUserInput();
+                                    System.out.print("Type an end key (exclusive) : ");     
+                                    String endKey = Client.readUserInput();
+
+                                    if(!(Utils.isKeyValid(startKey) && Utils.isKeyValid(endKey))) {
+                                        LOGGER.severe("Start key or end key or both are invalid. Please try again.");
+                                    } else {
+                                        Client.scanPages(client, startKey, endKey, null);
+                                    }
+                                } else if(Utils.SCAN_MODE_PREFIX.equalsIgnoreCase(scanMode)) {
+                                    System.out.print("Type a prefix : ");     
+                                    String prefix = Client.readUserInput();
+
+                                    if(!Utils.isKeyValid(prefix)) {
+                                        LOGGER.severe("Prefix is invalid. Please try again.");
+                                    } else {
+                                        Client.scanPages(client, null, null, prefix);
+                                    }
+                                } else {
+                                    LOGGER.severe("Invalid scan mode. Please try again.");
+                                }
+
+                                break;
+                            case PUT_IF_VERSION:
+                                System.out.print("Type a key to put : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type a value to put : ");     
+                                value = Client.readUserInput();
+                                System.out.print("Type the expected version : ");     
+                                String version = Client.readUserInput();
+
+                                if(!(Utils.isKeyValid(key) && Utils.isValueValid(value))) {
+                                    LOGGER.severe("Key or value or both are invalid. Please try again.");
+                                } else {
+                                    try {
+                                        StringBuffer requestBody = Utils.createRequestBody(requestType, key, value, Long.parseLong(version.trim()));
+                                        client.makeServerRequest(requestBody);
+                                    } catch (NumberFormatException nfe) {
+                                        LOGGER.severe("Version should be an integer. Please try again.");
+                                    }
+                                }
+
+                                break;
+                            case PUT_IF_ABSENT:
+                            case DELETE_IF_VALUE:
+                                System.out.print("Type a key : ");     
+                                key = Client.readUserInput();
+                                System.out.print(requestType == RequestType.PUT_IF_ABSENT ? "Type a value to put : " : "Type the expected value : ");     
+                                value = Client.readUserInput();
+
+                                if(!(Utils.isKeyValid(key) && Utils.isValueValid(value))) {
+                                    LOGGER.severe("Key or value or both are invalid. Please try again.");
+                                } else {
+                                    StringBuffer requestBody = Utils.createRequestBody(requestType, key, value);
+                                    client.makeServerRequest(requestBody);
+                                }
+
+                                break;
+                            case INCR:
+                            case DECR:
+                                System.out.print("Type a counter key : ");     
+                                key = Client.readUserInput();
+
+                                if(!Utils.isKeyValid(key)) {
+                                    LOGGER.severe("Key is invalid. Please try again.");
+                                } else {
+                                    StringBuffer requestBody = Utils.createRequestBody(requestType, key);
+                                    client.makeServerRequest(requestBody);
+                                }
+
+                                break;
+                            case INCRBY:
+                                System.out.print("Type a counter key : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type an increment : ");     
+                                String increment = Client.readUserInput();
+
+                                if(!Utils.isKeyValid(key)) {
+                                    LOGGER.severe("Key is invalid. Please try again.");
+                                } else if(increment == null || !increment.trim().matches("-?\\d+")) {
+                                    LOGGER.severe("Increment should be an integer. Please try again.");
+                                } else {
+                                    StringBuffer requestBody = Utils.createRequestBody(requestType, key, increment.trim());
+                                    client.makeServerRequest(requestBody);
+                                }
+
+                                break;
+                            case APPEND:
+                                System.out.print("Type a key to append to : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type a value to append : ");     
+                                value = Client.readUserInput();
+
+                                if(!(Utils.isKeyValid(key) && Utils.isValueValid(value))) {
+                                    LOGGER.severe("Key or value or both are invalid. Please try again.");
+                                } else {
+                                    StringBuffer requestBody = Utils.createRequestBody(requestType, key, value);
+                                    client.makeServerRequest(requestBody);
+                                }
+
+                                break;
+                            case GETRANGE:
+                                System.out.print("Type a key : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type a start offset : ");     
+                                String start = Client.readUserInput();
+                                System.out.print("Type an end offset (inclusive) : ");     
+                                String end = Client.readUserInput();
+
+                                if(!Utils.isKeyValid(key)) {
+                                    LOGGER.severe("Key is invalid. Please try again.");
+                                } else {
+                                    try {
+                                        StringBuffer requestBody = Utils.createRequestBody(requestType, key, String.valueOf(Integer.parseInt(start.trim())), Integer.parseInt(end.trim()));
+                                        client.makeServerRequest(requestBody);
+                                    } catch (NumberFormatException nfe) {
+                                        LOGGER.severe("Offsets should be integers. Please try again.");
+                                    }
+                                }
+
+                                break;
+                            case SETRANGE:
+                                System.out.print("Type a key : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type a value to write : ");     
+                                value = Client.readUserInput();
+                                System.out.print("Type an offset : ");     
+                                String offset = Client.readUserInput();
+
+                                if(!(Utils.isKeyValid(key) && Utils.isValueValid(value))) {
+                                    LOGGER.severe("Key or value or both are invalid. Please try again.");
+                                } else {
+                                    try {
+                                        StringBuffer requestBody = Utils.createRequestBody(requestType, key, value, Integer.parseInt(offset.trim()));
+                                        client.makeServerRequest(requestBody);
+                                    } catch (NumberFormatException nfe) {
+                                        LOGGER.severe("Offset should be an integer. Please try again.");
+                                    }
+                                }
+
+                                break;
+                            case ZADD:
+                                System.out.print("Type a sorted set key : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type a member to add : ");     
+                                value = Client.readUserInput();
+                                System.out.print("Type a score : ");     
+                                String score = Client.readUserInput();
+
+                                if(!(Utils.isKeyValid(key) && Utils.isValueValid(value))) {
+                                    LOGGER.severe("Key or member or both are invalid. Please try again.");
+                                } else {
+                                    try {
+                                        StringBuffer requestBody = Utils.createRequestBody(requestType, key, value, Double.parseDouble(score.trim()));
+                                        client.makeServerRequest(requestBody);
+                                    } catch (NumberFormatException nfe) {
+                                        LOGGER.severe("Score should be a number. Please try again.");
+                                    }
+                                }
+
+                                break;
+                            case ZRANGE:
+                                System.out.print("Type a sorted set key : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type a start rank : ");     
+                                start = Client.readUserInput();
+                                System.out.print("Type an end rank (inclusive) : ");     
+                                end = Client.readUserInput();
+
+                                if(!Utils.isKeyValid(key)) {
+                                    LOGGER.severe("Key is invalid. Please try again.");
+                                } else {
+                                    try {
+                                        StringBuffer requestBody = Utils.createRequestBody(requestType, key, String.valueOf(Integer.parseInt(start.trim())), Integer.parseInt(end.trim()));
+                                        client.makeServerRequest(requestBody);
+                                    } catch (NumberFormatException nfe) {
+                                        LOGGER.severe("Ranks should be integers. Please try again.");
+                                    }
+                                }
+
+                                break;
+                            case PFADD:
+                            case BFADD:
+                            case BFEXISTS:
+                                System.out.print(requestType == RequestType.PFADD ? "Type a HyperLogLog key : " : "Type a Bloom filter key : ");     
+                                key = Client.readUserInput();
+                                System.out.print(requestType == RequestType.BFEXISTS ? "Type an element to check : " : "Type an element to add : ");     
+                                value = Client.readUserInput();
+
+                                if(!(Utils.isKeyValid(key) && Utils.isValueValid(value))) {
+                                    LOGGER.severe("Key or element or both are invalid. Please try again.");
+                                } else {
+                                    StringBuffer requestBody = Utils.createRequestBody(requestType, key, value);
+                                    client.makeServerRequest(requestBody);
+                                }
+
+                                break;
+                            case PFCOUNT:
+                                System.out.print("Type a HyperLogLog key : ");     
+                                key = Client.readUserInput();
+
+                                if(!Utils.isKeyValid(key)) {
+                                    LOGGER.severe("Key is invalid. Please try again.");
+                                } else {
+                                    StringBuffer requestBody = Utils.createRequestBody(requestType, key);
+                                    client.makeServerRequest(requestBody);
+                                }
+
+                                break;
+                            case PFMERGE:
+                                System.out.print("Type a destination HyperLogLog key : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type a source HyperLogLog key : ");     
+                                String sourceKey = Client.readUserInput();
+
+                                if(!(Utils.isKeyValid(key) && Utils.isKeyValid(sourceKey))) {
+                                    LOGGER.severe("Destination key or source key or both are invalid. Please try again.");
+                                } else {
+                                    StringBuffer requestBody = Utils.createRequestBody(requestType, key, sourceKey);
+                                    client.makeServerRequest(requestBody);
+                                }
+
+                                break;
+                            case ZRANK:
+                            case ZREM:
+                                System.out.print("Type a sorted set key : ");     
+                                key = Client.readUserInput();
+                                System.out.print(requestType == RequestType.ZRANK ? "Type a member to rank : " : "Type a member to remove : ");     
+                                value = Client.readUserInput();
+
+                                if(!(Utils.isKeyValid(key) && Utils.isValueValid(value))) {
+                                    LOGGER.severe("Key or member or both are invalid. Please try again.");
+                                } else {
+                                    StringBuffer requestBody = Utils.createRequestBody(requestType, key, value);
+                                    client.makeServerRequest(requestBody);
+                                }
+
+                                break;
+                            case AGGREGATE:
+                                System.out.print("Type an aggregate function (COUNT/BYTES/TOP) : ");     
+                                String function = Client.readUserInput();
+                                System.out.print("Type a prefix (* for all keys) : ");     
+                                String prefix = Client.readUserInput();
+                                function = function == null ? "" : function.trim().toUpperCase();
+
+                                if(!Utils.isKeyValid(prefix)) {
+                                    LOGGER.severe("Prefix is invalid. Please try again.");
+                                } else if(function.equals(Utils.AGGREGATE_COUNT) || function.equals(Utils.AGGREGATE_BYTES)) {
+                                    client.makeServerRequest(Utils.createAggregateRequestBody(function, prefix, 0));
+                                } else if(function.equals(Utils.AGGREGATE_TOP)) {
+                                    System.out.print("Type the number of keys : ");     
+                                    String limit = Client.readUserInput();
+
+                                    try {
+                                        client.makeServerRequest(Utils.createAggregateRequestBody(function, prefix, Integer.parseInt(limit.trim())));
+                                    } catch (NumberFormatException nfe) {
+                                        LOGGER.severe("Number of keys should be an integer. Please try again.");
+                                    }
+                                } else {
+                                    LOGGER.severe("Invalid aggregate function. Please try again.");
+                                }
+
+                                break;
+                            case HOTKEYS:
+                                System.out.print("Type a metric (READS/WRITES/BYTES) : ");     
+                                String metric = Client.readUserInput();
+                                System.out.print("Type the number of keys : ");     
+                                String numberOfKeys = Client.readUserInput();
+                                metric = metric == null ? "" : metric.trim().toUpperCase();
+
+                                if(!(metric.equals(Utils.HOTKEYS_READS) || metric.equals(Utils.HOTKEYS_WRITES) || metric.equals(Utils.HOTKEYS_BYTES))) {
+                                    LOGGER.severe("Invalid metric. Please try again.");
+                                } else {
+                                    try {
+                                        client.makeServerRequest(Utils.createHotKeysRequestBody(metric, Integer.parseInt(numberOfKeys.trim())));
+                                    } catch (NumberFormatException nfe) {
+                                        LOGGER.severe("Number of keys should be an integer. Please try again.");
+                                    }
+                                }
+
+                                break;
+                            case DELETE_PREFIX:
+                                System.out.print("Type a prefix to delete : ");     
+                                key = Client.readUserInput();
+
+                                if(!Utils.isKeyValid(key)) {
+                                    LOGGER.severe("Prefix is invalid. Please try again.");
+                                } else {
+                                    client.makeServerRequest(Utils.createRequestBody(requestType, key));
+                                }
+
+                                break;
+                            case DELETE_RANGE:
+                                System.out.print("Type a start key : ");     
+                                key = Client.readUserInput();
+                                System.out.print("Type an end key (exclusive) : ");     
+                                value = Client.readUserInput();
+
+                                if(!(Utils.isKeyValid(key) && Utils.isKeyValid(value))) {
+                                    LOGGER.severe("Start key or end key or both are invalid. Please try again.");
+                                } else {
+                                    client.makeServerRequest(Utils.createRequestBody(requestType, key, value));
+                                }
+
+                                break;
                         }
                     } else {
                         LOGGER.severe("Invalid request type. Please try again.");
@@ -155,7 +525,7 @@ public class Client
             } catch (NumberFormatException nfe) {
                 LOGGER.severe("The port number should be an integer.");
             } catch(IllegalArgumentException iae) {
-                LOGGER.severe("The server type should be either tcp or udp.");
+                LOGGER.severe("The server type should be either tcp, udp, unix or shm.");
             } catch(SocketTimeoutException ioe) {
                 LOGGER.severe("Connection attempt to server timed out.");
             } catch(IOException ioe) {
@@ -0,0 +1,127 @@
+package edu.northeastern.cs6650.project1.client;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.client.BaseClient;
+import edu.northeastern.cs6650.project1.common.SharedMemoryFile;
+import edu.northeastern.cs6650.project1.common.SharedMemoryRing;
+import edu.northeastern.cs6650.project1.common.Utils;
+
+/*
+ * Implementation of the shared memory client
+ * 
+ * The client maps the shared memory file of a server on the same host and claims a
+ * slot in it on its first request, which it keeps until the process exits. A request
+ * is written into the request ring of the slot, and the client busy spins on the
+ * response ring until the response with the same sequence number arrives. A response
+ * to an earlier request that timed out is discarded.
+ */
+public class SharedMemoryClient extends BaseClient {
+
+    private static final Logger LOGGER = Logger.getLogger(SharedMemoryClient.class.getName());
+
+    private String serverPath;
+    private SharedMemoryFile sharedMemoryFile;
+    private SharedMemoryRing requestRing;
+    private SharedMemoryRing responseRing;
+    private long nextSequence;
+
+    public SharedMemoryClient(String serverPath) {
+        this.serverPath = serverPath;
+
+        // A slot may have been used by another client, so sequence numbers do not start from zero
+        this.nextSequence = System.nanoTime();
+    }
+
+    /*
+     * Sends a request to the shared memory server and process the server response
+     */
+    public synchronized StringBuffer makeServerRequest(StringBuffer requestBody) {
+
+        try {
+            if(sharedMemoryFile == null) {
+                connect();
+            }
+
+            byte[] request = requestBody.toString().getBytes(StandardCharsets.UTF_8);
+            if(request.length > requestRing.getMaximumMessageLength()) {
+                LOGGER.severe("The request is too large for the shared memory transport.");
+                return null;
+            }
+
+            long sequence = ++nextSequence;
+            long deadline = System.nanoTime() + Utils.SERVER_TIMEOUT * 1000000L;
+            int idleRounds = 0;
+            while(!requestRing.offer(sequence, request)) {
+                if(System.nanoTime() > deadline) {
+                    LOGGER.severe("Error sending request to the server or timeout happened.");
+                    return null;
+                }
+                idleRounds = SharedMemoryRing.idle(idleRounds);
+            }
+
+            // Wait for the response to this request
+            long responseSequence[] = { 0 };
+            idleRounds = 0;
+            while(true) {
+                byte[] response = responseRing.poll(responseSequence);
+                if(response != null && responseSequence[0] == sequence) {
+                    StringBuffer responseBody = new StringBuffer(new String(response, StandardCharsets.UTF_8));
+                    this.processServerResponse(responseBody);
+                    return responseBody;
+                } else if(response != null) {
+                    continue;
+                }
+
+                if(System.nanoTime() > deadline) {
+                    LOGGER.severe("Error sending request to the server or timeout happened.");
+                    return null;
+                }
+                idleRounds = SharedMemoryRing.idle(idleRounds);
+            }
+        } catch (IOException ioe) {
+            LOGGER.severe("Error connecting to the shared memory server : " + ioe.getMessage());
+        }
+
+        return null;
+
+    }
+
+    /*
+     * Maps the shared memory file of the server and claims a slot, which is released when the process exits
+     */
+    private void connect() throws IOException {
+
+        SharedMemoryFile sharedMemoryFile = SharedMemoryFile.open(serverPath);
+        int slot = sharedMemoryFile.claimSlot();
+        if(slot < 0) {
+            throw new IOException("All the client slots of the server are in use.");
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> sharedMemoryFile.releaseSlot(slot)));
+
+        // Responses left behind by a previous client of the slot are discarded
+        this.responseRing = sharedMemoryFile.getResponseRing(slot);
+        this.responseRing.clear();
+        this.requestRing = sharedMemoryFile.getRequestRing(slot);
+        this.sharedMemoryFile = sharedMemoryFile;
+
+    }
+}
@@ -16,11 +16,16 @@ package edu.northeastern.cs6650.project1.client;
  */
 
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.util.logging.Logger;
@@ -33,51 +38,81 @@ import edu.northeastern.cs6650.project1.common.Utils;
  * Implementation of the TCP client 
  * 
  * The TCP client sends a request to the TCP server, waits for a response 
- * and processes the response.
+ * and processes the response. A client on the same host as the server may
+ * connect to the Unix domain socket of the server instead of a TCP port.
  */
 public class TCPClient extends BaseClient{
 
     private static final Logger LOGGER = Logger.getLogger(TCPClient.class.getName());
 
-    private Socket clientSocket;
     private String serverIPAddress;
     private int serverPort;
+    private String serverSocketPath;
 
     public TCPClient(String serverIPAddress, int serverPort) {
         this.serverIPAddress = serverIPAddress;
         this.serverPort = serverPort;
     }
+
+    /*
+     * Creates a client that connects to the Unix domain socket of a server at the given path
+     */
+    public TCPClient(String serverSocketPath) {
+        this.serverSocketPath = serverSocketPath;
+    }
     
     /*
      * Sends a request to the TCP server and process the server response
      */
-    public void makeServerRequest(StringBuffer requestBody) {
+    public StringBuffer makeServerRequest(StringBuffer requestBody) {
 
+        Closeable clientConnection = null;
         try {
-            clientSocket = new Socket();
-            clientSocket.connect(new InetSocketAddress(this.serverIPAddress, this.serverPort), 5000);
+            InputStream serverInputStream;
+            OutputStream serverOutputStream;
+            if(this.serverSocketPath != null) {
+                SocketChannel clientChannel = SocketChannel.open(UnixDomainSocketAddress.of(this.serverSocketPath));
+                clientConnection = clientChannel;
+                serverInputStream = Channels.newInputStream(clientChannel);
+                serverOutputStream = Channels.newOutputStream(clientChannel);
+            } else {
+                Socket clientSocket = new Socket();
+                clientConnection = clientSocket;
+                clientSocket.connect(new InetSocketAddress(this.serverIPAddress, this.serverPort), 5000);
+                serverInputStream = clientSocket.getInputStream();
+                serverOutputStream = clientSocket.getOutputStream();
+            }
 
             // Send user input to the server, get the response and show to user
-            BufferedWriter serverWriter = new BufferedWriter(new OutputStreamWriter(clientSocket.getOutputStream()));
+            BufferedWriter serverWriter = new BufferedWriter(new OutputStreamWriter(serverOutputStream));
             serverWriter.write(requestBody.toString());
             serverWriter.newLine();
             serverWriter.flush();
 
-            processServerResponse(clientSocket);
+            return processServerResponse(serverInputStream);
         } catch (IOException ioe) {
             LOGGER.severe("Error sending request to the server or timeout happened.");
+        } finally {
+            try {
+                if(clientConnection != null) {
+                    clientConnection.close();
+                }
+            } catch (IOException ioe) {
+                LOGGER.severe("Error closing the connection to the server.");
+            }
         }
 
+        return null;
+
     }
 
     /*
      * Process response from the TCP server
      */
-    protected void processServerResponse(Socket clientSocket) {
+    protected StringBuffer processServerResponse(InputStream serverSocketInputStream) {
 
         try {
             StringBuffer responseBody = new StringBuffer();
-            InputStream serverSocketInputStream = clientSocket.getInputStream();
             
             // Read the response by reading 256 bytes at a time
             byte[] buffer = new byte[256];
@@ -93,9 +128,12 @@ public class TCPClient extends BaseClient{
 
             // process the read response
             this.processServerResponse(responseBody);
+            return responseBody;
         } catch(Exception exp) {
             LOGGER.severe("Error processing server response.");
         }
 
+        return null;
+
     }
 }
@@ -46,7 +46,7 @@ public class UDPClient extends BaseClient {
     /*
      * Sends a request to the UDP server and process the server response
      */
-    public void makeServerRequest(StringBuffer requestBody) {
+    public StringBuffer makeServerRequest(StringBuffer requestBody) {
 
         try {
             DatagramSocket serverSocket = new DatagramSocket();
@@ -60,29 +60,35 @@ public class UDPClient extends BaseClient {
             // set timeout for server response
             serverSocket.setSoTimeout(Utils.SERVER_TIMEOUT);
 
-            processServerResponse(serverSocket);    
+            return processServerResponse(serverSocket);    
         } catch (Exception exp){
             LOGGER.severe("Error sending message to the server.");
         }
 
+        return null;
+
     }
 
     /*
      * Process response from the UDP server
      */
-    protected void processServerResponse(DatagramSocket serverSocket) {
+    protected StringBuffer processServerResponse(DatagramSocket serverSocket) {
 
         try {
             byte[] buffer = new byte[10000]; 
             DatagramPacket reply = new DatagramPacket(buffer, buffer.length);
             serverSocket.receive(reply);
 
-            this.processServerResponse(new StringBuffer(new String(reply.getData())));
+            StringBuffer responseBody = new StringBuffer(new String(reply.getData(), 0, reply.getLength()));
+            this.processServerResponse(responseBody);
+            return responseBody;
         } catch (SocketTimeoutException e) {
             LOGGER.severe("Connection to server timed out.");
         } catch(Exception exp) {
             LOGGER.severe("Error processing server response.");
         }
+
+        return null;
         
     }
 
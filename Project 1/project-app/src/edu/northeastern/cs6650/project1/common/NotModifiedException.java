@@ -0,0 +1,30 @@
+package edu.northeastern.cs6650.project1.common;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Exception thrown by the server when the value requested by a conditional GET has not changed
+ * 
+ * This is sent back to the client with the NOT_MODIFIED response code, without the value.
+ */
+public class NotModifiedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public NotModifiedException(String message) {
+        super(message);
+    }
+}
@@ -20,8 +20,32 @@ package edu.northeastern.cs6650.project1.common;
  */
 public enum RequestType {
     GET,
+    GET_IF_CHANGED,
     PUT,
     DELETE,
+    SCAN,
+    PUT_IF_VERSION,
+    PUT_IF_ABSENT,
+    DELETE_IF_VALUE,
+    INCR,
+    DECR,
+    INCRBY,
+    APPEND,
+    GETRANGE,
+    SETRANGE,
+    ZADD,
+    ZRANGE,
+    ZRANK,
+    ZREM,
+    PFADD,
+    PFCOUNT,
+    PFMERGE,
+    BFADD,
+    BFEXISTS,
+    AGGREGATE,
+    HOTKEYS,
+    DELETE_PREFIX,
+    DELETE_RANGE,
     NONE;
 
     public static RequestType parseString(String requestType) {
@@ -34,4 +58,11 @@ public enum RequestType {
 
         return NONE;
     }
+
+    /*
+     * Returns true if the request spans many keys, so it is processed by every partition of the keyspace
+     */
+    public boolean isMultiKey() {
+        return this == SCAN || this == AGGREGATE || this == HOTKEYS || this == DELETE_PREFIX || this == DELETE_RANGE;
+    }
 }
\ No newline at end of file
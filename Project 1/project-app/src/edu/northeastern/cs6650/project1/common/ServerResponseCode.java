@@ -20,7 +20,9 @@ package edu.northeastern.cs6650.project1.common;
  */
 public enum ServerResponseCode {
     SUCCESS(200),
+    NOT_MODIFIED(304),
     BAD_REQUEST(400),
+    CONFLICT(409),
     FAILED(500),
     NONE(-1);
 
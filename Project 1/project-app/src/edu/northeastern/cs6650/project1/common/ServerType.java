@@ -20,5 +20,7 @@ package edu.northeastern.cs6650.project1.common;
  */
 public enum ServerType {
     TCP,
-    UDP
+    UDP,
+    UNIX,
+    SHM
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package edu.northeastern.cs6650.project1.common;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import edu.northeastern.cs6650.project1.common.SharedMemoryRing;
+
+/*
+ * The memory mapped file shared by a shared memory server and its clients
+ * 
+ * The file starts with a header and is followed by a fixed number of client slots. A slot
+ * holds an ownership flag, a request ring written by the client and read by the server, and a
+ * response ring written by the server and read by the client. A client claims a free slot with
+ * a compare-and-set on its flag, so every ring has exactly one producer and one consumer, and
+ * the single server thread that polls the request rings of all the slots acts as the consumer
+ * of a multiple producer queue without any producer ever contending with another.
+ */
+public class SharedMemoryFile {
+
+    public static final int NUMBER_OF_SLOTS = 16;
+    public static final int RING_CAPACITY = 1 << 20;
+
+    private static final int MAGIC = 0x4b565348;
+    private static final int FILE_HEADER_SIZE = 64;
+    private static final int SLOT_HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = SLOT_HEADER_SIZE + 2 * (SharedMemoryRing.HEADER_SIZE + RING_CAPACITY);
+
+    private static final VarHandle INT_HANDLE = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final MappedByteBuffer buffer;
+    private final SharedMemoryRing[] requestRings = new SharedMemoryRing[NUMBER_OF_SLOTS];
+    private final SharedMemoryRing[] responseRings = new SharedMemoryRing[NUMBER_OF_SLOTS];
+
+    private SharedMemoryFile(MappedByteBuffer buffer) {
+
+        this.buffer = buffer;
+        for(int slot = 0; slot < NUMBER_OF_SLOTS; slot++) {
+            int slotOffset = FILE_HEADER_SIZE + slot * SLOT_SIZE;
+            requestRings[slot] = new SharedMemoryRing(buffer, slotOffset + SLOT_HEADER_SIZE, RING_CAPACITY);
+            responseRings[slot] = new SharedMemoryRing(buffer, slotOffset + SLOT_HEADER_SIZE + SharedMemoryRing.HEADER_SIZE + RING_CAPACITY, RING_CAPACITY);
+        }
+
+    }
+
+    /*
+     * Creates a new shared memory file at a path, replacing any file left behind by a previous server
+     * 
+     * The magic number is written last, so a client never opens a file that is not ready.
+     */
+    public static SharedMemoryFile create(String path) throws IOException {
+
+        File file = new File(path);
+        file.delete();
+        file.deleteOnExit();
+
+        try(RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_SIZE + (long) NUMBER_OF_SLOTS * SLOT_SIZE);
+            INT_HANDLE.setRelease(buffer, 0, MAGIC);
+            return new SharedMemoryFile(buffer);
+        }
+
+    }
+
+    /*
+     * Opens the shared memory file that a server created at a path
+     */
+    public static SharedMemoryFile open(String path) throws IOException {
+
+        try(RandomAccessFile randomAccessFile = new RandomAccessFile(path, "rw")) {
+            long size = FILE_HEADER_SIZE + (long) NUMBER_OF_SLOTS * SLOT_SIZE;
+            if(randomAccessFile.length() != size) {
+                throw new IOException("The file is not a shared memory file of a server : " + path + ".");
+            }
+
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if((int) INT_HANDLE.getAcquire(buffer, 0) != MAGIC) {
+                throw new IOException("The file is not a shared memory file of a server : " + path + ".");
+            }
+
+            return new SharedMemoryFile(buffer);
+        }
+
+    }
+
+    /*
+     * Claims a free slot for a client and returns its index, or -1 if all the slots are in use
+     */
+    public int claimSlot() {
+
+        for(int slot = 0; slot < NUMBER_OF_SLOTS; slot++) {
+            if(INT_HANDLE.compareAndSet(buffer, FILE_HEADER_SIZE + slot * SLOT_SIZE, 0, 1)) {
+                return slot;
+            }
+        }
+
+        return -1;
+
+    }
+
+    public void releaseSlot(int slot) {
+        INT_HANDLE.setRelease(buffer, FILE_HEADER_SIZE + slot * SLOT_SIZE, 0);
+    }
+
+    public SharedMemoryRing getRequestRing(int slot) {
+        return requestRings[slot];
+    }
+
+    public SharedMemoryRing getResponseRing(int slot) {
+        return responseRings[slot];
+    }
+}
@@ -0,0 +1,164 @@
+package edu.northeastern.cs6650.project1.common;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * A lock-free ring buffer of messages in shared memory, for exactly one producer and one consumer
+ * 
+ * The ring lives in a region of a memory mapped file, so the producer and the consumer may be 
+ * in different processes. Like the SpscQueue, it is indexed by two ever increasing counters, the 
+ * tail written only by the producer and the head written only by the consumer, each on its own 
+ * cache line. A message is stored as its length, its sequence number and its bytes, wrapping 
+ * around the end of the region, and is published by a release store of the tail.
+ */
+public class SharedMemoryRing {
+
+    public static final int HEADER_SIZE = 128;
+
+    private static final int RECORD_HEADER_SIZE = 12;
+    // Spinning on a single core only delays the other side, so the waiting starts with yielding there
+    private static final int SPIN_LIMIT = Runtime.getRuntime().availableProcessors() > 1 ? 10000 : 0;
+    private static final int YIELD_LIMIT = 100;
+    private static final long PARK_NANOS = 50000;
+
+    private static final VarHandle LONG_HANDLE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final int tailOffset;
+    private final int headOffset;
+    private final int dataOffset;
+    private final int capacity;
+
+    /*
+     * Creates a view of a ring whose header starts at an offset of the buffer, followed by capacity bytes of data
+     * 
+     * The capacity must be a power of two.
+     */
+    public SharedMemoryRing(ByteBuffer buffer, int offset, int capacity) {
+        this.buffer = buffer;
+        this.tailOffset = offset;
+        this.headOffset = offset + HEADER_SIZE / 2;
+        this.dataOffset = offset + HEADER_SIZE;
+        this.capacity = capacity;
+    }
+
+    public int getMaximumMessageLength() {
+        return capacity - RECORD_HEADER_SIZE;
+    }
+
+    /*
+     * Adds a message with its sequence number and returns false if there is not enough free space
+     * 
+     * Must only be called by the producer.
+     */
+    public boolean offer(long sequence, byte[] message) {
+
+        long tail = (long) LONG_HANDLE.get(buffer, tailOffset);
+        long head = (long) LONG_HANDLE.getAcquire(buffer, headOffset);
+        if(RECORD_HEADER_SIZE + message.length > capacity - (tail - head)) {
+            return false;
+        }
+
+        byte[] recordHeader = new byte[RECORD_HEADER_SIZE];
+        ByteBuffer.wrap(recordHeader).putInt(message.length).putLong(sequence);
+        write(tail, recordHeader);
+        write(tail + RECORD_HEADER_SIZE, message);
+
+        LONG_HANDLE.setRelease(buffer, tailOffset, tail + RECORD_HEADER_SIZE + message.length);
+        return true;
+
+    }
+
+    /*
+     * Removes and returns the next message, or null if the ring is empty
+     * 
+     * The sequence number of the message is returned in the first element of the sequence 
+     * array. Must only be called by the consumer.
+     */
+    public byte[] poll(long sequence[]) {
+
+        long head = (long) LONG_HANDLE.get(buffer, headOffset);
+        long tail = (long) LONG_HANDLE.getAcquire(buffer, tailOffset);
+        if(head == tail) {
+            return null;
+        }
+
+        byte[] recordHeader = new byte[RECORD_HEADER_SIZE];
+        read(head, recordHeader);
+        ByteBuffer recordHeaderBuffer = ByteBuffer.wrap(recordHeader);
+        byte[] message = new byte[recordHeaderBuffer.getInt()];
+        sequence[0] = recordHeaderBuffer.getLong();
+        read(head + RECORD_HEADER_SIZE, message);
+
+        LONG_HANDLE.setRelease(buffer, headOffset, head + RECORD_HEADER_SIZE + message.length);
+        return message;
+
+    }
+
+    /*
+     * Discards all the messages in the ring
+     * 
+     * Must only be called by the consumer.
+     */
+    public void clear() {
+        LONG_HANDLE.setRelease(buffer, headOffset, (long) LONG_HANDLE.getAcquire(buffer, tailOffset));
+    }
+
+    /*
+     * Waits between two unsuccessful polls of a ring and returns the number of rounds waited so far
+     * 
+     * The caller busy spins at first, so a message that arrives soon is picked up within nanoseconds,
+     * then yields its core and finally parks for short periods. A process that waits on a ring in
+     * another process cannot be unparked by it, so the park is bounded.
+     */
+    public static int idle(int idleRounds) {
+
+        if(idleRounds < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else if(idleRounds < SPIN_LIMIT + YIELD_LIMIT) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+
+        return idleRounds + 1;
+
+    }
+
+    private void write(long position, byte[] bytes) {
+
+        int index = (int) (position & (capacity - 1));
+        int firstLength = Math.min(bytes.length, capacity - index);
+        buffer.put(dataOffset + index, bytes, 0, firstLength);
+        buffer.put(dataOffset, bytes, firstLength, bytes.length - firstLength);
+
+    }
+
+    private void read(long position, byte[] bytes) {
+
+        int index = (int) (position & (capacity - 1));
+        int firstLength = Math.min(bytes.length, capacity - index);
+        buffer.get(dataOffset + index, bytes, 0, firstLength);
+        buffer.get(dataOffset, bytes, firstLength, bytes.length - firstLength);
+
+    }
+}
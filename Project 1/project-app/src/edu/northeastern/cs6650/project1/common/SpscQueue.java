@@ -0,0 +1,107 @@
+package edu.northeastern.cs6650.project1.common;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * A bounded, lock-free queue for exactly one producer thread and one consumer thread
+ * 
+ * The queue is a ring buffer indexed by two ever increasing counters. Only the producer 
+ * writes the tail and only the consumer writes the head, so neither side needs a lock 
+ * or a compare-and-set. Each side also caches the last index it read from the other side
+ * and only reads the shared index again when the cached one says the queue is full or
+ * empty, which keeps the cache line of the other side from bouncing on every operation.
+ */
+public class SpscQueue<E> {
+
+    private final Object[] buffer;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // Owned by the producer
+    private long cachedHead;
+
+    // Owned by the consumer
+    private long cachedTail;
+
+    /*
+     * Creates a queue whose capacity is the given capacity rounded up to a power of two
+     */
+    public SpscQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /*
+     * Adds an element at the tail of the queue and returns false if the queue is full
+     * 
+     * Must only be called by the producer thread.
+     */
+    public boolean offer(E element) {
+
+        long currentTail = tail.get();
+        if(currentTail - cachedHead >= buffer.length) {
+            cachedHead = head.get();
+            if(currentTail - cachedHead >= buffer.length) {
+                return false;
+            }
+        }
+
+        buffer[(int) (currentTail & mask)] = element;
+
+        // A volatile write, so that a consumer that is about to park sees the element
+        tail.set(currentTail + 1);
+        return true;
+
+    }
+
+    /*
+     * Returns true if the queue has no elements
+     * 
+     * Must only be called by the consumer thread.
+     */
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    /*
+     * Removes and returns the element at the head of the queue, or null if the queue is empty
+     * 
+     * Must only be called by the consumer thread.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+
+        long currentHead = head.get();
+        if(currentHead >= cachedTail) {
+            cachedTail = tail.get();
+            if(currentHead >= cachedTail) {
+                return null;
+            }
+        }
+
+        int index = (int) (currentHead & mask);
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(currentHead + 1);
+        return element;
+
+    }
+}
@@ -15,6 +15,16 @@ package edu.northeastern.cs6650.project1.common;
  * limitations under the License.
  */
 
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 import edu.northeastern.cs6650.project1.common.RequestType;
 import edu.northeastern.cs6650.project1.common.ServerResponseCode;
 
@@ -25,6 +35,24 @@ public class Utils {
 
     public static String END_OF_MESSAGE = "EOM";
     public static final int SERVER_TIMEOUT = 5000;
+    public static final String SCAN_MODE_RANGE = "RANGE";
+    public static final String SCAN_MODE_PREFIX = "PREFIX";
+    public static final int SCAN_MAX_PAGE_SIZE = 100;
+    public static final String VERSION_MESSAGE_PREFIX = "The version is : ";
+    public static final String GET_VALUE_MESSAGE_SEPARATOR = "The value is : ";
+    public static final String AGGREGATE_COUNT = "COUNT";
+    public static final String AGGREGATE_BYTES = "BYTES";
+    public static final String AGGREGATE_TOP = "TOP";
+    public static final String AGGREGATE_ALL_KEYS = "*";
+    public static final String RESULT_MESSAGE_PREFIX = "The result is : ";
+    public static final String HOTKEYS_READS = "READS";
+    public static final String HOTKEYS_WRITES = "WRITES";
+    public static final String HOTKEYS_BYTES = "BYTES";
+
+    /*
+     * Orders keys by the size of their value, largest first, and then by key so that ties are broken the same way on every shard
+     */
+    public static final Comparator<Map.Entry<String, Long>> LARGEST_VALUE_FIRST = Comparator.comparing((Map.Entry<String, Long> entry) -> entry.getValue()).reversed().thenComparing(Map.Entry::getKey);
 
 
     public static boolean isKeyValid(String key) {
@@ -83,6 +111,463 @@ public class Utils {
 
     }
 
+    /*
+     * Creates a request body the PUT_IF_VERSION request type
+     * 
+     * This is common for both the TCP and UDP client
+     */
+    public static StringBuffer createRequestBody(RequestType requestType, String key, String value, long version) {
+
+        StringBuffer requestBody = new StringBuffer();
+        requestBody.append(requestType.name());
+        requestBody.append("\n");
+        requestBody.append(key);
+        requestBody.append("\n");
+        requestBody.append(value);
+        requestBody.append("\n");
+        requestBody.append(version);
+        requestBody.append("\n");
+        requestBody.append(END_OF_MESSAGE);
+        return requestBody;
+
+    }
+
+    /*
+     * Creates a request body for the ZADD request type, with the member as the value
+     */
+    public static StringBuffer createRequestBody(RequestType requestType, String key, String value, double score) {
+
+        StringBuffer requestBody = new StringBuffer();
+        requestBody.append(requestType.name());
+        requestBody.append("\n");
+        requestBody.append(key);
+        requestBody.append("\n");
+        requestBody.append(value);
+        requestBody.append("\n");
+        requestBody.append(score);
+        requestBody.append("\n");
+        requestBody.append(END_OF_MESSAGE);
+        return requestBody;
+
+    }
+
+    /*
+     * Returns the entry version from the response body of a successful GET or write request
+     *
+     * The version is sent on the message line that follows the status line. A failed
+     * conditional request also carries the current version of the key, so that the client
+     * can retry, and a NOT_MODIFIED response carries the version the client already holds.
+     * -1 is returned if the response does not carry a version.
+     */
+    public static long getVersion(StringBuffer responseBody) {
+
+        if(responseBody == null) {
+            return -1;
+        }
+
+        String[] lines = responseBody.toString().split("\n");
+        if(lines.length < 4 || !lines[2].startsWith(VERSION_MESSAGE_PREFIX)) {
+            return -1;
+        }
+
+        ServerResponseCode serverResponseCode = ServerResponseCode.parseString(lines[0]);
+        if(serverResponseCode != ServerResponseCode.SUCCESS && serverResponseCode != ServerResponseCode.CONFLICT && serverResponseCode != ServerResponseCode.NOT_MODIFIED) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(lines[2].substring(VERSION_MESSAGE_PREFIX.length()).trim());
+        } catch (NumberFormatException nfe) {
+            return -1;
+        }
+
+    }
+
+    /*
+     * Returns the value from the response body of a successful GET request, or null if the request failed
+     */
+    public static String getValue(StringBuffer responseBody) {
+
+        String[] lines = responseBody.toString().split("\n");
+        int endOfPrefix = lines.length < 2 ? -1 : lines[1].indexOf(GET_VALUE_MESSAGE_SEPARATOR);
+        if(ServerResponseCode.parseString(lines[0]) != ServerResponseCode.SUCCESS || endOfPrefix < 0) {
+            return null;
+        }
+
+        return lines[1].substring(endOfPrefix + GET_VALUE_MESSAGE_SEPARATOR.length());
+
+    }
+
+    /*
+     * Creates a request body for a PFMERGE request that carries the registers of the source HyperLogLog
+     * 
+     * This is used when the source key is owned by another store partition or backend server than the destination key.
+     */
+    public static StringBuffer createPFMERGERequestBody(String destinationKey, String sourceKey, String sourceRegisters) {
+
+        StringBuffer requestBody = createRequestBody(RequestType.PFMERGE, destinationKey, sourceKey);
+        requestBody.insert(requestBody.length() - END_OF_MESSAGE.length(), sourceRegisters + "\n");
+        return requestBody;
+
+    }
+
+    /*
+     * Creates a request body for a SCAN request over the key range [startKey, endKey)
+     *
+     * The cursor is the last key of the previous page and is left out of the
+     * request body when the first page is requested.
+     */
+    public static StringBuffer createRangeScanRequestBody(String startKey, String endKey, int limit, String cursor) {
+
+        StringBuffer requestBody = new StringBuffer();
+        requestBody.append(RequestType.SCAN.name());
+        requestBody.append("\n");
+        requestBody.append(SCAN_MODE_RANGE);
+        requestBody.append("\n");
+        requestBody.append(startKey);
+        requestBody.append("\n");
+        requestBody.append(endKey);
+        requestBody.append("\n");
+        requestBody.append(limit);
+        requestBody.append("\n");
+        if(isKeyValid(cursor)) {
+            requestBody.append(cursor);
+            requestBody.append("\n");
+        }
+        requestBody.append(END_OF_MESSAGE);
+        return requestBody;
+
+    }
+
+    /*
+     * Creates a request body for a SCAN request over all the keys starting with a prefix
+     *
+     * The cursor is the last key of the previous page and is left out of the
+     * request body when the first page is requested.
+     */
+    public static StringBuffer createPrefixScanRequestBody(String prefix, int limit, String cursor) {
+
+        StringBuffer requestBody = new StringBuffer();
+        requestBody.append(RequestType.SCAN.name());
+        requestBody.append("\n");
+        requestBody.append(SCAN_MODE_PREFIX);
+        requestBody.append("\n");
+        requestBody.append(prefix);
+        requestBody.append("\n");
+        requestBody.append(limit);
+        requestBody.append("\n");
+        if(isKeyValid(cursor)) {
+            requestBody.append(cursor);
+            requestBody.append("\n");
+        }
+        requestBody.append(END_OF_MESSAGE);
+        return requestBody;
+
+    }
+
+    /*
+     * Returns the cursor from the response body of a successful SCAN request
+     *
+     * The cursor is the third line of the response. An empty cursor means that the
+     * scan is complete. Null is returned if the response is not a successful SCAN response.
+     */
+    public static String getScanCursor(StringBuffer responseBody) {
+
+        if(responseBody == null) {
+            return null;
+        }
+
+        String[] lines = responseBody.toString().split("\n");
+        if(lines.length < 4 || ServerResponseCode.parseString(lines[0]) != ServerResponseCode.SUCCESS) {
+            return null;
+        }
+
+        return lines[2];
+
+    }
+
+    /*
+     * Returns the page limit of a SCAN request, capped at the maximum page size
+     */
+    public static int getScanLimit(String[] requestLines) throws IllegalArgumentException {
+
+        String limitString = null;
+        if(requestLines.length > 4 && requestLines[1].equals(SCAN_MODE_RANGE)) {
+            limitString = requestLines[4];
+        } else if(requestLines.length > 3 && requestLines[1].equals(SCAN_MODE_PREFIX)) {
+            limitString = requestLines[3];
+        } else {
+            throw new IllegalArgumentException("The request body is invalid.");
+        }
+
+        int limit;
+        try {
+            limit = Integer.parseInt(limitString);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("The scan limit should be an integer.");
+        }
+
+        if(limit <= 0) {
+            throw new IllegalArgumentException("The scan limit should be greater than zero.");
+        }
+
+        return Math.min(limit, SCAN_MAX_PAGE_SIZE);
+
+    }
+
+    /*
+     * Merges the SCAN responses of several shards of the keyspace into one page
+     * 
+     * Every shard returns at most limit entries after the same cursor. The merged page keeps the 
+     * smallest limit keys, and its last key is the cursor for the next page on all the shards.
+     * If a shard failed, its response is returned instead, since the error is the same on every shard.
+     */
+    public static StringBuffer mergeScanResponses(List<StringBuffer> responseBodies, int limit) {
+
+        TreeMap<String, String> entries = new TreeMap<String, String>();
+        boolean isComplete = true;
+        for(StringBuffer responseBody : responseBodies) {
+            String[] lines = responseBody.toString().split("\n");
+
+            if(lines.length < 4 || ServerResponseCode.parseString(lines[0]) != ServerResponseCode.SUCCESS) {
+                return responseBody;
+            }
+
+            if(!lines[2].isEmpty()) {
+                isComplete = false;
+            }
+            for(int i = 3; i + 1 < lines.length - 1; i += 2) {
+                entries.put(lines[i], lines[i + 1]);
+            }
+        }
+
+        if(entries.size() > limit) {
+            isComplete = false;
+        }
+
+        StringBuffer page = new StringBuffer();
+        String lastKey = null;
+        int count = 0;
+        for(Map.Entry<String, String> entry : entries.entrySet()) {
+            if(count == limit) {
+                break;
+            }
+
+            page.append("\n");
+            page.append(entry.getKey());
+            page.append("\n");
+            page.append(entry.getValue());
+            lastKey = entry.getKey();
+            count++;
+        }
+
+        return createResponseBody(ServerResponseCode.SUCCESS, "SCAN request was successfully processed. The number of entries returned is : " + String.valueOf(count) + ".\n" + (isComplete ? "" : lastKey) + page.toString());
+
+    }
+
+    /*
+     * Creates a request body for an AGGREGATE request over all the keys starting with a prefix
+     *
+     * The prefix * covers all the keys. The limit is only sent for the TOP function, which
+     * returns the keys with the largest values.
+     */
+    public static StringBuffer createAggregateRequestBody(String function, String prefix, int limit) {
+
+        StringBuffer requestBody = new StringBuffer();
+        requestBody.append(RequestType.AGGREGATE.name());
+        requestBody.append("\n");
+        requestBody.append(function);
+        requestBody.append("\n");
+        requestBody.append(prefix);
+        requestBody.append("\n");
+        if(function.equals(AGGREGATE_TOP)) {
+            requestBody.append(limit);
+            requestBody.append("\n");
+        }
+        requestBody.append(END_OF_MESSAGE);
+        return requestBody;
+
+    }
+
+    /*
+     * Returns the number of keys requested by an AGGREGATE request, capped at the maximum page size
+     *
+     * Only the TOP function has a limit, so 0 is returned for the other functions.
+     */
+    public static int getAggregateLimit(String[] requestLines) throws IllegalArgumentException {
+
+        if(requestLines.length == 4 && (requestLines[1].equals(AGGREGATE_COUNT) || requestLines[1].equals(AGGREGATE_BYTES))) {
+            return 0;
+        } else if(requestLines.length != 5 || !requestLines[1].equals(AGGREGATE_TOP)) {
+            throw new IllegalArgumentException("The request body is invalid. The aggregate function should be COUNT, BYTES or TOP.");
+        }
+
+        int limit;
+        try {
+            limit = Integer.parseInt(requestLines[3]);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("The number of keys should be an integer.");
+        }
+
+        if(limit <= 0) {
+            throw new IllegalArgumentException("The number of keys should be greater than zero.");
+        }
+
+        return Math.min(limit, SCAN_MAX_PAGE_SIZE);
+
+    }
+
+    /*
+     * Creates a request body for a HOTKEYS request, which returns the keys with the most reads, writes or bytes
+     */
+    public static StringBuffer createHotKeysRequestBody(String metric, int limit) {
+
+        StringBuffer requestBody = new StringBuffer();
+        requestBody.append(RequestType.HOTKEYS.name());
+        requestBody.append("\n");
+        requestBody.append(metric);
+        requestBody.append("\n");
+        requestBody.append(limit);
+        requestBody.append("\n");
+        requestBody.append(END_OF_MESSAGE);
+        return requestBody;
+
+    }
+
+    /*
+     * Returns the number of keys requested by a HOTKEYS request, capped at the maximum page size
+     */
+    public static int getHotKeysLimit(String[] requestLines) throws IllegalArgumentException {
+
+        if(requestLines.length != 4 || !(requestLines[1].equals(HOTKEYS_READS) || requestLines[1].equals(HOTKEYS_WRITES) || requestLines[1].equals(HOTKEYS_BYTES))) {
+            throw new IllegalArgumentException("The request body is invalid. The metric should be READS, WRITES or BYTES.");
+        }
+
+        int limit;
+        try {
+            limit = Integer.parseInt(requestLines[2]);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("The number of keys should be an integer.");
+        }
+
+        if(limit <= 0) {
+            throw new IllegalArgumentException("The number of keys should be greater than zero.");
+        }
+
+        return Math.min(limit, SCAN_MAX_PAGE_SIZE);
+
+    }
+
+    /*
+     * Merges the AGGREGATE or HOTKEYS responses of several shards of the keyspace into one result
+     * 
+     * The counts and byte totals of the shards are added up. For the TOP function and the HOTKEYS request,
+     * every shard returns its own largest values, and the merged result keeps the largest limit values among
+     * them, which is exact since the shards own disjoint keys. If a shard failed, its response is returned
+     * instead, since the error is the same on every shard.
+     */
+    public static StringBuffer mergeAggregateResponses(List<StringBuffer> responseBodies, RequestType requestType, int limit) {
+
+        long total = 0;
+        List<Map.Entry<String, Long>> largest = new ArrayList<Map.Entry<String, Long>>();
+        for(StringBuffer responseBody : responseBodies) {
+            String[] lines = responseBody.toString().split("\n");
+
+            if(lines.length < 4 || ServerResponseCode.parseString(lines[0]) != ServerResponseCode.SUCCESS || !lines[2].startsWith(RESULT_MESSAGE_PREFIX)) {
+                return responseBody;
+            }
+
+            total += Long.parseLong(lines[2].substring(RESULT_MESSAGE_PREFIX.length()));
+            for(int i = 3; i + 1 < lines.length - 1; i += 2) {
+                largest.add(new AbstractMap.SimpleImmutableEntry<String, Long>(lines[i], Long.parseLong(lines[i + 1])));
+            }
+        }
+
+        if(limit == 0) {
+            return createResponseBody(ServerResponseCode.SUCCESS, requestType.name() + " request was successfully processed.\n" + RESULT_MESSAGE_PREFIX + String.valueOf(total));
+        }
+
+        largest.sort(LARGEST_VALUE_FIRST);
+        largest = largest.subList(0, Math.min(limit, largest.size()));
+        return createResponseBody(ServerResponseCode.SUCCESS, requestType.name() + " request was successfully processed.\n" + RESULT_MESSAGE_PREFIX + String.valueOf(largest.size()) + formatLargestValues(largest));
+
+    }
+
+    /*
+     * Merges the DELETE_PREFIX or DELETE_RANGE responses of several shards of the keyspace
+     * 
+     * The keys are only deleted if every shard deleted its own keys, so the response of the first
+     * shard that failed is returned, or else the response of any shard.
+     */
+    public static StringBuffer mergeDeleteResponses(List<StringBuffer> responseBodies) {
+
+        for(StringBuffer responseBody : responseBodies) {
+            String[] lines = responseBody.toString().split("\n");
+            if(lines.length < 3 || ServerResponseCode.parseString(lines[0]) != ServerResponseCode.SUCCESS) {
+                return responseBody;
+            }
+        }
+
+        return responseBodies.get(0);
+
+    }
+
+    /*
+     * Formats keys and the sizes of their values as alternating key and size lines, each preceded by a line break
+     */
+    public static String formatLargestValues(List<Map.Entry<String, Long>> largest) {
+
+        StringBuffer lines = new StringBuffer();
+        for(Map.Entry<String, Long> entry : largest) {
+            lines.append("\n");
+            lines.append(entry.getKey());
+            lines.append("\n");
+            lines.append(entry.getValue());
+        }
+
+        return lines.toString();
+
+    }
+
+    /*
+     * Reads one request or response body from a connection, up to and including the end of message line
+     * 
+     * Null is returned if the connection is closed before a new message starts, so that a caller 
+     * can keep reading the messages that are pipelined on one connection.
+     */
+    public static StringBuffer readMessage(BufferedReader reader) throws IOException {
+        return readMessage(reader, null);
+    }
+
+    /*
+     * Reads one message like readMessage, and runs the listener once its first line has arrived
+     * 
+     * This lets a server time the reading of a request without the time spent waiting for it.
+     */
+    public static StringBuffer readMessage(BufferedReader reader, Runnable messageStartListener) throws IOException {
+
+        StringBuffer message = new StringBuffer();
+        String line;
+        while((line = reader.readLine()) != null) {
+            if(messageStartListener != null && message.length() == 0) {
+                messageStartListener.run();
+            }
+            message.append(line);
+
+            if(line.equals(END_OF_MESSAGE)) {
+                return message;
+            }
+            message.append("\n");
+        }
+
+        if(message.length() == 0) {
+            return null;
+        }
+
+        throw new EOFException("The connection was closed in the middle of a message.");
+
+    }
+
     /*
      * Creates a response body that is sent back to the client by the server
      * 
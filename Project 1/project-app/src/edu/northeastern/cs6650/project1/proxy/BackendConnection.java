@@ -0,0 +1,160 @@
+package edu.northeastern.cs6650.project1.proxy;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.common.Utils;
+
+/*
+ * A persistent, pipelined connection from the proxy to one backend TCP server
+ * 
+ * Any number of threads can send requests on the connection without waiting for 
+ * the responses of earlier requests. The backend answers the requests of a connection
+ * in order, so a reader thread completes the pending responses in the order in which
+ * their requests were written. If the connection breaks, all the pending responses
+ * fail and the connection is opened again by the next request.
+ */
+public class BackendConnection {
+
+    private static final Logger LOGGER = Logger.getLogger(BackendConnection.class.getName());
+
+    private final String serverIPAddress;
+    private final int serverPort;
+
+    private Socket serverSocket;
+    private BufferedWriter serverWriter;
+    private Queue<CompletableFuture<StringBuffer>> pendingResponses;
+    private final Object connectionMutex = new Object();
+
+    public BackendConnection(String serverIPAddress, int serverPort) {
+        this.serverIPAddress = serverIPAddress;
+        this.serverPort = serverPort;
+    }
+
+    /*
+     * Writes a request to the backend and returns a future that is completed with the response body
+     */
+    public CompletableFuture<StringBuffer> send(StringBuffer requestBody) {
+
+        CompletableFuture<StringBuffer> response = new CompletableFuture<StringBuffer>();
+
+        // The request is written and its response is queued under the same lock, so the
+        // order of the pending responses always matches the order of the written requests
+        synchronized(connectionMutex) {
+            try {
+                if(serverSocket == null) {
+                    connect();
+                }
+
+                pendingResponses.add(response);
+                serverWriter.write(requestBody.toString());
+                serverWriter.newLine();
+                serverWriter.flush();
+            } catch (IOException ioe) {
+                disconnect(serverSocket, ioe);
+                response.completeExceptionally(ioe);
+            }
+        }
+
+        return response;
+
+    }
+
+    /*
+     * Opens the connection and starts the thread that reads the responses
+     * 
+     * Must be called while holding the connection mutex.
+     */
+    private void connect() throws IOException {
+
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(serverIPAddress, serverPort), Utils.SERVER_TIMEOUT);
+        socket.setTcpNoDelay(true);
+
+        Queue<CompletableFuture<StringBuffer>> responses = new ConcurrentLinkedQueue<CompletableFuture<StringBuffer>>();
+        BufferedReader serverReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+        serverSocket = socket;
+        serverWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+        pendingResponses = responses;
+
+        Thread reader = new Thread(() -> readResponses(socket, serverReader, responses));
+        reader.setDaemon(true);
+        reader.start();
+
+    }
+
+    /*
+     * Reads the responses sent by the backend and completes the pending responses in order
+     */
+    private void readResponses(Socket socket, BufferedReader serverReader, Queue<CompletableFuture<StringBuffer>> responses) {
+
+        try {
+            StringBuffer responseBody;
+            while((responseBody = Utils.readMessage(serverReader)) != null) {
+                CompletableFuture<StringBuffer> response = responses.poll();
+                if(response != null) {
+                    response.complete(responseBody);
+                }
+            }
+            disconnect(socket, new IOException("The backend closed the connection."));
+        } catch (IOException ioe) {
+            disconnect(socket, ioe);
+        }
+
+    }
+
+    /*
+     * Closes a connection, if it is still the current one, and fails all its pending responses
+     */
+    private void disconnect(Socket socket, IOException cause) {
+
+        synchronized(connectionMutex) {
+            if(socket == null || socket != serverSocket) {
+                return;
+            }
+
+            LOGGER.severe("Connection to the backend " + serverIPAddress + ":" + String.valueOf(serverPort) + " was lost.");
+
+            try {
+                socket.close();
+            } catch (IOException ioe) {
+                LOGGER.severe("Error closing the connection to the backend.");
+            }
+
+            CompletableFuture<StringBuffer> response;
+            while((response = pendingResponses.poll()) != null) {
+                response.completeExceptionally(cause);
+            }
+
+            serverSocket = null;
+            serverWriter = null;
+            pendingResponses = null;
+        }
+
+    }
+}
@@ -0,0 +1,86 @@
+package edu.northeastern.cs6650.project1.proxy;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * A consistent hash ring that maps keys to backend servers
+ * 
+ * Every backend is placed on the ring at several virtual node positions, so the
+ * keys are spread evenly over the backends and adding or removing a backend only
+ * moves the keys of its own virtual nodes. A key belongs to the first virtual node
+ * at or after the hash of the key, wrapping around at the end of the ring.
+ * 
+ * The ring is built once and only read afterwards, so lookups from many threads
+ * do not need any locking.
+ */
+public class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<Long, String>();
+
+    public ConsistentHashRing(List<String> nodes, int virtualNodesPerNode) {
+
+        if(nodes.isEmpty() || virtualNodesPerNode <= 0) {
+            throw new IllegalArgumentException("The hash ring needs at least one node and one virtual node per node.");
+        }
+
+        for(String node : nodes) {
+            for(int i = 0; i < virtualNodesPerNode; i++) {
+                ring.put(hash(node + "#" + String.valueOf(i)), node);
+            }
+        }
+
+    }
+
+    /*
+     * Returns the node that owns a key
+     */
+    public String getNode(String key) {
+
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        if(entry == null) {
+            entry = ring.firstEntry();
+        }
+
+        return entry.getValue();
+
+    }
+
+    /*
+     * 64 bit FNV-1a hash of the UTF-8 bytes of a string, followed by the MurmurHash3 
+     * finalizer so that keys sharing long prefixes still spread over the whole ring
+     */
+    static long hash(String value) {
+
+        long hash = 0xcbf29ce484222325L;
+        for(byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= (hash >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= (hash >>> 33);
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= (hash >>> 33);
+        return hash;
+
+    }
+}
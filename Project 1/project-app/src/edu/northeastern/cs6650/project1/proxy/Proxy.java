@@ -0,0 +1,51 @@
+package edu.northeastern.cs6650.project1.proxy;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.northeastern.cs6650.project1.proxy.ProxyServer;
+
+/*
+ * The main proxy application class
+ * 
+ * The proxy listens on a port for TCP clients and spreads the keyspace over the 
+ * backend TCP servers given as arguments, each of the form <server ip address>:<server port>.
+ * The proxy application is terminated on the press of Control-C.
+ */
+public class Proxy {
+    public static void main(String[] arguments) {
+
+        if(arguments.length < 2) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.proxy.Proxy <proxy port> <backend ip:port> [<backend ip:port> ...].");
+        } else {
+            try {
+                int proxyPort = Integer.parseInt(arguments[0]);
+                List<String> backendAddresses = Arrays.asList(Arrays.copyOfRange(arguments, 1, arguments.length));
+                ProxyServer proxy = new ProxyServer(proxyPort, backendAddresses);
+                proxy.spin();
+            } catch (NumberFormatException nfe) {
+                System.err.println("The port numbers should be integers.");
+            } catch(IllegalArgumentException iae) {
+                System.err.println(iae.getMessage());
+            } catch(Exception exp) {
+                System.err.println("Problem encountered while starting the proxy.");
+            }
+        }
+
+    }
+}
@@ -0,0 +1,259 @@
+package edu.northeastern.cs6650.project1.proxy;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.common.RequestType;
+import edu.northeastern.cs6650.project1.common.ServerResponseCode;
+import edu.northeastern.cs6650.project1.common.Utils;
+import edu.northeastern.cs6650.project1.proxy.BackendConnection;
+import edu.northeastern.cs6650.project1.proxy.ConsistentHashRing;
+
+/*
+ * Implementation of the sharding proxy
+ * 
+ * The proxy speaks the same protocol as the TCP server, so clients connect to it
+ * unchanged. Single key requests are routed to the backend TCP server that owns the
+ * key on a consistent hash ring. Requests that span the keyspace, such as SCAN and AGGREGATE, are
+ * sent to every backend in parallel and the results are merged.
+ * 
+ * All the client connections are multiplexed onto a few persistent connections per
+ * backend, on which the requests are pipelined. Each client connection is served by a
+ * thread of a fixed pool, so the number of proxy threads stays bounded whatever the
+ * number of clients, and the connections accepted beyond the size of the pool wait in
+ * the queue of the pool until a served client closes its connection.
+ */
+public class ProxyServer {
+
+    private static final Logger LOGGER = Logger.getLogger(ProxyServer.class.getName());
+
+    private static final int VIRTUAL_NODES_PER_BACKEND = 160;
+    private static final int CONNECTIONS_PER_BACKEND = 4;
+    private static final int CLIENT_THREADS = 256;
+
+    private ServerSocket serverSocket;
+    private ConsistentHashRing hashRing;
+    private Map<String, BackendConnection[]> backendConnections = new HashMap<String, BackendConnection[]>();
+    private AtomicInteger nextConnection = new AtomicInteger();
+    private ExecutorService connectionExecutor = Executors.newFixedThreadPool(CLIENT_THREADS);
+
+    public ProxyServer(int proxyPort, List<String> backendAddresses) throws IOException {
+
+        for(String backendAddress : backendAddresses) {
+            int separator = backendAddress.lastIndexOf(':');
+            if(separator <= 0) {
+                throw new IllegalArgumentException("The backend address should be of the form <server ip address>:<server port>.");
+            }
+
+            String serverIPAddress = backendAddress.substring(0, separator);
+            int serverPort = Integer.parseInt(backendAddress.substring(separator + 1));
+
+            BackendConnection[] connections = new BackendConnection[CONNECTIONS_PER_BACKEND];
+            for(int i = 0; i < connections.length; i++) {
+                connections[i] = new BackendConnection(serverIPAddress, serverPort);
+            }
+            backendConnections.put(backendAddress, connections);
+        }
+
+        this.hashRing = new ConsistentHashRing(backendAddresses, VIRTUAL_NODES_PER_BACKEND);
+        this.serverSocket = new ServerSocket(proxyPort);
+
+    }
+
+    /*
+     * This spins the proxy to listen indefinitely for connections from the TCP clients
+     */
+    public void spin() {
+
+        while(true) {
+            try {
+                Socket clientSocket = this.serverSocket.accept();
+                connectionExecutor.execute(() -> serveConnection(clientSocket));
+            } catch(IOException ioe) {
+                LOGGER.severe("Error accepting a connection from a client.");
+            }
+        }
+
+    }
+
+    /*
+     * Serves the requests sent on a client connection until the client closes the connection
+     */
+    protected void serveConnection(Socket clientSocket) {
+
+        try {
+            BufferedReader clientReader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+            BufferedWriter clientWriter = new BufferedWriter(new OutputStreamWriter(clientSocket.getOutputStream()));
+
+            StringBuffer requestBody;
+            while((requestBody = Utils.readMessage(clientReader)) != null) {
+                StringBuffer serverResponse = routeRequest(requestBody);
+
+                clientWriter.write(serverResponse.toString());
+                clientWriter.newLine();
+                clientWriter.flush();
+            }
+        } catch (IOException ioe) {
+            LOGGER.severe("Error reading a request from or sending a response to the client.");
+        } finally {
+            try {
+                clientSocket.close();
+            } catch (IOException ioe) {
+                LOGGER.severe("Error closing the client connection.");
+            }
+        }
+
+    }
+
+    /*
+     * Forwards a request to the backend that owns its key, or to all the backends for a request that spans many keys
+     */
+    protected StringBuffer routeRequest(StringBuffer requestBody) {
+
+        String[] lines = requestBody.toString().split("\n");
+        if(lines.length < 3) {
+            return Utils.createResponseBody(ServerResponseCode.BAD_REQUEST, "The request body is invalid.");
+        }
+
+        try {
+            switch(RequestType.parseString(lines[0].trim())) {
+                case NONE:
+                    return Utils.createResponseBody(ServerResponseCode.BAD_REQUEST, "Request type is not supported.");
+                case SCAN:
+                    return fanOutSCANRequest(requestBody, lines);
+                case AGGREGATE:
+                case HOTKEYS:
+                    return fanOutAGGREGATERequest(requestBody, lines);
+                case DELETE_PREFIX:
+                case DELETE_RANGE:
+                    return Utils.mergeDeleteResponses(sendToAllBackends(requestBody));
+                case PFMERGE:
+                    return routePFMERGERequest(requestBody, lines);
+                default:
+                    // All the other requests carry their key on the second line
+                    return getConnection(hashRing.getNode(lines[1])).send(requestBody).get(Utils.SERVER_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException te) {
+            return Utils.createResponseBody(ServerResponseCode.FAILED, "The backend server did not respond in time.");
+        } catch (ExecutionException | InterruptedException exp) {
+            return Utils.createResponseBody(ServerResponseCode.FAILED, "The backend server is unavailable.");
+        }
+
+    }
+
+    /*
+     * Forwards a PFMERGE request to the backend that owns the destination key
+     * 
+     * If another backend owns the source key, the source is read from it first and its registers are sent along with
+     * the request. A source that cannot be read is left to the backend of the destination, which merges it as empty.
+     */
+    protected StringBuffer routePFMERGERequest(StringBuffer requestBody, String[] requestLines) throws InterruptedException, ExecutionException, TimeoutException {
+
+        String destinationBackend = hashRing.getNode(requestLines[1]);
+        if(requestLines.length == 4 && !destinationBackend.equals(hashRing.getNode(requestLines[2]))) {
+            StringBuffer sourceResponseBody = getConnection(hashRing.getNode(requestLines[2])).send(Utils.createRequestBody(RequestType.GET, requestLines[2])).get(Utils.SERVER_TIMEOUT, TimeUnit.MILLISECONDS);
+            String sourceRegisters = Utils.getValue(sourceResponseBody);
+            if(sourceRegisters != null) {
+                requestBody = Utils.createPFMERGERequestBody(requestLines[1], requestLines[2], sourceRegisters);
+            }
+        }
+
+        return getConnection(destinationBackend).send(requestBody).get(Utils.SERVER_TIMEOUT, TimeUnit.MILLISECONDS);
+
+    }
+
+    /*
+     * Sends a SCAN request to all the backends in parallel and merges their pages
+     */
+    protected StringBuffer fanOutSCANRequest(StringBuffer requestBody, String[] requestLines) throws InterruptedException, ExecutionException, TimeoutException {
+
+        int limit;
+        try {
+            limit = Utils.getScanLimit(requestLines);
+        } catch (IllegalArgumentException iae) {
+            return Utils.createResponseBody(ServerResponseCode.BAD_REQUEST, iae.getMessage());
+        }
+
+        return Utils.mergeScanResponses(sendToAllBackends(requestBody), limit);
+
+    }
+
+    /*
+     * Sends an AGGREGATE or HOTKEYS request to all the backends in parallel and merges their results
+     */
+    protected StringBuffer fanOutAGGREGATERequest(StringBuffer requestBody, String[] requestLines) throws InterruptedException, ExecutionException, TimeoutException {
+
+        RequestType requestType = RequestType.parseString(requestLines[0].trim());
+        int limit;
+        try {
+            limit = requestType == RequestType.AGGREGATE ? Utils.getAggregateLimit(requestLines) : Utils.getHotKeysLimit(requestLines);
+        } catch (IllegalArgumentException iae) {
+            return Utils.createResponseBody(ServerResponseCode.BAD_REQUEST, iae.getMessage());
+        }
+
+        return Utils.mergeAggregateResponses(sendToAllBackends(requestBody), requestType, limit);
+
+    }
+
+    /*
+     * Sends a request to all the backends in parallel and returns their response bodies
+     */
+    protected List<StringBuffer> sendToAllBackends(StringBuffer requestBody) throws InterruptedException, ExecutionException, TimeoutException {
+
+        List<CompletableFuture<StringBuffer>> responses = new ArrayList<CompletableFuture<StringBuffer>>();
+        for(String backendAddress : backendConnections.keySet()) {
+            responses.add(getConnection(backendAddress).send(requestBody));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0])).get(Utils.SERVER_TIMEOUT, TimeUnit.MILLISECONDS);
+
+        List<StringBuffer> responseBodies = new ArrayList<StringBuffer>();
+        for(CompletableFuture<StringBuffer> response : responses) {
+            responseBodies.add(response.get());
+        }
+
+        return responseBodies;
+
+    }
+
+    /*
+     * Returns one of the pipelined connections to a backend, chosen in a round robin order
+     */
+    protected BackendConnection getConnection(String backendAddress) {
+
+        BackendConnection[] connections = backendConnections.get(backendAddress);
+        return connections[Math.floorMod(nextConnection.getAndIncrement(), connections.length)];
+
+    }
+}
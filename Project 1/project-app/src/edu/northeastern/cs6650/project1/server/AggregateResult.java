@@ -0,0 +1,125 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import edu.northeastern.cs6650.project1.common.Utils;
+import edu.northeastern.cs6650.project1.store.LargeValue;
+
+/*
+ * The result of an aggregation over a segment of the store
+ * 
+ * The keys with the largest values are kept in a heap whose head is the smallest of them,
+ * so a key only replaces the head when its value is larger.
+ */
+class AggregateResult {
+
+    long count;
+    long totalBytes;
+    private final boolean measuresValues;
+    private final int limit;
+    private final PriorityQueue<Map.Entry<String, Long>> largest;
+
+    AggregateResult(boolean measuresValues, int limit) {
+        this.measuresValues = measuresValues;
+        this.limit = limit;
+        this.largest = new PriorityQueue<Map.Entry<String, Long>>(Math.max(1, limit), Utils.LARGEST_VALUE_FIRST.reversed());
+    }
+
+    void add(String key, Object value) {
+
+        count++;
+        if(!measuresValues) {
+            return;
+        }
+
+        long size = getValueSize(value);
+        totalBytes += size;
+        if(limit > 0) {
+            offer(new AbstractMap.SimpleImmutableEntry<String, Long>(key, size));
+        }
+
+    }
+
+    void merge(AggregateResult result) {
+
+        count += result.count;
+        totalBytes += result.totalBytes;
+        for(Map.Entry<String, Long> entry : result.largest) {
+            offer(entry);
+        }
+
+    }
+
+    /*
+     * Returns the keys with the largest values, largest first
+     */
+    List<Map.Entry<String, Long>> getLargest() {
+
+        List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(largest);
+        entries.sort(Utils.LARGEST_VALUE_FIRST);
+        return entries;
+
+    }
+
+    private void offer(Map.Entry<String, Long> entry) {
+
+        if(largest.size() < limit) {
+            largest.add(entry);
+        } else if(Utils.LARGEST_VALUE_FIRST.compare(entry, largest.peek()) < 0) {
+            largest.poll();
+            largest.add(entry);
+        }
+
+    }
+
+    /*
+     * Returns the size of a value in bytes, once encoded in UTF-8
+     * 
+     * The size is counted from the characters, so the value is not encoded. A value in the value log
+     * already knows its size, and counters and chunked values are measured as the string they are sent as.
+     */
+    private static long getValueSize(Object value) {
+
+        if(value instanceof LargeValue) {
+            return ((LargeValue) value).length();
+        }
+
+        String string = String.valueOf(value);
+        long size = 0;
+        for(int i = 0; i < string.length(); i++) {
+            char character = string.charAt(i);
+            if(character < 0x80) {
+                size += 1;
+            } else if(character < 0x800) {
+                size += 2;
+            } else if(Character.isSurrogate(character)) {
+                // A surrogate pair is encoded in four bytes
+                size += 2;
+            } else {
+                size += 3;
+            }
+        }
+
+        return size;
+
+    }
+}
@@ -0,0 +1,98 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * A fork/join task that aggregates the entries of a segment of the store
+ * 
+ * The task keeps splitting its segment and forks the halves it splits off, so that idle
+ * workers steal them, and then aggregates what is left of the segment itself. The tasks
+ * run on their own pool of low priority workers, one per core, so an aggregation uses all
+ * the cores that the threads serving GET and PUT requests leave idle, without taking cores
+ * from them.
+ */
+class AggregateTask extends RecursiveTask<AggregateResult> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    private static final ForkJoinPool AGGREGATE_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("aggregate-worker-" + String.valueOf(worker.getPoolIndex()));
+        worker.setPriority(Thread.MIN_PRIORITY);
+        return worker;
+    }, null, false);
+
+    private final Spliterator<Map.Entry<String, StoreEntry>> spliterator;
+    private final String prefix;
+    private final boolean measuresValues;
+    private final int limit;
+
+    private AggregateTask(Spliterator<Map.Entry<String, StoreEntry>> spliterator, String prefix, boolean measuresValues, int limit) {
+        this.spliterator = spliterator;
+        this.prefix = prefix;
+        this.measuresValues = measuresValues;
+        this.limit = limit;
+    }
+
+    /*
+     * Aggregates all the entries with keys starting with a prefix, or all the entries if the prefix is null
+     * 
+     * The sizes of the values are only measured if measuresValues is true, and the keys with 
+     * the largest values are only kept if the limit is greater than zero.
+     */
+    static AggregateResult aggregate(KeyValueStore keyValueStore, String prefix, boolean measuresValues, int limit) {
+        return AGGREGATE_POOL.invoke(new AggregateTask(keyValueStore.spliterator(prefix), prefix, measuresValues, limit));
+    }
+
+    protected AggregateResult compute() {
+
+        List<AggregateTask> subtasks = new ArrayList<AggregateTask>();
+        Spliterator<Map.Entry<String, StoreEntry>> segment;
+        while(spliterator.estimateSize() > SEGMENT_SIZE && (segment = spliterator.trySplit()) != null) {
+            AggregateTask subtask = new AggregateTask(segment, prefix, measuresValues, limit);
+            subtask.fork();
+            subtasks.add(subtask);
+        }
+
+        // An engine that is not ordered returns all its entries, so the prefix is checked here
+        AggregateResult result = new AggregateResult(measuresValues, limit);
+        spliterator.forEachRemaining(entry -> {
+            if(prefix == null || entry.getKey().startsWith(prefix)) {
+                result.add(entry.getKey(), entry.getValue().getValue());
+            }
+        });
+
+        for(AggregateTask subtask : subtasks) {
+            result.merge(subtask.join());
+        }
+
+        return result;
+
+    }
+}
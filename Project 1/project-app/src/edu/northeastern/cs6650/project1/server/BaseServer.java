@@ -15,13 +15,37 @@ package edu.northeastern.cs6650.project1.server;
  * limitations under the License.
  */
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
+import edu.northeastern.cs6650.project1.common.AsyncLogger;
+import edu.northeastern.cs6650.project1.common.ConditionFailedException;
+import edu.northeastern.cs6650.project1.common.NotModifiedException;
+import edu.northeastern.cs6650.project1.common.RequestType;
 import edu.northeastern.cs6650.project1.common.ServerResponseCode;
+import edu.northeastern.cs6650.project1.common.StoreType;
 import edu.northeastern.cs6650.project1.common.Utils;
+import edu.northeastern.cs6650.project1.server.RequestEvent.RequestParseEvent;
+import edu.northeastern.cs6650.project1.server.RequestEvent.StoreOperationEvent;
+import edu.northeastern.cs6650.project1.store.BloomFilterValue;
+import edu.northeastern.cs6650.project1.store.ChunkedValue;
+import edu.northeastern.cs6650.project1.store.CounterValue;
+import edu.northeastern.cs6650.project1.store.HyperLogLogValue;
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.LargeValue;
+import edu.northeastern.cs6650.project1.store.SortedSetValue;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+import edu.northeastern.cs6650.project1.store.StoreFactory;
+import edu.northeastern.cs6650.project1.store.TombstoneStore;
+import edu.northeastern.cs6650.project1.store.ValueLog;
 
 /*
  * Base abstract class for the TCP and UDP server classes
@@ -29,35 +53,371 @@ import edu.northeastern.cs6650.project1.common.Utils;
 public abstract class BaseServer {
 
     private static final Logger LOGGER = Logger.getLogger(BaseServer.class.getName());
+    private static final AsyncLogger ASYNC_LOGGER = AsyncLogger.getLogger(BaseServer.class);
+
+    private static final AsyncLogger.Message GET_RECEIVED = ASYNC_LOGGER.message("GET_RECEIVED", "The key received for GET request is : {}.");
+    private static final AsyncLogger.Message GET_IF_CHANGED_RECEIVED = ASYNC_LOGGER.message("GET_IF_CHANGED_RECEIVED", "The key received for GET_IF_CHANGED request is : {}.\nThe version received for GET_IF_CHANGED request is : {}.");
+    private static final AsyncLogger.Message PUT_RECEIVED = ASYNC_LOGGER.message("PUT_RECEIVED", "The key received for PUT request is : {}.\nThe value received for PUT request is : {}.");
+    private static final AsyncLogger.Message PUT_IF_VERSION_RECEIVED = ASYNC_LOGGER.message("PUT_IF_VERSION_RECEIVED", "The key received for PUT_IF_VERSION request is : {}.\nThe value received for PUT_IF_VERSION request is : {}.\nThe version received for PUT_IF_VERSION request is : {}.");
+    private static final AsyncLogger.Message PUT_IF_ABSENT_RECEIVED = ASYNC_LOGGER.message("PUT_IF_ABSENT_RECEIVED", "The key received for PUT_IF_ABSENT request is : {}.\nThe value received for PUT_IF_ABSENT request is : {}.");
+    private static final AsyncLogger.Message DELETE_RECEIVED = ASYNC_LOGGER.message("DELETE_RECEIVED", "The key received for DELETE request is : {}");
+    private static final AsyncLogger.Message DELETE_PREFIX_RECEIVED = ASYNC_LOGGER.message("DELETE_PREFIX_RECEIVED", "The prefix received for DELETE_PREFIX request is : {}");
+    private static final AsyncLogger.Message DELETE_RANGE_RECEIVED = ASYNC_LOGGER.message("DELETE_RANGE_RECEIVED", "The start key received for DELETE_RANGE request is : {}.\nThe end key received for DELETE_RANGE request is : {}.");
+    private static final AsyncLogger.Message DELETE_IF_VALUE_RECEIVED = ASYNC_LOGGER.message("DELETE_IF_VALUE_RECEIVED", "The key received for DELETE_IF_VALUE request is : {}.\nThe value received for DELETE_IF_VALUE request is : {}.");
+    private static final AsyncLogger.Message INCR_RECEIVED = ASYNC_LOGGER.message("INCR_RECEIVED", "The key received for {} request is : {}.\nThe increment received for {} request is : {}.");
+    private static final AsyncLogger.Message APPEND_RECEIVED = ASYNC_LOGGER.message("APPEND_RECEIVED", "The key received for APPEND request is : {}.\nThe value received for APPEND request is : {}.");
+    private static final AsyncLogger.Message GETRANGE_RECEIVED = ASYNC_LOGGER.message("GETRANGE_RECEIVED", "The key received for GETRANGE request is : {}.\nThe range received for GETRANGE request is : {} to {}.");
+    private static final AsyncLogger.Message SETRANGE_RECEIVED = ASYNC_LOGGER.message("SETRANGE_RECEIVED", "The key received for SETRANGE request is : {}.\nThe value received for SETRANGE request is : {}.\nThe offset received for SETRANGE request is : {}.");
+    private static final AsyncLogger.Message ZADD_RECEIVED = ASYNC_LOGGER.message("ZADD_RECEIVED", "The key received for ZADD request is : {}.\nThe member received for ZADD request is : {}.\nThe score received for ZADD request is : {}.");
+    private static final AsyncLogger.Message ZRANGE_RECEIVED = ASYNC_LOGGER.message("ZRANGE_RECEIVED", "The key received for ZRANGE request is : {}.\nThe ranks received for ZRANGE request are : {} to {}.");
+    private static final AsyncLogger.Message ZRANK_RECEIVED = ASYNC_LOGGER.message("ZRANK_RECEIVED", "The key received for ZRANK request is : {}.\nThe member received for ZRANK request is : {}.");
+    private static final AsyncLogger.Message ZREM_RECEIVED = ASYNC_LOGGER.message("ZREM_RECEIVED", "The key received for ZREM request is : {}.\nThe member received for ZREM request is : {}.");
+    private static final AsyncLogger.Message PFADD_RECEIVED = ASYNC_LOGGER.message("PFADD_RECEIVED", "The key received for PFADD request is : {}.\nThe element received for PFADD request is : {}.");
+    private static final AsyncLogger.Message PFCOUNT_RECEIVED = ASYNC_LOGGER.message("PFCOUNT_RECEIVED", "The key received for PFCOUNT request is : {}.");
+    private static final AsyncLogger.Message PFMERGE_RECEIVED = ASYNC_LOGGER.message("PFMERGE_RECEIVED", "The destination key received for PFMERGE request is : {}.\nThe source key received for PFMERGE request is : {}.");
+    private static final AsyncLogger.Message BFADD_RECEIVED = ASYNC_LOGGER.message("BFADD_RECEIVED", "The key received for BFADD request is : {}.\nThe element received for BFADD request is : {}.");
+    private static final AsyncLogger.Message BFEXISTS_RECEIVED = ASYNC_LOGGER.message("BFEXISTS_RECEIVED", "The key received for BFEXISTS request is : {}.\nThe element received for BFEXISTS request is : {}.");
+    private static final AsyncLogger.Message SCAN_RECEIVED = ASYNC_LOGGER.message("SCAN_RECEIVED", "The start key received for SCAN request is : {}.\nThe cursor received for SCAN request is : {}.");
+    private static final AsyncLogger.Message AGGREGATE_RECEIVED = ASYNC_LOGGER.message("AGGREGATE_RECEIVED", "The function received for AGGREGATE request is : {}.\nThe prefix received for AGGREGATE request is : {}.");
+    private static final AsyncLogger.Message HOTKEYS_RECEIVED = ASYNC_LOGGER.message("HOTKEYS_RECEIVED", "The metric received for HOTKEYS request is : {}.");
+
+    // The number of reads of a key in the current slot of the hot key tracker from which its GET response is kept encoded
+    private static final int RESPONSE_CACHE_MIN_READS = 16;
 
     public abstract void spin();
     
-    protected Map<String, String> keyValueStore = new HashMap<String, String>();
+    protected KeyValueStore keyValueStore;
+
+    // Wraps the storage engine, so that a range of keys is deleted with a single tombstone
+    protected TombstoneStore tombstoneStore;
+
+    // Source of entry versions, shared by all keys so that a version is never reused
+    private AtomicLong versionSequence = new AtomicLong();
+
+    // Set by the TCP and UDP servers when the keyspace is split into store partitions
+    protected PartitionRouter partitionRouter;
+
+    // Set by the TCP server to keep values of at least the threshold size, in bytes, in a memory mapped log
+    protected ValueLog valueLog;
+    protected int largeValueThreshold;
+
+    // Fed by every request processed by this server, and queried by HOTKEYS requests
+    protected HotKeyTracker hotKeyTracker = new HotKeyTracker();
+
+    // Set when the requests are recorded into a trace file, which may be shared with the store partitions
+    protected TraceRecorder traceRecorder;
+
+    public BaseServer(StoreType storeType) {
+        this(StoreFactory.createStore(storeType));
+    }
+
+    public BaseServer(KeyValueStore keyValueStore) {
+        this(keyValueStore, true);
+    }
+
+    /*
+     * Creates a server whose deleted key ranges are reclaimed by a background thread, or else by
+     * the thread that owns the store calling reclaimDeletedRanges
+     */
+    public BaseServer(KeyValueStore keyValueStore, boolean reclaimsInBackground) {
+        this.tombstoneStore = new TombstoneStore(keyValueStore, reclaimsInBackground);
+        this.keyValueStore = tombstoneStore;
+    }
 
     /*
      * Process a request body sent by either a TCP or UDP client
      */
-    protected String processRequest(StringBuffer requestBody, String clientAddress, int clientPort) throws IllegalArgumentException, NoSuchElementException {
+    protected String processRequest(StringBuffer requestBody, String clientAddress, int clientPort) throws IllegalArgumentException, NoSuchElementException, ConditionFailedException, NotModifiedException {
 
-        String requestBodyAsString = requestBody.toString();
+        StoreOperationEvent storeOperationEvent = new StoreOperationEvent();
+        storeOperationEvent.begin();
+        String message = null;
+        try {
+            message = dispatchRequest(requestBody.toString(), clientAddress, clientPort);
+            return message;
+        } finally {
+            storeOperationEvent.end();
+            if(storeOperationEvent.shouldCommit()) {
+                storeOperationEvent.setRequest(requestBody);
+                storeOperationEvent.responseSize = message == null ? 0 : message.length();
+                storeOperationEvent.succeeded = message != null;
+                storeOperationEvent.commit();
+            }
+        }
 
-        if(requestBodyAsString.startsWith("GET", 0)) {
-            return  processGETRequest(requestBodyAsString, clientAddress, clientPort);
-        } else if(requestBodyAsString.startsWith("PUT", 0)) {
-            return processPUTRequest(requestBodyAsString, clientAddress, clientPort);
-        } else if(requestBodyAsString.startsWith("DELETE", 0)) {
-            return processDELETERequest(requestBodyAsString, clientAddress, clientPort);
-        } else {
-            throw new IllegalArgumentException("Request type is not supported.");
+    }
+
+    /*
+     * Process a request body with the handler of its request type
+     */
+    private String dispatchRequest(String requestBodyAsString, String clientAddress, int clientPort) throws IllegalArgumentException, NoSuchElementException, ConditionFailedException, NotModifiedException {
+
+        // The request type is matched on the whole first line, since some request types share a prefix
+        int endOfRequestType = requestBodyAsString.indexOf('\n');
+        String requestTypeString = endOfRequestType < 0 ? requestBodyAsString : requestBodyAsString.substring(0, endOfRequestType);
+
+        switch(RequestType.parseString(requestTypeString.trim())) {
+            case GET:
+                return processGETRequest(requestBodyAsString, clientAddress, clientPort);
+            case GET_IF_CHANGED:
+                return processGETIFCHANGEDRequest(requestBodyAsString, clientAddress, clientPort);
+            case PUT:
+                return processPUTRequest(requestBodyAsString, clientAddress, clientPort);
+            case DELETE:
+                return processDELETERequest(requestBodyAsString, clientAddress, clientPort);
+            case SCAN:
+                return processSCANRequest(requestBodyAsString, clientAddress, clientPort);
+            case PUT_IF_VERSION:
+                return processPUTIFVERSIONRequest(requestBodyAsString, clientAddress, clientPort);
+            case PUT_IF_ABSENT:
+                return processPUTIFABSENTRequest(requestBodyAsString, clientAddress, clientPort);
+            case DELETE_IF_VALUE:
+                return processDELETEIFVALUERequest(requestBodyAsString, clientAddress, clientPort);
+            case INCR:
+            case DECR:
+            case INCRBY:
+                return processINCRRequest(requestBodyAsString, clientAddress, clientPort);
+            case APPEND:
+                return processAPPENDRequest(requestBodyAsString, clientAddress, clientPort);
+            case GETRANGE:
+                return processGETRANGERequest(requestBodyAsString, clientAddress, clientPort);
+            case SETRANGE:
+                return processSETRANGERequest(requestBodyAsString, clientAddress, clientPort);
+            case ZADD:
+                return processZADDRequest(requestBodyAsString, clientAddress, clientPort);
+            case ZRANGE:
+                return processZRANGERequest(requestBodyAsString, clientAddress, clientPort);
+            case ZRANK:
+                return processZRANKRequest(requestBodyAsString, clientAddress, clientPort);
+            case ZREM:
+                return processZREMRequest(requestBodyAsString, clientAddress, clientPort);
+            case PFADD:
+                return processPFADDRequest(requestBodyAsString, clientAddress, clientPort);
+            case PFCOUNT:
+                return processPFCOUNTRequest(requestBodyAsString, clientAddress, clientPort);
+            case PFMERGE:
+                return processPFMERGERequest(requestBodyAsString, clientAddress, clientPort);
+            case BFADD:
+                return processBFADDRequest(requestBodyAsString, clientAddress, clientPort);
+            case BFEXISTS:
+                return processBFEXISTSRequest(requestBodyAsString, clientAddress, clientPort);
+            case AGGREGATE:
+                return processAGGREGATERequest(requestBodyAsString, clientAddress, clientPort);
+            case HOTKEYS:
+                return processHOTKEYSRequest(requestBodyAsString, clientAddress, clientPort);
+            case DELETE_PREFIX:
+                return processDELETEPREFIXRequest(requestBodyAsString, clientAddress, clientPort);
+            case DELETE_RANGE:
+                return processDELETERANGERequest(requestBodyAsString, clientAddress, clientPort);
+            default:
+                throw new IllegalArgumentException("Request type is not supported.");
+        }
+
+    }
+
+    /*
+     * Process a request body and prepare the response body that is sent back to the client
+     */
+    protected StringBuffer createServerResponse(StringBuffer requestBody, String clientAddress, int clientPort) {
+
+        long arrivalTime = System.nanoTime();
+        StringBuffer responseBody;
+        try {
+            // Process the request
+            String message = this.processRequest(requestBody, clientAddress, clientPort);
+
+            // Prepare a response body
+            responseBody = Utils.createResponseBody(ServerResponseCode.SUCCESS, message);
+        } catch(IllegalArgumentException iae) {
+
+            // Prepare a response body
+            responseBody = Utils.createResponseBody(ServerResponseCode.BAD_REQUEST, iae.getMessage());
+        } catch(NoSuchElementException nee) {
+
+            // Prepare a response body
+            responseBody = Utils.createResponseBody(ServerResponseCode.FAILED, nee.getMessage());
+        } catch(ConditionFailedException cfe) {
+
+            // Prepare a response body
+            responseBody = Utils.createResponseBody(ServerResponseCode.CONFLICT, cfe.getMessage());
+        } catch(NotModifiedException nme) {
+
+            // Prepare a response body
+            responseBody = Utils.createResponseBody(ServerResponseCode.NOT_MODIFIED, nme.getMessage());
+        }
+
+        hotKeyTracker.record(requestBody, responseBody.length());
+        if(traceRecorder != null) {
+            traceRecorder.record(arrivalTime, requestBody, responseBody.length());
+        }
+        return responseBody;
+
+    }
+
+    /*
+     * Records one in every sampling requests in the hot key tracker of this server, and of its store partitions
+     */
+    public void setHotKeySampling(int sampling) {
+
+        hotKeyTracker.setSampling(sampling);
+        if(partitionRouter != null) {
+            partitionRouter.setHotKeySampling(sampling);
+        }
+
+    }
+
+    /*
+     * Records the requests processed by this server, and by its store partitions, into a trace
+     */
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+
+        this.traceRecorder = traceRecorder;
+        if(partitionRouter != null) {
+            partitionRouter.setTraceRecorder(traceRecorder);
+        }
+
+    }
+
+    /*
+     * Returns a new entry holding the value with the next version
+     */
+    protected StoreEntry createEntry(Object value) {
+        return new StoreEntry(value, versionSequence.incrementAndGet());
+    }
+
+    /*
+     * Returns the value to store for a value received in a request, which is appended to the value log if it is large
+     * 
+     * A value that cannot be appended to the log is kept on the heap, since it can still be served.
+     */
+    protected Object createValue(String value) {
+
+        // A character takes at most three bytes in UTF-8, so shorter values are never encoded
+        if(valueLog == null || value.length() * 3L < largeValueThreshold) {
+            return value;
+        }
+
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        if(valueBytes.length < largeValueThreshold) {
+            return value;
+        }
+
+        try {
+            return valueLog.append(valueBytes);
+        } catch (IOException ioe) {
+            LOGGER.warning("The value could not be appended to the value log and is kept on the heap : " + ioe.getMessage());
+            return value;
+        }
+
+    }
+
+    /*
+     * Returns the encoded response to a valid GET request for a hot key with a string value, or null otherwise
+     * 
+     * The response is encoded the way the TCP server writes it, newline included, and kept with the 
+     * entry the first time the key is read while it is hot. Later GET requests for the entry are 
+     * answered with the same bytes, without building the response body or encoding it again. The 
+     * request body is only matched against GET and split at its first newlines, so other requests 
+     * fall through to be processed as usual.
+     */
+    protected byte[] getCachedGETResponse(StringBuffer requestBody, String clientAddress, int clientPort) {
+
+        int endOfRequestType = requestBody.indexOf("\n");
+        int endOfKey = endOfRequestType < 0 ? -1 : requestBody.indexOf("\n", endOfRequestType + 1);
+        if(endOfKey < 0 || requestBody.indexOf("\n", endOfKey + 1) >= 0 || !requestBody.substring(0, endOfRequestType).equals(RequestType.GET.name())) {
+            return null;
+        }
+
+        String key = requestBody.substring(endOfRequestType + 1, endOfKey);
+        if(!Utils.isKeyValid(key)) {
+            return null;
+        }
+
+        StoreEntry entry = keyValueStore.get(key);
+        if(entry == null || !(entry.getValue() instanceof String)) {
+            return null;
+        }
+
+        byte[] encodedResponse = entry.getEncodedResponse();
+        if(encodedResponse == null) {
+            if(hotKeyTracker.estimateReads(key) < RESPONSE_CACHE_MIN_READS) {
+                return null;
+            }
+
+            // Two requests may encode the same response at once, and either copy can be kept
+            encodedResponse = (Utils.createResponseBody(ServerResponseCode.SUCCESS, createGETMessage(entry)).toString() + System.lineSeparator()).getBytes(Charset.defaultCharset());
+            entry.setEncodedResponse(encodedResponse);
+        }
+
+        GET_RECEIVED.logRequest(clientAddress, clientPort, key);
+        return encodedResponse;
+
+    }
+
+    /*
+     * Returns the entry requested by a valid GET request, or by a GET_IF_CHANGED request whose version is 
+     * out of date, if its value is kept in the value log, or null otherwise
+     * 
+     * This lets the TCP server send a large value straight from the log file, while every other 
+     * request, including a GET request for a value on the heap, is processed as usual.
+     */
+    protected StoreEntry getLargeValueEntry(StringBuffer requestBody) {
+
+        // Other request types, such as a large PUT, are skipped without splitting the request body
+        String requestTypePrefix = RequestType.GET.name();
+        if(valueLog == null || requestBody.length() <= requestTypePrefix.length() || !requestBody.substring(0, requestTypePrefix.length()).equals(requestTypePrefix)) {
+            return null;
+        }
+
+        String lines[] = requestBody.toString().split("\n");
+        RequestType requestType = RequestType.parseString(lines[0].trim());
+        int expectedNumberOfLines = requestType == RequestType.GET ? 3 : requestType == RequestType.GET_IF_CHANGED ? 4 : -1;
+        if(lines.length != expectedNumberOfLines || !Utils.isKeyValid(lines[1])) {
+            return null;
+        }
+
+        StoreEntry entry = keyValueStore.get(lines[1]);
+        if(entry == null || !(entry.getValue() instanceof LargeValue)) {
+            return null;
+        }
+
+        // An unchanged value is answered as usual, with a response that does not carry the value
+        if(requestType == RequestType.GET_IF_CHANGED) {
+            try {
+                return Long.parseLong(lines[2].trim()) == entry.getVersion() ? null : entry;
+            } catch (NumberFormatException nfe) {
+                return null;
+            }
         }
 
+        return entry;
+
+    }
+
+    /*
+     * Given a request body, return its lines as a string array
+     */
+    protected String[] getRequestLines(String requestBody) {
+
+        RequestParseEvent requestParseEvent = new RequestParseEvent();
+        requestParseEvent.begin();
+        String[] lines = requestBody.split("\n");
+        requestParseEvent.end();
+        if(requestParseEvent.shouldCommit()) {
+            requestParseEvent.setRequest(requestBody);
+            requestParseEvent.numberOfLines = lines.length;
+            requestParseEvent.commit();
+        }
+
+        return lines;
+
     }
 
     /*
      * Given a request body, verify that it contains the right number of lines and return the lines as a string array
      */
     protected String[] verifyAndGetRequestLines(String requestBody, int expectedNumberOfLines) throws IllegalArgumentException {
-        String[] lines = requestBody.split("\n");
+        String[] lines = getRequestLines(requestBody);
 
         if(lines.length != expectedNumberOfLines) {
             throw new IllegalArgumentException("The request body is invalid.");
@@ -76,19 +436,63 @@ public abstract class BaseServer {
             throw new IllegalArgumentException("The key is empty or invalid.");
         }
 
-        LOGGER.info(clientAddress + ":" + String.valueOf(clientPort) + "::" + "The key received for GET request is : " + lines[1] + ".");
+        GET_RECEIVED.logRequest(clientAddress, clientPort, lines[1]);
 
         // Check if local key value storage contains a key, fetch and return the corresponding value
         // If key does not exist, throw a NoSuchElementException
-        if(keyValueStore.containsKey(lines[1])) {
-            String valueString = keyValueStore.get(lines[1]);
-
-            return "GET request was successfully processed. The value is : " + valueString; 
+        StoreEntry entry = keyValueStore.get(lines[1]);
+        if(entry != null) {
+            return createGETMessage(entry);
         } else {
             throw new NoSuchElementException("This key does not exist in the system : "+ lines[1] + ".");
         }
     }
 
+    /*
+     * The version is read before the value, so a counter that is updated in the meantime never gets sent
+     * with a version that is newer than its value
+     */
+    private static String createGETMessage(StoreEntry entry) {
+        long version = entry.getVersion();
+        return "GET request was successfully processed. The value is : " + entry.getValue() + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(version);
+    }
+
+    /*
+     * Process a request to get a value from the local key - value storage only if the current version 
+     * of the key differs from the version sent by the client
+     * 
+     * A client that re-reads a value it already holds gets back only the NOT_MODIFIED code while the 
+     * value is unchanged.
+     */
+    protected String processGETIFCHANGEDRequest(String requestBody, String clientAddress, int clientPort) throws IllegalArgumentException, NoSuchElementException, NotModifiedException {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!Utils.isKeyValid(lines[1])) {
+            throw new IllegalArgumentException("The key is empty or invalid.");
+        }
+
+        long knownVersion;
+        try {
+            knownVersion = Long.parseLong(lines[2].trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("The version should be an integer.");
+        }
+
+        GET_IF_CHANGED_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        StoreEntry entry = keyValueStore.get(lines[1]);
+        if(entry == null) {
+            throw new NoSuchElementException("This key does not exist in the system : "+ lines[1] + ".");
+        }
+
+        long version = entry.getVersion();
+        if(version == knownVersion) {
+            throw new NotModifiedException("The value of the key has not changed : " + lines[1] + ".\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(knownVersion));
+        }
+
+        return "GET_IF_CHANGED request was successfully processed. The value is : " + entry.getValue() + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(version);
+    }
+
     /*
      * Process a request to put a key-value pair into the local key - value storage
      */
@@ -99,10 +503,79 @@ public abstract class BaseServer {
             throw new IllegalArgumentException("The key or value or both are invalid.");
         }
 
-        LOGGER.info(clientAddress + ":" + String.valueOf(clientPort) + "::" + "The key received for PUT request is : " + lines[1] + ".\nThe value received for PUT request is : " + lines[2] + ".");
+        PUT_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        StoreEntry entry = createEntry(createValue(lines[2]));
+        keyValueStore.put(lines[1], entry);
+        return "PUT request was successfully processed.\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry.getVersion());
+    }
+
+    /*
+     * Process a request to put a key-value pair into the local key - value storage only if the current 
+     * version of the key matches the version sent by the client
+     * 
+     * This lets a client perform an optimistic update in one round trip after a GET, without any locking.
+     */
+    protected String processPUTIFVERSIONRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 5);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or value or both are invalid.");
+        }
+
+        long expectedVersion;
+        try {
+            expectedVersion = Long.parseLong(lines[3].trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("The version should be an integer.");
+        }
+
+        PUT_IF_VERSION_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2], lines[3]);
+
+        // The value is created once, since a large value is appended to the value log and the function may be applied more than once
+        Object value = createValue(lines[2]);
+
+        // Replace the entry only if it exists with the expected version
+        final boolean flag[] = { false };
+        StoreEntry entry = keyValueStore.compute(lines[1], (key, currentEntry) -> {
+            flag[0] = currentEntry != null && currentEntry.getVersion() == expectedVersion;
+            return flag[0] ? createEntry(value) : currentEntry;
+        });
+
+        if(entry == null) {
+            throw new NoSuchElementException("This key does not exist in the system : "+ lines[1] + ".");
+        } else if(!flag[0]) {
+            throw new ConditionFailedException("The version of the key has changed : " + lines[1] + ".\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry.getVersion()));
+        }
+
+        return "PUT_IF_VERSION request was successfully processed.\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry.getVersion());
+    }
+
+    /*
+     * Process a request to put a key-value pair into the local key - value storage only if the key does not exist
+     */
+    protected String processPUTIFABSENTRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or value or both are invalid.");
+        }
+
+        PUT_IF_ABSENT_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
 
-        keyValueStore.put(lines[1], lines[2]);
-        return "PUT request was successfully processed.";
+        Object value = createValue(lines[2]);
+
+        final boolean flag[] = { false };
+        StoreEntry entry = keyValueStore.compute(lines[1], (key, currentEntry) -> {
+            flag[0] = currentEntry == null;
+            return flag[0] ? createEntry(value) : currentEntry;
+        });
+
+        if(!flag[0]) {
+            throw new ConditionFailedException("This key already exists in the system : " + lines[1] + ".\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry.getVersion()));
+        }
+
+        return "PUT_IF_ABSENT request was successfully processed.\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry.getVersion());
     }
 
     /*
@@ -115,7 +588,7 @@ public abstract class BaseServer {
             throw new IllegalArgumentException("The key is empty or invalid.");
         }
 
-        LOGGER.info(clientAddress + ":" + String.valueOf(clientPort) + "::" + "The key received for DELETE request is : " + lines[1]);
+        DELETE_RECEIVED.logRequest(clientAddress, clientPort, lines[1]);
 
         // Check if local key value storage contains a key, then delete the key
         // If key does not exist, throw a NoSuchElementException
@@ -127,5 +600,747 @@ public abstract class BaseServer {
             throw new NoSuchElementException("This key does not exist in the system : "+ lines[1] + ".");
         }
     }
-    
+
+    /*
+     * Process a request to delete all the keys starting with a prefix from the local key - value storage
+     * 
+     * The keys are deleted at once by a range tombstone, and their entries are reclaimed in the background.
+     */
+    protected String processDELETEPREFIXRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 3);
+
+        if(!Utils.isKeyValid(lines[1])) {
+            throw new IllegalArgumentException("The prefix is empty or invalid.");
+        }
+
+        DELETE_PREFIX_RECEIVED.logRequest(clientAddress, clientPort, lines[1]);
+
+        tombstoneStore.deletePrefix(lines[1], versionSequence.incrementAndGet());
+
+        return "DELETE_PREFIX request was successfully processed.";
+    }
+
+    /*
+     * Process a request to delete all the keys in the range [start key, end key) from the local key - value storage
+     * 
+     * The keys are deleted at once by a range tombstone, and their entries are reclaimed in the background.
+     */
+    protected String processDELETERANGERequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isKeyValid(lines[2]))) {
+            throw new IllegalArgumentException("The start key or end key or both are invalid.");
+        }
+
+        if(lines[1].compareTo(lines[2]) >= 0) {
+            throw new IllegalArgumentException("The start key should be less than the end key.");
+        }
+
+        DELETE_RANGE_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        tombstoneStore.deleteRange(lines[1], lines[2], versionSequence.incrementAndGet());
+
+        return "DELETE_RANGE request was successfully processed.";
+    }
+
+    /*
+     * Reclaims a batch of the entries of deleted key ranges, and returns false if there was nothing to reclaim
+     */
+    protected boolean reclaimDeletedRanges() {
+        return tombstoneStore.reclaim();
+    }
+
+    /*
+     * Process a request to delete a key from the local key - value storage only if its current value 
+     * matches the value sent by the client
+     */
+    protected String processDELETEIFVALUERequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or value or both are invalid.");
+        }
+
+        DELETE_IF_VALUE_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        final boolean flag[] = { false };
+        final boolean exists[] = { false };
+        keyValueStore.compute(lines[1], (key, currentEntry) -> {
+            exists[0] = currentEntry != null;
+            flag[0] = exists[0] && String.valueOf(currentEntry.getValue()).equals(lines[2]);
+            return flag[0] ? null : currentEntry;
+        });
+
+        if(!exists[0]) {
+            throw new NoSuchElementException("This key does not exist in the system : "+ lines[1] + ".");
+        } else if(!flag[0]) {
+            throw new ConditionFailedException("The value of the key does not match : " + lines[1] + ".");
+        }
+
+        return "DELETE_IF_VALUE request was successfully processed.";
+    }
+
+    /*
+     * Process a request to increment or decrement the counter stored at a key in the local key - value storage
+     * 
+     * INCR and DECR change the counter by one and INCRBY by the delta on the third line of the request. A missing 
+     * key starts at zero, and a string value holding an integer is converted into a counter on its first update.
+     * Once a key holds a counter, updates go straight to its striped cells without replacing the entry, and each
+     * of them gives the counter a new version, so a PUT_IF_VERSION based on a version read before an update fails.
+     */
+    protected String processINCRRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = requestBody.startsWith(RequestType.INCRBY.name()) ? verifyAndGetRequestLines(requestBody, 4) : verifyAndGetRequestLines(requestBody, 3);
+        String requestType = lines[0].trim();
+
+        if(!Utils.isKeyValid(lines[1])) {
+            throw new IllegalArgumentException("The key is empty or invalid.");
+        }
+
+        long delta = requestType.equals(RequestType.DECR.name()) ? -1 : 1;
+        if(requestType.equals(RequestType.INCRBY.name())) {
+            try {
+                delta = Long.parseLong(lines[2].trim());
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("The increment should be an integer.");
+            }
+        }
+
+        INCR_RECEIVED.logRequest(clientAddress, clientPort, requestType, lines[1], requestType, delta);
+
+        // Only create or convert the entry when the key does not hold a counter yet
+        StoreEntry entry = keyValueStore.get(lines[1]);
+        if(entry == null || !(entry.getValue() instanceof CounterValue)) {
+            entry = keyValueStore.compute(lines[1], (key, currentEntry) -> {
+                if(currentEntry == null) {
+                    return createEntry(new CounterValue(0));
+                } else if(currentEntry.getValue() instanceof CounterValue) {
+                    return currentEntry;
+                }
+
+                try {
+                    return createEntry(new CounterValue(Long.parseLong(String.valueOf(currentEntry.getValue()).trim())));
+                } catch (NumberFormatException nfe) {
+                    throw new IllegalArgumentException("The value of the key is not an integer : " + key + ".");
+                }
+            });
+        }
+
+        CounterValue counter = (CounterValue) entry.getValue();
+        counter.add(delta, versionSequence::incrementAndGet);
+        long version = entry.getVersion();
+
+        return requestType + " request was successfully processed. The value is : " + String.valueOf(counter.sum()) + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(version);
+    }
+
+    /*
+     * Returns the chunked value stored at a key, converting the current value of the key into one if needed
+     * 
+     * A missing key is created with an empty value. Only a string or a large value is converted. The 
+     * conversion copies the value once and keeps the version of the entry, since the value itself does 
+     * not change. Later partial updates change the chunked value in place.
+     */
+    protected ChunkedValue getChunkedValue(String key) {
+
+        StoreEntry entry = keyValueStore.get(key);
+        if(entry != null && entry.getValue() instanceof ChunkedValue) {
+            return (ChunkedValue) entry.getValue();
+        }
+
+        entry = keyValueStore.compute(key, (currentKey, currentEntry) -> {
+            if(currentEntry == null) {
+                return createEntry(new ChunkedValue(""));
+            } else if(currentEntry.getValue() instanceof ChunkedValue) {
+                return currentEntry;
+            } else if(!(currentEntry.getValue() instanceof String || currentEntry.getValue() instanceof LargeValue)) {
+                throw new IllegalArgumentException("The value of the key is not a string : " + currentKey + ".");
+            }
+
+            return new StoreEntry(new ChunkedValue(String.valueOf(currentEntry.getValue())), currentEntry.getVersion());
+        });
+
+        return (ChunkedValue) entry.getValue();
+
+    }
+
+    /*
+     * Gives the entry holding a value that was changed in place, such as a chunked value, a new version
+     * 
+     * If the key was overwritten in the meantime, the change happened before the overwrite
+     * and the entry of the key is returned unchanged.
+     */
+    protected StoreEntry updateValueVersion(String key, Object value) {
+
+        return keyValueStore.compute(key, (currentKey, currentEntry) -> {
+            if(currentEntry != null && currentEntry.getValue() == value) {
+                return createEntry(value);
+            }
+
+            return currentEntry;
+        });
+
+    }
+
+    /*
+     * Process a request to append a string to the value stored at a key in the local key - value storage
+     * 
+     * The appended string is copied into the chunks of the value, so the cost does not depend on the length of the value.
+     */
+    protected String processAPPENDRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or value or both are invalid.");
+        }
+
+        APPEND_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        ChunkedValue value = getChunkedValue(lines[1]);
+        int length = value.append(lines[2]);
+        StoreEntry entry = updateValueVersion(lines[1], value);
+
+        return "APPEND request was successfully processed. The length is : " + String.valueOf(length) + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry == null ? -1 : entry.getVersion());
+    }
+
+    /*
+     * Process a request to get a range of the value stored at a key in the local key - value storage
+     * 
+     * The start and end offsets are both inclusive, and a negative offset counts from the end of the value.
+     */
+    protected String processGETRANGERequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 5);
+
+        if(!Utils.isKeyValid(lines[1])) {
+            throw new IllegalArgumentException("The key is empty or invalid.");
+        }
+
+        int start;
+        int end;
+        try {
+            start = Integer.parseInt(lines[2].trim());
+            end = Integer.parseInt(lines[3].trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("The start and end offsets should be integers.");
+        }
+
+        GETRANGE_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2], lines[3]);
+
+        StoreEntry entry = keyValueStore.get(lines[1]);
+        if(entry == null) {
+            throw new NoSuchElementException("This key does not exist in the system : "+ lines[1] + ".");
+        }
+
+        // Other values are read without being converted into a chunked value
+        ChunkedValue chunkedValue = entry.getValue() instanceof ChunkedValue ? (ChunkedValue) entry.getValue() : null;
+        String value = chunkedValue == null ? String.valueOf(entry.getValue()) : null;
+        int length = chunkedValue == null ? value.length() : chunkedValue.length();
+
+        start = Math.max(0, start < 0 ? start + length : start);
+        end = Math.min(length - 1, end < 0 ? end + length : end);
+
+        String range = "";
+        if(start <= end) {
+            range = chunkedValue == null ? value.substring(start, end + 1) : chunkedValue.getRange(start, end + 1);
+        }
+
+        return "GETRANGE request was successfully processed. The value is : " + range + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry.getVersion());
+    }
+
+    /*
+     * Process a request to overwrite the value stored at a key in the local key - value storage from an offset
+     * 
+     * The value grows if the string goes past its end. The offset may be at most the length of the value.
+     */
+    protected String processSETRANGERequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 5);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or value or both are invalid.");
+        }
+
+        int offset;
+        try {
+            offset = Integer.parseInt(lines[3].trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("The offset should be an integer.");
+        }
+
+        // A missing key is only created by a write at the start of the value
+        if(offset < 0 || (offset > 0 && !keyValueStore.containsKey(lines[1]))) {
+            throw new IllegalArgumentException("The offset should be between 0 and the length of the value.");
+        }
+
+        SETRANGE_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2], lines[3]);
+
+        ChunkedValue value = getChunkedValue(lines[1]);
+        int length = value.setRange(offset, lines[2]);
+        StoreEntry entry = updateValueVersion(lines[1], value);
+
+        return "SETRANGE request was successfully processed. The length is : " + String.valueOf(length) + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry == null ? -1 : entry.getVersion());
+    }
+
+    /*
+     * Returns the sorted set held by the entry of a key, or throws if the key holds another type of value
+     */
+    private static SortedSetValue getSortedSet(String key, StoreEntry entry) {
+
+        if(!(entry.getValue() instanceof SortedSetValue)) {
+            throw new IllegalArgumentException("The value of the key is not a sorted set : " + key + ".");
+        }
+
+        return (SortedSetValue) entry.getValue();
+
+    }
+
+    /*
+     * Process a request to add a member with a score to the sorted set stored at a key, or to change the score of a member
+     * 
+     * A missing key is created with an empty sorted set. The set is changed in place outside of the computation of the entry, 
+     * which may be applied more than once, and the entry then gets a new version. When the set was discarded by a 
+     * concurrent ZREM request in the meantime, the member is added to the new set of the key.
+     */
+    protected String processZADDRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 5);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or member or both are invalid.");
+        }
+
+        double score;
+        try {
+            score = Double.parseDouble(lines[3].trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("The score should be a number.");
+        }
+        if(Double.isNaN(score)) {
+            throw new IllegalArgumentException("The score should be a number.");
+        }
+
+        ZADD_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2], lines[3]);
+
+        SortedSetValue sortedSet;
+        boolean added;
+        do {
+            sortedSet = getOrCreateValue(lines[1], SortedSetValue.class, SortedSetValue::new, "sorted set");
+            added = sortedSet.add(lines[2], score);
+        } while(sortedSet.isDiscarded());
+
+        StoreEntry entry = updateValueVersion(lines[1], sortedSet);
+
+        return "ZADD request was successfully processed. The number of members added is : " + (added ? "1" : "0") + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry == null ? -1 : entry.getVersion());
+    }
+
+    /*
+     * Process a request to get the members of the sorted set stored at a key between a start and an end rank
+     * 
+     * Both ranks are inclusive and start from 0 for the lowest score, and a negative rank counts from the end of the 
+     * set. The response message has the following lines : a status line, the version and then alternating member 
+     * and score lines, lowest score first.
+     */
+    protected String processZRANGERequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 5);
+
+        if(!Utils.isKeyValid(lines[1])) {
+            throw new IllegalArgumentException("The key is empty or invalid.");
+        }
+
+        int start;
+        int end;
+        try {
+            start = Integer.parseInt(lines[2].trim());
+            end = Integer.parseInt(lines[3].trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("The start and end ranks should be integers.");
+        }
+
+        ZRANGE_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2], lines[3]);
+
+        StoreEntry entry = keyValueStore.get(lines[1]);
+        if(entry == null) {
+            throw new NoSuchElementException("This key does not exist in the system : "+ lines[1] + ".");
+        }
+
+        List<Map.Entry<String, Double>> members = getSortedSet(lines[1], entry).range(start, end);
+
+        StringBuffer message = new StringBuffer();
+        message.append("ZRANGE request was successfully processed. The number of members returned is : " + String.valueOf(members.size()) + ".\n");
+        message.append(Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry.getVersion()));
+        for(Map.Entry<String, Double> member : members) {
+            message.append("\n");
+            message.append(member.getKey());
+            message.append("\n");
+            message.append(member.getValue());
+        }
+
+        return message.toString();
+    }
+
+    /*
+     * Process a request to get the rank of a member in the sorted set stored at a key, from 0 for the lowest score
+     */
+    protected String processZRANKRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or member or both are invalid.");
+        }
+
+        ZRANK_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        StoreEntry entry = keyValueStore.get(lines[1]);
+        if(entry == null) {
+            throw new NoSuchElementException("This key does not exist in the system : "+ lines[1] + ".");
+        }
+
+        int rank = getSortedSet(lines[1], entry).rank(lines[2]);
+        if(rank < 0) {
+            throw new NoSuchElementException("This member does not exist in the sorted set : "+ lines[2] + ".");
+        }
+
+        return "ZRANK request was successfully processed. The rank is : " + String.valueOf(rank) + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry.getVersion());
+    }
+
+    /*
+     * Process a request to remove a member from the sorted set stored at a key
+     * 
+     * The member is removed in place, like ZADD requests add them, and the entry then gets a new version. The key is deleted 
+     * along with the last member of its set, which discards the set, and the version -1 is then returned.
+     */
+    protected String processZREMRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or member or both are invalid.");
+        }
+
+        ZREM_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        StoreEntry entry;
+        SortedSetValue sortedSet;
+        boolean removed;
+        do {
+            entry = keyValueStore.get(lines[1]);
+            if(entry == null) {
+                throw new NoSuchElementException("This key does not exist in the system : "+ lines[1] + ".");
+            }
+
+            sortedSet = getSortedSet(lines[1], entry);
+            removed = sortedSet.remove(lines[2]);
+        } while(sortedSet.isDiscarded());
+
+        if(removed) {
+            final SortedSetValue removedFromSet = sortedSet;
+            entry = keyValueStore.compute(lines[1], (key, currentEntry) -> {
+                if(currentEntry == null || currentEntry.getValue() != removedFromSet) {
+                    return currentEntry;
+                }
+
+                return removedFromSet.discardIfEmpty() ? null : createEntry(removedFromSet);
+            });
+        }
+
+        return "ZREM request was successfully processed. The number of members removed is : " + (removed ? "1" : "0") + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry == null ? -1 : entry.getVersion());
+    }
+
+    /*
+     * Returns the value of a type that is changed in place stored at a key, which is created if the key is missing
+     * 
+     * The entry is only computed when the key does not hold a value of the type yet, so most updates 
+     * of a key only read its entry.
+     */
+    private <T> T getOrCreateValue(String key, Class<T> valueClass, Supplier<T> valueSupplier, String valueTypeName) {
+
+        StoreEntry entry = keyValueStore.get(key);
+        if(entry == null || !valueClass.isInstance(entry.getValue())) {
+            entry = keyValueStore.compute(key, (currentKey, currentEntry) -> {
+                if(currentEntry == null) {
+                    return createEntry(valueSupplier.get());
+                } else if(!valueClass.isInstance(currentEntry.getValue())) {
+                    throw new IllegalArgumentException("The value of the key is not a " + valueTypeName + " : " + currentKey + ".");
+                }
+
+                return currentEntry;
+            });
+        }
+
+        return valueClass.cast(entry.getValue());
+
+    }
+
+    /*
+     * Process a request to add an element to the HyperLogLog stored at a key in the local key - value storage
+     * 
+     * A missing key is created with an empty HyperLogLog. The registers are updated in place, and the entry 
+     * only gets a new version when the element changed a register, which means that it was never added before.
+     */
+    protected String processPFADDRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or element or both are invalid.");
+        }
+
+        PFADD_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        HyperLogLogValue value = getOrCreateValue(lines[1], HyperLogLogValue.class, HyperLogLogValue::new, "HyperLogLog");
+        boolean added = value.add(lines[2]);
+        StoreEntry entry = added ? updateValueVersion(lines[1], value) : keyValueStore.get(lines[1]);
+
+        return "PFADD request was successfully processed. The number of elements added is : " + (added ? "1" : "0") + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry == null ? -1 : entry.getVersion());
+    }
+
+    /*
+     * Process a request to estimate the number of distinct elements added to the HyperLogLog stored at a key
+     * 
+     * A missing key counts zero elements and has the version -1.
+     */
+    protected String processPFCOUNTRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 3);
+
+        if(!Utils.isKeyValid(lines[1])) {
+            throw new IllegalArgumentException("The key is empty or invalid.");
+        }
+
+        PFCOUNT_RECEIVED.logRequest(clientAddress, clientPort, lines[1]);
+
+        StoreEntry entry = keyValueStore.get(lines[1]);
+        if(entry != null && !(entry.getValue() instanceof HyperLogLogValue)) {
+            throw new IllegalArgumentException("The value of the key is not a HyperLogLog : " + lines[1] + ".");
+        }
+
+        long count = entry == null ? 0 : ((HyperLogLogValue) entry.getValue()).count();
+        return "PFCOUNT request was successfully processed. The count is : " + String.valueOf(count) + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry == null ? -1 : entry.getVersion());
+    }
+
+    /*
+     * Process a request to merge the HyperLogLog stored at a source key into the one stored at a destination key
+     * 
+     * The destination is created if it is missing, and a missing source is merged as an empty HyperLogLog. When 
+     * the source key is owned by another store partition or backend server, the registers of the source are sent 
+     * encoded in Base64 on the fourth line of the request, and are merged instead of the local source key.
+     */
+    protected String processPFMERGERequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = getRequestLines(requestBody);
+
+        if(lines.length != 4 && lines.length != 5) {
+            throw new IllegalArgumentException("The request body is invalid.");
+        }
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isKeyValid(lines[2]))) {
+            throw new IllegalArgumentException("The destination key or source key or both are invalid.");
+        }
+
+        PFMERGE_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        byte[] sourceRegisters = null;
+        if(lines.length == 5) {
+            try {
+                sourceRegisters = HyperLogLogValue.decodeRegisters(lines[3]);
+            } catch (IllegalArgumentException iae) {
+                throw new IllegalArgumentException("The value of the key is not a HyperLogLog : " + lines[2] + ".");
+            }
+        } else {
+            StoreEntry sourceEntry = keyValueStore.get(lines[2]);
+            if(sourceEntry != null && !(sourceEntry.getValue() instanceof HyperLogLogValue)) {
+                throw new IllegalArgumentException("The value of the key is not a HyperLogLog : " + lines[2] + ".");
+            }
+            sourceRegisters = sourceEntry == null ? null : ((HyperLogLogValue) sourceEntry.getValue()).getRegisters();
+        }
+
+        HyperLogLogValue destination = getOrCreateValue(lines[1], HyperLogLogValue.class, HyperLogLogValue::new, "HyperLogLog");
+        StoreEntry entry = sourceRegisters != null && destination.merge(sourceRegisters) ? updateValueVersion(lines[1], destination) : keyValueStore.get(lines[1]);
+
+        return "PFMERGE request was successfully processed.\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry == null ? -1 : entry.getVersion());
+    }
+
+    /*
+     * Process a request to add an element to the Bloom filter stored at a key in the local key - value storage
+     * 
+     * A missing key is created with an empty filter. The bits are set in place, and the entry only gets a 
+     * new version when the element set a bit, which means that it was never added before.
+     */
+    protected String processBFADDRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or element or both are invalid.");
+        }
+
+        BFADD_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        BloomFilterValue value = getOrCreateValue(lines[1], BloomFilterValue.class, BloomFilterValue::new, "Bloom filter");
+        boolean added = value.add(lines[2]);
+        StoreEntry entry = added ? updateValueVersion(lines[1], value) : keyValueStore.get(lines[1]);
+
+        return "BFADD request was successfully processed. The number of elements added is : " + (added ? "1" : "0") + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry == null ? -1 : entry.getVersion());
+    }
+
+    /*
+     * Process a request to check whether an element may have been added to the Bloom filter stored at a key
+     * 
+     * The result is 1 if the element may have been added, and 0 if it surely was not or if the key is missing.
+     */
+    protected String processBFEXISTSRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = verifyAndGetRequestLines(requestBody, 4);
+
+        if(!(Utils.isKeyValid(lines[1]) && Utils.isValueValid(lines[2]))) {
+            throw new IllegalArgumentException("The key or element or both are invalid.");
+        }
+
+        BFEXISTS_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        StoreEntry entry = keyValueStore.get(lines[1]);
+        if(entry != null && !(entry.getValue() instanceof BloomFilterValue)) {
+            throw new IllegalArgumentException("The value of the key is not a Bloom filter : " + lines[1] + ".");
+        }
+
+        boolean exists = entry != null && ((BloomFilterValue) entry.getValue()).mightContain(lines[2]);
+        return "BFEXISTS request was successfully processed. The result is : " + (exists ? "1" : "0") + "\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry == null ? -1 : entry.getVersion());
+    }
+
+    /*
+     * Process a request to scan a range of keys, or all the keys with a prefix, from the local key - value storage
+     * 
+     * At most limit entries are returned per request. The last key of a page is returned as the cursor 
+     * which the client sends back to fetch the next page, so a scan never buffers the whole result set.
+     * An empty cursor means that the scan is complete. The response message has the following lines :
+     * a status line, the cursor and then alternating key and value lines.
+     */
+    protected String processSCANRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = getRequestLines(requestBody);
+
+        if(lines.length < 2) {
+            throw new IllegalArgumentException("The request body is invalid.");
+        }
+
+        if(!keyValueStore.isOrdered()) {
+            throw new IllegalArgumentException("SCAN request is only supported by the ordered store.");
+        }
+
+        String startKey = null;
+        String endKey = null;
+        String prefix = null;
+        String cursor = null;
+
+        // Range scans have an optional cursor on the sixth line, prefix scans on the fifth line
+        if(lines[1].equals(Utils.SCAN_MODE_RANGE)) {
+            if(lines.length != 6 && lines.length != 7) {
+                throw new IllegalArgumentException("The request body is invalid.");
+            }
+
+            startKey = lines[2];
+            endKey = lines[3];
+            cursor = lines.length == 7 ? lines[5] : null;
+
+            if(!(Utils.isKeyValid(startKey) && Utils.isKeyValid(endKey))) {
+                throw new IllegalArgumentException("The start key or end key or both are invalid.");
+            }
+        } else if(lines[1].equals(Utils.SCAN_MODE_PREFIX)) {
+            if(lines.length != 5 && lines.length != 6) {
+                throw new IllegalArgumentException("The request body is invalid.");
+            }
+
+            prefix = lines[2];
+            startKey = prefix;
+            cursor = lines.length == 6 ? lines[4] : null;
+
+            if(!Utils.isKeyValid(prefix)) {
+                throw new IllegalArgumentException("The prefix is empty or invalid.");
+            }
+        } else {
+            throw new IllegalArgumentException("The scan mode should be either RANGE or PREFIX.");
+        }
+
+        int limit = Utils.getScanLimit(lines);
+
+        SCAN_RECEIVED.logRequest(clientAddress, clientPort, startKey, cursor);
+
+        // Resume after the cursor, unless the cursor lies before the start of the range
+        Iterator<Map.Entry<String, StoreEntry>> iterator;
+        if(Utils.isKeyValid(cursor) && cursor.compareTo(startKey) >= 0) {
+            iterator = keyValueStore.scan(cursor, false);
+        } else {
+            iterator = keyValueStore.scan(startKey, true);
+        }
+
+        StringBuffer entries = new StringBuffer();
+        String lastKey = null;
+        boolean isComplete = true;
+        int count = 0;
+        while(iterator.hasNext()) {
+            Map.Entry<String, StoreEntry> entry = iterator.next();
+
+            if(endKey != null && entry.getKey().compareTo(endKey) >= 0) {
+                break;
+            }
+            if(prefix != null && !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if(count == limit) {
+                isComplete = false;
+                break;
+            }
+
+            entries.append("\n");
+            entries.append(entry.getKey());
+            entries.append("\n");
+            entries.append(entry.getValue().getValue());
+            lastKey = entry.getKey();
+            count++;
+        }
+
+        return "SCAN request was successfully processed. The number of entries returned is : " + String.valueOf(count) + ".\n" + (isComplete ? "" : lastKey) + entries.toString();
+    }
+
+    /*
+     * Process a request to aggregate all the keys with a prefix, or all the keys for the prefix *, in the local key - value storage
+     * 
+     * COUNT returns the number of keys, BYTES the total size of their values in bytes and TOP the keys with 
+     * the largest values. The store is traversed in parallel on the low priority aggregation workers. 
+     * The response message has the following lines : a status line, the result and, for TOP, alternating 
+     * key and value size lines, largest first. The result of TOP is the number of keys returned.
+     */
+    protected String processAGGREGATERequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = getRequestLines(requestBody);
+
+        int limit = Utils.getAggregateLimit(lines);
+
+        if(!Utils.isKeyValid(lines[2])) {
+            throw new IllegalArgumentException("The prefix is empty or invalid.");
+        }
+
+        AGGREGATE_RECEIVED.logRequest(clientAddress, clientPort, lines[1], lines[2]);
+
+        String prefix = lines[2].equals(Utils.AGGREGATE_ALL_KEYS) ? null : lines[2];
+        AggregateResult result = AggregateTask.aggregate(keyValueStore, prefix, !lines[1].equals(Utils.AGGREGATE_COUNT), limit);
+
+        String message = "AGGREGATE request was successfully processed.\n" + Utils.RESULT_MESSAGE_PREFIX;
+        if(lines[1].equals(Utils.AGGREGATE_COUNT)) {
+            return message + String.valueOf(result.count);
+        } else if(lines[1].equals(Utils.AGGREGATE_BYTES)) {
+            return message + String.valueOf(result.totalBytes);
+        }
+
+        List<Map.Entry<String, Long>> largest = result.getLargest();
+        return message + String.valueOf(largest.size()) + Utils.formatLargestValues(largest);
+    }
+
+    /*
+     * Process a request for the keys with the most reads, writes or bytes over the last minute
+     * 
+     * The counts are estimates from the sketches of the hot key tracker. They are never lower than 
+     * the real counts, and are scaled up by the sampling when only some of the requests are recorded.
+     * The response message has the following lines : a status line, the number of keys returned and 
+     * then alternating key and count lines, highest first.
+     */
+    protected String processHOTKEYSRequest(String requestBody, String clientAddress, int clientPort) {
+        String lines[] = getRequestLines(requestBody);
+
+        int limit = Utils.getHotKeysLimit(lines);
+
+        HOTKEYS_RECEIVED.logRequest(clientAddress, clientPort, lines[1]);
+
+        List<Map.Entry<String, Long>> hotKeys = hotKeyTracker.getHotKeys(lines[1], limit);
+        return "HOTKEYS request was successfully processed.\n" + Utils.RESULT_MESSAGE_PREFIX + String.valueOf(hotKeys.size()) + Utils.formatLargestValues(hotKeys);
+    }
+
 }
@@ -0,0 +1,541 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.common.Utils;
+
+/*
+ * Loads the keys and values of a file straight into the store of a server, to warm up a new
+ * server without sending every PUT over the network
+ *
+ * A text file holds one key and value per line, separated by a tab in a .tsv file and by a
+ * comma otherwise. The value is the rest of the line, so it may contain the separator. A binary
+ * dump, written by a DumpWriter, starts with DUMP_MAGIC and the number of records, followed by
+ * blocks that start with their number of records and their length in bytes. Each record is the
+ * length of the key, the key, the length of the value and the value, encoded in UTF-8.
+ *
+ * The file is split into chunks that end on a line or a block boundary, one memory mapping per
+ * chunk, and the chunks are parsed by one thread per core. The records of a text file are
+ * counted first, in parallel as well, so that the tables of the store are sized once for all
+ * the keys instead of being rehashed every time they double. Records are inserted in batches :
+ * a shared store is concurrent and takes them directly, while the batches for a store partition
+ * are inserted while holding the partition, since its store is not synchronized. The import
+ * must complete before the server starts serving requests.
+ */
+public class BulkImporter {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkImporter.class.getName());
+
+    public static final int DUMP_MAGIC = 0x4b56444d;
+    private static final int DUMP_HEADER_SIZE = 12;
+    private static final int BLOCK_HEADER_SIZE = 8;
+    private static final int BATCH_SIZE = 1024;
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+
+    private final BaseServer[] servers;
+    private final int parallelism;
+    private boolean presizes = true;
+    private final LongAdder skippedRecords = new LongAdder();
+
+    public BulkImporter(BaseServer server) {
+        this(server, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BulkImporter(BaseServer server, int parallelism) {
+        this.servers = server.partitionRouter == null ? new BaseServer[] { server } : server.partitionRouter.getPartitions();
+        this.parallelism = parallelism;
+    }
+
+    /*
+     * Turns the sizing of the tables ahead of the import on or off, to measure what it saves
+     */
+    public void setPresizing(boolean presizes) {
+        this.presizes = presizes;
+    }
+
+    /*
+     * A range of the file that holds whole records
+     */
+    private static class Chunk {
+
+        final long start;
+        final long end;
+        MappedByteBuffer buffer;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /*
+     * Imports all the records of a file and returns how many were inserted
+     */
+    public long importFile(String path) throws IOException {
+
+        skippedRecords.reset();
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            boolean isDump = readDumpHeader(channel) >= 0;
+            List<Chunk> chunks = isDump ? splitDump(channel) : splitText(channel);
+            for(Chunk chunk : chunks) {
+                chunk.buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+            }
+
+            ExecutorService importPool = Executors.newFixedThreadPool(parallelism, new ImportThreadFactory());
+            try {
+                if(presizes) {
+                    long numberOfRecords = isDump ? readDumpHeader(channel) : runOnChunks(importPool, chunks, this::countLines);
+                    for(BaseServer server : servers) {
+                        server.keyValueStore.ensureCapacity((int) Math.min(Integer.MAX_VALUE, numberOfRecords / servers.length + numberOfRecords / servers.length / 8 + 1));
+                    }
+                }
+
+                char separator = path.endsWith(".tsv") ? '\t' : ',';
+                long importedRecords = runOnChunks(importPool, chunks, chunk -> isDump ? importBlocks(chunk) : importLines(chunk, separator));
+                if(skippedRecords.sum() > 0) {
+                    LOGGER.warning(String.valueOf(skippedRecords.sum()) + " records of " + path + " were skipped, since their key or value is empty or invalid.");
+                }
+
+                return importedRecords;
+            } finally {
+                importPool.shutdown();
+            }
+        }
+
+    }
+
+    private static class ImportThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger nextIndex = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, "bulk-import-" + String.valueOf(nextIndex.getAndIncrement()));
+            thread.setDaemon(true);
+            return thread;
+
+        }
+    }
+
+    private interface ChunkTask {
+        long run(Chunk chunk) throws IOException;
+    }
+
+    /*
+     * Runs a task on every chunk in parallel and returns the sum of their results
+     */
+    private long runOnChunks(ExecutorService importPool, List<Chunk> chunks, ChunkTask task) throws IOException {
+
+        List<Future<Long>> results = new ArrayList<Future<Long>>();
+        for(Chunk chunk : chunks) {
+            Callable<Long> callable = () -> task.run(chunk);
+            results.add(importPool.submit(callable));
+        }
+
+        long total = 0;
+        try {
+            for(Future<Long> result : results) {
+                total += result.get();
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The import was interrupted.", e);
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error importing a chunk of the file.", e.getCause());
+        }
+
+        return total;
+
+    }
+
+    private long getChunkSize(long fileSize) {
+        return Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, fileSize / (parallelism * 4L) + 1));
+    }
+
+    /*
+     * Returns the number of records in the header of a dump, or -1 if the file is not a dump
+     */
+    private static long readDumpHeader(FileChannel channel) throws IOException {
+
+        ByteBuffer header = ByteBuffer.allocate(DUMP_HEADER_SIZE);
+        while(header.hasRemaining() && channel.read(header, header.position()) > 0) {
+        }
+
+        if(header.hasRemaining() || header.getInt(0) != DUMP_MAGIC) {
+            return -1;
+        }
+
+        return header.getLong(4);
+
+    }
+
+    /*
+     * Splits a text file into chunks that end after a newline, or at the end of the file
+     */
+    private List<Chunk> splitText(FileChannel channel) throws IOException {
+
+        long fileSize = channel.size();
+        long chunkSize = getChunkSize(fileSize);
+        List<Chunk> chunks = new ArrayList<Chunk>();
+        ByteBuffer scanBuffer = ByteBuffer.allocate(4096);
+
+        long start = 0;
+        while(start < fileSize) {
+            long end = Math.min(fileSize, start + chunkSize);
+
+            // Move the end of the chunk past the next newline, so that the chunk only holds whole lines
+            boolean foundNewline = end == fileSize;
+            while(!foundNewline && end < fileSize) {
+                scanBuffer.clear();
+                int read = channel.read(scanBuffer, end);
+                for(int i = 0; i < read; i++) {
+                    if(scanBuffer.get(i) == '\n') {
+                        end += i + 1;
+                        foundNewline = true;
+                        break;
+                    }
+                }
+                if(!foundNewline) {
+                    end += Math.max(read, 0);
+                    if(read <= 0) {
+                        end = fileSize;
+                    }
+                }
+            }
+
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+
+        return chunks;
+
+    }
+
+    /*
+     * Splits a dump into chunks of whole blocks, walking the headers of the blocks
+     */
+    private List<Chunk> splitDump(FileChannel channel) throws IOException {
+
+        long fileSize = channel.size();
+        long chunkSize = getChunkSize(fileSize);
+        List<Chunk> chunks = new ArrayList<Chunk>();
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+
+        long start = DUMP_HEADER_SIZE;
+        long end = start;
+        while(end + BLOCK_HEADER_SIZE <= fileSize) {
+            blockHeader.clear();
+            while(blockHeader.hasRemaining() && channel.read(blockHeader, end + blockHeader.position()) > 0) {
+            }
+
+            long blockEnd = end + BLOCK_HEADER_SIZE + blockHeader.getInt(4);
+            if(blockEnd > fileSize) {
+                throw new IOException("The dump is truncated, a block ends past the end of the file.");
+            }
+
+            end = blockEnd;
+            if(end - start >= chunkSize) {
+                chunks.add(new Chunk(start, end));
+                start = end;
+            }
+        }
+
+        if(end > start) {
+            chunks.add(new Chunk(start, end));
+        }
+
+        return chunks;
+
+    }
+
+    private long countLines(Chunk chunk) {
+
+        MappedByteBuffer buffer = chunk.buffer;
+        int limit = buffer.limit();
+        long numberOfLines = 0;
+        for(int i = 0; i < limit; i++) {
+            if(buffer.get(i) == '\n') {
+                numberOfLines++;
+            }
+        }
+
+        // The last line of the file may not end with a newline
+        if(limit > 0 && buffer.get(limit - 1) != '\n') {
+            numberOfLines++;
+        }
+
+        return numberOfLines;
+
+    }
+
+    private long importLines(Chunk chunk, char separator) {
+
+        MappedByteBuffer buffer = chunk.buffer;
+        Batches batches = new Batches();
+        byte[] scratch = new byte[256];
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while(lineStart < limit) {
+            int lineEnd = lineStart;
+            int separatorIndex = -1;
+            while(lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                if(separatorIndex < 0 && buffer.get(lineEnd) == separator) {
+                    separatorIndex = lineEnd;
+                }
+                lineEnd++;
+            }
+
+            int nextLineStart = lineEnd + 1;
+            if(lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            if(separatorIndex < 0) {
+                if(lineEnd > lineStart) {
+                    skippedRecords.increment();
+                }
+            } else {
+                int lineLength = lineEnd - lineStart;
+                if(scratch.length < lineLength) {
+                    scratch = new byte[Math.max(lineLength, scratch.length * 2)];
+                }
+                buffer.get(lineStart, scratch, 0, lineLength);
+                int keyLength = separatorIndex - lineStart;
+                batches.add(new String(scratch, 0, keyLength, StandardCharsets.UTF_8), new String(scratch, keyLength + 1, lineLength - keyLength - 1, StandardCharsets.UTF_8));
+            }
+
+            lineStart = nextLineStart;
+        }
+
+        return batches.flushAll();
+
+    }
+
+    private long importBlocks(Chunk chunk) throws IOException {
+
+        MappedByteBuffer buffer = chunk.buffer;
+        Batches batches = new Batches();
+        byte[] scratch = new byte[256];
+        int limit = buffer.limit();
+        int position = 0;
+        try {
+            while(position < limit) {
+                int numberOfRecords = buffer.getInt(position);
+                position += BLOCK_HEADER_SIZE;
+                for(int i = 0; i < numberOfRecords; i++) {
+                    int keyLength = buffer.getInt(position);
+                    int valueLength = buffer.getInt(position + 4 + keyLength);
+                    if(scratch.length < Math.max(keyLength, valueLength)) {
+                        scratch = new byte[Math.max(Math.max(keyLength, valueLength), scratch.length * 2)];
+                    }
+
+                    buffer.get(position + 4, scratch, 0, keyLength);
+                    String key = new String(scratch, 0, keyLength, StandardCharsets.UTF_8);
+                    buffer.get(position + 8 + keyLength, scratch, 0, valueLength);
+                    batches.add(key, new String(scratch, 0, valueLength, StandardCharsets.UTF_8));
+                    position += 8 + keyLength + valueLength;
+                }
+            }
+        } catch(IndexOutOfBoundsException e) {
+            throw new IOException("The dump is corrupted, a record ends past the end of its block.", e);
+        }
+
+        return batches.flushAll();
+
+    }
+
+    /*
+     * The records parsed by one chunk, grouped by the store they go to
+     */
+    private class Batches {
+
+        private final String keys[][] = new String[servers.length][BATCH_SIZE];
+        private final String values[][] = new String[servers.length][BATCH_SIZE];
+        private final int sizes[] = new int[servers.length];
+        private long insertedRecords;
+
+        void add(String key, String value) {
+
+            if(!Utils.isKeyValid(key) || !Utils.isValueValid(value)) {
+                skippedRecords.increment();
+                return;
+            }
+
+            int server = servers.length == 1 ? 0 : PartitionRouter.getPartition(key, servers.length);
+            keys[server][sizes[server]] = key;
+            values[server][sizes[server]] = value;
+            if(++sizes[server] == BATCH_SIZE) {
+                flush(server);
+            }
+
+        }
+
+        long flushAll() {
+
+            for(int server = 0; server < servers.length; server++) {
+                flush(server);
+            }
+
+            return insertedRecords;
+
+        }
+
+        private void flush(int server) {
+
+            int size = sizes[server];
+            if(size == 0) {
+                return;
+            }
+
+            BaseServer target = servers[server];
+            if(servers.length == 1) {
+                insert(target, keys[server], values[server], size);
+            } else {
+                synchronized(target) {
+                    insert(target, keys[server], values[server], size);
+                }
+            }
+
+            insertedRecords += size;
+            sizes[server] = 0;
+
+        }
+
+        private void insert(BaseServer target, String batchKeys[], String batchValues[], int size) {
+
+            for(int i = 0; i < size; i++) {
+                target.keyValueStore.put(batchKeys[i], target.createEntry(target.createValue(batchValues[i])));
+                batchKeys[i] = null;
+                batchValues[i] = null;
+            }
+
+        }
+    }
+
+    /*
+     * Writes a binary dump that the bulk importer splits and parses in parallel
+     *
+     * The number of records in the header is only written when the dump is closed.
+     */
+    public static class DumpWriter implements Closeable {
+
+        private static final int BLOCK_SIZE = 1 << 20;
+
+        private final String path;
+        private final DataOutputStream output;
+        private final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+        private int recordsInBlock;
+        private long numberOfRecords;
+
+        public DumpWriter(String path) throws IOException {
+
+            this.path = path;
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+            output.writeInt(DUMP_MAGIC);
+            output.writeLong(0);
+
+        }
+
+        public void write(String key, String value) throws IOException {
+
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            int recordSize = 8 + keyBytes.length + valueBytes.length;
+            if(recordsInBlock > 0 && block.remaining() < recordSize) {
+                writeBlock();
+            }
+
+            // A record larger than a block gets a block of its own
+            if(block.remaining() < recordSize) {
+                writeBlockHeader(1, recordSize);
+                writeRecord(output, keyBytes, valueBytes);
+            } else {
+                block.putInt(keyBytes.length).put(keyBytes).putInt(valueBytes.length).put(valueBytes);
+                recordsInBlock++;
+            }
+
+            numberOfRecords++;
+
+        }
+
+        private void writeRecord(DataOutputStream output, byte[] keyBytes, byte[] valueBytes) throws IOException {
+
+            output.writeInt(keyBytes.length);
+            output.write(keyBytes);
+            output.writeInt(valueBytes.length);
+            output.write(valueBytes);
+
+        }
+
+        private void writeBlockHeader(int records, int length) throws IOException {
+
+            output.writeInt(records);
+            output.writeInt(length);
+
+        }
+
+        private void writeBlock() throws IOException {
+
+            writeBlockHeader(recordsInBlock, block.position());
+            output.write(block.array(), 0, block.position());
+            block.clear();
+            recordsInBlock = 0;
+
+        }
+
+        public void close() throws IOException {
+
+            if(recordsInBlock > 0) {
+                writeBlock();
+            }
+            output.close();
+
+            try (RandomAccessFile dumpFile = new RandomAccessFile(path, "rw")) {
+                dumpFile.seek(4);
+                dumpFile.writeLong(numberOfRecords);
+            }
+
+        }
+    }
+}
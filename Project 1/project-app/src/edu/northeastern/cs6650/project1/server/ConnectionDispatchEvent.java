@@ -0,0 +1,39 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight recorder event for the dispatch of an accepted connection to a connection thread, along with its client address
+ * 
+ * The event begins once accept returns, so it times the handoff to the executor and not the wait for a client.
+ */
+@Name("edu.northeastern.cs6650.project1.ConnectionDispatch")
+@Label("Connection Dispatch")
+@Description("A connection handed off by the accepting thread of the TCP server, until a connection thread starts serving it")
+@Category({ "Key Value Store", "Requests" })
+@StackTrace(false)
+class ConnectionDispatchEvent extends Event {
+
+    @Label("Client Address")
+    String clientAddress;
+}
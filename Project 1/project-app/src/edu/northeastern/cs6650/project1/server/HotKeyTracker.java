@@ -0,0 +1,375 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import edu.northeastern.cs6650.project1.common.RequestType;
+import edu.northeastern.cs6650.project1.common.Utils;
+
+/*
+ * A count-min sketch, which estimates the weight recorded for a key in a fixed amount of memory
+ * 
+ * Every key maps to one counter in each row, and its estimate is the smallest of its counters.
+ * Other keys that share a counter can only inflate an estimate, never deflate it. Updates are
+ * conservative : a counter is only raised as far as the new estimate of the key, which keeps
+ * the counters shared with cold keys from growing with every update of a hot key. The counters
+ * are atomic, so threads record into the sketch without locking it.
+ */
+class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counters;
+
+    CountMinSketch(int width, int depth) {
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    void add(String key, long weight) {
+
+        int hash = mix(key.hashCode());
+        int step = mix(hash) | 1;
+        long estimate = estimate(hash, step) + weight;
+        for(int row = 0; row < depth; row++) {
+            counters.accumulateAndGet(row * width + Math.floorMod(hash + row * step, width), estimate, Math::max);
+        }
+
+    }
+
+    long estimate(String key) {
+
+        int hash = mix(key.hashCode());
+        return estimate(hash, mix(hash) | 1);
+
+    }
+
+    private long estimate(int hash, int step) {
+
+        long estimate = Long.MAX_VALUE;
+        for(int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + Math.floorMod(hash + row * step, width)));
+        }
+
+        return estimate;
+
+    }
+
+    void clear() {
+
+        for(int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+
+    }
+
+    /*
+     * Spreads the bits of a hash code, so that the rows of similar keys do not collide
+     */
+    private static int mix(int hash) {
+
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+
+    }
+}
+
+/*
+ * A space-saving tracker of the keys with the largest recorded weights
+ * 
+ * A fixed number of counters is kept in a min heap. A key without a counter takes over the
+ * smallest one and inherits its weight, so any key whose weight is more than the total weight
+ * divided by the number of counters is always tracked.
+ */
+class SpaceSavingTracker {
+
+    private static class Counter {
+        String key;
+        long weight;
+        int index;
+    }
+
+    private final Map<String, Counter> counters = new HashMap<String, Counter>();
+    private final Counter[] heap;
+    private int size;
+
+    SpaceSavingTracker(int capacity) {
+        this.heap = new Counter[capacity];
+    }
+
+    synchronized void add(String key, long weight) {
+
+        Counter counter = counters.get(key);
+        if(counter == null) {
+            if(size < heap.length) {
+                counter = new Counter();
+                counter.index = size;
+                heap[size++] = counter;
+            } else {
+                counter = heap[0];
+                counters.remove(counter.key);
+            }
+
+            counter.key = key;
+            counters.put(key, counter);
+        }
+
+        // The weight only grows, so the counter can only move down the heap
+        counter.weight += weight;
+        int index = counter.index;
+        while(2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if(child + 1 < size && heap[child + 1].weight < heap[child].weight) {
+                child++;
+            }
+            if(heap[child].weight >= counter.weight) {
+                break;
+            }
+
+            heap[index] = heap[child];
+            heap[index].index = index;
+            index = child;
+        }
+        heap[index] = counter;
+        counter.index = index;
+
+    }
+
+    synchronized List<String> getKeys() {
+        return new ArrayList<String>(counters.keySet());
+    }
+
+    synchronized void clear() {
+
+        counters.clear();
+        for(int i = 0; i < size; i++) {
+            heap[i] = null;
+        }
+        size = 0;
+
+    }
+}
+
+/*
+ * Tracks the keys with the most reads, writes and bytes over a sliding window
+ * 
+ * The window is split into a ring of slots, and the oldest slot is cleared and reused when
+ * time moves past it. Each slot has a space-saving tracker, which finds the candidate hot keys,
+ * and a count-min sketch, which estimates their weights, for every metric. The weight of a key
+ * over the window is the sum of its estimates in the live slots, so a key that was hot in one
+ * slot is still counted in the slots where it was not among the candidates.
+ * 
+ * Only one in every sampling requests is recorded, with its weight scaled up by the sampling,
+ * which keeps the tracker cheap on the request path of a busy server.
+ */
+public class HotKeyTracker {
+
+    public static final int SLOT_MILLIS = 10000;
+    public static final int NUMBER_OF_SLOTS = 6;
+
+    private static final int READS = 0;
+    private static final int WRITES = 1;
+    private static final int BYTES = 2;
+    private static final int SKETCH_WIDTH = 1024;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int CANDIDATES_PER_SLOT = 256;
+
+    /*
+     * The sketches and trackers of the three metrics for the requests of one slot of time
+     */
+    private static class Slot {
+        volatile long epoch = -1;
+        final CountMinSketch[] sketches = new CountMinSketch[3];
+        final SpaceSavingTracker[] trackers = new SpaceSavingTracker[3];
+
+        Slot() {
+            for(int metric = 0; metric < 3; metric++) {
+                sketches[metric] = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
+                trackers[metric] = new SpaceSavingTracker(CANDIDATES_PER_SLOT);
+            }
+        }
+    }
+
+    private final Slot[] slots = new Slot[NUMBER_OF_SLOTS];
+    private volatile int sampling = 1;
+
+    public HotKeyTracker() {
+
+        for(int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+
+    }
+
+    /*
+     * Records one in every sampling requests, where 1 records every request
+     */
+    public void setSampling(int sampling) {
+
+        if(sampling <= 0) {
+            throw new IllegalArgumentException("The hot key sampling should be greater than zero.");
+        }
+
+        this.sampling = sampling;
+
+    }
+
+    /*
+     * Records a request, and the length of its response, against the key of the request
+     * 
+     * Only the request type and the key are read from the request body, so a large value is not copied.
+     * The bytes of a request are approximated by the characters of the request and the response.
+     */
+    public void record(StringBuffer requestBody, long responseLength) {
+
+        int sampling = this.sampling;
+        if(sampling > 1 && ThreadLocalRandom.current().nextInt(sampling) != 0) {
+            return;
+        }
+
+        int endOfRequestType = requestBody.indexOf("\n");
+        int endOfKey = endOfRequestType < 0 ? -1 : requestBody.indexOf("\n", endOfRequestType + 1);
+        if(endOfKey < 0) {
+            return;
+        }
+
+        int metric;
+        switch(RequestType.parseString(requestBody.substring(0, endOfRequestType).trim())) {
+            case GET:
+            case GET_IF_CHANGED:
+            case GETRANGE:
+            case ZRANGE:
+            case ZRANK:
+            case PFCOUNT:
+            case BFEXISTS:
+                metric = READS;
+                break;
+            case PUT:
+            case DELETE:
+            case PUT_IF_VERSION:
+            case PUT_IF_ABSENT:
+            case DELETE_IF_VALUE:
+            case INCR:
+            case DECR:
+            case INCRBY:
+            case APPEND:
+            case SETRANGE:
+            case ZADD:
+            case ZREM:
+            case PFADD:
+            case PFMERGE:
+            case BFADD:
+                metric = WRITES;
+                break;
+            default:
+                // Requests that span many keys have no key to record
+                return;
+        }
+
+        String key = requestBody.substring(endOfRequestType + 1, endOfKey);
+        Slot slot = getSlot(System.currentTimeMillis() / SLOT_MILLIS);
+        add(slot, metric, key, sampling);
+        add(slot, BYTES, key, (requestBody.length() + responseLength) * sampling);
+
+    }
+
+    /*
+     * Returns the keys with the highest estimated weights of a metric over the window, highest first
+     */
+    public List<Map.Entry<String, Long>> getHotKeys(String metricName, int limit) {
+
+        int metric = metricName.equals(Utils.HOTKEYS_READS) ? READS : (metricName.equals(Utils.HOTKEYS_WRITES) ? WRITES : BYTES);
+        long epoch = System.currentTimeMillis() / SLOT_MILLIS;
+
+        List<Slot> liveSlots = new ArrayList<Slot>();
+        Set<String> candidates = new HashSet<String>();
+        for(Slot slot : slots) {
+            if(slot.epoch > epoch - NUMBER_OF_SLOTS && slot.epoch <= epoch) {
+                liveSlots.add(slot);
+                candidates.addAll(slot.trackers[metric].getKeys());
+            }
+        }
+
+        List<Map.Entry<String, Long>> hotKeys = new ArrayList<Map.Entry<String, Long>>();
+        for(String key : candidates) {
+            long weight = 0;
+            for(Slot slot : liveSlots) {
+                weight += slot.sketches[metric].estimate(key);
+            }
+            hotKeys.add(new AbstractMap.SimpleImmutableEntry<String, Long>(key, weight));
+        }
+
+        hotKeys.sort(Utils.LARGEST_VALUE_FIRST);
+        return hotKeys.subList(0, Math.min(limit, hotKeys.size()));
+
+    }
+
+    /*
+     * Returns the estimated number of reads of a key in the current slot of time
+     */
+    public long estimateReads(String key) {
+
+        long epoch = System.currentTimeMillis() / SLOT_MILLIS;
+        Slot slot = slots[(int) (epoch % NUMBER_OF_SLOTS)];
+        return slot.epoch == epoch ? slot.sketches[READS].estimate(key) : 0;
+
+    }
+
+    private void add(Slot slot, int metric, String key, long weight) {
+        slot.sketches[metric].add(key, weight);
+        slot.trackers[metric].add(key, weight);
+    }
+
+    /*
+     * Returns the slot of an epoch, clearing it first if it still holds an older epoch
+     * 
+     * A thread that is still recording into the old epoch while the slot is cleared may leave
+     * a few of its requests in the new epoch, which the estimates tolerate. A slot is never
+     * moved back to an older epoch by a thread that read the clock before the slot moved on.
+     */
+    private Slot getSlot(long epoch) {
+
+        Slot slot = slots[(int) (epoch % NUMBER_OF_SLOTS)];
+        if(slot.epoch < epoch) {
+            synchronized(slot) {
+                if(slot.epoch < epoch) {
+                    for(int metric = 0; metric < 3; metric++) {
+                        slot.sketches[metric].clear();
+                        slot.trackers[metric].clear();
+                    }
+                    slot.epoch = epoch;
+                }
+            }
+        }
+
+        return slot;
+
+    }
+}
@@ -0,0 +1,34 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * A request waiting in the queue of a store partition, which is completed with its response body
+ */
+class PartitionRequest extends CompletableFuture<StringBuffer> {
+
+    final StringBuffer requestBody;
+    final String clientAddress;
+    final int clientPort;
+
+    PartitionRequest(StringBuffer requestBody, String clientAddress, int clientPort) {
+        this.requestBody = requestBody;
+        this.clientAddress = clientAddress;
+        this.clientPort = clientPort;
+    }
+}
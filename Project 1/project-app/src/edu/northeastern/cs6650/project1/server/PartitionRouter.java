@@ -0,0 +1,120 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.server.PartitionSession;
+import edu.northeastern.cs6650.project1.server.StorePartition;
+
+/*
+ * Splits the keyspace of a server into single threaded store partitions
+ * 
+ * A thread that wants to send requests to the partitions acquires a session, which 
+ * owns one single producer queue per partition. Sessions are pooled and handed to 
+ * the next connection once released, so a partition only polls as many queues as 
+ * there were connections open at the same time.
+ */
+public class PartitionRouter {
+
+    private final StorePartition[] partitions;
+    private final Queue<PartitionSession> idleSessions = new ConcurrentLinkedQueue<PartitionSession>();
+
+    public PartitionRouter(int numberOfPartitions, StoreType storeType) {
+
+        if(numberOfPartitions <= 0) {
+            throw new IllegalArgumentException("The number of partitions should be greater than zero.");
+        }
+
+        partitions = new StorePartition[numberOfPartitions];
+        for(int i = 0; i < numberOfPartitions; i++) {
+            partitions[i] = new StorePartition(storeType, "store-partition-" + String.valueOf(i));
+        }
+
+    }
+
+    /*
+     * Returns a session for the calling thread, which must not be shared with another thread until it is released
+     */
+    public PartitionSession acquireSession() {
+
+        PartitionSession session = idleSessions.poll();
+        if(session == null) {
+            session = new PartitionSession(partitions);
+        }
+
+        return session;
+
+    }
+
+    public void releaseSession(PartitionSession session) {
+        idleSessions.add(session);
+    }
+
+    /*
+     * Records one in every sampling requests in the hot key trackers of all the partitions
+     */
+    public void setHotKeySampling(int sampling) {
+
+        for(StorePartition partition : partitions) {
+            partition.setHotKeySampling(sampling);
+        }
+
+    }
+
+    /*
+     * Records the requests processed by all the partitions into one trace
+     */
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+
+        for(StorePartition partition : partitions) {
+            partition.setTraceRecorder(traceRecorder);
+        }
+
+    }
+
+    public int getNumberOfPartitions() {
+        return partitions.length;
+    }
+
+    StorePartition[] getPartitions() {
+        return partitions;
+    }
+
+    /*
+     * Returns the index of the partition that owns a key
+     */
+    static int getPartition(String key, int numberOfPartitions) {
+
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, numberOfPartitions);
+
+    }
+
+    /*
+     * Stops all the partition threads
+     */
+    public void shutdown() {
+
+        for(StorePartition partition : partitions) {
+            partition.stop();
+        }
+
+    }
+}
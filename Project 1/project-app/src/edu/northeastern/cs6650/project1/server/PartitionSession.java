@@ -0,0 +1,132 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.northeastern.cs6650.project1.common.RequestType;
+import edu.northeastern.cs6650.project1.common.ServerResponseCode;
+import edu.northeastern.cs6650.project1.common.SpscQueue;
+import edu.northeastern.cs6650.project1.common.Utils;
+import edu.northeastern.cs6650.project1.server.StorePartition;
+
+/*
+ * The link between one producer thread and all the store partitions
+ * 
+ * A session owns one single producer, single consumer queue to each partition, so
+ * it must only be used by one thread at a time. A request is queued on the partition
+ * that owns its key, and the session waits for the partition to complete it.
+ */
+public class PartitionSession {
+
+    private final StorePartition[] partitions;
+    private final List<SpscQueue<PartitionRequest>> requestQueues = new ArrayList<SpscQueue<PartitionRequest>>();
+
+    PartitionSession(StorePartition[] partitions) {
+
+        this.partitions = partitions;
+        for(StorePartition partition : partitions) {
+            requestQueues.add(partition.createRequestQueue());
+        }
+
+    }
+
+    /*
+     * Processes a request on the partition that owns its key, or on all partitions for a request
+     * that spans many keys, and returns the response body
+     */
+    public StringBuffer submit(StringBuffer requestBody, String clientAddress, int clientPort) {
+
+        String[] lines = requestBody.toString().split("\n");
+        if(lines.length < 3) {
+            return Utils.createResponseBody(ServerResponseCode.BAD_REQUEST, "The request body is invalid.");
+        }
+
+        RequestType requestType = RequestType.parseString(lines[0].trim());
+
+        // A source key owned by another partition is read there, and its registers are merged on the partition of the destination
+        if(requestType == RequestType.PFMERGE && lines.length == 4 && getPartition(lines[1]) != getPartition(lines[2])) {
+            String sourceRegisters = Utils.getValue(send(getPartition(lines[2]), Utils.createRequestBody(RequestType.GET, lines[2]), clientAddress, clientPort).join());
+            if(sourceRegisters != null) {
+                requestBody = Utils.createPFMERGERequestBody(lines[1], lines[2], sourceRegisters);
+            }
+        }
+
+        if(!requestType.isMultiKey()) {
+
+            // All the other requests carry their key on the second line
+            return send(getPartition(lines[1]), requestBody, clientAddress, clientPort).join();
+        }
+
+        int limit = 0;
+        try {
+            if(requestType == RequestType.SCAN) {
+                limit = Utils.getScanLimit(lines);
+            } else if(requestType == RequestType.AGGREGATE) {
+                limit = Utils.getAggregateLimit(lines);
+            } else if(requestType == RequestType.HOTKEYS) {
+                limit = Utils.getHotKeysLimit(lines);
+            }
+        } catch (IllegalArgumentException iae) {
+            return Utils.createResponseBody(ServerResponseCode.BAD_REQUEST, iae.getMessage());
+        }
+
+        // Every partition processes its own keys in parallel
+        List<PartitionRequest> requests = new ArrayList<PartitionRequest>();
+        for(int i = 0; i < partitions.length; i++) {
+            requests.add(send(i, requestBody, clientAddress, clientPort));
+        }
+
+        List<StringBuffer> responseBodies = new ArrayList<StringBuffer>();
+        for(PartitionRequest request : requests) {
+            responseBodies.add(request.join());
+        }
+
+        switch(requestType) {
+            case SCAN:
+                return Utils.mergeScanResponses(responseBodies, limit);
+            case AGGREGATE:
+            case HOTKEYS:
+                return Utils.mergeAggregateResponses(responseBodies, requestType, limit);
+            default:
+                return Utils.mergeDeleteResponses(responseBodies);
+        }
+
+    }
+
+    /*
+     * Returns the index of the partition that owns a key
+     */
+    protected int getPartition(String key) {
+        return PartitionRouter.getPartition(key, partitions.length);
+    }
+
+    private PartitionRequest send(int partition, StringBuffer requestBody, String clientAddress, int clientPort) {
+
+        PartitionRequest request = new PartitionRequest(requestBody, clientAddress, clientPort);
+
+        // The queue only fills up if the partition falls behind, so wait for it to catch up
+        SpscQueue<PartitionRequest> requestQueue = requestQueues.get(partition);
+        while(!requestQueue.offer(request)) {
+            Thread.onSpinWait();
+        }
+
+        partitions[partition].wakeUp();
+        return request;
+
+    }
+}
@@ -0,0 +1,97 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight recorder event for a stage of the processing of a request, along with its request type and size
+ * 
+ * The events of a request are recorded on the thread of each stage : the connection thread reads 
+ * the request and writes the response, while a store partition thread may process it. An event only
+ * looks up its fields when it is committed, so the stages cost a couple of timestamps while the
+ * event is not enabled in a recording, and stack traces are left out to keep continuous recordings cheap.
+ */
+@Category({ "Key Value Store", "Requests" })
+@StackTrace(false)
+abstract class RequestEvent extends Event {
+
+    @Label("Request Type")
+    String requestType;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestSize;
+
+    /*
+     * Sets the type and the size of the request from its body
+     */
+    void setRequest(CharSequence requestBody) {
+
+        int endOfRequestType = 0;
+        while(endOfRequestType < requestBody.length() && requestBody.charAt(endOfRequestType) != '\n') {
+            endOfRequestType++;
+        }
+
+        this.requestType = requestBody.subSequence(0, endOfRequestType).toString().trim();
+        this.requestSize = requestBody.length();
+
+    }
+
+    @Name("edu.northeastern.cs6650.project1.RequestRead")
+    @Label("Request Read")
+    @Description("A request read from a client, from its first line or packet until its end of message")
+    static class RequestReadEvent extends RequestEvent {
+    }
+
+    @Name("edu.northeastern.cs6650.project1.RequestParse")
+    @Label("Request Parse")
+    @Description("A request body split into lines by its request handler")
+    static class RequestParseEvent extends RequestEvent {
+
+        @Label("Number Of Lines")
+        int numberOfLines;
+    }
+
+    @Name("edu.northeastern.cs6650.project1.StoreOperation")
+    @Label("Store Operation")
+    @Description("A request processed on the store, from its request type to its response message")
+    static class StoreOperationEvent extends RequestEvent {
+
+        @Label("Response Size")
+        @DataAmount
+        long responseSize;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("edu.northeastern.cs6650.project1.ResponseWrite")
+    @Label("Response Write")
+    @Description("A response written to a client, until it is flushed to the connection")
+    static class ResponseWriteEvent extends RequestEvent {
+
+        @Label("Response Size")
+        @DataAmount
+        long responseSize;
+    }
+}
@@ -17,23 +17,33 @@ package edu.northeastern.cs6650.project1.server;
 
 import java.io.IOException;
 import java.net.SocketException;
+import java.net.UnixDomainSocketAddress;
 import java.util.logging.Logger;
 
 import edu.northeastern.cs6650.project1.common.ServerType;
+import edu.northeastern.cs6650.project1.common.StoreType;
 import edu.northeastern.cs6650.project1.server.BaseServer;
+import edu.northeastern.cs6650.project1.server.SharedMemoryServer;
 import edu.northeastern.cs6650.project1.server.TCPServer;
 import edu.northeastern.cs6650.project1.server.UDPServer;
 
 /*
- * A factory that creates a TCP or a UDP server object
+ * A factory that creates a TCP, a UDP, a Unix domain socket or a shared memory server object
+ * 
+ * The server address is a port number, or the path of the socket file for a Unix domain socket
+ * server, or the path of the memory mapped file for a shared memory server.
  */
 class ServerFactory {
-    public static BaseServer createServer(int serverPort, ServerType serverType) throws IOException, SocketException {
+    public static BaseServer createServer(String serverAddress, ServerType serverType, StoreType storeType, int partitions, int largeValueThreshold) throws IOException, SocketException {
 
         if(serverType == ServerType.TCP) {
-            return new TCPServer(serverPort);
+            return new TCPServer(Integer.parseInt(serverAddress), storeType, partitions, largeValueThreshold);
         } else if(serverType == ServerType.UDP) {
-            return new UDPServer(serverPort);
+            return new UDPServer(Integer.parseInt(serverAddress), storeType, partitions);
+        } else if(serverType == ServerType.UNIX) {
+            return new TCPServer(UnixDomainSocketAddress.of(serverAddress), storeType, partitions, largeValueThreshold);
+        } else if(serverType == ServerType.SHM) {
+            return new SharedMemoryServer(serverAddress, storeType, partitions);
         }
         return null;
         
@@ -45,25 +55,62 @@ class ServerFactory {
  * The main server application class
  * 
  * Based on the arguments provided, either a TCP or a UDP server is created and 
- * started. The servers listen for one request at a time from the client application
- * and responds to a request. The server application is terminated on the press of
- * Control-C.
+ * started. A unix server is a TCP server that listens on a Unix domain socket, whose
+ * path is given in place of the port number. A shm server exchanges requests with the
+ * clients on the same host through a memory mapped file, whose path is given in place
+ * of the port number. The TCP and unix servers serve every client connection on its own
+ * thread, and a connection stays open for any number of requests, while the UDP and shm
+ * servers receive the requests of all the clients on a single thread. The server application
+ * is terminated on the press of Control-C. An optional third argument selects the storage
+ * engine, which is either hash (default), ordered, art, lsm, incremental or dictionary. Only the ordered, art
+ * and lsm engines support SCAN requests.
+ * An optional fourth argument splits the keyspace into that many single threaded
+ * store partitions, for example one per core. The default of 0 keeps one shared store.
+ * An optional fifth argument sets the size in bytes from which the TCP server keeps a
+ * value in a memory mapped value log and sends it with zero copy. The default is 1 MiB
+ * and 0 keeps all the values on the heap.
+ * An optional sixth argument records only one in that many requests in the hot key
+ * tracker, which is queried by HOTKEYS requests. The default of 1 records every request.
+ * An optional seventh argument is the path of a file into which a binary trace of the
+ * requests is recorded, which the TraceReplay tool sends back to a server, or - to record no trace.
+ * An optional eighth argument is the path of a CSV, TSV or binary dump file whose keys and values
+ * are imported into the store in parallel before the server starts serving requests.
  */
 public class Server {
+
+    private static final Logger LOGGER = Logger.getLogger(Server.class.getName());
+
     public static void main(String[] arguments) {  
 
-        if(arguments.length != 2) {
-            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.server.Server <port number> <server type>.");
+        if(arguments.length < 2 || arguments.length > 8) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project1.server.Server <port number or path> <server type> <store type> <partitions> <large value threshold> <hot key sampling> <trace path> <import path>.");
         } else {
             try {
-                int serverPort = Integer.parseInt(arguments[0]);
                 ServerType serverType = ServerType.valueOf(arguments[1].toUpperCase());
-                BaseServer server = ServerFactory.createServer(serverPort, serverType);
+                StoreType storeType = arguments.length >= 3 ? StoreType.valueOf(arguments[2].toUpperCase()) : StoreType.HASH;
+                int partitions = arguments.length >= 4 ? Integer.parseInt(arguments[3]) : 0;
+                int largeValueThreshold = arguments.length >= 5 ? Integer.parseInt(arguments[4]) : TCPServer.DEFAULT_LARGE_VALUE_THRESHOLD;
+                int hotKeySampling = arguments.length >= 6 ? Integer.parseInt(arguments[5]) : 1;
+                BaseServer server = ServerFactory.createServer(arguments[0], serverType, storeType, partitions, largeValueThreshold);
+                server.setHotKeySampling(hotKeySampling);
+
+                // The trace is closed when the server is stopped with Control-C
+                if(arguments.length >= 7 && !arguments[6].equals("-")) {
+                    TraceRecorder traceRecorder = new TraceRecorder(arguments[6]);
+                    Runtime.getRuntime().addShutdownHook(new Thread(traceRecorder::close));
+                    server.setTraceRecorder(traceRecorder);
+                }
+
+                if(arguments.length == 8) {
+                    long startTime = System.nanoTime();
+                    long importedRecords = new BulkImporter(server).importFile(arguments[7]);
+                    LOGGER.info("Imported " + String.valueOf(importedRecords) + " records from " + arguments[7] + " in " + String.valueOf((System.nanoTime() - startTime) / 1000000) + " ms.");
+                }
                 server.spin();
             } catch (NumberFormatException nfe) {
-                System.err.println("The port number should be an integer.");
+                System.err.println("The port number, the number of partitions, the large value threshold and the hot key sampling should be integers.");
             } catch(IllegalArgumentException iae) {
-                System.err.println("The server type should be either tcp or udp.");
+                System.err.println("The server type should be either tcp, udp, unix or shm and the store type should be either hash, ordered, art, lsm, incremental or dictionary, and the hot key sampling should be greater than zero.");
             } catch(Exception exp) {
                 System.err.println("Problem encountered while starting the server.");
             }
@@ -0,0 +1,140 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.common.AsyncLogger;
+import edu.northeastern.cs6650.project1.common.ServerResponseCode;
+import edu.northeastern.cs6650.project1.common.SharedMemoryFile;
+import edu.northeastern.cs6650.project1.common.SharedMemoryRing;
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.common.Utils;
+import edu.northeastern.cs6650.project1.server.BaseServer;
+import edu.northeastern.cs6650.project1.server.PartitionRouter;
+import edu.northeastern.cs6650.project1.server.PartitionSession;
+import edu.northeastern.cs6650.project1.server.RequestEvent.RequestReadEvent;
+import edu.northeastern.cs6650.project1.server.RequestEvent.ResponseWriteEvent;
+
+/*
+ * Implementation of the shared memory server
+ * 
+ * The server exchanges requests and responses with clients on the same host through
+ * ring buffers in a memory mapped file, so no socket or system call is involved in a
+ * round trip. A single server thread polls the request rings of all the client slots,
+ * busy spinning while requests keep arriving, and writes every response into the
+ * response ring of the slot the request came from. The request and response bodies
+ * are the same as those of the TCP server.
+ */
+public class SharedMemoryServer extends BaseServer {
+
+    private static final Logger LOGGER = Logger.getLogger(SharedMemoryServer.class.getName());
+    private static final AsyncLogger ASYNC_LOGGER = AsyncLogger.getLogger(SharedMemoryServer.class);
+    private static final AsyncLogger.Message RESPONSE_SENT = ASYNC_LOGGER.message("RESPONSE_SENT", "Server response is below.\n{}");
+
+    private SharedMemoryFile sharedMemoryFile;
+    private String serverPath;
+
+    public SharedMemoryServer(String serverPath, StoreType storeType, int partitions) throws IOException {
+        super(storeType);
+        this.partitionRouter = partitions > 0 ? new PartitionRouter(partitions, storeType) : null;
+        this.sharedMemoryFile = SharedMemoryFile.create(serverPath);
+        this.serverPath = serverPath;
+    }
+
+    /*
+     * This spins the server to poll the request rings of the clients indefinitely
+     */
+    public void spin() {
+
+        PartitionSession partitionSession = partitionRouter == null ? null : partitionRouter.acquireSession();
+        long sequence[] = { 0 };
+        int idleRounds = 0;
+
+        while(true) {
+            boolean isIdle = true;
+            for(int slot = 0; slot < SharedMemoryFile.NUMBER_OF_SLOTS; slot++) {
+                RequestReadEvent requestReadEvent = new RequestReadEvent();
+                requestReadEvent.begin();
+                byte[] request = sharedMemoryFile.getRequestRing(slot).poll(sequence);
+                if(request == null) {
+                    continue;
+                }
+                isIdle = false;
+
+                // Process the request on the shared store or on the partition that owns the key
+                // Clients are identified by the path of the file and their slot
+                StringBuffer requestBody = new StringBuffer(new String(request, StandardCharsets.UTF_8));
+                requestReadEvent.end();
+                if(requestReadEvent.shouldCommit()) {
+                    requestReadEvent.setRequest(requestBody);
+                    requestReadEvent.commit();
+                }
+                StringBuffer serverResponse;
+                if(partitionSession == null) {
+                    serverResponse = this.createServerResponse(requestBody, serverPath, slot);
+                } else {
+                    serverResponse = partitionSession.submit(requestBody, serverPath, slot);
+                }
+
+                RESPONSE_SENT.log(serverResponse);
+
+                // Sent response to the client
+                ResponseWriteEvent responseWriteEvent = new ResponseWriteEvent();
+                responseWriteEvent.begin();
+                sendResponseToClient(slot, sequence[0], serverResponse);
+                responseWriteEvent.end();
+                if(responseWriteEvent.shouldCommit()) {
+                    responseWriteEvent.setRequest(requestBody);
+                    responseWriteEvent.responseSize = serverResponse.length();
+                    responseWriteEvent.commit();
+                }
+            }
+
+            idleRounds = isIdle ? SharedMemoryRing.idle(idleRounds) : 0;
+        }
+
+    }
+
+    /*
+     * Send a response body to the client of a slot, tagged with the sequence number of its request
+     * 
+     * A response that does not fit in the ring is replaced by an error, and a response that the
+     * client does not make room for before the timeout is dropped, so that a client that went
+     * away cannot stall the clients of the other slots forever.
+     */
+    protected void sendResponseToClient(int slot, long sequence, StringBuffer serverResponse) {
+
+        SharedMemoryRing responseRing = sharedMemoryFile.getResponseRing(slot);
+        byte[] response = serverResponse.toString().getBytes(StandardCharsets.UTF_8);
+        if(response.length > responseRing.getMaximumMessageLength()) {
+            response = Utils.createResponseBody(ServerResponseCode.FAILED, "The response is too large for the shared memory transport.").toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        long deadline = System.nanoTime() + Utils.SERVER_TIMEOUT * 1000000L;
+        int idleRounds = 0;
+        while(!responseRing.offer(sequence, response)) {
+            if(System.nanoTime() > deadline) {
+                LOGGER.severe("Error sending a response to the client of slot " + String.valueOf(slot) + ", the response was dropped.");
+                return;
+            }
+            idleRounds = SharedMemoryRing.idle(idleRounds);
+        }
+
+    }
+}
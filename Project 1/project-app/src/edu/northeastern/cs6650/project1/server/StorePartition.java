@@ -0,0 +1,152 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.northeastern.cs6650.project1.common.ServerResponseCode;
+import edu.northeastern.cs6650.project1.common.SpscQueue;
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.common.Utils;
+import edu.northeastern.cs6650.project1.server.BaseServer;
+import edu.northeastern.cs6650.project1.store.StoreFactory;
+
+/*
+ * A single threaded partition of the keyspace
+ * 
+ * Each partition owns a store that only the partition thread touches, so the store
+ * needs no synchronization and its cache lines stay with one core. Requests reach the
+ * partition through one single producer, single consumer queue per partition session.
+ * The partition thread drains its queues, spins for a while when they are all empty
+ * and then parks until a session wakes it up. Deleted key ranges are reclaimed by the
+ * partition thread too, one batch at a time while no request is waiting.
+ */
+public class StorePartition extends BaseServer {
+
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int SPIN_LIMIT = 1000;
+    private static final long PARK_NANOS = 1000000;
+
+    private final List<SpscQueue<PartitionRequest>> requestQueues = new CopyOnWriteArrayList<SpscQueue<PartitionRequest>>();
+    private final Thread partitionThread;
+    private volatile boolean isParked = false;
+    private volatile boolean isRunning = true;
+
+    public StorePartition(StoreType storeType, String name) {
+        super(StoreFactory.createStore(storeType, false), false);
+        this.partitionThread = new Thread(this::spin, name);
+        this.partitionThread.setDaemon(true);
+        this.partitionThread.start();
+    }
+
+    /*
+     * Creates the queue through which one session sends requests to this partition
+     */
+    SpscQueue<PartitionRequest> createRequestQueue() {
+
+        SpscQueue<PartitionRequest> requestQueue = new SpscQueue<PartitionRequest>(QUEUE_CAPACITY);
+        requestQueues.add(requestQueue);
+        return requestQueue;
+
+    }
+
+    /*
+     * Wakes up the partition thread after a request was queued, if the thread is parked
+     */
+    void wakeUp() {
+
+        if(isParked) {
+            LockSupport.unpark(partitionThread);
+        }
+
+    }
+
+    /*
+     * Stops the partition thread
+     */
+    void stop() {
+
+        isRunning = false;
+        LockSupport.unpark(partitionThread);
+
+    }
+
+    /*
+     * This spins the partition thread to process the queued requests until the partition is stopped
+     */
+    public void spin() {
+
+        int idleRounds = 0;
+        while(isRunning) {
+            boolean isIdle = true;
+
+            for(SpscQueue<PartitionRequest> requestQueue : requestQueues) {
+                PartitionRequest request;
+                while((request = requestQueue.poll()) != null) {
+                    isIdle = false;
+                    request.complete(processPartitionRequest(request));
+                }
+            }
+
+            if(!isIdle) {
+                idleRounds = 0;
+            } else if(reclaimDeletedRanges()) {
+                // Deleted key ranges are reclaimed in small batches while no request is waiting
+                idleRounds = 0;
+            } else if(++idleRounds < SPIN_LIMIT) {
+                Thread.onSpinWait();
+            } else {
+                isParked = true;
+
+                // A session may have queued a request before it could see the flag
+                if(!hasPendingRequests()) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+
+                isParked = false;
+                idleRounds = 0;
+            }
+        }
+
+    }
+
+    private boolean hasPendingRequests() {
+
+        for(SpscQueue<PartitionRequest> requestQueue : requestQueues) {
+            if(!requestQueue.isEmpty()) {
+                return true;
+            }
+        }
+
+        return false;
+
+    }
+
+    /*
+     * Process a queued request, making sure that an unexpected error does not stop the partition thread
+     */
+    private StringBuffer processPartitionRequest(PartitionRequest request) {
+
+        try {
+            return createServerResponse(request.requestBody, request.clientAddress, request.clientPort);
+        } catch(RuntimeException exp) {
+            return Utils.createResponseBody(ServerResponseCode.FAILED, "Problem encountered while processing the request.");
+        }
+
+    }
+}
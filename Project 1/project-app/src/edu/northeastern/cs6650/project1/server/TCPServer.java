@@ -18,91 +18,227 @@ package edu.northeastern.cs6650.project1.server;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.NoSuchElementException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
+import edu.northeastern.cs6650.project1.common.AsyncLogger;
 import edu.northeastern.cs6650.project1.common.ServerResponseCode;
+import edu.northeastern.cs6650.project1.common.StoreType;
 import edu.northeastern.cs6650.project1.common.Utils;
 import edu.northeastern.cs6650.project1.server.BaseServer;
+import edu.northeastern.cs6650.project1.server.PartitionRouter;
+import edu.northeastern.cs6650.project1.server.PartitionSession;
+import edu.northeastern.cs6650.project1.server.RequestEvent.RequestReadEvent;
+import edu.northeastern.cs6650.project1.server.RequestEvent.ResponseWriteEvent;
+import edu.northeastern.cs6650.project1.store.LargeValue;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+import edu.northeastern.cs6650.project1.store.ValueLog;
 
 /*
  * Implementation of the TCP server 
  * 
- * The TCP server listens for a request from the TCP client and responds
- * to one request at a time. 
+ * The TCP server listens for requests from TCP clients. Every client connection
+ * is served by its own thread and may carry any number of requests, which are
+ * processed and answered in the order they were received. This lets a client,
+ * such as the proxy, keep a connection open and pipeline requests on it.
+ * 
+ * Values of at least the large value threshold are kept in a memory mapped value
+ * log, and a GET response for such a value is sent with the value transferred from
+ * the log file to the socket by the operating system, without a copy through the
+ * Java heap. The value log is only used when the store is not partitioned, since
+ * the partitions answer with response bodies that are already encoded.
+ * 
+ * The server listens either on a TCP port or, for clients on the same host, on a
+ * Unix domain socket, which skips the loopback TCP stack. Both use the same framing.
  */
 public class TCPServer extends BaseServer {
 
     private static final Logger LOGGER = Logger.getLogger(TCPServer.class.getName());
+    private static final AsyncLogger ASYNC_LOGGER = AsyncLogger.getLogger(TCPServer.class);
+    private static final AsyncLogger.Message RESPONSE_SENT = ASYNC_LOGGER.message("RESPONSE_SENT", "Server response is below.\n{}");
+    private static final AsyncLogger.Message CACHED_RESPONSE_SENT = ASYNC_LOGGER.message("CACHED_RESPONSE_SENT", "Server response is below.\n{} bytes of the GET response kept with the entry were sent.");
+    private static final AsyncLogger.Message LARGE_VALUE_SENT = ASYNC_LOGGER.message("LARGE_VALUE_SENT", "Server response is below.\n" + ServerResponseCode.SUCCESS.name() + "\n{} request was successfully processed. A value of {} bytes was sent from the value log.");
     
-    private ServerSocket serverSocket;
-    private int serverPort;
+    public static final int DEFAULT_LARGE_VALUE_THRESHOLD = 1 << 20;
+
+    private ServerSocketChannel serverSocketChannel;
+    private SocketAddress serverAddress;
+    private ExecutorService connectionExecutor = Executors.newCachedThreadPool();
     
-    public TCPServer(int serverPort) throws IOException {
-        this.serverSocket = new ServerSocket(serverPort);
-        this.serverPort = serverPort;
+    public TCPServer(int serverPort, StoreType storeType, int partitions) throws IOException {
+        this(serverPort, storeType, partitions, DEFAULT_LARGE_VALUE_THRESHOLD);
+    }
+
+    /*
+     * Creates a TCP server, where a large value threshold of 0 keeps all the values on the heap
+     */
+    public TCPServer(int serverPort, StoreType storeType, int partitions, int largeValueThreshold) throws IOException {
+        this(new InetSocketAddress(serverPort), storeType, partitions, largeValueThreshold);
     }
 
     /*
-     * This spins the server to listen indefinitely for requests from the TCP client
+     * Creates a server listening on a TCP address or on a Unix domain socket address
+     * 
+     * A socket file left behind by a previous server at the same path is replaced.
+     */
+    public TCPServer(SocketAddress serverAddress, StoreType storeType, int partitions, int largeValueThreshold) throws IOException {
+        super(storeType);
+        this.partitionRouter = partitions > 0 ? new PartitionRouter(partitions, storeType) : null;
+        this.valueLog = (largeValueThreshold > 0 && partitions <= 0) ? new ValueLog() : null;
+        this.largeValueThreshold = largeValueThreshold;
+
+        if(serverAddress instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) serverAddress).getPath());
+            this.serverSocketChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            ((UnixDomainSocketAddress) serverAddress).getPath().toFile().deleteOnExit();
+        } else {
+            this.serverSocketChannel = ServerSocketChannel.open();
+        }
+        this.serverSocketChannel.bind(serverAddress);
+        this.serverAddress = serverAddress;
+    }
+
+    /*
+     * This spins the server to listen indefinitely for connections from the TCP clients
      */
     public void spin() {
 
         while(true) {
-            StringBuffer serverResponse = null;
-            Socket clientSocket = null;
-
             try {
-                clientSocket = this.serverSocket.accept();
+                SocketChannel clientChannel = this.serverSocketChannel.accept();
+                ConnectionDispatchEvent connectionDispatchEvent = new ConnectionDispatchEvent();
+                connectionDispatchEvent.begin();
+                connectionExecutor.execute(() -> serveConnection(clientChannel, connectionDispatchEvent));
+            } catch(IOException ioe) {
+                LOGGER.severe("Error accepting a connection from a client.");
+            }
+        }
 
-                // Read input from the user
-                InputStream clientSocketInputStream = clientSocket.getInputStream();
-                StringBuffer requestBody = new StringBuffer();
-                
-                byte[] buffer = new byte[1024];
-                int readLength;
-                while((readLength = clientSocketInputStream.read(buffer)) != -1) {
-                    String received = new String(buffer, 0, readLength);
-                    requestBody.append(received);
-                    
-                    if(received.contains(Utils.END_OF_MESSAGE)) {
-                        break;
-                    } 
-                };
-                
-                // Process the request
-                String message = this.processRequest(requestBody, (((InetSocketAddress)clientSocket.getRemoteSocketAddress()).getAddress()).toString(), clientSocket.getPort());
+    }
 
-                // Prepare a response body
-                serverResponse = Utils.createResponseBody(ServerResponseCode.SUCCESS, message);
-            } catch(IOException ioe) {
+    /*
+     * Serves the requests sent on a client connection until the client closes the connection
+     */
+    protected void serveConnection(SocketChannel clientChannel, ConnectionDispatchEvent connectionDispatchEvent) {
 
-                // Prepare a response body
-                serverResponse = Utils.createResponseBody(ServerResponseCode.FAILED, ioe.getMessage());
-            } catch(IllegalArgumentException iae) {
+        connectionDispatchEvent.end();
+        PartitionSession partitionSession = partitionRouter == null ? null : partitionRouter.acquireSession();
 
-                // Prepare a response body
-                serverResponse = Utils.createResponseBody(ServerResponseCode.BAD_REQUEST, iae.getMessage());
-            } catch(NoSuchElementException nee) {
+        try {
+            // Clients on a Unix domain socket are unnamed, so they are logged with the path of the server socket
+            String clientAddress = serverAddress.toString();
+            int clientPort = 0;
+            if(clientChannel.getRemoteAddress() instanceof InetSocketAddress) {
+                InetSocketAddress clientSocketAddress = (InetSocketAddress) clientChannel.getRemoteAddress();
+                clientAddress = clientSocketAddress.getAddress().toString();
+                clientPort = clientSocketAddress.getPort();
+            }
 
-                // Prepare a response body
-                serverResponse = Utils.createResponseBody(ServerResponseCode.FAILED, nee.getMessage());
+            if(connectionDispatchEvent.shouldCommit()) {
+                connectionDispatchEvent.clientAddress = clientAddress + ":" + String.valueOf(clientPort);
+                connectionDispatchEvent.commit();
             }
 
-            LOGGER.info("Server response is below.\n" + serverResponse.toString());
-            
-            // Sent response to the client
-            try{
-                sendResponseToClient(clientSocket, serverResponse);
-                clientSocket.close();
-            } catch (Exception exp) {
-                LOGGER.severe("Error sending response to the client.");
+            BufferedReader clientReader = new BufferedReader(new InputStreamReader(Channels.newInputStream(clientChannel)));
+            BufferedWriter clientWriter = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(clientChannel)));
+
+            // Read requests from the client until the connection is closed
+            StringBuffer requestBody;
+            RequestReadEvent requestReadEvent = new RequestReadEvent();
+            while((requestBody = Utils.readMessage(clientReader, requestReadEvent::begin)) != null) {
+                requestReadEvent.end();
+                if(requestReadEvent.shouldCommit()) {
+                    requestReadEvent.setRequest(requestBody);
+                    requestReadEvent.commit();
+                }
+                requestReadEvent = new RequestReadEvent();
+
+                // Send a large value from the value log without encoding it into the response body
+                long arrivalTime = System.nanoTime();
+                StoreEntry largeValueEntry = this.getLargeValueEntry(requestBody);
+                if(largeValueEntry != null) {
+                    ResponseWriteEvent responseWriteEvent = new ResponseWriteEvent();
+                    responseWriteEvent.begin();
+                    sendLargeValueResponseToClient(clientWriter, clientChannel, requestBody, largeValueEntry);
+                    int valueLength = ((LargeValue) largeValueEntry.getValue()).length();
+                    responseWriteEvent.end();
+                    if(responseWriteEvent.shouldCommit()) {
+                        responseWriteEvent.setRequest(requestBody);
+                        responseWriteEvent.responseSize = valueLength;
+                        responseWriteEvent.commit();
+                    }
+
+                    hotKeyTracker.record(requestBody, valueLength);
+                    if(traceRecorder != null) {
+                        traceRecorder.record(arrivalTime, requestBody, valueLength);
+                    }
+                    continue;
+                }
+
+                // Send the response kept with a hot entry, only the shared store can be read from this thread
+                byte[] cachedResponse = partitionSession == null ? this.getCachedGETResponse(requestBody, clientAddress, clientPort) : null;
+                if(cachedResponse != null) {
+                    ResponseWriteEvent responseWriteEvent = new ResponseWriteEvent();
+                    responseWriteEvent.begin();
+                    sendEncodedResponseToClient(clientChannel, cachedResponse);
+                    responseWriteEvent.end();
+                    if(responseWriteEvent.shouldCommit()) {
+                        responseWriteEvent.setRequest(requestBody);
+                        responseWriteEvent.responseSize = cachedResponse.length;
+                        responseWriteEvent.commit();
+                    }
+
+                    hotKeyTracker.record(requestBody, cachedResponse.length);
+                    if(traceRecorder != null) {
+                        traceRecorder.record(arrivalTime, requestBody, cachedResponse.length);
+                    }
+                    continue;
+                }
+
+                // Process the request on the shared store or on the partition that owns the key
+                StringBuffer serverResponse;
+                if(partitionSession == null) {
+                    serverResponse = this.createServerResponse(requestBody, clientAddress, clientPort);
+                } else {
+                    serverResponse = partitionSession.submit(requestBody, clientAddress, clientPort);
+                }
+
+                RESPONSE_SENT.log(serverResponse);
+                
+                // Sent response to the client
+                ResponseWriteEvent responseWriteEvent = new ResponseWriteEvent();
+                responseWriteEvent.begin();
+                sendResponseToClient(clientWriter, serverResponse);
+                responseWriteEvent.end();
+                if(responseWriteEvent.shouldCommit()) {
+                    responseWriteEvent.setRequest(requestBody);
+                    responseWriteEvent.responseSize = serverResponse.length();
+                    responseWriteEvent.commit();
+                }
+            }
+        } catch (IOException ioe) {
+            LOGGER.severe("Error reading a request from or sending a response to the client.");
+        } finally {
+            if(partitionSession != null) {
+                partitionRouter.releaseSession(partitionSession);
+            }
+
+            try {
+                clientChannel.close();
+            } catch (IOException ioe) {
+                LOGGER.severe("Error closing the client connection.");
             }
         }
 
@@ -112,14 +248,50 @@ public class TCPServer extends BaseServer {
     /*
      * Send a response body to the client
      */
-    protected void sendResponseToClient(Socket clientSocket, StringBuffer serverResponse) throws IOException {
+    protected void sendResponseToClient(BufferedWriter clientWriter, StringBuffer serverResponse) throws IOException {
 
-        BufferedWriter clientWriter = new BufferedWriter(new OutputStreamWriter(clientSocket.getOutputStream()));
         clientWriter.write(serverResponse.toString());
         clientWriter.newLine();
         clientWriter.flush();
-        clientWriter.close();
         
     }
 
+    /*
+     * Send an encoded response to the client in one write, the client writer has nothing buffered since it is flushed after every response
+     */
+    protected void sendEncodedResponseToClient(SocketChannel clientChannel, byte[] encodedResponse) throws IOException {
+
+        ByteBuffer response = ByteBuffer.wrap(encodedResponse);
+        while(response.hasRemaining()) {
+            clientChannel.write(response);
+        }
+
+        CACHED_RESPONSE_SENT.log(encodedResponse.length);
+
+    }
+
+    /*
+     * Send the response body of a GET or GET_IF_CHANGED request for a value in the value log to the client
+     * 
+     * The response is the same as the one built by processGETRequest, but the value bytes are 
+     * transferred from the log file to the socket between the start and the end of the response.
+     */
+    protected void sendLargeValueResponseToClient(BufferedWriter clientWriter, SocketChannel clientChannel, StringBuffer requestBody, StoreEntry entry) throws IOException {
+
+        LargeValue value = (LargeValue) entry.getValue();
+        String requestType = requestBody.substring(0, requestBody.indexOf("\n")).trim();
+
+        clientWriter.write(ServerResponseCode.SUCCESS.name() + "\n" + requestType + " request was successfully processed. The value is : ");
+        clientWriter.flush();
+
+        value.transferTo(clientChannel);
+
+        clientWriter.write("\n" + Utils.VERSION_MESSAGE_PREFIX + String.valueOf(entry.getVersion()) + "\n" + Utils.END_OF_MESSAGE);
+        clientWriter.newLine();
+        clientWriter.flush();
+
+        LARGE_VALUE_SENT.log(requestType, value.length());
+
+    }
+
 }
@@ -0,0 +1,157 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.common.RequestType;
+
+/*
+ * Records a compact binary trace of the requests processed by a server, which can be replayed later
+ * 
+ * The trace file starts with a header of HEADER_SIZE bytes : a magic number, the size of a record,
+ * the wall clock time at which the trace started, in milliseconds, and the number of records,
+ * which is only written when the trace is closed. It is followed by records of RECORD_SIZE bytes :
+ * the time at which the request arrived, in nanoseconds since the start of the trace, the request
+ * type, the hash code of the key and the lengths of the request and of the response. The request 
+ * type is stored as its ordinal plus one, so a record that was never written has type 0.
+ * 
+ * The file is mapped in memory in segments, and every request reserves its record with one atomic
+ * increment and writes it into the mapping, so recording takes no lock and makes no system call 
+ * except when a new segment is mapped. Requests that span many keys are not recorded.
+ */
+public class TraceRecorder {
+
+    private static final Logger LOGGER = Logger.getLogger(TraceRecorder.class.getName());
+
+    public static final int MAGIC = 0x4b565452;
+    public static final int HEADER_SIZE = 24;
+    public static final int RECORD_SIZE = 21;
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final long startTime = System.nanoTime();
+    private final AtomicLong nextRecord = new AtomicLong();
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile boolean isRecording = true;
+
+    public TraceRecorder(String tracePath) throws IOException {
+
+        RandomAccessFile traceFile = new RandomAccessFile(tracePath, "rw");
+        traceFile.setLength(0);
+        this.channel = traceFile.getChannel();
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.putInt(0, MAGIC);
+        header.putInt(4, RECORD_SIZE);
+        header.putLong(8, System.currentTimeMillis());
+
+    }
+
+    /*
+     * Records a request that arrived at the given System.nanoTime, along with the length of its response
+     */
+    public void record(long arrivalTime, StringBuffer requestBody, long responseLength) {
+
+        if(!isRecording) {
+            return;
+        }
+
+        int endOfRequestType = requestBody.indexOf("\n");
+        int endOfKey = endOfRequestType < 0 ? -1 : requestBody.indexOf("\n", endOfRequestType + 1);
+        if(endOfKey < 0) {
+            return;
+        }
+
+        RequestType requestType = RequestType.parseString(requestBody.substring(0, endOfRequestType).trim());
+        if(requestType == RequestType.NONE || requestType.isMultiKey()) {
+            return;
+        }
+
+        long record = nextRecord.getAndIncrement();
+        MappedByteBuffer segment = getSegment((int) (record / RECORDS_PER_SEGMENT));
+        if(segment == null) {
+            return;
+        }
+
+        int offset = (int) (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        segment.putLong(offset, arrivalTime - startTime);
+        segment.putInt(offset + 9, requestBody.substring(endOfRequestType + 1, endOfKey).hashCode());
+        segment.putInt(offset + 13, requestBody.length());
+        segment.putInt(offset + 17, (int) Math.min(responseLength, Integer.MAX_VALUE));
+        segment.put(offset + 8, (byte) (requestType.ordinal() + 1));
+
+    }
+
+    /*
+     * Stops recording and writes the number of records into the header
+     * 
+     * The file is not truncated, since a request may still be writing its record, so it ends
+     * with the unused records of the last segment, which have type 0.
+     */
+    public synchronized void close() {
+
+        if(!isRecording) {
+            return;
+        }
+
+        isRecording = false;
+        header.putLong(16, nextRecord.get());
+        header.force();
+        for(MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+
+    }
+
+    /*
+     * Returns the mapping of a segment, mapping the segments up to it if needed, or null if the trace stopped
+     */
+    private MappedByteBuffer getSegment(int index) {
+
+        MappedByteBuffer[] currentSegments = segments;
+        if(index < currentSegments.length) {
+            return currentSegments[index];
+        }
+
+        synchronized(this) {
+            if(!isRecording) {
+                return null;
+            }
+
+            try {
+                MappedByteBuffer[] newSegments = Arrays.copyOf(segments, Math.max(index + 1, segments.length));
+                for(int i = segments.length; i < newSegments.length; i++) {
+                    newSegments[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) i * RECORDS_PER_SEGMENT * RECORD_SIZE, (long) RECORDS_PER_SEGMENT * RECORD_SIZE);
+                }
+                segments = newSegments;
+            } catch (IOException ioe) {
+                LOGGER.severe("Error mapping a segment of the trace file, the trace is stopped.");
+                isRecording = false;
+                return null;
+            }
+
+            return segments[index];
+        }
+
+    }
+}
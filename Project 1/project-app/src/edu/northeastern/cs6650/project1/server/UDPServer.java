@@ -23,22 +23,41 @@ import java.net.SocketException;
 import java.util.NoSuchElementException;
 import java.util.logging.Logger;
 
+import edu.northeastern.cs6650.project1.common.AsyncLogger;
+import edu.northeastern.cs6650.project1.common.ConditionFailedException;
+import edu.northeastern.cs6650.project1.common.NotModifiedException;
 import edu.northeastern.cs6650.project1.common.ServerResponseCode;
+import edu.northeastern.cs6650.project1.common.StoreType;
 import edu.northeastern.cs6650.project1.common.Utils;
 import edu.northeastern.cs6650.project1.server.BaseServer;
+import edu.northeastern.cs6650.project1.server.PartitionRouter;
+import edu.northeastern.cs6650.project1.server.PartitionSession;
+import edu.northeastern.cs6650.project1.server.RequestEvent.RequestReadEvent;
+import edu.northeastern.cs6650.project1.server.RequestEvent.ResponseWriteEvent;
 
 /*
  * Implementation of the UDP server 
  * 
- * The UDP server listens for a request from the UDP client and responds
- * to one request at a time. 
+ * The UDP server receives the requests of all the UDP clients on a single thread,
+ * and answers every request before it receives the next one. The request is either
+ * processed by the server itself or handed to the store partition that owns its key.
  */
 public class UDPServer extends BaseServer{
     private static final Logger LOGGER = Logger.getLogger(UDPServer.class.getName());
+    private static final AsyncLogger ASYNC_LOGGER = AsyncLogger.getLogger(UDPServer.class);
+    private static final AsyncLogger.Message RESPONSE_SENT = ASYNC_LOGGER.message("RESPONSE_SENT", "Server response is below.\n{}");
     private DatagramSocket serverSocket;
+    private PartitionSession partitionSession;
     
-    public UDPServer(int serverPort) throws SocketException {
+    public UDPServer(int serverPort, StoreType storeType, int partitions) throws SocketException {
+        super(storeType);
         serverSocket = new DatagramSocket(serverPort);
+
+        // The server reads requests on a single thread, so it only needs one session
+        if(partitions > 0) {
+            partitionRouter = new PartitionRouter(partitions, storeType);
+            partitionSession = partitionRouter.acquireSession();
+        }
     }    
 
     /*
@@ -51,6 +70,7 @@ public class UDPServer extends BaseServer{
             StringBuffer requestBody = new StringBuffer();
             InetAddress clientAdress = null;
             int clientPort = -1;
+            RequestReadEvent requestReadEvent = new RequestReadEvent();
 
             try {
 
@@ -63,6 +83,7 @@ public class UDPServer extends BaseServer{
                     requestBody.append(received);
 
                     if(clientAdress == null) {
+                        requestReadEvent.begin();
                         clientAdress = request.getAddress();
                     }
 
@@ -74,12 +95,25 @@ public class UDPServer extends BaseServer{
                         break;
                     } 
                 } while(true);
+
+                requestReadEvent.end();
+                if(requestReadEvent.shouldCommit()) {
+                    requestReadEvent.setRequest(requestBody);
+                    requestReadEvent.commit();
+                }
                 
-                // Process the request
-                String message = this.processRequest(requestBody, clientAdress.getHostAddress(), clientPort);
+                if(partitionSession != null) {
 
-                // Prepare a response body
-                serverResponse = Utils.createResponseBody(ServerResponseCode.SUCCESS, message);
+                    // Process the request on the partition that owns the key
+                    serverResponse = partitionSession.submit(requestBody, clientAdress.getHostAddress(), clientPort);
+                } else {
+
+                    // Process the request
+                    String message = this.processRequest(requestBody, clientAdress.getHostAddress(), clientPort);
+
+                    // Prepare a response body
+                    serverResponse = Utils.createResponseBody(ServerResponseCode.SUCCESS, message);
+                }
             } catch(IOException ioe) {
 
                 // Prepare a response body
@@ -92,16 +126,32 @@ public class UDPServer extends BaseServer{
 
                 // Prepare a response body
                 serverResponse = Utils.createResponseBody(ServerResponseCode.FAILED, nee.getMessage());
+            } catch(ConditionFailedException cfe) {
+
+                // Prepare a response body
+                serverResponse = Utils.createResponseBody(ServerResponseCode.CONFLICT, cfe.getMessage());
+            } catch(NotModifiedException nme) {
+
+                // Prepare a response body
+                serverResponse = Utils.createResponseBody(ServerResponseCode.NOT_MODIFIED, nme.getMessage());
             }    
             
-            LOGGER.info("Server response is below.\n"+ serverResponse.toString());
+            RESPONSE_SENT.log(serverResponse);
 
             // Sent response to the client
+            ResponseWriteEvent responseWriteEvent = new ResponseWriteEvent();
+            responseWriteEvent.begin();
             try {
                 sendResponseToClient(clientAdress, clientPort, serverResponse.toString());
             } catch (Exception exp) {
                 LOGGER.severe("Error sending response to the client.");
             }
+            responseWriteEvent.end();
+            if(responseWriteEvent.shouldCommit()) {
+                responseWriteEvent.setRequest(requestBody);
+                responseWriteEvent.responseSize = serverResponse.length();
+                responseWriteEvent.commit();
+            }
         }
     }
 
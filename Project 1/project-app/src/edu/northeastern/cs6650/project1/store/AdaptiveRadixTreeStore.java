@@ -0,0 +1,790 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * Storage engine backed by an adaptive radix tree over the UTF-8 bytes of the keys
+ * 
+ * Keys that share a prefix share the nodes of that prefix, and a chain of nodes with a 
+ * single child is collapsed into a compressed path stored in one node, so long common 
+ * prefixes such as tenant:region:user: are stored once instead of once per key. Leaves 
+ * only store the rest of their key after the last branch. Inner nodes adapt their layout
+ * to their number of children (4, 16, 48 or 256), so sparse nodes stay small and dense
+ * nodes are indexed directly by the next key byte.
+ * 
+ * The tree keeps the keys sorted by their unsigned bytes, so it supports scans. A read
+ * write lock lets many readers use the tree while one writer changes it.
+ */
+public class AdaptiveRadixTreeStore implements KeyValueStore {
+
+    private static final byte[] EMPTY_PREFIX = new byte[0];
+
+    private Node root;
+    private int size;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public StoreEntry get(String key) {
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int depth = 0;
+            while(node != null) {
+                int matched = matchPrefix(node.prefix, keyBytes, depth);
+                if(matched < node.prefix.length) {
+                    return null;
+                }
+                depth += matched;
+
+                if(node instanceof Leaf) {
+                    return depth == keyBytes.length ? ((Leaf) node).entry : null;
+                }
+
+                InnerNode innerNode = (InnerNode) node;
+                if(depth == keyBytes.length) {
+                    return innerNode.terminalEntry;
+                }
+
+                node = innerNode.findChild(keyBytes[depth] & 0xff);
+                depth++;
+            }
+
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    public void put(String key, StoreEntry entry) {
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        lock.writeLock().lock();
+        try {
+            root = insert(root, keyBytes, 0, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public StoreEntry remove(String key) {
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        StoreEntry[] removedEntry = { null };
+
+        lock.writeLock().lock();
+        try {
+            root = delete(root, keyBytes, 0, removedEntry);
+            return removedEntry[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public StoreEntry compute(String key, BiFunction<String, StoreEntry, StoreEntry> remappingFunction) {
+
+        lock.writeLock().lock();
+        try {
+            StoreEntry currentEntry = get(key);
+            StoreEntry newEntry = remappingFunction.apply(key, currentEntry);
+
+            if(newEntry != null) {
+                put(key, newEntry);
+            } else if(currentEntry != null) {
+                remove(key);
+            }
+
+            return newEntry;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    public int size() {
+
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        // The nodes of the tree grow with their own children, so there is nothing to size ahead of time
+    }
+
+    public boolean isOrdered() {
+        return true;
+    }
+
+    /*
+     * Returns a lazy iterator that walks the tree in key order from the start key
+     * 
+     * Subtrees whose compressed path sorts before the start key are skipped without being
+     * visited. Each step holds the read lock, so the iterator is weakly consistent, like the
+     * iterators of the ordered engine.
+     */
+    public Iterator<Map.Entry<String, StoreEntry>> scan(String startKey, boolean startInclusive) {
+        return new ScanIterator(startKey == null ? null : startKey.getBytes(StandardCharsets.UTF_8), startInclusive);
+    }
+
+    /*
+     * Returns a spliterator that hands out the entries of the scan iterator in batches
+     * 
+     * The walk itself stays on one thread, since it holds the read lock step by step, but the
+     * batches are processed in parallel. The walk starts at the prefix and stops when it leaves it.
+     */
+    public Spliterator<Map.Entry<String, StoreEntry>> spliterator(String prefix) {
+
+        Iterator<Map.Entry<String, StoreEntry>> iterator = prefix == null ? scan(null, true) : new PrefixIterator(scan(prefix, true), prefix);
+        return Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+
+    }
+
+    /*
+     * Inserts an entry into the subtree rooted at a node and returns the new root of the subtree
+     */
+    private Node insert(Node node, byte[] key, int depth, StoreEntry entry) {
+
+        if(node == null) {
+            size++;
+            return new Leaf(slice(key, depth, key.length), entry);
+        }
+
+        int matched = matchPrefix(node.prefix, key, depth);
+
+        if(node instanceof Leaf && matched == node.prefix.length && depth + matched == key.length) {
+            ((Leaf) node).entry = entry;
+            return node;
+        }
+
+        // The key leaves the compressed path of the node, or ends in the middle of it, so the 
+        // path is split with a new node at the first byte that differs
+        if(node instanceof Leaf || matched < node.prefix.length) {
+            InnerNode parent = new ArrayNode(4);
+            parent.prefix = slice(node.prefix, 0, matched);
+
+            if(matched == node.prefix.length) {
+                parent.terminalEntry = ((Leaf) node).entry;
+            } else {
+                int branchByte = node.prefix[matched] & 0xff;
+                node.prefix = slice(node.prefix, matched + 1, node.prefix.length);
+                parent = parent.addChild(branchByte, node);
+            }
+
+            size++;
+            if(depth + matched == key.length) {
+                parent.terminalEntry = entry;
+            } else {
+                parent = parent.addChild(key[depth + matched] & 0xff, new Leaf(slice(key, depth + matched + 1, key.length), entry));
+            }
+
+            return parent;
+        }
+
+        InnerNode innerNode = (InnerNode) node;
+        depth += matched;
+
+        if(depth == key.length) {
+            if(innerNode.terminalEntry == null) {
+                size++;
+            }
+            innerNode.terminalEntry = entry;
+            return innerNode;
+        }
+
+        int keyByte = key[depth] & 0xff;
+        Node child = innerNode.findChild(keyByte);
+        if(child == null) {
+            size++;
+            return innerNode.addChild(keyByte, new Leaf(slice(key, depth + 1, key.length), entry));
+        }
+
+        Node newChild = insert(child, key, depth + 1, entry);
+        if(newChild != child) {
+            innerNode.replaceChild(keyByte, newChild);
+        }
+
+        return innerNode;
+
+    }
+
+    /*
+     * Deletes a key from the subtree rooted at a node and returns the new root of the subtree
+     */
+    private Node delete(Node node, byte[] key, int depth, StoreEntry[] removedEntry) {
+
+        if(node == null) {
+            return null;
+        }
+
+        int matched = matchPrefix(node.prefix, key, depth);
+        if(matched < node.prefix.length) {
+            return node;
+        }
+        depth += matched;
+
+        if(node instanceof Leaf) {
+            if(depth != key.length) {
+                return node;
+            }
+
+            size--;
+            removedEntry[0] = ((Leaf) node).entry;
+            return null;
+        }
+
+        InnerNode innerNode = (InnerNode) node;
+        if(depth == key.length) {
+            if(innerNode.terminalEntry == null) {
+                return node;
+            }
+
+            size--;
+            removedEntry[0] = innerNode.terminalEntry;
+            innerNode.terminalEntry = null;
+        } else {
+            int keyByte = key[depth] & 0xff;
+            Node child = innerNode.findChild(keyByte);
+            if(child == null) {
+                return node;
+            }
+
+            Node newChild = delete(child, key, depth + 1, removedEntry);
+            if(newChild == child) {
+                return node;
+            } else if(newChild == null) {
+                innerNode = innerNode.removeChild(keyByte);
+            } else {
+                innerNode.replaceChild(keyByte, newChild);
+            }
+        }
+
+        return collapse(innerNode);
+
+    }
+
+    /*
+     * Turns an inner node without children into a leaf, and merges an inner node that has a single
+     * child and no entry of its own into that child, so that compressed paths stay maximal
+     */
+    private Node collapse(InnerNode innerNode) {
+
+        if(innerNode.childCount == 0) {
+            return innerNode.terminalEntry == null ? null : new Leaf(innerNode.prefix, innerNode.terminalEntry);
+        }
+
+        if(innerNode.childCount == 1 && innerNode.terminalEntry == null) {
+            int branchByte = innerNode.nextChildByte(0);
+            Node child = innerNode.findChild(branchByte);
+
+            byte[] prefix = new byte[innerNode.prefix.length + 1 + child.prefix.length];
+            System.arraycopy(innerNode.prefix, 0, prefix, 0, innerNode.prefix.length);
+            prefix[innerNode.prefix.length] = (byte) branchByte;
+            System.arraycopy(child.prefix, 0, prefix, innerNode.prefix.length + 1, child.prefix.length);
+            child.prefix = prefix;
+            return child;
+        }
+
+        return innerNode;
+
+    }
+
+    /*
+     * Copies a range of bytes, sharing a single empty array since most leaves end at their branch byte
+     */
+    private static byte[] slice(byte[] bytes, int from, int to) {
+        return from == to ? EMPTY_PREFIX : Arrays.copyOfRange(bytes, from, to);
+    }
+
+    /*
+     * Returns the number of leading bytes of a prefix that match the key from a depth
+     */
+    private static int matchPrefix(byte[] prefix, byte[] key, int depth) {
+
+        int matched = 0;
+        while(matched < prefix.length && depth + matched < key.length && prefix[matched] == key[depth + matched]) {
+            matched++;
+        }
+
+        return matched;
+
+    }
+
+    /*
+     * A node of the tree
+     * 
+     * For an inner node the prefix is its compressed path. For a leaf it is the rest of the key.
+     */
+    private static abstract class Node {
+        byte[] prefix;
+    }
+
+    private static class Leaf extends Node {
+        StoreEntry entry;
+
+        Leaf(byte[] suffix, StoreEntry entry) {
+            this.prefix = suffix;
+            this.entry = entry;
+        }
+    }
+
+    /*
+     * An inner node, with an optional entry for the key that ends at the node
+     * 
+     * Adding or removing a child may return a node with a larger or smaller layout,
+     * which the caller puts in place of this node.
+     */
+    private static abstract class InnerNode extends Node {
+        StoreEntry terminalEntry;
+        int childCount;
+
+        abstract Node findChild(int keyByte);
+
+        abstract InnerNode addChild(int keyByte, Node child);
+
+        abstract void replaceChild(int keyByte, Node child);
+
+        abstract InnerNode removeChild(int keyByte);
+
+        /*
+         * Returns the smallest key byte, not less than the given one, that has a child, or -1
+         */
+        abstract int nextChildByte(int fromKeyByte);
+
+        /*
+         * Moves all the children and the header of this node into another node
+         */
+        InnerNode copyInto(InnerNode node) {
+
+            node.prefix = prefix;
+            node.terminalEntry = terminalEntry;
+            for(int keyByte = nextChildByte(0); keyByte >= 0; keyByte = nextChildByte(keyByte + 1)) {
+                node.addChild(keyByte, findChild(keyByte));
+            }
+
+            return node;
+
+        }
+    }
+
+    /*
+     * Inner node with up to 4 or 16 children, whose key bytes are kept sorted in an array
+     */
+    private static class ArrayNode extends InnerNode {
+        final byte[] keys;
+        final Node[] children;
+
+        ArrayNode(int capacity) {
+            this.keys = new byte[capacity];
+            this.children = new Node[capacity];
+        }
+
+        Node findChild(int keyByte) {
+
+            for(int i = 0; i < childCount; i++) {
+                if((keys[i] & 0xff) == keyByte) {
+                    return children[i];
+                }
+            }
+
+            return null;
+
+        }
+
+        InnerNode addChild(int keyByte, Node child) {
+
+            if(childCount == keys.length) {
+                InnerNode grownNode = copyInto(keys.length == 4 ? new ArrayNode(16) : new IndexedNode());
+                return grownNode.addChild(keyByte, child);
+            }
+
+            int position = 0;
+            while(position < childCount && (keys[position] & 0xff) < keyByte) {
+                position++;
+            }
+
+            System.arraycopy(keys, position, keys, position + 1, childCount - position);
+            System.arraycopy(children, position, children, position + 1, childCount - position);
+            keys[position] = (byte) keyByte;
+            children[position] = child;
+            childCount++;
+            return this;
+
+        }
+
+        void replaceChild(int keyByte, Node child) {
+
+            for(int i = 0; i < childCount; i++) {
+                if((keys[i] & 0xff) == keyByte) {
+                    children[i] = child;
+                    return;
+                }
+            }
+
+        }
+
+        InnerNode removeChild(int keyByte) {
+
+            for(int i = 0; i < childCount; i++) {
+                if((keys[i] & 0xff) == keyByte) {
+                    System.arraycopy(keys, i + 1, keys, i, childCount - i - 1);
+                    System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+                    childCount--;
+                    children[childCount] = null;
+                    break;
+                }
+            }
+
+            if(keys.length == 16 && childCount <= 3) {
+                return copyInto(new ArrayNode(4));
+            }
+
+            return this;
+
+        }
+
+        int nextChildByte(int fromKeyByte) {
+
+            for(int i = 0; i < childCount; i++) {
+                if((keys[i] & 0xff) >= fromKeyByte) {
+                    return keys[i] & 0xff;
+                }
+            }
+
+            return -1;
+
+        }
+    }
+
+    /*
+     * Inner node with up to 48 children, found through a 256 entry index of child slots
+     */
+    private static class IndexedNode extends InnerNode {
+        final byte[] childIndex = new byte[256];
+        final Node[] children = new Node[48];
+
+        Node findChild(int keyByte) {
+
+            int slot = childIndex[keyByte];
+            return slot == 0 ? null : children[slot - 1];
+
+        }
+
+        InnerNode addChild(int keyByte, Node child) {
+
+            if(childCount == children.length) {
+                return copyInto(new DirectNode()).addChild(keyByte, child);
+            }
+
+            int slot = 0;
+            while(children[slot] != null) {
+                slot++;
+            }
+
+            children[slot] = child;
+            childIndex[keyByte] = (byte) (slot + 1);
+            childCount++;
+            return this;
+
+        }
+
+        void replaceChild(int keyByte, Node child) {
+            children[childIndex[keyByte] - 1] = child;
+        }
+
+        InnerNode removeChild(int keyByte) {
+
+            int slot = childIndex[keyByte];
+            if(slot != 0) {
+                children[slot - 1] = null;
+                childIndex[keyByte] = 0;
+                childCount--;
+            }
+
+            if(childCount <= 12) {
+                return copyInto(new ArrayNode(16));
+            }
+
+            return this;
+
+        }
+
+        int nextChildByte(int fromKeyByte) {
+
+            for(int keyByte = fromKeyByte; keyByte < 256; keyByte++) {
+                if(childIndex[keyByte] != 0) {
+                    return keyByte;
+                }
+            }
+
+            return -1;
+
+        }
+    }
+
+    /*
+     * Inner node with up to 256 children, indexed directly by the key byte
+     */
+    private static class DirectNode extends InnerNode {
+        final Node[] children = new Node[256];
+
+        Node findChild(int keyByte) {
+            return children[keyByte];
+        }
+
+        InnerNode addChild(int keyByte, Node child) {
+
+            if(children[keyByte] == null) {
+                childCount++;
+            }
+            children[keyByte] = child;
+            return this;
+
+        }
+
+        void replaceChild(int keyByte, Node child) {
+            children[keyByte] = child;
+        }
+
+        InnerNode removeChild(int keyByte) {
+
+            if(children[keyByte] != null) {
+                children[keyByte] = null;
+                childCount--;
+            }
+
+            if(childCount <= 37) {
+                return copyInto(new IndexedNode());
+            }
+
+            return this;
+
+        }
+
+        int nextChildByte(int fromKeyByte) {
+
+            for(int keyByte = fromKeyByte; keyByte < 256; keyByte++) {
+                if(children[keyByte] != null) {
+                    return keyByte;
+                }
+            }
+
+            return -1;
+
+        }
+    }
+
+    /*
+     * An inner node on the path of the scan iterator, with the next key byte whose child is visited
+     * 
+     * A frame is tight while its path is a prefix of the start key, in which case its
+     * children before the next byte of the start key are skipped.
+     */
+    private static class Frame {
+        final InnerNode node;
+        final int pathLength;
+        final boolean isTight;
+        int nextKeyByte;
+
+        Frame(InnerNode node, int pathLength, int nextKeyByte, boolean isTight) {
+            this.node = node;
+            this.pathLength = pathLength;
+            this.nextKeyByte = nextKeyByte;
+            this.isTight = isTight;
+        }
+    }
+
+    /*
+     * Iterator that walks the tree depth first in key order, rebuilding the keys from the path bytes
+     */
+    private class ScanIterator implements Iterator<Map.Entry<String, StoreEntry>> {
+
+        private static final int LESS = -2;
+        private static final int PREFIX = -1;
+        private static final int EQUAL = 0;
+        private static final int GREATER = 1;
+
+        private final byte[] startKey;
+        private final boolean startInclusive;
+        private final Deque<Frame> frames = new ArrayDeque<Frame>();
+        private byte[] path = new byte[64];
+        private Map.Entry<String, StoreEntry> nextEntry;
+
+        ScanIterator(byte[] startKey, boolean startInclusive) {
+
+            this.startKey = startKey;
+            this.startInclusive = startInclusive;
+
+            lock.readLock().lock();
+            try {
+                if(root != null) {
+                    visit(root, 0, startKey != null);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+        }
+
+        public boolean hasNext() {
+
+            if(nextEntry == null) {
+                advance();
+            }
+
+            return nextEntry != null;
+
+        }
+
+        public Map.Entry<String, StoreEntry> next() {
+
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Map.Entry<String, StoreEntry> entry = nextEntry;
+            nextEntry = null;
+            return entry;
+
+        }
+
+        /*
+         * Visits the children of the frames until the next entry is found or the tree is exhausted
+         */
+        private void advance() {
+
+            lock.readLock().lock();
+            try {
+                while(nextEntry == null && !frames.isEmpty()) {
+                    Frame frame = frames.peek();
+                    int keyByte = frame.node.nextChildByte(frame.nextKeyByte);
+                    if(keyByte < 0) {
+                        frames.pop();
+                        continue;
+                    }
+
+                    frame.nextKeyByte = keyByte + 1;
+                    appendToPath(frame.pathLength, new byte[] { (byte) keyByte });
+                    visit(frame.node.findChild(keyByte), frame.pathLength + 1, frame.isTight && keyByte == (startKey[frame.pathLength] & 0xff));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+        }
+
+        /*
+         * Visits a node whose path, before its own prefix, has the given length
+         */
+        private void visit(Node node, int pathLength, boolean isTight) {
+
+            int length = appendToPath(pathLength, node.prefix);
+            int comparison = isTight ? compareToStartKey(length) : GREATER;
+            if(comparison == LESS) {
+                return;
+            }
+
+            boolean isIncluded = comparison == GREATER || (comparison == EQUAL && startInclusive);
+
+            if(node instanceof Leaf) {
+                if(isIncluded) {
+                    nextEntry = createEntry(length, ((Leaf) node).entry);
+                }
+                return;
+            }
+
+            InnerNode innerNode = (InnerNode) node;
+            if(isIncluded && innerNode.terminalEntry != null) {
+                nextEntry = createEntry(length, innerNode.terminalEntry);
+            }
+
+            if(comparison == PREFIX) {
+                frames.push(new Frame(innerNode, length, startKey[length] & 0xff, true));
+            } else {
+                frames.push(new Frame(innerNode, length, 0, false));
+            }
+
+        }
+
+        /*
+         * Compares the current path with the start key
+         */
+        private int compareToStartKey(int length) {
+
+            for(int i = 0; i < Math.min(length, startKey.length); i++) {
+                int difference = (path[i] & 0xff) - (startKey[i] & 0xff);
+                if(difference != 0) {
+                    return difference < 0 ? LESS : GREATER;
+                }
+            }
+
+            if(length < startKey.length) {
+                return PREFIX;
+            }
+
+            return length == startKey.length ? EQUAL : GREATER;
+
+        }
+
+        /*
+         * Truncates the path to a length, appends bytes to it and returns the new length
+         */
+        private int appendToPath(int length, byte[] bytes) {
+
+            if(length + bytes.length > path.length) {
+                path = Arrays.copyOf(path, Math.max(path.length * 2, length + bytes.length));
+            }
+
+            System.arraycopy(bytes, 0, path, length, bytes.length);
+            return length + bytes.length;
+
+        }
+
+        private Map.Entry<String, StoreEntry> createEntry(int length, StoreEntry entry) {
+            return new AbstractMap.SimpleImmutableEntry<String, StoreEntry>(new String(path, 0, length, StandardCharsets.UTF_8), entry);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.northeastern.cs6650.project1.store.SSTable;
+
+/*
+ * A cache of the decoded blocks of the tables of the LSM storage engine, which evicts the least recently used blocks
+ * 
+ * The cache is split into stripes that are locked separately, so concurrent point reads of different 
+ * blocks seldom wait for each other. Every stripe holds an equal share of the capacity, in bytes.
+ */
+class BlockCache {
+
+    private static final int NUMBER_OF_STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[NUMBER_OF_STRIPES];
+
+    BlockCache(long capacity) {
+
+        for(int i = 0; i < NUMBER_OF_STRIPES; i++) {
+            stripes[i] = new Stripe(capacity / NUMBER_OF_STRIPES);
+        }
+
+    }
+
+    SSTable.Block get(long tableId, int blockIndex) {
+
+        long blockKey = (tableId << 32) | blockIndex;
+        Stripe stripe = getStripe(blockKey);
+        synchronized(stripe) {
+            return stripe.get(blockKey);
+        }
+
+    }
+
+    void put(long tableId, int blockIndex, SSTable.Block block) {
+
+        long blockKey = (tableId << 32) | blockIndex;
+        Stripe stripe = getStripe(blockKey);
+        synchronized(stripe) {
+            SSTable.Block previousBlock = stripe.put(blockKey, block);
+            stripe.size += block.memorySize - (previousBlock == null ? 0 : previousBlock.memorySize);
+            stripe.evict();
+        }
+
+    }
+
+    private Stripe getStripe(long blockKey) {
+        return stripes[(int) (((blockKey ^ (blockKey >>> 32)) * 0x9e3779b9L) >>> 28) & (NUMBER_OF_STRIPES - 1)];
+    }
+
+    /*
+     * A share of the cache, kept in access order
+     */
+    private static class Stripe extends LinkedHashMap<Long, SSTable.Block> {
+        private static final long serialVersionUID = 1L;
+
+        private final long capacity;
+        private long size;
+
+        Stripe(long capacity) {
+            super(64, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        void evict() {
+
+            while(size > capacity && !isEmpty()) {
+                Map.Entry<Long, SSTable.Block> eldest = entrySet().iterator().next();
+                size -= eldest.getValue().memorySize;
+                remove(eldest.getKey());
+            }
+
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import edu.northeastern.cs6650.project1.store.HyperLogLogValue;
+
+/*
+ * A set of elements that answers whether an element may have been added, kept in a Bloom filter
+ *
+ * An element sets 7 of the 2^20 bits of the filter, which are derived from the two halves of its
+ * 64 bit hash. An element that was added is always found, and an element that was not is found
+ * with a probability of about 0.7% after 100,000 elements and 4% after 150,000. The bits take
+ * 128 KiB whatever the number of elements. All the methods are synchronized, since readers and
+ * writers of a key share the value.
+ */
+public class BloomFilterValue {
+
+    private static final int NUMBER_OF_BITS = 1 << 20;
+    private static final int NUMBER_OF_HASHES = 7;
+
+    private final long[] bits = new long[NUMBER_OF_BITS / 64];
+
+    /*
+     * Adds an element and returns true if it set a bit, in which case it was never added before
+     */
+    public synchronized boolean add(String element) {
+
+        long hash = HyperLogLogValue.hash(element);
+        boolean changed = false;
+        for(int i = 0; i < NUMBER_OF_HASHES; i++) {
+            int bit = getBit(hash, i);
+            long mask = 1L << bit;
+            if((bits[bit >>> 6] & mask) == 0) {
+                bits[bit >>> 6] |= mask;
+                changed = true;
+            }
+        }
+
+        return changed;
+
+    }
+
+    /*
+     * Returns true if the element may have been added, and false if it was surely never added
+     */
+    public synchronized boolean mightContain(String element) {
+
+        long hash = HyperLogLogValue.hash(element);
+        for(int i = 0; i < NUMBER_OF_HASHES; i++) {
+            int bit = getBit(hash, i);
+            if((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+    /*
+     * Returns the bits encoded in Base64, which is how the value is sent in a response
+     */
+    public synchronized String toString() {
+
+        ByteBuffer buffer = ByteBuffer.allocate(bits.length * Long.BYTES);
+        buffer.asLongBuffer().put(bits);
+        return Base64.getEncoder().encodeToString(buffer.array());
+
+    }
+
+    /*
+     * Returns the i-th bit of an element, from the double hashing of the two halves of its hash
+     */
+    private static int getBit(long hash, int i) {
+        return ((int) hash + i * (int) (hash >>> 32)) & (NUMBER_OF_BITS - 1);
+    }
+}
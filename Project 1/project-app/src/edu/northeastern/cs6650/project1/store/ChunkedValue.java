@@ -0,0 +1,116 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A string value that is stored in fixed size chunks, so that it can be changed in place
+ * 
+ * Appending only fills the last chunk and adds new ones, so it costs time in proportion to the
+ * appended characters instead of the length of the value. Reading or overwriting a range only
+ * visits the chunks of the range. The value is converted into a string only when a request
+ * needs all of it. All the methods are synchronized, since readers and writers of a key share
+ * the value.
+ */
+public class ChunkedValue {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final List<char[]> chunks = new ArrayList<char[]>();
+    private int length;
+
+    public ChunkedValue(String value) {
+        append(value);
+    }
+
+    public synchronized int length() {
+        return length;
+    }
+
+    /*
+     * Appends a string at the end of the value and returns the new length
+     */
+    public synchronized int append(String value) {
+
+        if((long) length + value.length() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The value would be too long.");
+        }
+
+        int written = 0;
+        while(written < value.length()) {
+            int offsetInChunk = length % CHUNK_SIZE;
+            if(offsetInChunk == 0 && length / CHUNK_SIZE == chunks.size()) {
+                chunks.add(new char[CHUNK_SIZE]);
+            }
+
+            int count = Math.min(value.length() - written, CHUNK_SIZE - offsetInChunk);
+            value.getChars(written, written + count, chunks.get(length / CHUNK_SIZE), offsetInChunk);
+            written += count;
+            length += count;
+        }
+
+        return length;
+
+    }
+
+    /*
+     * Overwrites the value from an offset with a string, growing the value if needed, and returns the new length
+     * 
+     * The offset may be at most the current length, so that the value never has gaps.
+     */
+    public synchronized int setRange(int offset, String value) {
+
+        if(offset < 0 || offset > length) {
+            throw new IllegalArgumentException("The offset should be between 0 and the length of the value.");
+        }
+
+        int overwritten = Math.min(value.length(), length - offset);
+        int written = 0;
+        while(written < overwritten) {
+            int position = offset + written;
+            int count = Math.min(overwritten - written, CHUNK_SIZE - position % CHUNK_SIZE);
+            value.getChars(written, written + count, chunks.get(position / CHUNK_SIZE), position % CHUNK_SIZE);
+            written += count;
+        }
+
+        return append(value.substring(overwritten));
+
+    }
+
+    /*
+     * Returns the characters of the value in the range [start, end)
+     */
+    public synchronized String getRange(int start, int end) {
+
+        char[] range = new char[Math.max(0, end - start)];
+        int read = 0;
+        while(read < range.length) {
+            int position = start + read;
+            int count = Math.min(range.length - read, CHUNK_SIZE - position % CHUNK_SIZE);
+            System.arraycopy(chunks.get(position / CHUNK_SIZE), position % CHUNK_SIZE, range, read, count);
+            read += count;
+        }
+
+        return new String(range);
+
+    }
+
+    public synchronized String toString() {
+        return getRange(0, length);
+    }
+}
@@ -0,0 +1,66 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/*
+ * A numeric counter value that is stored as a native long
+ * 
+ * The counter is backed by a LongAdder, which keeps a single base value while 
+ * the counter is cold and spreads updates over striped cells once concurrent
+ * increments start to contend, so many cores can increment a hot counter
+ * without contending on one cache line. A read returns the sum of the cells.
+ * 
+ * Since the counter is changed in place, it also keeps its own version. Every update takes a 
+ * new version after adding its delta, and the greatest of these versions is kept in striped cells 
+ * too. A reader that gets the version before the sum then sees every update whose version is
+ * not newer, so a conditional write based on an older version fails.
+ */
+public class CounterValue {
+
+    private final LongAdder counter = new LongAdder();
+    private final LongAccumulator version = new LongAccumulator(Long::max, Long.MIN_VALUE);
+
+    public CounterValue(long initialValue) {
+        counter.add(initialValue);
+    }
+
+    /*
+     * Adds a delta to the counter, and then gives the counter a new version
+     */
+    public void add(long delta, LongSupplier versionSupplier) {
+        counter.add(delta);
+        version.accumulate(versionSupplier.getAsLong());
+    }
+
+    public long sum() {
+        return counter.sum();
+    }
+
+    /*
+     * Returns the version of the last update of the counter, or Long.MIN_VALUE if it was never updated
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public String toString() {
+        return Long.toString(counter.sum());
+    }
+}
@@ -0,0 +1,576 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * Storage engine that encodes every key as an int id, and keeps the entries in arrays indexed by id
+ *
+ * The UTF-8 bytes of the keys and of the string values are appended to a slab of large byte
+ * arrays, and a symbol table of open addressing over an int array maps a key to its id. The hash,
+ * the version and the location of the key and of the value of an id then sit at its index in
+ * primitive arrays, which are allocated in pages of 4096 ids. Counters and other values that are
+ * changed in place stay objects, in an array indexed by id as well. A key with a string value
+ * costs the bytes of both and about 50 bytes of arrays, where a hash map holds two String objects,
+ * their byte arrays, a map node and an entry object for every key. A lookup hashes the key, which
+ * the String caches, and compares it with the bytes in the slab without decoding them.
+ *
+ * The entry returned by a read is created for it, along with its string value, so the entry of a
+ * key is not kept between requests. The id of a removed key is reused, and the slab is compacted
+ * once the bytes of removed keys and overwritten values take more room than the stored bytes. A
+ * read write lock lets many readers use the store while one writer changes it. The store only
+ * supports point operations.
+ */
+public class DictionaryKeyValueStore implements KeyValueStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int ID_PAGE_SHIFT = 12;
+    private static final int ID_PAGE_SIZE = 1 << ID_PAGE_SHIFT;
+    private static final int MIN_SLAB_PAGE_SIZE = 1 << 12;
+    private static final int MAX_SLAB_PAGE_SIZE = 1 << 20;
+    private static final int SPLITERATOR_IDS = 1024;
+
+    // A slot of the symbol table holds the id of a key plus one, or one of these values
+    private static final int EMPTY_SLOT = 0;
+    private static final int REMOVED_SLOT = -1;
+
+    private int[] slots = new int[INITIAL_CAPACITY];
+
+    // The number of slots that are not empty, including the slots of removed keys
+    private int usedSlots;
+    private int size;
+
+    private IdPage[] idPages = new IdPage[1];
+    private int nextId;
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+    private int numberOfFreeIds;
+
+    private byte[][] slabPages = new byte[1][];
+    private int numberOfSlabPages;
+    private int slabPagePosition;
+    private long storedBytes;
+    private long removedBytes;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public StoreEntry get(String key) {
+
+        int hash = spread(key.hashCode());
+
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(key, hash);
+            if(slot < 0) {
+                return null;
+            }
+
+            int id = slots[slot] - 1;
+            IdPage idPage = idPages[id >>> ID_PAGE_SHIFT];
+            return new StoreEntry(getValue(idPage, id & (ID_PAGE_SIZE - 1)), idPage.versions[id & (ID_PAGE_SIZE - 1)]);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    public void put(String key, StoreEntry entry) {
+
+        int hash = spread(key.hashCode());
+
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(key, hash);
+            int id = slot < 0 ? addKey(key, hash) : slots[slot] - 1;
+
+            IdPage idPage = idPages[id >>> ID_PAGE_SHIFT];
+            setValue(idPage, id & (ID_PAGE_SIZE - 1), entry.getValue());
+            idPage.versions[id & (ID_PAGE_SIZE - 1)] = entry.getVersion();
+            compactSlabIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public StoreEntry remove(String key) {
+
+        int hash = spread(key.hashCode());
+
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(key, hash);
+            if(slot < 0) {
+                return null;
+            }
+
+            int id = slots[slot] - 1;
+            slots[slot] = REMOVED_SLOT;
+            size--;
+
+            IdPage idPage = idPages[id >>> ID_PAGE_SHIFT];
+            int index = id & (ID_PAGE_SIZE - 1);
+            StoreEntry removedEntry = new StoreEntry(getValue(idPage, index), idPage.versions[index]);
+            setValue(idPage, index, null);
+            storedBytes -= idPage.keyLengths[index];
+            removedBytes += idPage.keyLengths[index];
+            idPage.keyLengths[index] = -1;
+
+            if(numberOfFreeIds == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+            }
+            freeIds[numberOfFreeIds++] = id;
+            compactSlabIfNeeded();
+
+            return removedEntry;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public StoreEntry compute(String key, BiFunction<String, StoreEntry, StoreEntry> remappingFunction) {
+
+        lock.writeLock().lock();
+        try {
+            StoreEntry currentEntry = get(key);
+            StoreEntry newEntry = remappingFunction.apply(key, currentEntry);
+
+            if(newEntry != null) {
+                put(key, newEntry);
+            } else if(currentEntry != null) {
+                remove(key);
+            }
+
+            return newEntry;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public boolean containsKey(String key) {
+
+        int hash = spread(key.hashCode());
+
+        lock.readLock().lock();
+        try {
+            return findSlot(key, hash) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    public int size() {
+
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    /*
+     * Grows the symbol table to hold the expected number of keys without resizing it again
+     */
+    public void ensureCapacity(int expectedSize) {
+
+        lock.writeLock().lock();
+        try {
+            int capacity = getCapacity(expectedSize);
+            if(capacity > slots.length) {
+                resize(capacity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public boolean isOrdered() {
+        return false;
+    }
+
+    public Iterator<Map.Entry<String, StoreEntry>> scan(String startKey, boolean startInclusive) {
+        throw new UnsupportedOperationException("The dictionary store does not support scans.");
+    }
+
+    /*
+     * Returns a spliterator over the ids, which decodes a batch of keys at a time under the read lock
+     *
+     * The id of a key does not change while it stays in the store, so each such key is seen exactly
+     * once during the traversal. The prefix is checked by the caller.
+     */
+    public Spliterator<Map.Entry<String, StoreEntry>> spliterator(String prefix) {
+
+        lock.readLock().lock();
+        try {
+            return new IdSpliterator(0, nextId);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    /*
+     * Mixes all the bits of the hash code into the lower bits that select a slot, since
+     * neighbouring slots are probed and keys that differ in their last character only have
+     * neighbouring hash codes
+     */
+    private static int spread(int hashCode) {
+
+        int hash = hashCode * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+
+    }
+
+    /*
+     * Returns the smallest capacity of the symbol table that keeps it at most two thirds full with the given number of keys
+     */
+    private static int getCapacity(int numberOfKeys) {
+
+        int capacity = INITIAL_CAPACITY;
+        while(capacity < (1 << 30) && capacity / 3 * 2 < numberOfKeys) {
+            capacity *= 2;
+        }
+
+        return capacity;
+
+    }
+
+    /*
+     * Returns the slot that holds the id of the key, or -1 if the key is not stored
+     */
+    private int findSlot(String key, int hash) {
+
+        int mask = slots.length - 1;
+        for(int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int slotValue = slots[slot];
+            if(slotValue == EMPTY_SLOT) {
+                return -1;
+            }
+
+            if(slotValue != REMOVED_SLOT) {
+                int id = slotValue - 1;
+                IdPage idPage = idPages[id >>> ID_PAGE_SHIFT];
+                if(idPage.hashes[id & (ID_PAGE_SIZE - 1)] == hash && keyEquals(idPage, id & (ID_PAGE_SIZE - 1), key)) {
+                    return slot;
+                }
+            }
+        }
+
+    }
+
+    /*
+     * Compares a key with the bytes stored for an id, a byte at a time while the characters are ASCII
+     */
+    private boolean keyEquals(IdPage idPage, int index, String key) {
+
+        long address = idPage.keyAddresses[index];
+        byte[] keyPage = slabPages[(int) (address >>> 32)];
+        int start = (int) address;
+        int end = start + idPage.keyLengths[index];
+
+        int position = start;
+        for(int i = 0; i < key.length(); i++) {
+            char character = key.charAt(i);
+            if(character >= 0x80) {
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                return Arrays.equals(keyPage, start, end, keyBytes, 0, keyBytes.length);
+            }
+
+            if(position == end || keyPage[position++] != character) {
+                return false;
+            }
+        }
+
+        return position == end;
+
+    }
+
+    private String decodeKey(IdPage idPage, int index) {
+
+        long address = idPage.keyAddresses[index];
+        return new String(slabPages[(int) (address >>> 32)], (int) address, idPage.keyLengths[index], StandardCharsets.UTF_8);
+
+    }
+
+    private Object getValue(IdPage idPage, int index) {
+
+        if(idPage.valueLengths[index] < 0) {
+            return idPage.values[index];
+        }
+
+        long address = idPage.valueAddresses[index];
+        return new String(slabPages[(int) (address >>> 32)], (int) address, idPage.valueLengths[index], StandardCharsets.UTF_8);
+
+    }
+
+    /*
+     * Stores a string value in the slab and any other value as an object, and counts the bytes of the previous string value as removed
+     */
+    private void setValue(IdPage idPage, int index, Object value) {
+
+        if(idPage.valueLengths[index] > 0) {
+            storedBytes -= idPage.valueLengths[index];
+            removedBytes += idPage.valueLengths[index];
+        }
+
+        if(value instanceof String) {
+            byte[] valueBytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            idPage.valueAddresses[index] = appendToSlab(valueBytes, 0, valueBytes.length);
+            idPage.valueLengths[index] = valueBytes.length;
+            idPage.values[index] = null;
+            storedBytes += valueBytes.length;
+        } else {
+            idPage.valueLengths[index] = -1;
+            idPage.values[index] = value;
+        }
+
+    }
+
+    /*
+     * Gives a new key an id, stores its bytes and adds it to the symbol table, then returns the id
+     */
+    private int addKey(String key, int hash) {
+
+        int id;
+        if(numberOfFreeIds > 0) {
+            id = freeIds[--numberOfFreeIds];
+        } else {
+            id = nextId++;
+            if((id >>> ID_PAGE_SHIFT) == idPages.length) {
+                idPages = Arrays.copyOf(idPages, idPages.length * 2);
+            }
+            if(idPages[id >>> ID_PAGE_SHIFT] == null) {
+                idPages[id >>> ID_PAGE_SHIFT] = new IdPage();
+            }
+        }
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        IdPage idPage = idPages[id >>> ID_PAGE_SHIFT];
+        int index = id & (ID_PAGE_SIZE - 1);
+        idPage.hashes[index] = hash;
+        idPage.keyAddresses[index] = appendToSlab(keyBytes, 0, keyBytes.length);
+        idPage.keyLengths[index] = keyBytes.length;
+        idPage.valueLengths[index] = -1;
+        storedBytes += keyBytes.length;
+
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while(slots[slot] != EMPTY_SLOT && slots[slot] != REMOVED_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        if(slots[slot] == EMPTY_SLOT) {
+            usedSlots++;
+        }
+        slots[slot] = id + 1;
+        size++;
+
+        // The slots of removed keys are dropped when the table is rebuilt, which doubles it only if the stored keys need it
+        if(usedSlots > slots.length / 3 * 2) {
+            resize(Math.max(slots.length, getCapacity(size + 1)));
+        }
+
+        return id;
+
+    }
+
+    /*
+     * Copies bytes at the end of the last slab page, and returns their address as the index of the page in the
+     * upper 32 bits and the offset in the page in the lower 32 bits. The pages grow up to 1 MiB, so that a store with
+     * few keys stays small, and bytes that do not fit in the rest of the last page start a new one.
+     */
+    private long appendToSlab(byte[] bytes, int offset, int length) {
+
+        if(numberOfSlabPages == 0 || slabPagePosition + length > slabPages[numberOfSlabPages - 1].length) {
+            int pageSize = numberOfSlabPages == 0 ? MIN_SLAB_PAGE_SIZE : Math.min(MAX_SLAB_PAGE_SIZE, slabPages[numberOfSlabPages - 1].length * 2);
+            if(numberOfSlabPages == slabPages.length) {
+                slabPages = Arrays.copyOf(slabPages, slabPages.length * 2);
+            }
+            slabPages[numberOfSlabPages++] = new byte[Math.max(pageSize, length)];
+            slabPagePosition = 0;
+        }
+
+        System.arraycopy(bytes, offset, slabPages[numberOfSlabPages - 1], slabPagePosition, length);
+        long address = ((long) (numberOfSlabPages - 1) << 32) | slabPagePosition;
+        slabPagePosition += length;
+
+        return address;
+
+    }
+
+    /*
+     * Copies the stored keys and string values into new slab pages once the removed bytes take more room than them
+     *
+     * The copy takes time in proportion to the stored bytes, and at least as many bytes were removed since the
+     * previous copy, so the writes pay for it in constant time on average.
+     */
+    private void compactSlabIfNeeded() {
+
+        if(removedBytes <= MAX_SLAB_PAGE_SIZE || removedBytes <= storedBytes) {
+            return;
+        }
+
+        byte[][] oldSlabPages = slabPages;
+        slabPages = new byte[1][];
+        numberOfSlabPages = 0;
+        slabPagePosition = 0;
+
+        for(int id = 0; id < nextId; id++) {
+            IdPage idPage = idPages[id >>> ID_PAGE_SHIFT];
+            int index = id & (ID_PAGE_SIZE - 1);
+            if(idPage.keyLengths[index] >= 0) {
+                long address = idPage.keyAddresses[index];
+                idPage.keyAddresses[index] = appendToSlab(oldSlabPages[(int) (address >>> 32)], (int) address, idPage.keyLengths[index]);
+            }
+            if(idPage.valueLengths[index] >= 0) {
+                long address = idPage.valueAddresses[index];
+                idPage.valueAddresses[index] = appendToSlab(oldSlabPages[(int) (address >>> 32)], (int) address, idPage.valueLengths[index]);
+            }
+        }
+
+        removedBytes = 0;
+
+    }
+
+    /*
+     * Rebuilds the symbol table with the given capacity from the hashes kept for the ids
+     */
+    private void resize(int capacity) {
+
+        int[] oldSlots = slots;
+        slots = new int[capacity];
+        int mask = capacity - 1;
+
+        for(int slotValue : oldSlots) {
+            if(slotValue != EMPTY_SLOT && slotValue != REMOVED_SLOT) {
+                int id = slotValue - 1;
+                int slot = idPages[id >>> ID_PAGE_SHIFT].hashes[id & (ID_PAGE_SIZE - 1)] & mask;
+                while(slots[slot] != EMPTY_SLOT) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = slotValue;
+            }
+        }
+
+        usedSlots = size;
+
+    }
+
+    /*
+     * Adds the stored keys and entries of a range of ids to the batch
+     */
+    private void collectIds(int startId, int endId, ArrayDeque<Map.Entry<String, StoreEntry>> batch) {
+
+        for(int id = startId; id < endId && id < nextId; id++) {
+            IdPage idPage = idPages[id >>> ID_PAGE_SHIFT];
+            int index = id & (ID_PAGE_SIZE - 1);
+            if(idPage.keyLengths[index] >= 0) {
+                batch.add(new AbstractMap.SimpleImmutableEntry<String, StoreEntry>(decodeKey(idPage, index), new StoreEntry(getValue(idPage, index), idPage.versions[index])));
+            }
+        }
+
+    }
+
+    /*
+     * The hashes, versions and locations of the keys and values of 4096 consecutive ids, where a removed key has a
+     * length of -1, and so has a value that is kept as an object
+     */
+    private static class IdPage {
+        final int[] hashes = new int[ID_PAGE_SIZE];
+        final long[] keyAddresses = new long[ID_PAGE_SIZE];
+        final int[] keyLengths = new int[ID_PAGE_SIZE];
+        final long[] valueAddresses = new long[ID_PAGE_SIZE];
+        final int[] valueLengths = new int[ID_PAGE_SIZE];
+        final long[] versions = new long[ID_PAGE_SIZE];
+        final Object[] values = new Object[ID_PAGE_SIZE];
+    }
+
+    /*
+     * A spliterator over a range of the ids handed out when it was created
+     */
+    private class IdSpliterator implements Spliterator<Map.Entry<String, StoreEntry>> {
+
+        private int nextId;
+        private final int endId;
+        private final ArrayDeque<Map.Entry<String, StoreEntry>> batch = new ArrayDeque<Map.Entry<String, StoreEntry>>();
+
+        IdSpliterator(int nextId, int endId) {
+            this.nextId = nextId;
+            this.endId = endId;
+        }
+
+        public boolean tryAdvance(Consumer<? super Map.Entry<String, StoreEntry>> action) {
+
+            while(batch.isEmpty() && nextId < endId) {
+                int batchEndId = Math.min(endId, nextId + SPLITERATOR_IDS);
+                lock.readLock().lock();
+                try {
+                    collectIds(nextId, batchEndId, batch);
+                } finally {
+                    lock.readLock().unlock();
+                }
+                nextId = batchEndId;
+            }
+
+            if(batch.isEmpty()) {
+                return false;
+            }
+
+            action.accept(batch.poll());
+            return true;
+
+        }
+
+        public Spliterator<Map.Entry<String, StoreEntry>> trySplit() {
+
+            if(!batch.isEmpty() || endId - nextId < 2 * SPLITERATOR_IDS) {
+                return null;
+            }
+
+            int middleId = nextId + (endId - nextId) / 2;
+            Spliterator<Map.Entry<String, StoreEntry>> prefix = new IdSpliterator(nextId, middleId);
+            nextId = middleId;
+            return prefix;
+
+        }
+
+        public long estimateSize() {
+            return endId - nextId;
+        }
+
+        public int characteristics() {
+            return Spliterator.CONCURRENT | Spliterator.NONNULL | Spliterator.DISTINCT;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.OpenAddressingMap;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * Storage engine backed by a hash map
+ * 
+ * This is the default engine. It only supports point operations. The map is
+ * concurrent by default because the TCP server serves every connection on its
+ * own thread. A store partition is only accessed by its own thread, so it uses
+ * an unsynchronized open addressing map instead, whose traversal keeps going
+ * when the partition thread serves requests between two batches of a reclaim.
+ */
+public class HashKeyValueStore implements KeyValueStore {
+
+    private Map<String, StoreEntry> keyValueStore;
+
+    public HashKeyValueStore(boolean isConcurrent) {
+        this.keyValueStore = isConcurrent ? new ConcurrentHashMap<String, StoreEntry>() : new OpenAddressingMap();
+    }
+
+    public StoreEntry get(String key) {
+        return keyValueStore.get(key);
+    }
+
+    public void put(String key, StoreEntry entry) {
+        keyValueStore.put(key, entry);
+    }
+
+    public StoreEntry remove(String key) {
+        return keyValueStore.remove(key);
+    }
+
+    public StoreEntry compute(String key, BiFunction<String, StoreEntry, StoreEntry> remappingFunction) {
+        return keyValueStore.compute(key, remappingFunction);
+    }
+
+    public boolean containsKey(String key) {
+        return keyValueStore.containsKey(key);
+    }
+
+    public int size() {
+        return keyValueStore.size();
+    }
+
+    /*
+     * Replaces the map with one that holds the expected number of keys without resizing, which
+     * rehashes the keys already stored only once
+     */
+    public void ensureCapacity(int expectedSize) {
+
+        if(expectedSize <= keyValueStore.size()) {
+            return;
+        }
+
+        Map<String, StoreEntry> resizedStore;
+        if(keyValueStore instanceof ConcurrentHashMap) {
+            resizedStore = new ConcurrentHashMap<String, StoreEntry>(expectedSize);
+        } else {
+            resizedStore = new OpenAddressingMap(expectedSize);
+        }
+
+        resizedStore.putAll(keyValueStore);
+        keyValueStore = resizedStore;
+
+    }
+
+    public boolean isOrdered() {
+        return false;
+    }
+
+    public Iterator<Map.Entry<String, StoreEntry>> scan(String startKey, boolean startInclusive) {
+        throw new UnsupportedOperationException("The hash store does not support scans.");
+    }
+
+    public Spliterator<Map.Entry<String, StoreEntry>> spliterator(String prefix) {
+
+        // The buckets of the table are split into segments, and the prefix is checked by the caller
+        return keyValueStore.entrySet().spliterator();
+
+    }
+}
@@ -0,0 +1,150 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/*
+ * An estimate of the number of distinct elements added to a key, kept in a HyperLogLog
+ *
+ * The first 14 bits of the 64 bit hash of an element select one of 16384 registers, which keeps
+ * the longest run of leading zeros seen in the rest of the hashes that selected it. The count is
+ * estimated from the harmonic mean of the registers, with a standard error of 0.81%, and falls
+ * back to linear counting while many registers are still zero. The registers take 16 KiB whatever
+ * the number of elements, and two HyperLogLogs are merged by keeping the largest of each pair of
+ * registers. All the methods are synchronized, since readers and writers of a key share the value.
+ */
+public class HyperLogLogValue {
+
+    private static final int PRECISION = 14;
+    public static final int NUMBER_OF_REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / NUMBER_OF_REGISTERS);
+
+    private final byte[] registers = new byte[NUMBER_OF_REGISTERS];
+
+    /*
+     * Adds an element and returns true if it changed a register, in which case it was never added before
+     */
+    public synchronized boolean add(String element) {
+
+        long hash = hash(element);
+        int register = (int) (hash >>> (64 - PRECISION));
+
+        // The bit below the remaining bits bounds the run of zeros when they are all zero
+        byte leadingZeros = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if(leadingZeros <= registers[register]) {
+            return false;
+        }
+
+        registers[register] = leadingZeros;
+        return true;
+
+    }
+
+    public synchronized long count() {
+
+        double sum = 0;
+        int zeroRegisters = 0;
+        for(byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if(register == 0) {
+                zeroRegisters++;
+            }
+        }
+
+        double estimate = ALPHA * NUMBER_OF_REGISTERS * NUMBER_OF_REGISTERS / sum;
+        if(estimate <= 2.5 * NUMBER_OF_REGISTERS && zeroRegisters > 0) {
+            estimate = NUMBER_OF_REGISTERS * Math.log((double) NUMBER_OF_REGISTERS / zeroRegisters);
+        }
+
+        return Math.round(estimate);
+
+    }
+
+    /*
+     * Keeps the largest of each register and the matching register of another HyperLogLog, and returns true if a register changed
+     */
+    public synchronized boolean merge(byte[] otherRegisters) {
+
+        boolean changed = false;
+        for(int i = 0; i < NUMBER_OF_REGISTERS; i++) {
+            if(otherRegisters[i] > registers[i]) {
+                registers[i] = otherRegisters[i];
+                changed = true;
+            }
+        }
+
+        return changed;
+
+    }
+
+    /*
+     * Returns a copy of the registers, so that they can be merged into another HyperLogLog without holding both locks
+     */
+    public synchronized byte[] getRegisters() {
+        return Arrays.copyOf(registers, NUMBER_OF_REGISTERS);
+    }
+
+    /*
+     * Returns the registers encoded in Base64, which is how the value is sent in a response
+     */
+    public synchronized String toString() {
+        return Base64.getEncoder().encodeToString(registers);
+    }
+
+    /*
+     * Decodes the registers of a HyperLogLog from the Base64 string it is sent as
+     */
+    public static byte[] decodeRegisters(String encodedRegisters) throws IllegalArgumentException {
+
+        byte[] decodedRegisters = Base64.getDecoder().decode(encodedRegisters.trim());
+        if(decodedRegisters.length != NUMBER_OF_REGISTERS) {
+            throw new IllegalArgumentException("The registers should hold " + String.valueOf(NUMBER_OF_REGISTERS) + " bytes.");
+        }
+
+        for(byte register : decodedRegisters) {
+            if(register < 0 || register > 64 - PRECISION + 1) {
+                throw new IllegalArgumentException("The registers are out of range.");
+            }
+        }
+
+        return decodedRegisters;
+
+    }
+
+    /*
+     * Returns a 64 bit hash of the characters of an element, which is FNV-1a followed by the finalizer of
+     * MurmurHash3 so that every bit of the hash depends on every character
+     */
+    static long hash(String element) {
+
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < element.length(); i++) {
+            hash ^= element.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+
+    }
+}
@@ -0,0 +1,433 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * Storage engine backed by a hash table that grows without ever rehashing all its keys at once
+ *
+ * When the table is three quarters full, a table twice as large takes its place and the old
+ * table stays live next to it. Every write then moves a few buckets of the old table into the
+ * new one, and lookups check the old table as well, until all its buckets have been moved and
+ * it is dropped. Each write does a bounded amount of work, so no single PUT pays for the whole
+ * resize, unlike the maps that double in one step. The buckets are allocated in pages that are
+ * only created when a key lands in them, so a new table of tens of millions of buckets is not
+ * zeroed in one go either.
+ *
+ * A read write lock lets many readers use the table while one writer changes it. The store
+ * only supports point operations.
+ */
+public class IncrementalHashStore implements KeyValueStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int PAGE_SHIFT = 12;
+    private static final int BUCKETS_MOVED_PER_WRITE = 4;
+    private static final int EMPTY_BUCKETS_VISITED_PER_WRITE = 64;
+    private static final int SPLITERATOR_BUCKETS = 1024;
+
+    private Table table = new Table(INITIAL_CAPACITY);
+
+    // The table being emptied into the new one, or null when no resize is in progress
+    private Table oldTable;
+    private int nextBucketToMove;
+    private int size;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public StoreEntry get(String key) {
+
+        int hash = spread(key.hashCode());
+
+        lock.readLock().lock();
+        try {
+            Node node = find(key, hash);
+            return node == null ? null : node.entry;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    public void put(String key, StoreEntry entry) {
+
+        int hash = spread(key.hashCode());
+
+        lock.writeLock().lock();
+        try {
+            moveBuckets();
+
+            Node node = find(key, hash);
+            if(node != null) {
+                node.entry = entry;
+                return;
+            }
+
+            table.set(hash & table.mask, new Node(key, hash, entry, table.get(hash & table.mask)));
+            size++;
+            if(oldTable == null && size > table.capacity / 4 * 3) {
+                startResize(table.capacity * 2);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public StoreEntry remove(String key) {
+
+        int hash = spread(key.hashCode());
+
+        lock.writeLock().lock();
+        try {
+            moveBuckets();
+
+            StoreEntry removedEntry = unlink(table, key, hash);
+            if(removedEntry == null && oldTable != null) {
+                removedEntry = unlink(oldTable, key, hash);
+            }
+
+            return removedEntry;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public StoreEntry compute(String key, BiFunction<String, StoreEntry, StoreEntry> remappingFunction) {
+
+        lock.writeLock().lock();
+        try {
+            StoreEntry currentEntry = get(key);
+            StoreEntry newEntry = remappingFunction.apply(key, currentEntry);
+
+            if(newEntry != null) {
+                put(key, newEntry);
+            } else if(currentEntry != null) {
+                remove(key);
+            }
+
+            return newEntry;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    public int size() {
+
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    /*
+     * Starts growing the table to hold the expected number of keys, the keys already stored are moved incrementally
+     */
+    public void ensureCapacity(int expectedSize) {
+
+        lock.writeLock().lock();
+        try {
+            int capacity = table.capacity;
+            while(capacity < (1 << 30) && capacity / 4 * 3 < expectedSize) {
+                capacity *= 2;
+            }
+
+            if(oldTable == null && capacity > table.capacity) {
+                startResize(capacity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+    }
+
+    public boolean isOrdered() {
+        return false;
+    }
+
+    public Iterator<Map.Entry<String, StoreEntry>> scan(String startKey, boolean startInclusive) {
+        throw new UnsupportedOperationException("The incremental hash store does not support scans.");
+    }
+
+    /*
+     * Returns a spliterator over the buckets, which reads one bucket at a time under the read lock
+     *
+     * A bucket of the table at the time the spliterator was created holds the keys of several
+     * buckets once the table has grown, and some of them may still wait in the old table, so
+     * each key is still seen exactly once if it stays in the store during the traversal. The
+     * prefix is checked by the caller.
+     */
+    public Spliterator<Map.Entry<String, StoreEntry>> spliterator(String prefix) {
+
+        lock.readLock().lock();
+        try {
+            return new BucketSpliterator(0, table.capacity, table.capacity);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    /*
+     * Spreads the higher bits of the hash code into the lower bits that select a bucket
+     */
+    private static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private Node find(String key, int hash) {
+
+        Node node = findInTable(table, key, hash);
+        if(node == null && oldTable != null) {
+            node = findInTable(oldTable, key, hash);
+        }
+
+        return node;
+
+    }
+
+    private static Node findInTable(Table table, String key, int hash) {
+
+        for(Node node = table.get(hash & table.mask); node != null; node = node.next) {
+            if(node.hash == hash && node.key.equals(key)) {
+                return node;
+            }
+        }
+
+        return null;
+
+    }
+
+    private StoreEntry unlink(Table table, String key, int hash) {
+
+        int bucket = hash & table.mask;
+        Node previous = null;
+        for(Node node = table.get(bucket); node != null; previous = node, node = node.next) {
+            if(node.hash == hash && node.key.equals(key)) {
+                if(previous == null) {
+                    table.set(bucket, node.next);
+                } else {
+                    previous.next = node.next;
+                }
+                size--;
+                return node.entry;
+            }
+        }
+
+        return null;
+
+    }
+
+    private void startResize(int capacity) {
+
+        oldTable = table;
+        table = new Table(capacity);
+        nextBucketToMove = 0;
+
+    }
+
+    /*
+     * Moves a few buckets of the old table into the new one, and drops the old table once it is empty
+     *
+     * A table grows when it is three quarters full, and the new table is at least twice as large, so
+     * moving a bucket per write would be enough to empty the old table before the new one is full.
+     */
+    private void moveBuckets() {
+
+        if(oldTable == null) {
+            return;
+        }
+
+        int movedBuckets = 0;
+        int visitedBuckets = 0;
+        while(nextBucketToMove < oldTable.capacity && movedBuckets < BUCKETS_MOVED_PER_WRITE && visitedBuckets < EMPTY_BUCKETS_VISITED_PER_WRITE) {
+            Node node = oldTable.get(nextBucketToMove);
+            if(node != null) {
+                while(node != null) {
+                    Node next = node.next;
+                    int bucket = node.hash & table.mask;
+                    node.next = table.get(bucket);
+                    table.set(bucket, node);
+                    node = next;
+                }
+                oldTable.set(nextBucketToMove, null);
+                movedBuckets++;
+            }
+            nextBucketToMove++;
+            visitedBuckets++;
+        }
+
+        if(nextBucketToMove == oldTable.capacity) {
+            oldTable = null;
+        }
+
+    }
+
+    /*
+     * Adds the entries whose hash falls in a bucket of a table of the given capacity, which is
+     * at most the capacity of the current table, to the batch
+     */
+    private void collectBucket(int bucket, int capacity, ArrayDeque<Map.Entry<String, StoreEntry>> batch) {
+
+        for(int currentBucket = bucket; currentBucket < table.capacity; currentBucket += capacity) {
+            for(Node node = table.get(currentBucket); node != null; node = node.next) {
+                batch.add(new AbstractMap.SimpleImmutableEntry<String, StoreEntry>(node.key, node.entry));
+            }
+
+            // The keys of this bucket that were not moved yet are in the bucket of the old table that they come from
+            if(oldTable != null) {
+                for(Node node = oldTable.get(currentBucket & oldTable.mask); node != null; node = node.next) {
+                    if((node.hash & table.mask) == currentBucket) {
+                        batch.add(new AbstractMap.SimpleImmutableEntry<String, StoreEntry>(node.key, node.entry));
+                    }
+                }
+            }
+        }
+
+    }
+
+    /*
+     * A key and its entry, chained with the other keys of its bucket
+     */
+    private static class Node {
+        final String key;
+        final int hash;
+        StoreEntry entry;
+        Node next;
+
+        Node(String key, int hash, StoreEntry entry, Node next) {
+            this.key = key;
+            this.hash = hash;
+            this.entry = entry;
+            this.next = next;
+        }
+    }
+
+    /*
+     * The buckets of a table, split into pages that are allocated on the first write to them
+     */
+    private static class Table {
+        final int capacity;
+        final int mask;
+        private final Node[][] pages;
+        private final int pageSize;
+
+        Table(int capacity) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.pageSize = Math.min(capacity, 1 << PAGE_SHIFT);
+            this.pages = new Node[capacity / pageSize][];
+        }
+
+        Node get(int bucket) {
+
+            Node[] page = pages[bucket >>> PAGE_SHIFT];
+            return page == null ? null : page[bucket & (pageSize - 1)];
+
+        }
+
+        void set(int bucket, Node node) {
+
+            Node[] page = pages[bucket >>> PAGE_SHIFT];
+            if(page == null) {
+                if(node == null) {
+                    return;
+                }
+                page = pages[bucket >>> PAGE_SHIFT] = new Node[pageSize];
+            }
+
+            page[bucket & (pageSize - 1)] = node;
+
+        }
+    }
+
+    /*
+     * A spliterator over a range of the buckets of the table it was created for
+     */
+    private class BucketSpliterator implements Spliterator<Map.Entry<String, StoreEntry>> {
+
+        private int nextBucket;
+        private final int endBucket;
+        private final int capacity;
+        private final ArrayDeque<Map.Entry<String, StoreEntry>> batch = new ArrayDeque<Map.Entry<String, StoreEntry>>();
+
+        BucketSpliterator(int nextBucket, int endBucket, int capacity) {
+            this.nextBucket = nextBucket;
+            this.endBucket = endBucket;
+            this.capacity = capacity;
+        }
+
+        public boolean tryAdvance(Consumer<? super Map.Entry<String, StoreEntry>> action) {
+
+            while(batch.isEmpty() && nextBucket < endBucket) {
+                lock.readLock().lock();
+                try {
+                    collectBucket(nextBucket++, capacity, batch);
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+
+            if(batch.isEmpty()) {
+                return false;
+            }
+
+            action.accept(batch.poll());
+            return true;
+
+        }
+
+        public Spliterator<Map.Entry<String, StoreEntry>> trySplit() {
+
+            if(!batch.isEmpty() || endBucket - nextBucket < 2 * SPLITERATOR_BUCKETS) {
+                return null;
+            }
+
+            int middleBucket = nextBucket + (endBucket - nextBucket) / 2;
+            Spliterator<Map.Entry<String, StoreEntry>> prefix = new BucketSpliterator(nextBucket, middleBucket, capacity);
+            nextBucket = middleBucket;
+            return prefix;
+
+        }
+
+        public long estimateSize() {
+            return endBucket - nextBucket;
+        }
+
+        public int characteristics() {
+            return Spliterator.CONCURRENT | Spliterator.NONNULL | Spliterator.DISTINCT;
+        }
+    }
+}
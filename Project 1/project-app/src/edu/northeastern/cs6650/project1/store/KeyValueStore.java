@@ -0,0 +1,81 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * Interface implemented by the storage engines that back the TCP and UDP servers
+ * 
+ * The servers only perform point operations through this interface, except for
+ * the scan operation which is available when the engine keeps its keys ordered,
+ * and the spliterator which aggregations use to walk the whole store in parallel.
+ */
+public interface KeyValueStore {
+
+    StoreEntry get(String key);
+
+    void put(String key, StoreEntry entry);
+
+    StoreEntry remove(String key);
+
+    /*
+     * Atomically replaces the entry of a key with the result of the remapping function, which 
+     * receives null if the key is absent. The key is removed if the function returns null.
+     * 
+     * The function may be applied more than once when there is contention, so it must not have
+     * side effects other than recording the outcome of its last application.
+     */
+    StoreEntry compute(String key, BiFunction<String, StoreEntry, StoreEntry> remappingFunction);
+
+    boolean containsKey(String key);
+
+    int size();
+
+    /*
+     * Prepares the engine to hold the expected number of keys, so that a bulk import does not
+     * grow its tables one step at a time. This is only called before the store is shared with
+     * other threads, and engines that do not size tables ahead of time ignore it.
+     */
+    void ensureCapacity(int expectedSize);
+
+    /*
+     * Returns true if the engine keeps its keys sorted and supports scans
+     */
+    boolean isOrdered();
+
+    /*
+     * Returns a lazy iterator over the entries with keys greater than the start key (or equal to 
+     * it, when inclusive), in ascending key order. A null start key starts from the first key.
+     * 
+     * Throws an UnsupportedOperationException if the engine is not ordered.
+     */
+    Iterator<Map.Entry<String, StoreEntry>> scan(String startKey, boolean startInclusive);
+
+    /*
+     * Returns a weakly consistent spliterator over the entries with keys starting with the prefix, which
+     * can be split into segments that are traversed in parallel. A null prefix covers all the keys.
+     * 
+     * An engine that is not ordered cannot narrow the traversal to a prefix, so it may also return
+     * entries with other keys, which the caller has to skip.
+     */
+    Spliterator<Map.Entry<String, StoreEntry>> spliterator(String prefix);
+}
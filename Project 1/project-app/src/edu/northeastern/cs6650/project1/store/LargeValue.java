@@ -0,0 +1,79 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * A value that is kept in the value log instead of the Java heap
+ * 
+ * The value is only decoded into a string when a request needs it as one, for example
+ * a SCAN or a DELETE_IF_VALUE request. A GET request over TCP transfers its bytes from
+ * the log file to the socket instead, which the operating system does without copying
+ * them through user space.
+ */
+public class LargeValue {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+
+    LargeValue(FileChannel channel, ByteBuffer buffer, int offset, int length) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /*
+     * Transfers the bytes of the value from the log file to a channel
+     * 
+     * The value is kept reachable until the transfer ends, since the cleaner that releases
+     * an unreachable value may close the file of its segment.
+     */
+    public void transferTo(WritableByteChannel target) throws IOException {
+
+        try {
+            long transferred = 0;
+            while(transferred < length) {
+                transferred += channel.transferTo(offset + transferred, length - transferred, target);
+            }
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+
+    }
+
+    public String toString() {
+
+        byte[] value = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+
+    }
+}
@@ -0,0 +1,762 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.store.BlockCache;
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.MergingIterator;
+import edu.northeastern.cs6650.project1.store.SSTable;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * Storage engine backed by a log-structured merge tree, which holds more data than fits in memory
+ * 
+ * Writes go to a concurrent skip list, the memtable. A full memtable is frozen while a new one takes 
+ * the writes, and a background thread writes it to an immutable sorted table on disk, in level 0. The 
+ * same thread merges the tables into levels of growing size : once level 0 holds 
+ * LEVEL0_COMPACTION_TRIGGER tables they are merged with the overlapping tables of level 1, and once a 
+ * deeper level outgrows its size, one of its tables is merged with the overlapping tables of the next 
+ * level. The tables of a level other than 0 never overlap, so a point read looks into the memtables, 
+ * every table of level 0 and at most one table per deeper level, from the newest to the oldest, and 
+ * skips the tables whose bloom filter does not hold the key. Writers wait while the background thread 
+ * is too far behind, rather than filling the heap with frozen memtables.
+ * 
+ * Only string values are written to a table. The values that are updated in place, such as counters, 
+ * chunked values and large values, are never written to a table : a flush carries them over to the 
+ * current memtable instead. The tables are kept in a 
+ * temporary directory that is deleted when the server exits, like the value log, so the store does 
+ * not survive a restart.
+ */
+public class LsmKeyValueStore implements KeyValueStore {
+
+    private static final Logger LOGGER = Logger.getLogger(LsmKeyValueStore.class.getName());
+
+    // Marks a deleted key in a memtable or a table, until a compaction writes it to the last level
+    static final StoreEntry DELETED = new StoreEntry(null, 0);
+
+    private static final long MAX_MEMTABLE_SIZE = Math.min(4L << 20, Runtime.getRuntime().maxMemory() / 32);
+    private static final int MAX_FROZEN_MEMTABLES = 2;
+    private static final long MAX_TABLE_SIZE = 2L << 20;
+    private static final int LEVEL0_COMPACTION_TRIGGER = 4;
+    private static final int LEVEL0_STOP_WRITES_TRIGGER = 12;
+    private static final int NUMBER_OF_LEVELS = 7;
+    private static final long MAX_LEVEL1_SIZE = 10L << 20;
+    private static final int LEVEL_SIZE_MULTIPLIER = 10;
+
+    private final Path directory;
+    private final BlockCache blockCache = new BlockCache(Runtime.getRuntime().maxMemory() / 16);
+
+    // Writers share the memtable lock, which freezing a memtable takes exclusively so that no write is left behind
+    private final ReentrantReadWriteLock memtableLock = new ReentrantReadWriteLock();
+    private final Object stateLock = new Object();
+    private volatile State state = new State(new Memtable(), new Memtable[0], new SSTable[NUMBER_OF_LEVELS][0]);
+
+    // Only used by the background thread
+    private final String[] compactionKeys = new String[NUMBER_OF_LEVELS];
+    private long nextTableId;
+
+    public LsmKeyValueStore() throws IOException {
+
+        this.directory = Files.createTempDirectory("lsm-store");
+        this.directory.toFile().deleteOnExit();
+
+        Thread compactor = new Thread(this::runBackgroundWork, "lsm-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+
+    }
+
+    public StoreEntry get(String key) {
+
+        StoreEntry entry = find(key, true);
+        return entry == DELETED ? null : entry;
+
+    }
+
+    public void put(String key, StoreEntry entry) {
+
+        waitForBackgroundWork();
+
+        Memtable memtable;
+        memtableLock.readLock().lock();
+        try {
+            memtable = state.memtable;
+            memtable.entries.put(key, entry);
+        } finally {
+            memtableLock.readLock().unlock();
+        }
+
+        memtable.addSize(key, entry);
+        freezeIfFull(memtable);
+
+    }
+
+    public StoreEntry remove(String key) {
+
+        final StoreEntry removedEntry[] = { null };
+        compute(key, (currentKey, currentEntry) -> {
+            removedEntry[0] = currentEntry;
+            return null;
+        });
+        return removedEntry[0];
+
+    }
+
+    public StoreEntry compute(String key, BiFunction<String, StoreEntry, StoreEntry> remappingFunction) {
+
+        waitForBackgroundWork();
+
+        final StoreEntry computedEntry[] = { null };
+        final boolean flag[] = { false };
+        Memtable memtable;
+        memtableLock.readLock().lock();
+        try {
+            memtable = state.memtable;
+            memtable.entries.compute(key, (currentKey, currentEntry) -> {
+                // A key missing from the memtable may still be held by an older layer
+                StoreEntry visibleEntry = currentEntry != null ? currentEntry : find(currentKey, false);
+                if(visibleEntry == DELETED) {
+                    visibleEntry = null;
+                }
+
+                computedEntry[0] = remappingFunction.apply(currentKey, visibleEntry);
+                flag[0] = computedEntry[0] != visibleEntry;
+                if(!flag[0]) {
+                    return currentEntry;
+                }
+                return computedEntry[0] != null ? computedEntry[0] : DELETED;
+            });
+        } finally {
+            memtableLock.readLock().unlock();
+        }
+
+        if(flag[0]) {
+            memtable.addSize(key, computedEntry[0] != null ? computedEntry[0] : DELETED);
+            freezeIfFull(memtable);
+        }
+        return computedEntry[0];
+
+    }
+
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    /*
+     * Returns an estimate of the number of keys, which counts a key once per table or memtable holding it
+     */
+    public int size() {
+
+        State state = this.state;
+        long size = state.memtable.countEntries();
+        for(Memtable memtable : state.frozenMemtables) {
+            size += memtable.countEntries();
+        }
+        for(SSTable[] tables : state.levels) {
+            for(SSTable table : tables) {
+                size += table.numberOfEntries - table.numberOfDeletedEntries;
+            }
+        }
+
+        return (int) Math.min(Integer.MAX_VALUE, size);
+
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        // The memtable is a skip list that is flushed once it is full, so there is nothing to size ahead of time
+    }
+
+    public boolean isOrdered() {
+        return true;
+    }
+
+    public Iterator<Map.Entry<String, StoreEntry>> scan(String startKey, boolean startInclusive) {
+        return new StoreIterator(startKey, startInclusive);
+    }
+
+    public Spliterator<Map.Entry<String, StoreEntry>> spliterator(String prefix) {
+
+        // The merged layers cannot be split by key without reading them, so the entries are handed out in batches instead
+        Iterator<Map.Entry<String, StoreEntry>> iterator = prefix == null ? scan(null, true) : new PrefixIterator(scan(prefix, true), prefix);
+        return Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+
+    }
+
+    /*
+     * Returns the newest entry of a key, which may be DELETED, or null if no layer holds the key
+     * 
+     * The memtable that takes the writes is skipped when the caller already looked into it. A read 
+     * that races a compaction may find one of its tables deleted, and then looks into the new tables.
+     */
+    private StoreEntry find(String key, boolean includesMemtable) {
+
+        while(true) {
+            State state = this.state;
+            try {
+                return state.find(key, includesMemtable, blockCache);
+            } catch (UncheckedIOException uioe) {
+                checkTablesReplaced(uioe, state);
+            }
+        }
+
+    }
+
+    /*
+     * Rethrows an I/O error unless it was caused by reading a table that a compaction deleted since the state was read
+     */
+    private void checkTablesReplaced(UncheckedIOException uioe, State state) {
+
+        if(!(uioe.getCause() instanceof ClosedChannelException) || state == this.state) {
+            throw uioe;
+        }
+
+    }
+
+    /*
+     * Makes a writer wait while the background thread has too many memtables to flush or level 0 tables to merge
+     */
+    private void waitForBackgroundWork() {
+
+        State state = this.state;
+        if(state.frozenMemtables.length < MAX_FROZEN_MEMTABLES && state.levels[0].length < LEVEL0_STOP_WRITES_TRIGGER) {
+            return;
+        }
+
+        synchronized(stateLock) {
+            while(this.state.frozenMemtables.length >= MAX_FROZEN_MEMTABLES || this.state.levels[0].length >= LEVEL0_STOP_WRITES_TRIGGER) {
+                try {
+                    stateLock.wait();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+    }
+
+    private void freezeIfFull(Memtable memtable) {
+
+        if(memtable.size.get() < MAX_MEMTABLE_SIZE || state.memtable != memtable) {
+            return;
+        }
+
+        memtableLock.writeLock().lock();
+        try {
+            synchronized(stateLock) {
+                State state = this.state;
+                if(state.memtable == memtable) {
+                    Memtable[] frozenMemtables = new Memtable[state.frozenMemtables.length + 1];
+                    frozenMemtables[0] = memtable;
+                    System.arraycopy(state.frozenMemtables, 0, frozenMemtables, 1, state.frozenMemtables.length);
+                    setState(new State(new Memtable(), frozenMemtables, state.levels));
+                }
+            }
+        } finally {
+            memtableLock.writeLock().unlock();
+        }
+
+    }
+
+    /*
+     * Publishes a new state and wakes up the background thread and the waiting writers, while holding the state lock
+     */
+    private void setState(State state) {
+
+        this.state = state;
+        stateLock.notifyAll();
+
+    }
+
+    /*
+     * Flushes the frozen memtables and merges the tables, one step at a time, until the store is shut down
+     */
+    private void runBackgroundWork() {
+
+        while(true) {
+            try {
+                if(!flushFrozenMemtable() && !compact()) {
+                    synchronized(stateLock) {
+                        while(state.frozenMemtables.length == 0 && pickCompactionLevel(state) < 0) {
+                            stateLock.wait();
+                        }
+                    }
+                }
+            } catch (IOException | UncheckedIOException ioe) {
+                LOGGER.severe("Error writing a table of the LSM store, retrying in a second.\n" + ioe.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            } catch (InterruptedException ie) {
+                return;
+            }
+        }
+
+    }
+
+    /*
+     * Writes the oldest frozen memtable to a level 0 table, and returns false if there is none
+     */
+    private boolean flushFrozenMemtable() throws IOException {
+
+        State state = this.state;
+        if(state.frozenMemtables.length == 0) {
+            return false;
+        }
+
+        Memtable memtable = state.frozenMemtables[state.frozenMemtables.length - 1];
+        List<Map.Entry<String, StoreEntry>> inPlaceEntries = new ArrayList<Map.Entry<String, StoreEntry>>();
+        SSTable.Writer writer = createWriter();
+        SSTable table = null;
+        try {
+            for(Map.Entry<String, StoreEntry> entry : memtable.entries.entrySet()) {
+                if(entry.getValue() == DELETED || entry.getValue().getValue() instanceof String) {
+                    writer.add(entry.getKey(), entry.getValue());
+                } else {
+                    inPlaceEntries.add(entry);
+                }
+            }
+
+            if(writer.isEmpty()) {
+                writer.abort();
+            } else {
+                table = writer.finish();
+            }
+        } catch (IOException ioe) {
+            writer.abort();
+            throw ioe;
+        }
+
+        // The values updated in place move to the current memtable, unless a newer memtable holds their keys
+        memtableLock.readLock().lock();
+        try {
+            State currentState = this.state;
+            for(Map.Entry<String, StoreEntry> entry : inPlaceEntries) {
+                if(!currentState.isKeyOverwritten(entry.getKey(), memtable)) {
+                    currentState.memtable.entries.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            memtableLock.readLock().unlock();
+        }
+
+        synchronized(stateLock) {
+            State currentState = this.state;
+            Memtable[] frozenMemtables = Arrays.copyOf(currentState.frozenMemtables, currentState.frozenMemtables.length - 1);
+            SSTable[][] levels = currentState.levels;
+            if(table != null) {
+                levels = levels.clone();
+                levels[0] = new SSTable[currentState.levels[0].length + 1];
+                levels[0][0] = table;
+                System.arraycopy(currentState.levels[0], 0, levels[0], 1, currentState.levels[0].length);
+            }
+            setState(new State(currentState.memtable, frozenMemtables, levels));
+        }
+        return true;
+
+    }
+
+    /*
+     * Returns the level whose tables should be merged into the next level, or -1 if no level is too large
+     */
+    private int pickCompactionLevel(State state) {
+
+        if(state.levels[0].length >= LEVEL0_COMPACTION_TRIGGER) {
+            return 0;
+        }
+
+        long maxLevelSize = MAX_LEVEL1_SIZE;
+        for(int level = 1; level < NUMBER_OF_LEVELS - 1; level++) {
+            long levelSize = 0;
+            for(SSTable table : state.levels[level]) {
+                levelSize += table.size;
+            }
+            if(levelSize > maxLevelSize) {
+                return level;
+            }
+            maxLevelSize *= LEVEL_SIZE_MULTIPLIER;
+        }
+
+        return -1;
+
+    }
+
+    /*
+     * Merges the tables of a level that is too large into the next level, and returns false if no level is too large
+     * 
+     * All the tables of level 0 are merged at once, since they may overlap. From a deeper level, the 
+     * tables are merged one at a time, in key order, so that the whole key range is merged in turn.
+     */
+    private boolean compact() throws IOException {
+
+        State state = this.state;
+        int level = pickCompactionLevel(state);
+        if(level < 0) {
+            return false;
+        }
+
+        List<SSTable> inputTables = new ArrayList<SSTable>();
+        if(level == 0) {
+            inputTables.addAll(Arrays.asList(state.levels[0]));
+        } else {
+            SSTable inputTable = state.levels[level][0];
+            for(SSTable table : state.levels[level]) {
+                if(compactionKeys[level] != null && table.firstKey.compareTo(compactionKeys[level]) > 0) {
+                    inputTable = table;
+                    break;
+                }
+            }
+            inputTables.add(inputTable);
+        }
+
+        String startKey = inputTables.get(0).firstKey;
+        String endKey = inputTables.get(0).lastKey;
+        for(SSTable table : inputTables) {
+            startKey = table.firstKey.compareTo(startKey) < 0 ? table.firstKey : startKey;
+            endKey = table.lastKey.compareTo(endKey) > 0 ? table.lastKey : endKey;
+        }
+        compactionKeys[level] = endKey;
+
+        List<SSTable> overlappingTables = new ArrayList<SSTable>();
+        for(SSTable table : state.levels[level + 1]) {
+            if(table.overlaps(startKey, endKey)) {
+                overlappingTables.add(table);
+            }
+        }
+
+        // Deleted keys are dropped when no deeper level may still hold an older entry of them
+        boolean dropsDeletedKeys = true;
+        for(SSTable table : overlappingTables) {
+            startKey = table.firstKey.compareTo(startKey) < 0 ? table.firstKey : startKey;
+            endKey = table.lastKey.compareTo(endKey) > 0 ? table.lastKey : endKey;
+        }
+        for(int deeperLevel = level + 2; deeperLevel < NUMBER_OF_LEVELS; deeperLevel++) {
+            for(SSTable table : state.levels[deeperLevel]) {
+                dropsDeletedKeys = dropsDeletedKeys && !table.overlaps(startKey, endKey);
+            }
+        }
+
+        // The inputs are read without the block cache and from the newest to the oldest
+        List<Iterator<Map.Entry<String, StoreEntry>>> iterators = new ArrayList<Iterator<Map.Entry<String, StoreEntry>>>();
+        for(SSTable table : inputTables) {
+            iterators.add(table.iterator(null, true, null));
+        }
+        for(SSTable table : overlappingTables) {
+            iterators.add(table.iterator(null, true, null));
+        }
+        MergingIterator mergingIterator = new MergingIterator(iterators, dropsDeletedKeys);
+
+        List<SSTable> outputTables = new ArrayList<SSTable>();
+        SSTable.Writer writer = null;
+        try {
+            while(mergingIterator.hasNext()) {
+                Map.Entry<String, StoreEntry> entry = mergingIterator.next();
+                if(writer == null) {
+                    writer = createWriter();
+                }
+
+                writer.add(entry.getKey(), entry.getValue());
+                if(writer.size() >= MAX_TABLE_SIZE) {
+                    outputTables.add(writer.finish());
+                    writer = null;
+
+                    // A long compaction still lets the writers go on
+                    flushFrozenMemtable();
+                }
+            }
+
+            if(writer != null) {
+                outputTables.add(writer.finish());
+                writer = null;
+            }
+        } catch (IOException | UncheckedIOException ioe) {
+            if(writer != null) {
+                writer.abort();
+            }
+            for(SSTable table : outputTables) {
+                table.delete();
+            }
+            throw ioe;
+        }
+
+        synchronized(stateLock) {
+            State currentState = this.state;
+            SSTable[][] levels = currentState.levels.clone();
+            levels[level] = Arrays.stream(levels[level]).filter(table -> !inputTables.contains(table)).toArray(SSTable[]::new);
+
+            List<SSTable> nextLevel = new ArrayList<SSTable>(outputTables);
+            for(SSTable table : levels[level + 1]) {
+                if(!overlappingTables.contains(table)) {
+                    nextLevel.add(table);
+                }
+            }
+            nextLevel.sort(Comparator.comparing((SSTable table) -> table.firstKey));
+            levels[level + 1] = nextLevel.toArray(new SSTable[0]);
+
+            setState(new State(currentState.memtable, currentState.frozenMemtables, levels));
+        }
+
+        // The reads still in progress on the merged tables will look into the new tables instead
+        for(SSTable table : inputTables) {
+            table.delete();
+        }
+        for(SSTable table : overlappingTables) {
+            table.delete();
+        }
+        return true;
+
+    }
+
+    private SSTable.Writer createWriter() throws IOException {
+
+        long id = nextTableId++;
+        return new SSTable.Writer(id, directory.resolve("table-" + String.valueOf(id) + ".sst").toFile());
+
+    }
+
+    /*
+     * A memtable along with an estimate of the heap used by its entries
+     */
+    private static class Memtable {
+        final ConcurrentSkipListMap<String, StoreEntry> entries = new ConcurrentSkipListMap<String, StoreEntry>();
+        final AtomicLong size = new AtomicLong();
+
+        void addSize(String key, StoreEntry entry) {
+
+            Object value = entry.getValue();
+            size.addAndGet(96 + 2L * (key.length() + (value instanceof String ? ((String) value).length() : 0)));
+
+        }
+
+        long countEntries() {
+            return entries.values().stream().filter(entry -> entry != DELETED).count();
+        }
+    }
+
+    /*
+     * The memtables and tables of the store at a point in time, which are replaced together as a new state
+     */
+    private static class State {
+        final Memtable memtable;
+        // Frozen memtables and level 0 tables are kept from the newest to the oldest, and deeper levels by first key
+        final Memtable[] frozenMemtables;
+        final SSTable[][] levels;
+
+        State(Memtable memtable, Memtable[] frozenMemtables, SSTable[][] levels) {
+            this.memtable = memtable;
+            this.frozenMemtables = frozenMemtables;
+            this.levels = levels;
+        }
+
+        StoreEntry find(String key, boolean includesMemtable, BlockCache blockCache) {
+
+            StoreEntry entry = includesMemtable ? memtable.entries.get(key) : null;
+            for(int i = 0; entry == null && i < frozenMemtables.length; i++) {
+                entry = frozenMemtables[i].entries.get(key);
+            }
+            for(int i = 0; entry == null && i < levels[0].length; i++) {
+                entry = levels[0][i].get(key, blockCache);
+            }
+            for(int level = 1; entry == null && level < levels.length; level++) {
+                int index = findTable(levels[level], key);
+                if(index < levels[level].length) {
+                    entry = levels[level][index].get(key, blockCache);
+                }
+            }
+
+            return entry;
+
+        }
+
+        /*
+         * Returns true if a memtable frozen after the given one holds the key
+         */
+        boolean isKeyOverwritten(String key, Memtable olderMemtable) {
+
+            for(Memtable frozenMemtable : frozenMemtables) {
+                if(frozenMemtable == olderMemtable) {
+                    return false;
+                } else if(frozenMemtable.entries.containsKey(key)) {
+                    return true;
+                }
+            }
+
+            return false;
+
+        }
+
+        Iterator<Map.Entry<String, StoreEntry>> iterator(String startKey, boolean startInclusive, BlockCache blockCache) {
+
+            List<Iterator<Map.Entry<String, StoreEntry>>> iterators = new ArrayList<Iterator<Map.Entry<String, StoreEntry>>>();
+            iterators.add(startKey == null ? memtable.entries.entrySet().iterator() : memtable.entries.tailMap(startKey, startInclusive).entrySet().iterator());
+            for(Memtable frozenMemtable : frozenMemtables) {
+                iterators.add(startKey == null ? frozenMemtable.entries.entrySet().iterator() : frozenMemtable.entries.tailMap(startKey, startInclusive).entrySet().iterator());
+            }
+            for(SSTable table : levels[0]) {
+                iterators.add(table.iterator(startKey, startInclusive, blockCache));
+            }
+            for(int level = 1; level < levels.length; level++) {
+                iterators.add(new LevelIterator(levels[level], startKey, startInclusive, blockCache));
+            }
+
+            return new MergingIterator(iterators, true);
+
+        }
+
+        /*
+         * Returns the index of the first table of a level whose last key is not less than the key
+         */
+        static int findTable(SSTable[] tables, String key) {
+
+            int low = 0;
+            int high = tables.length;
+            while(low < high) {
+                int middle = (low + high) >>> 1;
+                if(tables[middle].lastKey.compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+
+        }
+    }
+
+    /*
+     * A lazy iterator over the tables of a level other than 0, which opens one table at a time
+     */
+    private static class LevelIterator implements Iterator<Map.Entry<String, StoreEntry>> {
+        private final SSTable[] tables;
+        private final BlockCache blockCache;
+        private String startKey;
+        private boolean startInclusive;
+        private int index;
+        private Iterator<Map.Entry<String, StoreEntry>> iterator;
+
+        LevelIterator(SSTable[] tables, String startKey, boolean startInclusive, BlockCache blockCache) {
+            this.tables = tables;
+            this.blockCache = blockCache;
+            this.startKey = startKey;
+            this.startInclusive = startInclusive;
+            this.index = startKey == null ? 0 : State.findTable(tables, startKey);
+        }
+
+        public boolean hasNext() {
+
+            while(iterator == null || !iterator.hasNext()) {
+                if(index >= tables.length) {
+                    return false;
+                }
+
+                // Only the first table is opened at the start key
+                iterator = tables[index++].iterator(startKey, startInclusive, blockCache);
+                startKey = null;
+            }
+
+            return true;
+
+        }
+
+        public Map.Entry<String, StoreEntry> next() {
+
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return iterator.next();
+
+        }
+    }
+
+    /*
+     * An iterator over the visible entries of the store, which reopens the layers after its last key when a compaction deletes one of its tables
+     */
+    private class StoreIterator implements Iterator<Map.Entry<String, StoreEntry>> {
+        private final String startKey;
+        private final boolean startInclusive;
+        private String lastKey;
+        private State state;
+        private Iterator<Map.Entry<String, StoreEntry>> iterator;
+
+        StoreIterator(String startKey, boolean startInclusive) {
+            this.startKey = startKey;
+            this.startInclusive = startInclusive;
+            open();
+        }
+
+        public boolean hasNext() {
+
+            while(true) {
+                try {
+                    return iterator.hasNext();
+                } catch (UncheckedIOException uioe) {
+                    checkTablesReplaced(uioe, state);
+                    open();
+                }
+            }
+
+        }
+
+        public Map.Entry<String, StoreEntry> next() {
+
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Map.Entry<String, StoreEntry> entry = iterator.next();
+            lastKey = entry.getKey();
+            return entry;
+
+        }
+
+        private void open() {
+
+            while(true) {
+                state = LsmKeyValueStore.this.state;
+                try {
+                    iterator = lastKey == null ? state.iterator(startKey, startInclusive, blockCache) : state.iterator(lastKey, false, blockCache);
+                    return;
+                } catch (UncheckedIOException uioe) {
+                    checkTablesReplaced(uioe, state);
+                }
+            }
+
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import edu.northeastern.cs6650.project1.store.LsmKeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * An iterator that merges sorted iterators over the layers of the LSM storage engine into one sorted iterator
+ * 
+ * The iterators are given from the newest layer to the oldest. When several layers hold a key, only the 
+ * entry of the newest one is returned, and deleted keys are either skipped or returned as 
+ * LsmKeyValueStore.DELETED, which a compaction keeps until it writes the last level.
+ */
+class MergingIterator implements Iterator<Map.Entry<String, StoreEntry>> {
+
+    private final PriorityQueue<Source> sources = new PriorityQueue<Source>();
+    private final boolean skipsDeletedKeys;
+    private Map.Entry<String, StoreEntry> nextEntry;
+
+    MergingIterator(List<Iterator<Map.Entry<String, StoreEntry>>> iterators, boolean skipsDeletedKeys) {
+
+        this.skipsDeletedKeys = skipsDeletedKeys;
+        for(int i = 0; i < iterators.size(); i++) {
+            Source source = new Source(iterators.get(i), i);
+            if(source.advance()) {
+                sources.add(source);
+            }
+        }
+
+    }
+
+    public boolean hasNext() {
+
+        while(nextEntry == null && !sources.isEmpty()) {
+            Source source = sources.poll();
+            Map.Entry<String, StoreEntry> entry = source.entry;
+            if(source.advance()) {
+                sources.add(source);
+            }
+
+            // Skip the older entries of the same key
+            while(!sources.isEmpty() && sources.peek().entry.getKey().equals(entry.getKey())) {
+                Source olderSource = sources.poll();
+                if(olderSource.advance()) {
+                    sources.add(olderSource);
+                }
+            }
+
+            if(!(skipsDeletedKeys && entry.getValue() == LsmKeyValueStore.DELETED)) {
+                nextEntry = entry;
+            }
+        }
+
+        return nextEntry != null;
+
+    }
+
+    public Map.Entry<String, StoreEntry> next() {
+
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Map.Entry<String, StoreEntry> entry = nextEntry;
+        nextEntry = null;
+        return entry;
+
+    }
+
+    /*
+     * An iterator over a layer along with its current entry, ordered by key and then from the newest layer
+     */
+    private static class Source implements Comparable<Source> {
+        final Iterator<Map.Entry<String, StoreEntry>> iterator;
+        final int age;
+        Map.Entry<String, StoreEntry> entry;
+
+        Source(Iterator<Map.Entry<String, StoreEntry>> iterator, int age) {
+            this.iterator = iterator;
+            this.age = age;
+        }
+
+        boolean advance() {
+
+            entry = iterator.hasNext() ? iterator.next() : null;
+            return entry != null;
+
+        }
+
+        public int compareTo(Source other) {
+
+            int comparison = entry.getKey().compareTo(other.entry.getKey());
+            return comparison != 0 ? comparison : Integer.compare(age, other.age);
+
+        }
+    }
+}
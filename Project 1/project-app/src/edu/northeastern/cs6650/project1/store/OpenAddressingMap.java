@@ -0,0 +1,294 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * A hash map for a single thread, with open addressing and linear probing
+ *
+ * The keys and entries are kept in two arrays. A removed key stays in its slot without an entry,
+ * so lookups probe past it and a later insert can take the slot, and the keys never move between
+ * slots until a resize replaces the arrays. A traversal walks the slots of the arrays it started
+ * with, so unlike the fail-fast iterators of a HashMap it keeps going when the map changes between
+ * two of its steps : it sees the changes made to the slots ahead of it, and after a resize it
+ * finishes over the old arrays as they were when they were replaced. Every key that stays in the
+ * map during a traversal is visited, which lets the thread that owns the map reclaim deleted key
+ * ranges one batch at a time between the requests that change it.
+ */
+class OpenAddressingMap extends AbstractMap<String, StoreEntry> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int SPLITERATOR_SLOTS = 1024;
+
+    private String[] keys;
+    private StoreEntry[] entries;
+    private int size;
+
+    // The slots holding a key, with or without an entry
+    private int usedSlots;
+
+    OpenAddressingMap() {
+        this(0);
+    }
+
+    /*
+     * Creates a map that holds the expected number of keys without resizing
+     */
+    OpenAddressingMap(int expectedSize) {
+
+        int capacity = INITIAL_CAPACITY;
+        while(capacity / 4 * 3 < expectedSize) {
+            capacity *= 2;
+        }
+
+        this.keys = new String[capacity];
+        this.entries = new StoreEntry[capacity];
+
+    }
+
+    public StoreEntry get(Object key) {
+
+        int slot = find((String) key);
+        return slot < 0 ? null : entries[slot];
+
+    }
+
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    public StoreEntry put(String key, StoreEntry entry) {
+
+        int slot = find(key);
+        if(slot < 0) {
+            insert(key, entry);
+            return null;
+        }
+
+        StoreEntry previousEntry = entries[slot];
+        entries[slot] = entry;
+        if(previousEntry == null) {
+            size++;
+        }
+
+        return previousEntry;
+
+    }
+
+    public StoreEntry remove(Object key) {
+
+        int slot = find((String) key);
+        if(slot < 0 || entries[slot] == null) {
+            return null;
+        }
+
+        StoreEntry removedEntry = entries[slot];
+        entries[slot] = null;
+        size--;
+        return removedEntry;
+
+    }
+
+    public StoreEntry compute(String key, BiFunction<? super String, ? super StoreEntry, ? extends StoreEntry> remappingFunction) {
+
+        int slot = find(key);
+        StoreEntry currentEntry = slot < 0 ? null : entries[slot];
+        StoreEntry newEntry = remappingFunction.apply(key, currentEntry);
+
+        if(newEntry == null) {
+            if(currentEntry != null) {
+                entries[slot] = null;
+                size--;
+            }
+        } else if(slot < 0) {
+            insert(key, newEntry);
+        } else {
+            entries[slot] = newEntry;
+            if(currentEntry == null) {
+                size++;
+            }
+        }
+
+        return newEntry;
+
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Set<Map.Entry<String, StoreEntry>> entrySet() {
+
+        return new AbstractSet<Map.Entry<String, StoreEntry>>() {
+
+            public int size() {
+                return size;
+            }
+
+            public Iterator<Map.Entry<String, StoreEntry>> iterator() {
+                return Spliterators.iterator(spliterator());
+            }
+
+            public Spliterator<Map.Entry<String, StoreEntry>> spliterator() {
+                return new SlotSpliterator(keys, entries, 0, keys.length);
+            }
+        };
+
+    }
+
+    private static int spread(int hashCode) {
+
+        int hash = hashCode * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+
+    }
+
+    /*
+     * Returns the slot holding a key, with or without an entry, or -1 if the key is in no slot
+     */
+    private int find(String key) {
+
+        int mask = keys.length - 1;
+        for(int slot = spread(key.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            String slotKey = keys[slot];
+            if(slotKey == null) {
+                return -1;
+            } else if(slotKey.equals(key)) {
+                return slot;
+            }
+        }
+
+    }
+
+    /*
+     * Puts a key that is in no slot into the first free slot of its probe sequence
+     */
+    private void insert(String key, StoreEntry entry) {
+
+        if(usedSlots + 1 > keys.length / 4 * 3) {
+            // Slots of removed keys are dropped by a resize, so the arrays only grow if the live keys need it
+            resize(size + 1 > keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+
+        int mask = keys.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        while(keys[slot] != null && entries[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+
+        if(keys[slot] == null) {
+            usedSlots++;
+        }
+        keys[slot] = key;
+        entries[slot] = entry;
+        size++;
+
+    }
+
+    /*
+     * Moves the live keys into new arrays, leaving the old arrays unchanged for the traversals over them
+     */
+    private void resize(int capacity) {
+
+        String[] oldKeys = keys;
+        StoreEntry[] oldEntries = entries;
+        keys = new String[capacity];
+        entries = new StoreEntry[capacity];
+
+        int mask = capacity - 1;
+        for(int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if(oldEntries[oldSlot] == null) {
+                continue;
+            }
+
+            int slot = spread(oldKeys[oldSlot].hashCode()) & mask;
+            while(keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[oldSlot];
+            entries[slot] = oldEntries[oldSlot];
+        }
+
+        usedSlots = size;
+
+    }
+
+    /*
+     * A spliterator over a range of the slots of the arrays it was created for
+     */
+    private static class SlotSpliterator implements Spliterator<Map.Entry<String, StoreEntry>> {
+
+        private final String[] keys;
+        private final StoreEntry[] entries;
+        private int slot;
+        private final int fence;
+
+        SlotSpliterator(String[] keys, StoreEntry[] entries, int slot, int fence) {
+            this.keys = keys;
+            this.entries = entries;
+            this.slot = slot;
+            this.fence = fence;
+        }
+
+        public boolean tryAdvance(Consumer<? super Map.Entry<String, StoreEntry>> action) {
+
+            while(slot < fence) {
+                String key = keys[slot];
+                StoreEntry entry = entries[slot];
+                slot++;
+                if(entry != null) {
+                    action.accept(new AbstractMap.SimpleImmutableEntry<String, StoreEntry>(key, entry));
+                    return true;
+                }
+            }
+
+            return false;
+
+        }
+
+        public Spliterator<Map.Entry<String, StoreEntry>> trySplit() {
+
+            if(fence - slot < 2 * SPLITERATOR_SLOTS) {
+                return null;
+            }
+
+            int middle = (slot + fence) >>> 1;
+            Spliterator<Map.Entry<String, StoreEntry>> prefix = new SlotSpliterator(keys, entries, slot, middle);
+            slot = middle;
+            return prefix;
+
+        }
+
+        public long estimateSize() {
+            return fence - slot;
+        }
+
+        public int characteristics() {
+            return Spliterator.NONNULL;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiFunction;
+
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * Storage engine backed by a concurrent skip list
+ * 
+ * Keys are kept in ascending order, so range and prefix scans can walk the 
+ * entries lazily from the start key without copying the result set. Iterators
+ * are weakly consistent and never throw a ConcurrentModificationException.
+ */
+public class OrderedKeyValueStore implements KeyValueStore {
+
+    private ConcurrentNavigableMap<String, StoreEntry> keyValueStore = new ConcurrentSkipListMap<String, StoreEntry>();
+
+    public StoreEntry get(String key) {
+        return keyValueStore.get(key);
+    }
+
+    public void put(String key, StoreEntry entry) {
+        keyValueStore.put(key, entry);
+    }
+
+    public StoreEntry remove(String key) {
+        return keyValueStore.remove(key);
+    }
+
+    public StoreEntry compute(String key, BiFunction<String, StoreEntry, StoreEntry> remappingFunction) {
+        return keyValueStore.compute(key, remappingFunction);
+    }
+
+    public boolean containsKey(String key) {
+        return keyValueStore.containsKey(key);
+    }
+
+    public int size() {
+        return keyValueStore.size();
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        // A skip list grows one node at a time, so there is nothing to size ahead of time
+    }
+
+    public boolean isOrdered() {
+        return true;
+    }
+
+    public Iterator<Map.Entry<String, StoreEntry>> scan(String startKey, boolean startInclusive) {
+
+        if(startKey == null) {
+            return keyValueStore.entrySet().iterator();
+        }
+
+        return keyValueStore.tailMap(startKey, startInclusive).entrySet().iterator();
+
+    }
+
+    public Spliterator<Map.Entry<String, StoreEntry>> spliterator(String prefix) {
+
+        // The spliterators of the skip list do not split a range, so the entries are handed out in batches instead
+        Iterator<Map.Entry<String, StoreEntry>> iterator = prefix == null ? scan(null, true) : new PrefixIterator(scan(prefix, true), prefix);
+        return Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+
+    }
+}
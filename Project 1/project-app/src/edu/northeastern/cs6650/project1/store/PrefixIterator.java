@@ -0,0 +1,68 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * Iterator over the entries of an ordered engine which stops at the first key without a prefix
+ * 
+ * The wrapped iterator starts at the prefix, so all the keys with the prefix come first and 
+ * the walk ends as soon as the keys leave the prefix, instead of visiting the rest of the store.
+ */
+class PrefixIterator implements Iterator<Map.Entry<String, StoreEntry>> {
+
+    private final Iterator<Map.Entry<String, StoreEntry>> iterator;
+    private final String prefix;
+    private Map.Entry<String, StoreEntry> nextEntry;
+    private boolean isComplete = false;
+
+    PrefixIterator(Iterator<Map.Entry<String, StoreEntry>> iterator, String prefix) {
+        this.iterator = iterator;
+        this.prefix = prefix;
+    }
+
+    public boolean hasNext() {
+
+        if(nextEntry == null && !isComplete && iterator.hasNext()) {
+            Map.Entry<String, StoreEntry> entry = iterator.next();
+            if(entry.getKey().startsWith(prefix)) {
+                nextEntry = entry;
+            } else {
+                isComplete = true;
+            }
+        }
+
+        return nextEntry != null;
+
+    }
+
+    public Map.Entry<String, StoreEntry> next() {
+
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Map.Entry<String, StoreEntry> entry = nextEntry;
+        nextEntry = null;
+        return entry;
+
+    }
+}
@@ -0,0 +1,406 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import edu.northeastern.cs6650.project1.store.BlockCache;
+import edu.northeastern.cs6650.project1.store.LsmKeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * An immutable file of entries sorted by key, written by the LSM storage engine
+ * 
+ * The file is a sequence of blocks of about BLOCK_SIZE bytes. Every entry of a block is written as 
+ * the length and the UTF-8 bytes of its key, its version, and the length and the UTF-8 bytes of its 
+ * value, where a length of -1 marks a deleted key. The first key and the offset of every block, and
+ * a bloom filter of the keys, are kept in memory, so a point read that misses the filter does no I/O 
+ * and any other point read decodes a single block, which is then kept in the block cache.
+ */
+class SSTable {
+
+    static final int BLOCK_SIZE = 4096;
+    private static final int BITS_PER_KEY = 10;
+    private static final int NUMBER_OF_HASHES = 7;
+
+    final long id;
+    final long size;
+    final long numberOfEntries;
+    final long numberOfDeletedEntries;
+    final String firstKey;
+    final String lastKey;
+    private final File file;
+    private final FileChannel channel;
+    private final String[] blockKeys;
+    private final long[] blockOffsets;
+    private final long[] bloomFilter;
+
+    private SSTable(long id, File file, String[] blockKeys, long[] blockOffsets, String lastKey, long[] bloomFilter, long numberOfEntries, long numberOfDeletedEntries) throws IOException {
+        this.id = id;
+        this.file = file;
+        this.channel = new RandomAccessFile(file, "r").getChannel();
+        this.size = blockOffsets[blockOffsets.length - 1];
+        this.blockKeys = blockKeys;
+        this.blockOffsets = blockOffsets;
+        this.firstKey = blockKeys[0];
+        this.lastKey = lastKey;
+        this.bloomFilter = bloomFilter;
+        this.numberOfEntries = numberOfEntries;
+        this.numberOfDeletedEntries = numberOfDeletedEntries;
+    }
+
+    boolean overlaps(String startKey, String endKey) {
+        return firstKey.compareTo(endKey) <= 0 && lastKey.compareTo(startKey) >= 0;
+    }
+
+    /*
+     * Returns the entry of a key, LsmKeyValueStore.DELETED if the key was deleted, or null if the table does not hold the key
+     */
+    StoreEntry get(String key, BlockCache blockCache) {
+
+        if(key.compareTo(firstKey) < 0 || key.compareTo(lastKey) > 0 || !mayContain(key)) {
+            return null;
+        }
+
+        Block block = readBlock(findBlock(key), blockCache);
+        int position = block.find(key, true);
+        return position < block.keys.length && block.keys[position].equals(key) ? block.entries[position] : null;
+
+    }
+
+    /*
+     * Returns an iterator over the entries with keys greater than the start key (or equal to it, when inclusive)
+     * 
+     * Blocks read without a block cache, as by a compaction, do not evict the blocks of point reads.
+     */
+    Iterator<Map.Entry<String, StoreEntry>> iterator(String startKey, boolean startInclusive, BlockCache blockCache) {
+        return new TableIterator(startKey, startInclusive, blockCache);
+    }
+
+    /*
+     * Closes and deletes the file, which makes the reads still in progress fail with a ClosedChannelException
+     */
+    void delete() {
+
+        try {
+            channel.close();
+        } catch (IOException ioe) {
+            // The file is deleted anyway
+        }
+        file.delete();
+
+    }
+
+    private boolean mayContain(String key) {
+
+        int hash = hash(key);
+        int delta = Integer.rotateRight(hash, 17);
+        long numberOfBits = bloomFilter.length * 64L;
+        for(int i = 0; i < NUMBER_OF_HASHES; i++) {
+            long bit = Integer.toUnsignedLong(hash) % numberOfBits;
+            if((bloomFilter[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+            hash += delta;
+        }
+
+        return true;
+
+    }
+
+    /*
+     * Returns the index of the last block whose first key is not greater than the key, or 0 if there is none
+     */
+    private int findBlock(String key) {
+
+        int index = Arrays.binarySearch(blockKeys, key);
+        return index >= 0 ? index : Math.max(0, -index - 2);
+
+    }
+
+    private Block readBlock(int index, BlockCache blockCache) {
+
+        Block block = blockCache == null ? null : blockCache.get(id, index);
+        if(block != null) {
+            return block;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (blockOffsets[index + 1] - blockOffsets[index]));
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer, blockOffsets[index] + buffer.position()) < 0) {
+                    throw new EOFException("The table file ends in the middle of a block : " + file.getName() + ".");
+                }
+            }
+            buffer.flip();
+            block = new Block(buffer);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+
+        if(blockCache != null) {
+            blockCache.put(id, index, block);
+        }
+        return block;
+
+    }
+
+    private static int hash(String key) {
+
+        int hash = key.hashCode() * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+
+    }
+
+    /*
+     * The decoded entries of a block
+     */
+    static class Block {
+        final String[] keys;
+        final StoreEntry[] entries;
+        final int memorySize;
+
+        Block(ByteBuffer buffer) {
+
+            List<String> keys = new ArrayList<String>();
+            List<StoreEntry> entries = new ArrayList<StoreEntry>();
+            int memorySize = 0;
+            while(buffer.hasRemaining()) {
+                String key = decodeString(buffer, buffer.getInt());
+                long version = buffer.getLong();
+                int valueLength = buffer.getInt();
+                keys.add(key);
+                entries.add(valueLength < 0 ? LsmKeyValueStore.DELETED : new StoreEntry(decodeString(buffer, valueLength), version));
+                memorySize += 2 * (key.length() + Math.max(0, valueLength)) + 96;
+            }
+
+            this.keys = keys.toArray(new String[0]);
+            this.entries = entries.toArray(new StoreEntry[0]);
+            this.memorySize = memorySize;
+
+        }
+
+        /*
+         * Returns the position of the first key greater than the key (or equal to it, when inclusive)
+         */
+        int find(String key, boolean inclusive) {
+
+            int index = Arrays.binarySearch(keys, key);
+            if(index < 0) {
+                return -index - 1;
+            }
+            return inclusive ? index : index + 1;
+
+        }
+
+        private static String decodeString(ByteBuffer buffer, int length) {
+
+            String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return string;
+
+        }
+    }
+
+    /*
+     * A lazy iterator over the entries of the table, which reads one block at a time
+     */
+    private class TableIterator implements Iterator<Map.Entry<String, StoreEntry>> {
+        private final BlockCache blockCache;
+        private int blockIndex;
+        private Block block;
+        private int position;
+
+        TableIterator(String startKey, boolean startInclusive, BlockCache blockCache) {
+
+            this.blockCache = blockCache;
+            if(startKey != null && startKey.compareTo(lastKey) > 0) {
+                this.blockIndex = blockKeys.length;
+            } else if(startKey != null) {
+                this.blockIndex = findBlock(startKey);
+                this.block = readBlock(blockIndex, blockCache);
+                this.position = block.find(startKey, startInclusive);
+            }
+
+        }
+
+        public boolean hasNext() {
+
+            while(block == null || position == block.keys.length) {
+                if(block != null) {
+                    blockIndex++;
+                }
+                if(blockIndex >= blockKeys.length) {
+                    return false;
+                }
+                block = readBlock(blockIndex, blockCache);
+                position = 0;
+            }
+
+            return true;
+
+        }
+
+        public Map.Entry<String, StoreEntry> next() {
+
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Map.Entry<String, StoreEntry> entry = new AbstractMap.SimpleImmutableEntry<String, StoreEntry>(block.keys[position], block.entries[position]);
+            position++;
+            return entry;
+
+        }
+    }
+
+    /*
+     * Writes the entries of a new table, which have to be added in ascending key order
+     * 
+     * Only string values and deleted keys can be written, since the other values are updated in place.
+     */
+    static class Writer {
+        private final long id;
+        private final File file;
+        private final DataOutputStream output;
+        private final ByteArrayOutputStream blockBuffer = new ByteArrayOutputStream(2 * BLOCK_SIZE);
+        private final DataOutputStream block = new DataOutputStream(blockBuffer);
+        private final List<String> blockKeys = new ArrayList<String>();
+        private long[] blockOffsets = new long[16];
+        private int[] keyHashes = new int[1024];
+        private long offset;
+        private int numberOfEntries;
+        private long numberOfDeletedEntries;
+        private String lastKey;
+
+        Writer(long id, File file) throws IOException {
+            this.id = id;
+            this.file = file;
+            file.deleteOnExit();
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+
+        void add(String key, StoreEntry entry) throws IOException {
+
+            if(blockBuffer.size() == 0) {
+                if(blockKeys.size() + 1 >= blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, 2 * blockOffsets.length);
+                }
+                blockOffsets[blockKeys.size()] = offset;
+                blockKeys.add(key);
+            }
+
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            block.writeInt(keyBytes.length);
+            block.write(keyBytes);
+            block.writeLong(entry.getVersion());
+            if(entry == LsmKeyValueStore.DELETED) {
+                block.writeInt(-1);
+                numberOfDeletedEntries++;
+            } else {
+                byte[] valueBytes = ((String) entry.getValue()).getBytes(StandardCharsets.UTF_8);
+                block.writeInt(valueBytes.length);
+                block.write(valueBytes);
+            }
+
+            if(numberOfEntries == keyHashes.length) {
+                keyHashes = Arrays.copyOf(keyHashes, 2 * keyHashes.length);
+            }
+            keyHashes[numberOfEntries++] = hash(key);
+            lastKey = key;
+
+            if(blockBuffer.size() >= BLOCK_SIZE) {
+                writeBlock();
+            }
+
+        }
+
+        boolean isEmpty() {
+            return numberOfEntries == 0;
+        }
+
+        long size() {
+            return offset + blockBuffer.size();
+        }
+
+        /*
+         * Writes the last block and opens the table for reading
+         */
+        SSTable finish() throws IOException {
+
+            writeBlock();
+            output.close();
+            blockOffsets[blockKeys.size()] = offset;
+
+            long[] bloomFilter = new long[Math.max(1, (numberOfEntries * BITS_PER_KEY + 63) / 64)];
+            long numberOfBits = bloomFilter.length * 64L;
+            for(int i = 0; i < numberOfEntries; i++) {
+                int hash = keyHashes[i];
+                int delta = Integer.rotateRight(hash, 17);
+                for(int j = 0; j < NUMBER_OF_HASHES; j++) {
+                    long bit = Integer.toUnsignedLong(hash) % numberOfBits;
+                    bloomFilter[(int) (bit >>> 6)] |= 1L << bit;
+                    hash += delta;
+                }
+            }
+
+            return new SSTable(id, file, blockKeys.toArray(new String[0]), Arrays.copyOf(blockOffsets, blockKeys.size() + 1), lastKey, bloomFilter, numberOfEntries, numberOfDeletedEntries);
+
+        }
+
+        /*
+         * Closes and deletes a table that could not be written
+         */
+        void abort() {
+
+            try {
+                output.close();
+            } catch (IOException ioe) {
+                // The file is deleted anyway
+            }
+            file.delete();
+
+        }
+
+        private void writeBlock() throws IOException {
+
+            if(blockBuffer.size() > 0) {
+                blockBuffer.writeTo(output);
+                offset += blockBuffer.size();
+                blockBuffer.reset();
+            }
+
+        }
+    }
+}
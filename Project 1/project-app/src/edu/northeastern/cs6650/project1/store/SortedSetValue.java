@@ -0,0 +1,283 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * A set of members ordered by score, which is stored in an indexable skip list
+ *
+ * Members with the same score are ordered by name. Every link of the skip list also keeps
+ * the number of members it skips, so the rank of a member is the sum of the links followed
+ * to reach it, and the member at a rank is found by following links while their sum stays
+ * below the rank. Adding, removing, ranking and finding the start of a range then take
+ * O(log n) expected time, and a range of m members costs O(m) more. A hash map from the
+ * members to their scores finds the current score of a member that is updated or ranked.
+ * All the methods are synchronized, since readers and writers of a key share the value.
+ * A set that is discarded along with its last member keeps taking updates, so its writers
+ * check whether it was discarded after changing it, and then apply the change to the new set of the key.
+ */
+public class SortedSetValue {
+
+    private static final int MAX_LEVEL = 32;
+
+    private final Node head = new Node(null, 0, MAX_LEVEL);
+    private final Map<String, Double> scores = new HashMap<String, Double>();
+    private int level = 1;
+    private boolean discarded;
+
+    /*
+     * Adds a member with a score, or changes the score of a member, and returns true if the member is new
+     */
+    public synchronized boolean add(String member, double score) {
+
+        Double currentScore = scores.put(member, score);
+        if(currentScore != null) {
+            if(currentScore == score) {
+                return false;
+            }
+            unlink(member, currentScore);
+        }
+
+        insert(member, score);
+        return currentScore == null;
+
+    }
+
+    /*
+     * Removes a member and returns true if it was in the set
+     */
+    public synchronized boolean remove(String member) {
+
+        Double score = scores.remove(member);
+        if(score == null) {
+            return false;
+        }
+
+        unlink(member, score);
+        return true;
+
+    }
+
+    /*
+     * Returns the rank of a member from 0 for the lowest score, or -1 if it is not in the set
+     */
+    public synchronized int rank(String member) {
+
+        Double score = scores.get(member);
+        if(score == null) {
+            return -1;
+        }
+
+        Node node = head;
+        int rank = 0;
+        for(int i = level - 1; i >= 0; i--) {
+            while(node.next[i] != null && compare(node.next[i], member, score) <= 0) {
+                rank += node.span[i];
+                node = node.next[i];
+            }
+
+            if(node != head && node.member.equals(member)) {
+                return rank - 1;
+            }
+        }
+
+        return -1;
+
+    }
+
+    /*
+     * Returns the members and their scores between a start and an end rank, both inclusive, where a negative rank counts from the end
+     */
+    public synchronized List<Map.Entry<String, Double>> range(int start, int end) {
+
+        int size = scores.size();
+        start = Math.max(0, start < 0 ? start + size : start);
+        end = Math.min(size - 1, end < 0 ? end + size : end);
+
+        List<Map.Entry<String, Double>> members = new ArrayList<Map.Entry<String, Double>>(Math.max(0, end - start + 1));
+        if(start > end) {
+            return members;
+        }
+
+        // Find the member at the start rank, counted from 1 along the links
+        Node node = head;
+        int traversed = 0;
+        for(int i = level - 1; i >= 0 && traversed <= start; i--) {
+            while(node.next[i] != null && traversed + node.span[i] <= start + 1) {
+                traversed += node.span[i];
+                node = node.next[i];
+            }
+        }
+
+        for(int rank = start; rank <= end && node != null; rank++, node = node.next[0]) {
+            members.add(new AbstractMap.SimpleImmutableEntry<String, Double>(node.member, node.score));
+        }
+
+        return members;
+
+    }
+
+    public synchronized int size() {
+        return scores.size();
+    }
+
+    /*
+     * Marks the set as discarded if it is empty, and returns true if it is discarded
+     */
+    public synchronized boolean discardIfEmpty() {
+
+        if(scores.isEmpty()) {
+            discarded = true;
+        }
+
+        return discarded;
+
+    }
+
+    public synchronized boolean isDiscarded() {
+        return discarded;
+    }
+
+    /*
+     * Returns the members and their scores in order, as member:score pairs separated by commas
+     */
+    public synchronized String toString() {
+
+        StringBuilder value = new StringBuilder();
+        for(Node node = head.next[0]; node != null; node = node.next[0]) {
+            if(value.length() > 0) {
+                value.append(',');
+            }
+            value.append(node.member).append(':').append(node.score);
+        }
+
+        return value.toString();
+
+    }
+
+    /*
+     * Orders a node against a member and score, first by score and then by member
+     */
+    private static int compare(Node node, String member, double score) {
+
+        int comparison = Double.compare(node.score, score);
+        return comparison != 0 ? comparison : node.member.compareTo(member);
+
+    }
+
+    /*
+     * Returns a level from 1 to MAX_LEVEL, where each level is four times less likely than the one below
+     */
+    private static int randomLevel() {
+
+        int randomLevel = 1;
+        while(randomLevel < MAX_LEVEL && ThreadLocalRandom.current().nextInt(4) == 0) {
+            randomLevel++;
+        }
+
+        return randomLevel;
+
+    }
+
+    private void insert(String member, double score) {
+
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node node = head;
+        for(int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while(node.next[i] != null && compare(node.next[i], member, score) < 0) {
+                rank[i] += node.span[i];
+                node = node.next[i];
+            }
+            update[i] = node;
+        }
+
+        // The new levels start at the head, whose links there skip every member that was already in the set
+        int newLevel = randomLevel();
+        if(newLevel > level) {
+            for(int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = scores.size() - 1;
+            }
+            level = newLevel;
+        }
+
+        Node newNode = new Node(member, score, newLevel);
+        for(int i = 0; i < newLevel; i++) {
+            newNode.next[i] = update[i].next[i];
+            update[i].next[i] = newNode;
+            newNode.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+
+        for(int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+
+    }
+
+    private void unlink(String member, double score) {
+
+        Node[] update = new Node[MAX_LEVEL];
+        Node node = head;
+        for(int i = level - 1; i >= 0; i--) {
+            while(node.next[i] != null && compare(node.next[i], member, score) < 0) {
+                node = node.next[i];
+            }
+            update[i] = node;
+        }
+
+        Node removedNode = node.next[0];
+        for(int i = 0; i < level; i++) {
+            if(update[i].next[i] == removedNode) {
+                update[i].span[i] += removedNode.span[i] - 1;
+                update[i].next[i] = removedNode.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+
+        while(level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+
+    }
+
+    /*
+     * A member of the skip list, with its links on every level and the number of members each link skips
+     */
+    private static class Node {
+        final String member;
+        final double score;
+        final Node[] next;
+        final int[] span;
+
+        Node(String member, double score, int level) {
+            this.member = member;
+            this.score = score;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+}
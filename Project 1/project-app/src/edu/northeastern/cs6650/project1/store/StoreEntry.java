@@ -0,0 +1,69 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * A value stored in a storage engine along with its version
+ * 
+ * Every write creates a new entry with a version that is greater than all the
+ * versions handed out before by the server, so a version is never reused for
+ * a key, even after the key is deleted and created again.
+ * 
+ * The value is a String, a LargeValue kept in the value log, a CounterValue, a
+ * ChunkedValue, a SortedSetValue, a HyperLogLogValue or a BloomFilterValue. Strings
+ * and large values are immutable, and a write replaces the entry holding them. The
+ * other values are changed in place by the requests for their type, and the server
+ * then gives the entry a new version, except for a counter, which is updated by
+ * increments without replacing its entry : the version of an entry holding a counter
+ * is the version of its last update when it is newer than the version of the entry.
+ * 
+ * An entry whose string value is read often can keep the encoded response to a GET
+ * request for it, so the server sends it again without building it. Since every write
+ * replaces the entry, the encoded response is dropped along with the entry it belongs to.
+ */
+public class StoreEntry {
+
+    private final Object value;
+    private final long version;
+    private volatile byte[] encodedResponse;
+
+    public StoreEntry(Object value, long version) {
+        this.value = value;
+        this.version = version;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public long getVersion() {
+
+        if(value instanceof CounterValue) {
+            return Math.max(version, ((CounterValue) value).getVersion());
+        }
+
+        return version;
+
+    }
+
+    public byte[] getEncodedResponse() {
+        return encodedResponse;
+    }
+
+    public void setEncodedResponse(byte[] encodedResponse) {
+        this.encodedResponse = encodedResponse;
+    }
+}
@@ -0,0 +1,61 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.store.AdaptiveRadixTreeStore;
+import edu.northeastern.cs6650.project1.store.DictionaryKeyValueStore;
+import edu.northeastern.cs6650.project1.store.HashKeyValueStore;
+import edu.northeastern.cs6650.project1.store.IncrementalHashStore;
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.LsmKeyValueStore;
+import edu.northeastern.cs6650.project1.store.OrderedKeyValueStore;
+
+/*
+ * A factory that creates the storage engine used by a server
+ */
+public class StoreFactory {
+    public static KeyValueStore createStore(StoreType storeType) {
+        return createStore(storeType, true);
+    }
+
+    /*
+     * Creates a storage engine, which may skip synchronization if it is only accessed by one thread
+     */
+    public static KeyValueStore createStore(StoreType storeType, boolean isConcurrent) {
+
+        if(storeType == StoreType.ORDERED) {
+            return new OrderedKeyValueStore();
+        } else if(storeType == StoreType.ART) {
+            return new AdaptiveRadixTreeStore();
+        } else if(storeType == StoreType.LSM) {
+            try {
+                return new LsmKeyValueStore();
+            } catch (IOException ioe) {
+                throw new UncheckedIOException("Error creating the directory of the LSM store.", ioe);
+            }
+        } else if(storeType == StoreType.INCREMENTAL) {
+            return new IncrementalHashStore();
+        } else if(storeType == StoreType.DICTIONARY) {
+            return new DictionaryKeyValueStore();
+        }
+        return new HashKeyValueStore(isConcurrent);
+
+    }
+}
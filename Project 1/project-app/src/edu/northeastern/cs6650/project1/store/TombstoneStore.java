@@ -0,0 +1,395 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+
+/*
+ * A range of deleted keys, which hides the entries of its keys that are older than the tombstone
+ * 
+ * The range is either all the keys starting with a prefix, or the keys in [start key, end key).
+ */
+class RangeTombstone {
+
+    final String prefix;
+    final String startKey;
+    final String endKey;
+    final long version;
+
+    RangeTombstone(String prefix, String startKey, String endKey, long version) {
+        this.prefix = prefix;
+        this.startKey = startKey;
+        this.endKey = endKey;
+        this.version = version;
+    }
+
+    boolean covers(String key) {
+        return prefix != null ? key.startsWith(prefix) : (key.compareTo(startKey) >= 0 && key.compareTo(endKey) < 0);
+    }
+
+    boolean hides(String key, StoreEntry entry) {
+        return entry.getVersion() < version && covers(key);
+    }
+}
+
+/*
+ * Storage engine decorator that deletes whole ranges of keys with range tombstones
+ * 
+ * Deleting a range only records a tombstone with the next version, which takes constant time
+ * whatever the number of keys in the range. Every read checks the entries it finds against the
+ * tombstones, and an entry older than a tombstone that covers its key is treated as absent, while
+ * the keys written again after the deletion have newer versions and stay visible. The hidden
+ * entries are removed from the engine afterwards, one tombstone at a time and one batch of keys
+ * per call to reclaim : an ordered engine is scanned from the start of the range, resuming after
+ * the last key of the previous batch, and the other engines are traversed by a weakly consistent
+ * spliterator that is kept between batches. The hidden entries of each batch are then removed,
+ * so a call does a bounded amount of work whatever the size of the engine, and the requests can
+ * change the engine between two calls. The tombstone is dropped once all its keys are visited.
+ * Until then, the size of the engine still counts the keys left to remove.
+ * 
+ * A concurrent engine is reclaimed by a low priority background thread. An engine that is only
+ * accessed by one thread is reclaimed by that thread calling reclaim while it has nothing else to do.
+ * A write whose version was handed out before a deletion but which reaches the engine after its 
+ * tombstone is dropped would not be deleted, which only concerns writes that race the deletion.
+ */
+public class TombstoneStore implements KeyValueStore {
+
+    private static final Logger LOGGER = Logger.getLogger(TombstoneStore.class.getName());
+
+    // The number of entries visited by a call to reclaim
+    static final int RECLAIM_BATCH_SIZE = 256;
+
+    private final KeyValueStore keyValueStore;
+    private final boolean reclaimsInBackground;
+    private volatile RangeTombstone[] tombstones = new RangeTombstone[0];
+    private Thread reclaimer;
+
+    // The progress through the keys of the oldest tombstone, only used by the reclaiming thread : the last key
+    // visited in an ordered engine, or the spliterator over the other engines
+    private RangeTombstone reclaimedTombstone;
+    private String reclaimedCursor;
+    private Spliterator<Map.Entry<String, StoreEntry>> reclaimedSpliterator;
+
+    public TombstoneStore(KeyValueStore keyValueStore, boolean reclaimsInBackground) {
+        this.keyValueStore = keyValueStore;
+        this.reclaimsInBackground = reclaimsInBackground;
+    }
+
+    public StoreEntry get(String key) {
+        return visible(key, keyValueStore.get(key));
+    }
+
+    public void put(String key, StoreEntry entry) {
+        keyValueStore.put(key, entry);
+    }
+
+    public StoreEntry remove(String key) {
+        return visible(key, keyValueStore.remove(key));
+    }
+
+    public StoreEntry compute(String key, BiFunction<String, StoreEntry, StoreEntry> remappingFunction) {
+        return keyValueStore.compute(key, (currentKey, currentEntry) -> remappingFunction.apply(currentKey, visible(currentKey, currentEntry)));
+    }
+
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    public int size() {
+        return keyValueStore.size();
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        keyValueStore.ensureCapacity(expectedSize);
+    }
+
+    public boolean isOrdered() {
+        return keyValueStore.isOrdered();
+    }
+
+    public Iterator<Map.Entry<String, StoreEntry>> scan(String startKey, boolean startInclusive) {
+
+        Iterator<Map.Entry<String, StoreEntry>> iterator = keyValueStore.scan(startKey, startInclusive);
+        return new Iterator<Map.Entry<String, StoreEntry>>() {
+
+            private Map.Entry<String, StoreEntry> nextEntry;
+
+            public boolean hasNext() {
+
+                while(nextEntry == null && iterator.hasNext()) {
+                    Map.Entry<String, StoreEntry> entry = iterator.next();
+                    nextEntry = visible(entry.getKey(), entry.getValue()) == null ? null : entry;
+                }
+
+                return nextEntry != null;
+
+            }
+
+            public Map.Entry<String, StoreEntry> next() {
+
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                Map.Entry<String, StoreEntry> entry = nextEntry;
+                nextEntry = null;
+                return entry;
+
+            }
+        };
+
+    }
+
+    public Spliterator<Map.Entry<String, StoreEntry>> spliterator(String prefix) {
+        return new VisibleSpliterator(keyValueStore.spliterator(prefix));
+    }
+
+    /*
+     * Deletes all the keys starting with a prefix, whose entries are older than the version
+     */
+    public void deletePrefix(String prefix, long version) {
+        addTombstone(new RangeTombstone(prefix, null, null, version));
+    }
+
+    /*
+     * Deletes all the keys in [start key, end key), whose entries are older than the version
+     */
+    public void deleteRange(String startKey, String endKey, long version) {
+        addTombstone(new RangeTombstone(null, startKey, endKey, version));
+    }
+
+    /*
+     * Visits a batch of the keys of the oldest tombstone and removes the entries it hides from the engine,
+     * and returns false if there was nothing to reclaim
+     * 
+     * This must be called by the only thread that accesses the engine, unless the engine is reclaimed in the background.
+     */
+    public boolean reclaim() {
+
+        if(reclaimedTombstone == null) {
+            RangeTombstone[] currentTombstones = tombstones;
+            if(currentTombstones.length == 0) {
+                return false;
+            }
+
+            reclaimedTombstone = currentTombstones[0];
+            reclaimedCursor = null;
+            reclaimedSpliterator = keyValueStore.isOrdered() ? null : keyValueStore.spliterator(null);
+        }
+
+        // The keys are removed once the batch is visited, since not every engine lets a scan run across its own writes
+        RangeTombstone tombstone = reclaimedTombstone;
+        List<String> hiddenKeys = new ArrayList<String>();
+        boolean isVisited = collectKeys(tombstone, hiddenKeys);
+        for(String hiddenKey : hiddenKeys) {
+            keyValueStore.compute(hiddenKey, (key, currentEntry) -> (currentEntry != null && tombstone.hides(key, currentEntry)) ? null : currentEntry);
+        }
+
+        if(isVisited) {
+            removeTombstone(tombstone);
+            reclaimedTombstone = null;
+            reclaimedCursor = null;
+            reclaimedSpliterator = null;
+        }
+
+        return true;
+
+    }
+
+    /*
+     * Visits the next batch of keys that a tombstone may cover, adds the keys of the entries it hides to a list,
+     * and returns true once all the keys of the tombstone have been visited
+     */
+    private boolean collectKeys(RangeTombstone tombstone, List<String> keys) {
+
+        if(!keyValueStore.isOrdered()) {
+            for(int visited = 0; visited < RECLAIM_BATCH_SIZE; visited++) {
+                boolean hasNext = reclaimedSpliterator.tryAdvance(entry -> {
+                    if(tombstone.hides(entry.getKey(), entry.getValue())) {
+                        keys.add(entry.getKey());
+                    }
+                });
+
+                if(!hasNext) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        Iterator<Map.Entry<String, StoreEntry>> iterator = reclaimedCursor == null
+            ? keyValueStore.scan(tombstone.prefix != null ? tombstone.prefix : tombstone.startKey, true)
+            : keyValueStore.scan(reclaimedCursor, false);
+        for(int visited = 0; visited < RECLAIM_BATCH_SIZE; visited++) {
+            if(!iterator.hasNext()) {
+                return true;
+            }
+
+            Map.Entry<String, StoreEntry> entry = iterator.next();
+            if(!tombstone.covers(entry.getKey())) {
+                return true;
+            }
+            if(tombstone.hides(entry.getKey(), entry.getValue())) {
+                keys.add(entry.getKey());
+            }
+            reclaimedCursor = entry.getKey();
+        }
+
+        return false;
+
+    }
+
+    /*
+     * Returns the entry, or null if it is null or hidden by a tombstone
+     */
+    private StoreEntry visible(String key, StoreEntry entry) {
+
+        if(entry == null) {
+            return null;
+        }
+
+        for(RangeTombstone tombstone : tombstones) {
+            if(tombstone.hides(key, entry)) {
+                return null;
+            }
+        }
+
+        return entry;
+
+    }
+
+    private synchronized void addTombstone(RangeTombstone tombstone) {
+
+        RangeTombstone[] newTombstones = Arrays.copyOf(tombstones, tombstones.length + 1);
+        newTombstones[tombstones.length] = tombstone;
+        tombstones = newTombstones;
+
+        if(!reclaimsInBackground) {
+            return;
+        }
+
+        if(reclaimer == null) {
+            reclaimer = new Thread(this::reclaimInBackground, "tombstone-reclaimer");
+            reclaimer.setDaemon(true);
+            reclaimer.setPriority(Thread.MIN_PRIORITY);
+            reclaimer.start();
+        }
+        notifyAll();
+
+    }
+
+    private synchronized void removeTombstone(RangeTombstone tombstone) {
+
+        List<RangeTombstone> newTombstones = new ArrayList<RangeTombstone>(Arrays.asList(tombstones));
+        newTombstones.remove(tombstone);
+        tombstones = newTombstones.toArray(new RangeTombstone[0]);
+
+    }
+
+    /*
+     * Reclaims the tombstones as they are added, yielding to other threads between batches
+     */
+    private void reclaimInBackground() {
+
+        try {
+            while(true) {
+                if(reclaim()) {
+                    Thread.yield();
+                    continue;
+                }
+
+                synchronized(this) {
+                    while(tombstones.length == 0) {
+                        wait();
+                    }
+                }
+            }
+        } catch (InterruptedException ie) {
+            LOGGER.severe("The tombstone reclaimer was interrupted, deleted ranges are no longer reclaimed.");
+        }
+
+    }
+
+    /*
+     * Spliterator that skips the entries hidden by a tombstone
+     */
+    private class VisibleSpliterator implements Spliterator<Map.Entry<String, StoreEntry>> {
+
+        private final Spliterator<Map.Entry<String, StoreEntry>> spliterator;
+
+        VisibleSpliterator(Spliterator<Map.Entry<String, StoreEntry>> spliterator) {
+            this.spliterator = spliterator;
+        }
+
+        public boolean tryAdvance(Consumer<? super Map.Entry<String, StoreEntry>> action) {
+
+            final boolean[] found = { false };
+            Consumer<Map.Entry<String, StoreEntry>> visibleAction = entry -> {
+                if(visible(entry.getKey(), entry.getValue()) != null) {
+                    found[0] = true;
+                    action.accept(entry);
+                }
+            };
+
+            while(!found[0]) {
+                if(!spliterator.tryAdvance(visibleAction)) {
+                    return false;
+                }
+            }
+
+            return true;
+
+        }
+
+        public void forEachRemaining(Consumer<? super Map.Entry<String, StoreEntry>> action) {
+
+            spliterator.forEachRemaining(entry -> {
+                if(visible(entry.getKey(), entry.getValue()) != null) {
+                    action.accept(entry);
+                }
+            });
+
+        }
+
+        public Spliterator<Map.Entry<String, StoreEntry>> trySplit() {
+
+            Spliterator<Map.Entry<String, StoreEntry>> split = spliterator.trySplit();
+            return split == null ? null : new VisibleSpliterator(split);
+
+        }
+
+        public long estimateSize() {
+            return spliterator.estimateSize();
+        }
+
+        public int characteristics() {
+            return spliterator.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project1.store.LargeValue;
+
+/*
+ * An append only log of large values, kept in memory mapped segment files
+ * 
+ * A value is copied once into the mapping of the active segment, and the store keeps
+ * a LargeValue that refers to its bytes in the log. Since the mapping and the file share
+ * the page cache, the TCP server can send a value straight from the file to a socket.
+ * Only the space of a value is reserved under the lock, so concurrent writers copy their
+ * values in parallel.
+ * 
+ * A segment counts the values that still refer to it. Once a LargeValue is no longer
+ * reachable, because its key was overwritten or deleted and no request is reading it,
+ * a cleaner releases it from its segment, and a full segment without values is closed
+ * and deleted. Values are reclaimed on the thread of the cleaner, once the garbage collector
+ * finds them unreachable. The total size of the segments is capped, and an append that needs
+ * a new segment beyond the cap fails at once rather than waiting for a collection on the
+ * request path, so the server keeps that value on the heap instead.
+ */
+public class ValueLog {
+
+    private static final Logger LOGGER = Logger.getLogger(ValueLog.class.getName());
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final int SEGMENT_SIZE = 256 << 20;
+    public static final long DEFAULT_MAX_SIZE = 4L << 30;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxSize;
+    private Segment activeSegment;
+    private int numberOfSegments;
+
+    // The capacity of the segments that are not deleted yet, guarded by the lock of the log
+    private long size;
+
+    public ValueLog() throws IOException {
+        this(SEGMENT_SIZE, DEFAULT_MAX_SIZE);
+    }
+
+    public ValueLog(int segmentSize, long maxSize) throws IOException {
+        this.directory = Files.createTempDirectory("value-log");
+        this.directory.toFile().deleteOnExit();
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+    }
+
+    /*
+     * Appends a value to the log and returns a reference to it
+     * 
+     * Throws an IOException if the value needs a new segment and the log is already at its maximum size.
+     */
+    public LargeValue append(byte[] value) throws IOException {
+
+        Segment segment;
+        int offset;
+        synchronized(this) {
+            if(activeSegment == null || activeSegment.capacity - activeSegment.position < value.length) {
+                int capacity = Math.max(segmentSize, value.length);
+                if(size + capacity > maxSize) {
+                    throw new IOException("The value log is full, it has reached its maximum size of " + String.valueOf(maxSize) + " bytes.");
+                }
+
+                Segment newSegment = new Segment(directory.resolve("segment-" + String.valueOf(numberOfSegments++) + ".log").toFile(), capacity);
+                size += capacity;
+                if(activeSegment != null) {
+                    activeSegment.seal();
+                }
+                activeSegment = newSegment;
+            }
+
+            segment = activeSegment;
+            offset = segment.position;
+            segment.position += value.length;
+            segment.liveValues++;
+        }
+
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset);
+        buffer.put(value);
+
+        // The cleaning action refers to the segment only, since a reference to the value would keep it reachable
+        LargeValue largeValue = new LargeValue(segment.channel, segment.buffer, offset, value.length);
+        CLEANER.register(largeValue, segment::releaseValue);
+        return largeValue;
+
+    }
+
+    /*
+     * Returns the total capacity of the segment files that are not deleted yet, in bytes
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /*
+     * A segment file of the log, mapped in memory for its whole capacity
+     */
+    private class Segment {
+        final File file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        int position;
+
+        // Guarded by the lock of the log
+        int liveValues;
+        boolean isSealed;
+
+        Segment(File file, int capacity) throws IOException {
+            file.deleteOnExit();
+            this.file = file;
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            this.capacity = capacity;
+        }
+
+        /*
+         * Stops appending to the segment, which is deleted once it has no values left
+         */
+        void seal() {
+
+            isSealed = true;
+            if(liveValues == 0) {
+                delete();
+            }
+
+        }
+
+        /*
+         * Releases a value that is no longer reachable, which is called by the cleaner
+         */
+        void releaseValue() {
+
+            synchronized(ValueLog.this) {
+                liveValues--;
+                if(isSealed && liveValues == 0) {
+                    delete();
+                }
+            }
+
+        }
+
+        /*
+         * Closes and deletes the file of the segment, whose mapping is released along with the segment
+         */
+        private void delete() {
+
+            size -= capacity;
+            try {
+                channel.close();
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException ioe) {
+                LOGGER.warning("The value log segment " + file.getName() + " could not be deleted : " + ioe.getMessage());
+            }
+
+        }
+    }
+}
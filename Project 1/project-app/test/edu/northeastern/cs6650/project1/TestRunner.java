@@ -0,0 +1,112 @@
+package edu.northeastern.cs6650.project1;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+ * Runs the tests of the project, which are the public static methods without arguments whose name starts with test
+ * 
+ * The project is built with javac alone, so the tests need no framework : a test fails when it throws,
+ * and the assertions below throw an AssertionError with the expected and actual values. The runner
+ * runs every test of the given classes, or of all the test classes when none is given, prints the
+ * failures and exits with a non zero status if any test failed.
+ */
+public class TestRunner {
+
+    private static final String[] TEST_CLASSES = {
+        "edu.northeastern.cs6650.project1.store.KeyValueStoreTest",
+        "edu.northeastern.cs6650.project1.store.ValueLogTest",
+        "edu.northeastern.cs6650.project1.store.TombstoneStoreTest",
+        "edu.northeastern.cs6650.project1.server.RequestHandlerTest"
+    };
+
+    public static void main(String[] arguments) throws ClassNotFoundException {
+
+        String[] testClasses = arguments.length > 0 ? arguments : TEST_CLASSES;
+        Logger.getLogger("").setLevel(Level.WARNING);
+        int passedTests = 0;
+        int failedTests = 0;
+        for(String testClass : testClasses) {
+            Method[] methods = Class.forName(testClass).getMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for(Method method : methods) {
+                if(!method.getName().startsWith("test") || !Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0) {
+                    continue;
+                }
+
+                try {
+                    method.invoke(null);
+                    passedTests++;
+                } catch (InvocationTargetException ite) {
+                    failedTests++;
+                    System.out.println("FAILED " + testClass + "." + method.getName() + " : " + ite.getCause());
+                    ite.getCause().printStackTrace(System.out);
+                } catch (IllegalAccessException iae) {
+                    failedTests++;
+                    System.out.println("FAILED " + testClass + "." + method.getName() + " : " + iae);
+                }
+            }
+        }
+
+        System.out.println(String.valueOf(passedTests) + " tests passed, " + String.valueOf(failedTests) + " tests failed.");
+        if(failedTests > 0) {
+            System.exit(1);
+        }
+
+    }
+
+    public static void assertTrue(boolean condition, String message) {
+
+        if(!condition) {
+            throw new AssertionError(message);
+        }
+
+    }
+
+    public static void assertEquals(Object expected, Object actual, String message) {
+
+        if(!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + " Expected : " + String.valueOf(expected) + ", actual : " + String.valueOf(actual) + ".");
+        }
+
+    }
+
+    /*
+     * Runs a piece of code that should throw an exception of a type, and returns the exception
+     */
+    public static <T extends Throwable> T assertThrows(Class<T> exceptionClass, Runnable code, String message) {
+
+        try {
+            code.run();
+        } catch (Throwable throwable) {
+            if(exceptionClass.isInstance(throwable)) {
+                return exceptionClass.cast(throwable);
+            }
+            throw new AssertionError(message + " Expected : " + exceptionClass.getSimpleName() + ", actual : " + String.valueOf(throwable) + ".", throwable);
+        }
+
+        throw new AssertionError(message + " Expected : " + exceptionClass.getSimpleName() + ", but nothing was thrown.");
+
+    }
+}
@@ -0,0 +1,424 @@
+package edu.northeastern.cs6650.project1.server;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.northeastern.cs6650.project1.TestRunner;
+import edu.northeastern.cs6650.project1.common.RequestType;
+import edu.northeastern.cs6650.project1.common.ServerResponseCode;
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.common.Utils;
+import edu.northeastern.cs6650.project1.server.BaseServer;
+
+/*
+ * Tests of the request handlers of the servers, which send request bodies to a server without a transport
+ * and check the response code, message and version of the responses
+ */
+public class RequestHandlerTest {
+
+    /*
+     * A server that only processes the request bodies it is given
+     */
+    static class TestServer extends BaseServer {
+
+        TestServer(StoreType storeType) {
+            super(storeType);
+        }
+
+        public void spin() {
+        }
+
+        StringBuffer send(StringBuffer requestBody) {
+            return createServerResponse(requestBody, "127.0.0.1", 0);
+        }
+    }
+
+    static ServerResponseCode getResponseCode(StringBuffer responseBody) {
+        return ServerResponseCode.parseString(responseBody.toString().split("\n")[0]);
+    }
+
+    static String getMessage(StringBuffer responseBody) {
+        return responseBody.toString().split("\n")[1];
+    }
+
+    public static void testINCRGivesEveryUpdateANewVersion() {
+
+        TestServer server = new TestServer(StoreType.HASH);
+        StringBuffer response = server.send(Utils.createRequestBody(RequestType.INCR, "counter"));
+        TestRunner.assertEquals(ServerResponseCode.SUCCESS, getResponseCode(response), "INCR of a missing key failed.");
+        TestRunner.assertEquals("1", Utils.getValue(response), "INCR of a missing key did not start from zero.");
+        long firstVersion = Utils.getVersion(response);
+        TestRunner.assertTrue(firstVersion > 0, "INCR did not return a version.");
+
+        response = server.send(Utils.createRequestBody(RequestType.INCRBY, "counter", "41"));
+        TestRunner.assertEquals("42", Utils.getValue(response), "INCRBY did not add the increment.");
+        long secondVersion = Utils.getVersion(response);
+        TestRunner.assertTrue(secondVersion > firstVersion, "INCRBY did not give the counter a new version.");
+
+        response = server.send(Utils.createRequestBody(RequestType.DECR, "counter"));
+        TestRunner.assertEquals("41", Utils.getValue(response), "DECR did not subtract one.");
+
+        response = server.send(Utils.createRequestBody(RequestType.GET, "counter"));
+        TestRunner.assertEquals("41", Utils.getValue(response), "GET did not return the value of the counter.");
+        TestRunner.assertEquals(Utils.getVersion(response), Utils.getVersion(server.send(Utils.createRequestBody(RequestType.GET, "counter"))), "GET changed the version of the counter.");
+
+        server.send(Utils.createRequestBody(RequestType.PUT, "text", "not a number"));
+        response = server.send(Utils.createRequestBody(RequestType.INCR, "text"));
+        TestRunner.assertEquals(ServerResponseCode.BAD_REQUEST, getResponseCode(response), "INCR of a value that is not an integer did not fail.");
+
+    }
+
+    /*
+     * A client that read a counter before another client incremented it must not overwrite the increment
+     */
+    public static void testPUTIFVERSIONFailsAfterINCR() {
+
+        TestServer server = new TestServer(StoreType.HASH);
+        server.send(Utils.createRequestBody(RequestType.PUT, "counter", "10"));
+        long readVersion = Utils.getVersion(server.send(Utils.createRequestBody(RequestType.GET, "counter")));
+
+        server.send(Utils.createRequestBody(RequestType.INCR, "counter"));
+        StringBuffer response = server.send(Utils.createRequestBody(RequestType.PUT_IF_VERSION, "counter", "20", readVersion));
+        TestRunner.assertEquals(ServerResponseCode.CONFLICT, getResponseCode(response), "PUT_IF_VERSION overwrote an increment made after its version was read.");
+        TestRunner.assertEquals("11", Utils.getValue(server.send(Utils.createRequestBody(RequestType.GET, "counter"))), "The increment was lost.");
+
+        long currentVersion = Utils.getVersion(response);
+        response = server.send(Utils.createRequestBody(RequestType.PUT_IF_VERSION, "counter", "20", currentVersion));
+        TestRunner.assertEquals(ServerResponseCode.SUCCESS, getResponseCode(response), "PUT_IF_VERSION with the current version of a counter failed.");
+
+        response = server.send(Utils.createRequestBody(RequestType.GET_IF_CHANGED, "counter", String.valueOf(Utils.getVersion(response))));
+        TestRunner.assertEquals(ServerResponseCode.NOT_MODIFIED, getResponseCode(response), "GET_IF_CHANGED sent a counter that did not change.");
+
+    }
+
+    /*
+     * Concurrent increments of a key are all applied, even when the store applies its compute function more than once
+     */
+    public static void testConcurrentINCR() throws InterruptedException {
+
+        for(StoreType storeType : StoreType.values()) {
+            TestServer server = new TestServer(storeType);
+            Thread[] threads = new Thread[8];
+            for(int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for(int i = 0; i < 2000; i++) {
+                        server.send(Utils.createRequestBody(RequestType.INCR, "counter"));
+                    }
+                });
+                threads[t].start();
+            }
+            for(Thread thread : threads) {
+                thread.join();
+            }
+
+            TestRunner.assertEquals("16000", Utils.getValue(server.send(Utils.createRequestBody(RequestType.GET, "counter"))), "The " + storeType.name().toLowerCase() + " store lost increments.");
+        }
+
+    }
+
+    /*
+     * Concurrent updates of a sorted set are all applied once, even when the set is emptied and deleted while other
+     * threads are adding members to it
+     */
+    public static void testConcurrentZADDAndZREM() throws InterruptedException {
+
+        for(StoreType storeType : StoreType.values()) {
+            TestServer server = new TestServer(storeType);
+            AtomicInteger added = new AtomicInteger();
+            AtomicInteger removed = new AtomicInteger();
+            Thread[] threads = new Thread[8];
+            for(int t = 0; t < threads.length; t++) {
+                final int thread = t;
+                threads[t] = new Thread(() -> {
+                    for(int i = 0; i < 5000; i++) {
+                        StringBuffer response = server.send(Utils.createRequestBody(RequestType.ZADD, "leaderboard", "member" + thread + ":" + i, (double) i));
+                        added.addAndGet(getMessage(response).endsWith(": 1") ? 1 : 0);
+                    }
+                    for(int i = 0; i < 5000; i++) {
+                        StringBuffer response = server.send(Utils.createRequestBody(RequestType.ZREM, "leaderboard", "member" + thread + ":" + i));
+                        removed.addAndGet(getMessage(response).endsWith(": 1") ? 1 : 0);
+                    }
+                });
+                threads[t].start();
+            }
+            for(Thread thread : threads) {
+                thread.join();
+            }
+
+            String storeName = storeType.name().toLowerCase();
+            TestRunner.assertEquals(40000, added.get(), "The " + storeName + " store did not add every member once.");
+            TestRunner.assertEquals(40000, removed.get(), "The " + storeName + " store did not remove every member once.");
+            TestRunner.assertEquals(ServerResponseCode.FAILED, getResponseCode(server.send(Utils.createRequestBody(RequestType.GET, "leaderboard"))), "The " + storeName + " store kept an empty sorted set.");
+        }
+
+    }
+
+    /*
+     * Returns the number at the end of the message line of a response, such as a length, a count or a rank
+     */
+    static long getNumber(StringBuffer responseBody) {
+        String message = getMessage(responseBody);
+        return Long.parseLong(message.substring(message.lastIndexOf(" : ") + 3).replace(".", "").trim());
+    }
+
+    /*
+     * Returns the result line of an AGGREGATE or HOTKEYS response
+     */
+    static long getResult(StringBuffer responseBody) {
+        return Long.parseLong(responseBody.toString().split("\n")[2].substring(Utils.RESULT_MESSAGE_PREFIX.length()).trim());
+    }
+
+    public static void testPUTGETDELETE() {
+
+        for(StoreType storeType : StoreType.values()) {
+            String storeName = storeType.name().toLowerCase();
+            TestServer server = new TestServer(storeType);
+            StringBuffer response = server.send(Utils.createRequestBody(RequestType.PUT, "key", "first"));
+            TestRunner.assertEquals(ServerResponseCode.SUCCESS, getResponseCode(response), "PUT failed on the " + storeName + " store.");
+            long firstVersion = Utils.getVersion(response);
+
+            response = server.send(Utils.createRequestBody(RequestType.GET, "key"));
+            TestRunner.assertEquals("first", Utils.getValue(response), "GET did not return the value on the " + storeName + " store.");
+            TestRunner.assertEquals(firstVersion, Utils.getVersion(response), "GET did not return the version of the PUT on the " + storeName + " store.");
+
+            response = server.send(Utils.createRequestBody(RequestType.PUT, "key", "second"));
+            TestRunner.assertTrue(Utils.getVersion(response) > firstVersion, "PUT did not give the key a new version on the " + storeName + " store.");
+            TestRunner.assertEquals("second", Utils.getValue(server.send(Utils.createRequestBody(RequestType.GET, "key"))), "PUT did not overwrite the value on the " + storeName + " store.");
+
+            response = server.send(Utils.createRequestBody(RequestType.DELETE, "key"));
+            TestRunner.assertEquals(ServerResponseCode.SUCCESS, getResponseCode(response), "DELETE failed on the " + storeName + " store.");
+            TestRunner.assertEquals(ServerResponseCode.FAILED, getResponseCode(server.send(Utils.createRequestBody(RequestType.GET, "key"))), "GET found a deleted key on the " + storeName + " store.");
+            TestRunner.assertEquals(ServerResponseCode.FAILED, getResponseCode(server.send(Utils.createRequestBody(RequestType.DELETE, "key"))), "DELETE of a missing key did not fail on the " + storeName + " store.");
+        }
+
+    }
+
+    public static void testConditionalRequests() {
+
+        TestServer server = new TestServer(StoreType.HASH);
+        StringBuffer response = server.send(Utils.createRequestBody(RequestType.PUT_IF_ABSENT, "key", "first"));
+        TestRunner.assertEquals(ServerResponseCode.SUCCESS, getResponseCode(response), "PUT_IF_ABSENT of a missing key failed.");
+        long version = Utils.getVersion(response);
+
+        response = server.send(Utils.createRequestBody(RequestType.PUT_IF_ABSENT, "key", "second"));
+        TestRunner.assertEquals(ServerResponseCode.CONFLICT, getResponseCode(response), "PUT_IF_ABSENT overwrote a key.");
+        TestRunner.assertEquals(version, Utils.getVersion(response), "PUT_IF_ABSENT did not return the current version.");
+
+        response = server.send(Utils.createRequestBody(RequestType.GET_IF_CHANGED, "key", String.valueOf(version)));
+        TestRunner.assertEquals(ServerResponseCode.NOT_MODIFIED, getResponseCode(response), "GET_IF_CHANGED sent a value that did not change.");
+        response = server.send(Utils.createRequestBody(RequestType.GET_IF_CHANGED, "key", String.valueOf(version - 1)));
+        TestRunner.assertEquals("first", Utils.getValue(response), "GET_IF_CHANGED did not send a value that changed.");
+
+        response = server.send(Utils.createRequestBody(RequestType.PUT_IF_VERSION, "key", "second", version + 1));
+        TestRunner.assertEquals(ServerResponseCode.CONFLICT, getResponseCode(response), "PUT_IF_VERSION with another version succeeded.");
+        response = server.send(Utils.createRequestBody(RequestType.PUT_IF_VERSION, "key", "second", version));
+        TestRunner.assertEquals(ServerResponseCode.SUCCESS, getResponseCode(response), "PUT_IF_VERSION with the current version failed.");
+
+        response = server.send(Utils.createRequestBody(RequestType.DELETE_IF_VALUE, "key", "first"));
+        TestRunner.assertEquals(ServerResponseCode.CONFLICT, getResponseCode(response), "DELETE_IF_VALUE with another value deleted the key.");
+        response = server.send(Utils.createRequestBody(RequestType.DELETE_IF_VALUE, "key", "second"));
+        TestRunner.assertEquals(ServerResponseCode.SUCCESS, getResponseCode(response), "DELETE_IF_VALUE with the current value failed.");
+        TestRunner.assertEquals(ServerResponseCode.FAILED, getResponseCode(server.send(Utils.createRequestBody(RequestType.GET, "key"))), "DELETE_IF_VALUE did not delete the key.");
+
+    }
+
+    public static void testPartialUpdates() {
+
+        TestServer server = new TestServer(StoreType.HASH);
+        StringBuffer response = server.send(Utils.createRequestBody(RequestType.APPEND, "text", "hello"));
+        TestRunner.assertEquals(5L, getNumber(response), "APPEND to a missing key did not create it.");
+        long version = Utils.getVersion(response);
+
+        response = server.send(Utils.createRequestBody(RequestType.APPEND, "text", " world"));
+        TestRunner.assertEquals(11L, getNumber(response), "APPEND did not return the new length.");
+        TestRunner.assertTrue(Utils.getVersion(response) > version, "APPEND did not give the key a new version.");
+
+        TestRunner.assertEquals("hello", Utils.getValue(server.send(Utils.createRequestBody(RequestType.GETRANGE, "text", "0", 4))), "GETRANGE did not return the start of the value.");
+        TestRunner.assertEquals("world", Utils.getValue(server.send(Utils.createRequestBody(RequestType.GETRANGE, "text", "-5", -1))), "GETRANGE did not count negative offsets from the end.");
+
+        response = server.send(Utils.createRequestBody(RequestType.SETRANGE, "text", "W", 6));
+        TestRunner.assertEquals(11L, getNumber(response), "SETRANGE changed the length of the value.");
+        TestRunner.assertEquals("hello World", Utils.getValue(server.send(Utils.createRequestBody(RequestType.GET, "text"))), "SETRANGE did not overwrite the value at the offset.");
+
+        server.send(Utils.createRequestBody(RequestType.ZADD, "leaderboard", "alice", 1.0));
+        TestRunner.assertEquals(ServerResponseCode.BAD_REQUEST, getResponseCode(server.send(Utils.createRequestBody(RequestType.APPEND, "leaderboard", "alice"))), "APPEND turned a sorted set into a string.");
+        TestRunner.assertEquals(0L, getNumber(server.send(Utils.createRequestBody(RequestType.ZRANK, "leaderboard", "alice"))), "APPEND changed a sorted set.");
+
+    }
+
+    public static void testSortedSetRequests() {
+
+        TestServer server = new TestServer(StoreType.HASH);
+        TestRunner.assertEquals(1L, getNumber(server.send(Utils.createRequestBody(RequestType.ZADD, "leaderboard", "alice", 3.0))), "ZADD did not add a new member.");
+        server.send(Utils.createRequestBody(RequestType.ZADD, "leaderboard", "bob", 1.0));
+        server.send(Utils.createRequestBody(RequestType.ZADD, "leaderboard", "carol", 2.0));
+
+        StringBuffer response = server.send(Utils.createRequestBody(RequestType.ZRANGE, "leaderboard", "0", -1));
+        String[] lines = response.toString().split("\n");
+        TestRunner.assertEquals(3L, getNumber(response), "ZRANGE did not return every member.");
+        TestRunner.assertEquals("bob,1.0,carol,2.0,alice,3.0", String.join(",", lines[3], lines[4], lines[5], lines[6], lines[7], lines[8]), "ZRANGE did not order the members by score.");
+        TestRunner.assertEquals(2L, getNumber(server.send(Utils.createRequestBody(RequestType.ZRANK, "leaderboard", "alice"))), "ZRANK did not return the rank of a member.");
+
+        response = server.send(Utils.createRequestBody(RequestType.ZADD, "leaderboard", "alice", 0.0));
+        TestRunner.assertEquals(0L, getNumber(response), "ZADD counted a score change as a new member.");
+        TestRunner.assertEquals(0L, getNumber(server.send(Utils.createRequestBody(RequestType.ZRANK, "leaderboard", "alice"))), "ZADD did not change the score of a member.");
+
+        TestRunner.assertEquals(1L, getNumber(server.send(Utils.createRequestBody(RequestType.ZREM, "leaderboard", "bob"))), "ZREM did not remove a member.");
+        TestRunner.assertEquals(0L, getNumber(server.send(Utils.createRequestBody(RequestType.ZREM, "leaderboard", "bob"))), "ZREM removed a missing member.");
+        TestRunner.assertEquals(ServerResponseCode.FAILED, getResponseCode(server.send(Utils.createRequestBody(RequestType.ZRANK, "leaderboard", "bob"))), "ZRANK found a removed member.");
+
+        server.send(Utils.createRequestBody(RequestType.PUT, "text", "not a sorted set"));
+        TestRunner.assertEquals(ServerResponseCode.BAD_REQUEST, getResponseCode(server.send(Utils.createRequestBody(RequestType.ZADD, "text", "alice", 1.0))), "ZADD changed a key that does not hold a sorted set.");
+
+    }
+
+    public static void testHyperLogLogRequests() {
+
+        TestServer server = new TestServer(StoreType.HASH);
+        for(int i = 0; i < 10000; i++) {
+            server.send(Utils.createRequestBody(RequestType.PFADD, "first", "element" + i));
+            server.send(Utils.createRequestBody(RequestType.PFADD, "second", "element" + (i + 5000)));
+        }
+
+        long version = Utils.getVersion(server.send(Utils.createRequestBody(RequestType.GET, "first")));
+        StringBuffer response = server.send(Utils.createRequestBody(RequestType.PFADD, "first", "element0"));
+        TestRunner.assertEquals(0L, getNumber(response), "PFADD counted an element that was already added.");
+        TestRunner.assertEquals(version, Utils.getVersion(response), "PFADD of an element that was already added changed the version.");
+
+        long count = getNumber(server.send(Utils.createRequestBody(RequestType.PFCOUNT, "first")));
+        TestRunner.assertTrue(Math.abs(count - 10000) < 500, "PFCOUNT estimated " + count + " distinct elements instead of 10000.");
+
+        server.send(Utils.createRequestBody(RequestType.PFMERGE, "first", "second"));
+        count = getNumber(server.send(Utils.createRequestBody(RequestType.PFCOUNT, "first")));
+        TestRunner.assertTrue(Math.abs(count - 15000) < 750, "PFMERGE gave an estimate of " + count + " distinct elements instead of 15000.");
+
+    }
+
+    public static void testBloomFilterRequests() {
+
+        TestServer server = new TestServer(StoreType.HASH);
+        for(int i = 0; i < 1000; i++) {
+            server.send(Utils.createRequestBody(RequestType.BFADD, "filter", "element" + i));
+        }
+
+        int falsePositives = 0;
+        for(int i = 0; i < 1000; i++) {
+            TestRunner.assertEquals(1L, getNumber(server.send(Utils.createRequestBody(RequestType.BFEXISTS, "filter", "element" + i))), "BFEXISTS did not find an added element.");
+            falsePositives += getNumber(server.send(Utils.createRequestBody(RequestType.BFEXISTS, "filter", "missing" + i)));
+        }
+
+        TestRunner.assertTrue(falsePositives < 50, "BFEXISTS found " + falsePositives + " of 1000 elements that were never added.");
+        TestRunner.assertEquals(0L, getNumber(server.send(Utils.createRequestBody(RequestType.BFEXISTS, "missing", "element0"))), "BFEXISTS found an element in a missing key.");
+
+    }
+
+    /*
+     * A scan is read page by page with the cursor of the previous page, and only the ordered stores support it
+     */
+    public static void testSCAN() {
+
+        TestServer server = new TestServer(StoreType.ORDERED);
+        for(int i = 0; i < 250; i++) {
+            server.send(Utils.createRequestBody(RequestType.PUT, String.format("key:%03d", i), "value" + i));
+        }
+        server.send(Utils.createRequestBody(RequestType.PUT, "other", "value"));
+
+        int count = 0;
+        String cursor = null;
+        do {
+            StringBuffer response = server.send(Utils.createPrefixScanRequestBody("key:", 100, cursor));
+            String[] lines = response.toString().split("\n");
+            for(int i = 3; i + 1 < lines.length; i += 2) {
+                TestRunner.assertEquals(String.format("key:%03d", count), lines[i], "SCAN did not return the keys in order.");
+                TestRunner.assertEquals("value" + count, lines[i + 1], "SCAN did not return the value of a key.");
+                count++;
+            }
+            cursor = Utils.getScanCursor(response);
+        } while(cursor != null && !cursor.isEmpty());
+
+        TestRunner.assertEquals(250, count, "SCAN did not return every key with the prefix.");
+        TestRunner.assertEquals(10L, getNumber(server.send(Utils.createRangeScanRequestBody("key:010", "key:020", 100, null))), "SCAN did not stop at the end of the range.");
+
+        TestServer hashServer = new TestServer(StoreType.HASH);
+        TestRunner.assertEquals(ServerResponseCode.BAD_REQUEST, getResponseCode(hashServer.send(Utils.createPrefixScanRequestBody("key:", 100, null))), "SCAN of an unordered store did not fail.");
+
+    }
+
+    public static void testAGGREGATE() {
+
+        TestServer server = new TestServer(StoreType.HASH);
+        for(int i = 0; i < 10; i++) {
+            server.send(Utils.createRequestBody(RequestType.PUT, "prefix:" + i, "x".repeat(i + 1)));
+        }
+        server.send(Utils.createRequestBody(RequestType.PUT, "other", "value"));
+
+        TestRunner.assertEquals(10L, getResult(server.send(Utils.createAggregateRequestBody(Utils.AGGREGATE_COUNT, "prefix:", 0))), "AGGREGATE COUNT did not count the keys with the prefix.");
+        TestRunner.assertEquals(11L, getResult(server.send(Utils.createAggregateRequestBody(Utils.AGGREGATE_COUNT, Utils.AGGREGATE_ALL_KEYS, 0))), "AGGREGATE COUNT did not count all the keys.");
+        TestRunner.assertEquals(55L, getResult(server.send(Utils.createAggregateRequestBody(Utils.AGGREGATE_BYTES, "prefix:", 0))), "AGGREGATE BYTES did not add up the sizes of the values.");
+
+        StringBuffer response = server.send(Utils.createAggregateRequestBody(Utils.AGGREGATE_TOP, "prefix:", 3));
+        String[] lines = response.toString().split("\n");
+        TestRunner.assertEquals(3L, getResult(response), "AGGREGATE TOP did not return the number of keys requested.");
+        TestRunner.assertEquals("prefix:9,10,prefix:8,9,prefix:7,8", String.join(",", lines[3], lines[4], lines[5], lines[6], lines[7], lines[8]), "AGGREGATE TOP did not return the largest values first.");
+
+    }
+
+    public static void testHOTKEYS() {
+
+        TestServer server = new TestServer(StoreType.HASH);
+        server.send(Utils.createRequestBody(RequestType.PUT, "hot", "value"));
+        server.send(Utils.createRequestBody(RequestType.PUT, "cold", "value"));
+        for(int i = 0; i < 100; i++) {
+            server.send(Utils.createRequestBody(RequestType.GET, "hot"));
+        }
+        server.send(Utils.createRequestBody(RequestType.GET, "cold"));
+
+        StringBuffer response = server.send(Utils.createHotKeysRequestBody(Utils.HOTKEYS_READS, 1));
+        TestRunner.assertEquals(1L, getResult(response), "HOTKEYS did not return the number of keys requested.");
+        TestRunner.assertEquals("hot", response.toString().split("\n")[3], "HOTKEYS did not return the most read key.");
+        TestRunner.assertTrue(Long.parseLong(response.toString().split("\n")[4]) >= 100, "HOTKEYS returned a read count lower than the real count.");
+
+    }
+
+    /*
+     * Range deletions hide the keys they cover at once on every store, while keys written afterwards stay visible
+     */
+    public static void testDELETEPREFIXAndDELETERANGE() {
+
+        for(StoreType storeType : StoreType.values()) {
+            String storeName = storeType.name().toLowerCase();
+            TestServer server = new TestServer(storeType);
+            for(int i = 0; i < 100; i++) {
+                server.send(Utils.createRequestBody(RequestType.PUT, "tenant:" + i, "value"));
+                server.send(Utils.createRequestBody(RequestType.PUT, "range:" + i, "value"));
+            }
+            server.send(Utils.createRequestBody(RequestType.PUT, "other", "value"));
+
+            TestRunner.assertEquals(ServerResponseCode.SUCCESS, getResponseCode(server.send(Utils.createRequestBody(RequestType.DELETE_PREFIX, "tenant:"))), "DELETE_PREFIX failed on the " + storeName + " store.");
+            TestRunner.assertEquals(ServerResponseCode.SUCCESS, getResponseCode(server.send(Utils.createRequestBody(RequestType.DELETE_RANGE, "range:1", "range:5"))), "DELETE_RANGE failed on the " + storeName + " store.");
+
+            TestRunner.assertEquals(ServerResponseCode.FAILED, getResponseCode(server.send(Utils.createRequestBody(RequestType.GET, "tenant:50"))), "DELETE_PREFIX did not delete a key with the prefix on the " + storeName + " store.");
+            TestRunner.assertEquals(ServerResponseCode.FAILED, getResponseCode(server.send(Utils.createRequestBody(RequestType.GET, "range:42"))), "DELETE_RANGE did not delete a key in the range on the " + storeName + " store.");
+            TestRunner.assertEquals("value", Utils.getValue(server.send(Utils.createRequestBody(RequestType.GET, "range:5"))), "DELETE_RANGE deleted the end key of the range on the " + storeName + " store.");
+            TestRunner.assertEquals("value", Utils.getValue(server.send(Utils.createRequestBody(RequestType.GET, "other"))), "DELETE_PREFIX deleted a key without the prefix on the " + storeName + " store.");
+
+            server.send(Utils.createRequestBody(RequestType.PUT, "tenant:50", "new value"));
+            TestRunner.assertEquals("new value", Utils.getValue(server.send(Utils.createRequestBody(RequestType.GET, "tenant:50"))), "A key written after DELETE_PREFIX is hidden on the " + storeName + " store.");
+        }
+
+    }
+}
@@ -0,0 +1,249 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeSet;
+
+import edu.northeastern.cs6650.project1.TestRunner;
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.store.KeyValueStore;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+import edu.northeastern.cs6650.project1.store.StoreFactory;
+import edu.northeastern.cs6650.project1.store.TombstoneStore;
+
+/*
+ * Tests of the contract of the KeyValueStore interface, which every storage engine has to keep
+ * 
+ * Every test runs against a new store of each store type, the hash store without synchronization
+ * that the store partitions use, and a tombstone store wrapping a hash store, as the servers do.
+ */
+public class KeyValueStoreTest {
+
+    private static final int NUMBER_OF_KEYS = 20000;
+    private static final int NUMBER_OF_THREADS = 8;
+
+    private static List<KeyValueStore> createStores() {
+        return createStores(true);
+    }
+
+    /*
+     * Creates a store of each type, along with the hash store that is only accessed by one thread if it is included
+     */
+    private static List<KeyValueStore> createStores(boolean includesSingleThreadedStore) {
+
+        List<KeyValueStore> stores = new ArrayList<KeyValueStore>();
+        for(StoreType storeType : StoreType.values()) {
+            stores.add(StoreFactory.createStore(storeType));
+        }
+        if(includesSingleThreadedStore) {
+            stores.add(StoreFactory.createStore(StoreType.HASH, false));
+        }
+        stores.add(new TombstoneStore(StoreFactory.createStore(StoreType.HASH), false));
+        return stores;
+
+    }
+
+    private static String getName(KeyValueStore store) {
+        return store.getClass().getSimpleName();
+    }
+
+    public static void testGetPutRemove() {
+
+        for(KeyValueStore store : createStores()) {
+            String name = getName(store);
+            TestRunner.assertEquals(null, store.get("key"), name + " returned an entry for a missing key.");
+
+            store.put("key", new StoreEntry("value", 1));
+            TestRunner.assertEquals("value", store.get("key").getValue(), name + " returned the wrong value.");
+            TestRunner.assertEquals(1L, store.get("key").getVersion(), name + " returned the wrong version.");
+
+            store.put("key", new StoreEntry("other value", 2));
+            TestRunner.assertEquals("other value", store.get("key").getValue(), name + " did not overwrite the value.");
+            TestRunner.assertEquals(2L, store.get("key").getVersion(), name + " did not overwrite the version.");
+            TestRunner.assertEquals(1, store.size(), name + " counted an overwritten key twice.");
+
+            StoreEntry removedEntry = store.remove("key");
+            TestRunner.assertEquals("other value", removedEntry == null ? null : removedEntry.getValue(), name + " did not return the removed entry.");
+            TestRunner.assertEquals(null, store.get("key"), name + " returned a removed key.");
+            TestRunner.assertEquals(null, store.remove("key"), name + " removed a missing key.");
+            TestRunner.assertEquals(0, store.size(), name + " counted a removed key.");
+        }
+
+    }
+
+    public static void testCompute() {
+
+        for(KeyValueStore store : createStores()) {
+            String name = getName(store);
+
+            StoreEntry entry = store.compute("key", (key, currentEntry) -> currentEntry == null ? new StoreEntry("created", 1) : null);
+            TestRunner.assertEquals("created", entry.getValue(), name + " did not return the computed entry of a missing key.");
+            TestRunner.assertEquals("created", store.get("key").getValue(), name + " did not store the computed entry of a missing key.");
+
+            entry = store.compute("key", (key, currentEntry) -> new StoreEntry(currentEntry.getValue() + " and replaced", 2));
+            TestRunner.assertEquals("created and replaced", store.get("key").getValue(), name + " did not replace the entry of a key.");
+            TestRunner.assertEquals(2L, entry.getVersion(), name + " did not return the replacing entry.");
+
+            entry = store.compute("key", (key, currentEntry) -> null);
+            TestRunner.assertEquals(null, entry, name + " did not return null for a removed key.");
+            TestRunner.assertTrue(!store.containsKey("key"), name + " kept a key whose entry was computed as null.");
+
+            store.compute("missing", (key, currentEntry) -> null);
+            TestRunner.assertTrue(!store.containsKey("missing"), name + " created a key whose entry was computed as null.");
+            TestRunner.assertEquals(0, store.size(), name + " counted keys that do not exist.");
+        }
+
+    }
+
+    public static void testContainsKeyAndSize() {
+
+        for(KeyValueStore store : createStores()) {
+            String name = getName(store);
+            store.ensureCapacity(NUMBER_OF_KEYS / 2);
+            for(int i = 0; i < NUMBER_OF_KEYS; i++) {
+                store.put("key:" + String.valueOf(i), new StoreEntry("value:" + String.valueOf(i), i + 1));
+            }
+            TestRunner.assertEquals(NUMBER_OF_KEYS, store.size(), name + " counted the wrong number of keys.");
+
+            for(int i = 0; i < NUMBER_OF_KEYS; i += 2) {
+                store.remove("key:" + String.valueOf(i));
+            }
+            TestRunner.assertEquals(NUMBER_OF_KEYS / 2, store.size(), name + " counted the wrong number of keys after removals.");
+
+            for(int i = 0; i < NUMBER_OF_KEYS; i++) {
+                String key = "key:" + String.valueOf(i);
+                TestRunner.assertEquals(i % 2 == 1, store.containsKey(key), name + " has the wrong membership for " + key + ".");
+                if(i % 2 == 1) {
+                    TestRunner.assertEquals("value:" + String.valueOf(i), store.get(key).getValue(), name + " returned the wrong value for " + key + ".");
+                }
+            }
+        }
+
+    }
+
+    public static void testScan() {
+
+        for(KeyValueStore store : createStores()) {
+            String name = getName(store);
+            if(!store.isOrdered()) {
+                TestRunner.assertThrows(UnsupportedOperationException.class, () -> store.scan(null, true), name + " scanned keys that are not ordered.");
+                continue;
+            }
+
+            TreeSet<String> keys = new TreeSet<String>();
+            for(int i = 0; i < 1000; i++) {
+                String key = "key:" + String.valueOf(i * 7919 % 1000);
+                keys.add(key);
+                store.put(key, new StoreEntry("value", i + 1));
+            }
+
+            TestRunner.assertEquals(new ArrayList<String>(keys), collectKeys(store.scan(null, true)), name + " did not scan all the keys in order.");
+            TestRunner.assertEquals(new ArrayList<String>(keys.tailSet("key:500", true)), collectKeys(store.scan("key:500", true)), name + " did not scan from an inclusive start key.");
+            TestRunner.assertEquals(new ArrayList<String>(keys.tailSet("key:500", false)), collectKeys(store.scan("key:500", false)), name + " did not scan from an exclusive start key.");
+            TestRunner.assertEquals(new ArrayList<String>(keys.tailSet("key:5000", true)), collectKeys(store.scan("key:5000", true)), name + " did not scan from a missing start key.");
+            TestRunner.assertTrue(collectKeys(store.scan("z", true)).isEmpty(), name + " scanned keys after the last key.");
+        }
+
+    }
+
+    public static void testSpliterator() {
+
+        for(KeyValueStore store : createStores()) {
+            String name = getName(store);
+            Set<String> prefixedKeys = new HashSet<String>();
+            for(int i = 0; i < NUMBER_OF_KEYS; i++) {
+                String key = (i % 3 == 0 ? "prefix:" : "other:") + String.valueOf(i);
+                if(i % 3 == 0) {
+                    prefixedKeys.add(key);
+                }
+                store.put(key, new StoreEntry("value", i + 1));
+            }
+
+            // Split the spliterator as far as it goes, as an aggregation does, and walk every segment
+            List<Spliterator<Map.Entry<String, StoreEntry>>> segments = new ArrayList<Spliterator<Map.Entry<String, StoreEntry>>>();
+            segments.add(store.spliterator("prefix:"));
+            for(int i = 0; i < segments.size() && segments.size() < 64; i++) {
+                Spliterator<Map.Entry<String, StoreEntry>> segment = segments.get(i).trySplit();
+                if(segment != null) {
+                    segments.add(segment);
+                    i--;
+                }
+            }
+
+            Set<String> traversedKeys = new HashSet<String>();
+            for(Spliterator<Map.Entry<String, StoreEntry>> segment : segments) {
+                segment.forEachRemaining(entry -> {
+                    if(entry.getKey().startsWith("prefix:")) {
+                        TestRunner.assertTrue(traversedKeys.add(entry.getKey()), name + " traversed " + entry.getKey() + " twice.");
+                    }
+                });
+            }
+            TestRunner.assertEquals(prefixedKeys, traversedKeys, name + " did not traverse the keys with the prefix.");
+
+            Set<String> allKeys = new HashSet<String>();
+            store.spliterator(null).forEachRemaining(entry -> allKeys.add(entry.getKey()));
+            TestRunner.assertEquals(NUMBER_OF_KEYS, allKeys.size(), name + " did not traverse all the keys without a prefix.");
+        }
+
+    }
+
+    /*
+     * Every thread increments the same keys through compute, so an increment is lost if compute is not atomic
+     */
+    public static void testConcurrentCompute() throws InterruptedException {
+
+        for(KeyValueStore store : createStores(false)) {
+            String name = getName(store);
+            Thread[] threads = new Thread[NUMBER_OF_THREADS];
+            for(int t = 0; t < NUMBER_OF_THREADS; t++) {
+                threads[t] = new Thread(() -> {
+                    for(int i = 0; i < 2000; i++) {
+                        store.compute("counter:" + String.valueOf(i % 4), (key, currentEntry) -> {
+                            long count = currentEntry == null ? 0 : Long.parseLong(String.valueOf(currentEntry.getValue()));
+                            return new StoreEntry(String.valueOf(count + 1), count + 1);
+                        });
+                    }
+                });
+                threads[t].start();
+            }
+            for(Thread thread : threads) {
+                thread.join();
+            }
+
+            for(int i = 0; i < 4; i++) {
+                TestRunner.assertEquals(String.valueOf(NUMBER_OF_THREADS * 500), store.get("counter:" + String.valueOf(i)).getValue(), name + " lost concurrent updates.");
+            }
+        }
+
+    }
+
+    private static List<String> collectKeys(Iterator<Map.Entry<String, StoreEntry>> iterator) {
+
+        List<String> keys = new ArrayList<String>();
+        while(iterator.hasNext()) {
+            keys.add(iterator.next().getKey());
+        }
+        return keys;
+
+    }
+}
@@ -0,0 +1,117 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import edu.northeastern.cs6650.project1.TestRunner;
+import edu.northeastern.cs6650.project1.common.StoreType;
+import edu.northeastern.cs6650.project1.store.StoreEntry;
+import edu.northeastern.cs6650.project1.store.StoreFactory;
+import edu.northeastern.cs6650.project1.store.TombstoneStore;
+
+/*
+ * Tests of the range tombstones, reclaimed by the test thread as a store partition does
+ */
+public class TombstoneStoreTest {
+
+    private static final int NUMBER_OF_KEYS = 10000;
+
+    private static TombstoneStore createStore(StoreType storeType) {
+        return createStore(storeType, true);
+    }
+
+    private static TombstoneStore createStore(StoreType storeType, boolean isConcurrent) {
+
+        TombstoneStore store = new TombstoneStore(StoreFactory.createStore(storeType, isConcurrent), false);
+        for(int i = 0; i < NUMBER_OF_KEYS; i++) {
+            store.put("deleted:" + String.valueOf(i), new StoreEntry("value", i + 1));
+            store.put("kept:" + String.valueOf(i), new StoreEntry("value", i + 1));
+        }
+        return store;
+
+    }
+
+    public static void testDeletedKeysAreHiddenAtOnce() {
+
+        for(StoreType storeType : StoreType.values()) {
+            TombstoneStore store = createStore(storeType);
+            store.deletePrefix("deleted:", NUMBER_OF_KEYS + 1);
+            store.put("deleted:new", new StoreEntry("value", NUMBER_OF_KEYS + 2));
+
+            String name = storeType.name().toLowerCase();
+            TestRunner.assertEquals(null, store.get("deleted:0"), "The " + name + " store returned a deleted key.");
+            TestRunner.assertTrue(!store.containsKey("deleted:9999"), "The " + name + " store contains a deleted key.");
+            TestRunner.assertTrue(store.containsKey("deleted:new"), "The " + name + " store hid a key written after the deletion.");
+            TestRunner.assertTrue(store.containsKey("kept:0"), "The " + name + " store hid a key outside of the prefix.");
+
+            store.deleteRange("kept:1", "kept:2", NUMBER_OF_KEYS + 3);
+            TestRunner.assertTrue(!store.containsKey("kept:1500"), "The " + name + " store returned a key in a deleted range.");
+            TestRunner.assertTrue(store.containsKey("kept:2"), "The " + name + " store hid the end key of a deleted range.");
+            TestRunner.assertTrue(store.containsKey("kept:0"), "The " + name + " store hid a key before a deleted range.");
+        }
+
+    }
+
+    /*
+     * Every call to reclaim visits a bounded batch of keys, while writes keep going between the calls
+     */
+    public static void testReclaimIsIncremental() {
+
+        for(StoreType storeType : StoreType.values()) {
+            TombstoneStore store = createStore(storeType);
+            String name = storeType.name().toLowerCase();
+            store.deletePrefix("deleted:", NUMBER_OF_KEYS + 1);
+
+            int calls = 0;
+            int previousSize = store.size();
+            long version = NUMBER_OF_KEYS + 2;
+            while(store.reclaim()) {
+                calls++;
+                TestRunner.assertTrue(previousSize - store.size() <= TombstoneStore.RECLAIM_BATCH_SIZE, "A call to reclaim of the " + name + " store removed more than a batch of keys.");
+
+                store.put("written:" + String.valueOf(calls), new StoreEntry("value", version++));
+                store.remove("kept:" + String.valueOf(calls));
+                previousSize = store.size();
+            }
+
+            TestRunner.assertTrue(calls >= NUMBER_OF_KEYS / TombstoneStore.RECLAIM_BATCH_SIZE, "The " + name + " store was reclaimed in too few calls.");
+            // Every call wrote one key and removed another, so only the kept keys are left
+            TestRunner.assertEquals(NUMBER_OF_KEYS, store.size(), "The " + name + " store kept deleted keys after they were reclaimed.");
+            TestRunner.assertTrue(store.containsKey("written:1") && store.containsKey("kept:" + String.valueOf(calls + 1)), "The " + name + " store lost keys written during the reclaim.");
+            TestRunner.assertTrue(!store.reclaim(), "The " + name + " store has more to reclaim after its last tombstone.");
+        }
+
+    }
+
+    public static void testReclaimSurvivesResize() {
+
+        // The unsynchronized hash store of a store partition grows while its deleted keys are reclaimed
+        TombstoneStore store = createStore(StoreType.HASH, false);
+        store.deletePrefix("deleted:", NUMBER_OF_KEYS + 1);
+
+        int calls = 0;
+        long version = NUMBER_OF_KEYS + 2;
+        while(store.reclaim()) {
+            calls++;
+            for(int i = 0; i < 200; i++) {
+                store.put("written:" + String.valueOf(calls) + ":" + String.valueOf(i), new StoreEntry("value", version++));
+            }
+        }
+
+        TestRunner.assertEquals(NUMBER_OF_KEYS + calls * 200, store.size(), "The hash store kept deleted keys after it was resized during a reclaim.");
+        TestRunner.assertTrue(store.containsKey("written:1:0") && store.containsKey("kept:0"), "The hash store lost keys during a reclaim.");
+
+    }
+}
@@ -0,0 +1,120 @@
+package edu.northeastern.cs6650.project1.store;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.northeastern.cs6650.project1.TestRunner;
+import edu.northeastern.cs6650.project1.store.LargeValue;
+import edu.northeastern.cs6650.project1.store.ValueLog;
+
+/*
+ * Tests of the value log, with small segments so that values fill several of them
+ */
+public class ValueLogTest {
+
+    private static final int SEGMENT_SIZE = 1 << 16;
+    private static final int VALUE_SIZE = 1 << 12;
+
+    private static byte[] createValue(int i) {
+
+        byte[] value = new byte[VALUE_SIZE];
+        Arrays.fill(value, (byte) ('a' + i % 26));
+        return value;
+
+    }
+
+    /*
+     * Collects garbage until the log shrinks to a size, so that the cleaner releases the unreachable values
+     */
+    private static boolean waitForSize(ValueLog valueLog, long expectedSize) throws InterruptedException {
+
+        for(int i = 0; i < 100 && valueLog.size() > expectedSize; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return valueLog.size() <= expectedSize;
+
+    }
+
+    public static void testValuesAreReadBack() throws IOException {
+
+        ValueLog valueLog = new ValueLog(SEGMENT_SIZE, 1 << 20);
+        List<LargeValue> values = new ArrayList<LargeValue>();
+        for(int i = 0; i < 100; i++) {
+            values.add(valueLog.append(createValue(i)));
+        }
+
+        for(int i = 0; i < 100; i++) {
+            TestRunner.assertEquals(new String(createValue(i), StandardCharsets.UTF_8), values.get(i).toString(), "The value log returned the wrong bytes for value " + String.valueOf(i) + ".");
+        }
+
+    }
+
+    /*
+     * Overwriting the same key again and again only keeps the active segment and the segment of the current value,
+     * even though the values written add up to four times the maximum size of the log
+     * 
+     * An append to the full log fails at once, so the test waits for the cleaner and appends the value again.
+     */
+    public static void testSegmentsOfUnreachableValuesAreDeleted() throws IOException, InterruptedException {
+
+        ValueLog valueLog = new ValueLog(SEGMENT_SIZE, 1 << 20);
+        LargeValue currentValue = null;
+        for(int i = 0; i < 1000; i++) {
+            try {
+                currentValue = valueLog.append(createValue(i));
+            } catch (IOException ioe) {
+                TestRunner.assertTrue(waitForSize(valueLog, 2 * SEGMENT_SIZE), "The segments of overwritten values were not deleted, the log holds " + String.valueOf(valueLog.size()) + " bytes.");
+                currentValue = valueLog.append(createValue(i));
+            }
+        }
+
+        TestRunner.assertTrue(waitForSize(valueLog, 2 * SEGMENT_SIZE), "The segments of overwritten values were not deleted, the log holds " + String.valueOf(valueLog.size()) + " bytes.");
+        TestRunner.assertEquals(new String(createValue(999), StandardCharsets.UTF_8), currentValue.toString(), "The current value was reclaimed.");
+
+    }
+
+    public static void testAppendFailsBeyondMaxSizeOfLiveValues() throws IOException, InterruptedException {
+
+        ValueLog valueLog = new ValueLog(SEGMENT_SIZE, 4 * SEGMENT_SIZE);
+        List<LargeValue> values = new ArrayList<LargeValue>();
+        for(int i = 0; i < 4 * SEGMENT_SIZE / VALUE_SIZE; i++) {
+            values.add(valueLog.append(createValue(i)));
+        }
+
+        TestRunner.assertThrows(Exception.class, () -> {
+            try {
+                valueLog.append(createValue(0));
+            } catch (IOException ioe) {
+                throw new RuntimeException(ioe);
+            }
+        }, "The value log grew beyond its maximum size.");
+        TestRunner.assertEquals(4L * SEGMENT_SIZE, valueLog.size(), "The value log has the wrong size.");
+
+        // Once the values are dropped, their segments are deleted and the log accepts values again
+        values.clear();
+        TestRunner.assertTrue(waitForSize(valueLog, SEGMENT_SIZE), "The segments of dropped values were not deleted.");
+        for(int i = 0; i < 4 * SEGMENT_SIZE / VALUE_SIZE; i++) {
+            values.add(valueLog.append(createValue(i)));
+        }
+
+    }
+}
@@ -0,0 +1,152 @@
+package edu.northeastern.cs6650.project2.benchmark;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.northeastern.cs6650.project2.common.ExecutionModel;
+import edu.northeastern.cs6650.project2.common.Utils;
+import edu.northeastern.cs6650.project2.interfaces.KeyValueStoreInterface;
+import edu.northeastern.cs6650.project2.server.KeyValueStoreRMIServer;
+
+/*
+ * Benchmark of the throughput and latency of the RMI server under many concurrent clients
+ * 
+ * For every execution model a server is bound in an RMI registry started by the benchmark, and
+ * prepopulated with a set of keys. Every client then runs on a thread of its own and calls the
+ * remote object through the registry, with nine GET requests for every PUT on keys picked at random.
+ * All the clients start together, and the throughput counts every request from the start until the
+ * last client is done. The first tenth of the requests of every client warms up the connections and
+ * is left out of the latencies. The metrics of the executor follow the pool and virtual models.
+ */
+public class RMIBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 1000;
+
+    public static void main(String[] arguments) throws Exception {
+
+        if(arguments.length < 3) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project2.benchmark.RMIBenchmark <registry port> <number of clients> <requests per client> [<execution model> [<pool size>]].");
+            return;
+        }
+
+        int registryPort = Integer.parseInt(arguments[0]);
+        int numberOfClients = Integer.parseInt(arguments[1]);
+        int requestsPerClient = Integer.parseInt(arguments[2]);
+        List<ExecutionModel> executionModels = new ArrayList<ExecutionModel>();
+        if(arguments.length > 3) {
+            executionModels.add(ExecutionModel.valueOf(arguments[3].toUpperCase()));
+        } else {
+            executionModels.addAll(Arrays.asList(ExecutionModel.values()));
+        }
+        int poolSize = arguments.length > 4 ? Integer.parseInt(arguments[4]) : Runtime.getRuntime().availableProcessors();
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        System.setProperty("java.rmi.server.hostname", "127.0.0.1");
+        Registry rmiRegistry = LocateRegistry.createRegistry(registryPort);
+
+        System.out.println("execution model\tclients\tthroughput (requests/s)\tp50 (us)\tp99 (us)\tmax (us)\tfailed requests");
+        for(ExecutionModel executionModel : executionModels) {
+            KeyValueStoreRMIServer serverApp = new KeyValueStoreRMIServer(executionModel, poolSize, KeyValueStoreRMIServer.DEFAULT_QUEUE_CAPACITY);
+            rmiRegistry.rebind(Utils.KEY_VALUE_STORE_RMI_SERVER_NAME, serverApp);
+
+            run(executionModel, registryPort, numberOfClients, requestsPerClient);
+            if(serverApp.getExecutionModel() != ExecutionModel.INLINE) {
+                System.out.println(serverApp.getExecutorMetrics());
+            }
+
+            rmiRegistry.unbind(Utils.KEY_VALUE_STORE_RMI_SERVER_NAME);
+            UnicastRemoteObject.unexportObject(serverApp, true);
+            serverApp.shutdown();
+        }
+
+        UnicastRemoteObject.unexportObject(rmiRegistry, true);
+
+    }
+
+    private static void run(ExecutionModel executionModel, int registryPort, int numberOfClients, int requestsPerClient) throws Exception {
+
+        // The lookup goes through a stub of the registry, which returns a stub of the server, so that the calls go over RMI as they would from another host
+        Registry serverRegistry = LocateRegistry.getRegistry("127.0.0.1", registryPort);
+        KeyValueStoreInterface serverInterface = (KeyValueStoreInterface) serverRegistry.lookup(Utils.KEY_VALUE_STORE_RMI_SERVER_NAME);
+        for(int i = 0; i < NUMBER_OF_KEYS; i++) {
+            serverInterface.putKeyValue("key:" + String.valueOf(i), "value:" + String.valueOf(i));
+        }
+
+        int warmupRequests = requestsPerClient / 10;
+        int measuredRequests = requestsPerClient - warmupRequests;
+        long[] latencies = new long[numberOfClients * measuredRequests];
+        LongAdder failedRequests = new LongAdder();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        Thread[] clients = new Thread[numberOfClients];
+
+        for(int c = 0; c < numberOfClients; c++) {
+            int offset = c * measuredRequests;
+            clients[c] = new Thread(() -> {
+                try {
+                    startSignal.await();
+                    for(int i = 0; i < requestsPerClient; i++) {
+                        String key = "key:" + String.valueOf(ThreadLocalRandom.current().nextInt(NUMBER_OF_KEYS));
+                        long startTime = System.nanoTime();
+                        try {
+                            if(ThreadLocalRandom.current().nextInt(10) == 0) {
+                                serverInterface.putKeyValue(key, "value");
+                            } else {
+                                serverInterface.getValue(key);
+                            }
+                        } catch (Exception exp) {
+                            failedRequests.increment();
+                        }
+                        if(i >= warmupRequests) {
+                            latencies[offset + i - warmupRequests] = System.nanoTime() - startTime;
+                        }
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            clients[c].start();
+        }
+
+        long benchmarkStartTime = System.nanoTime();
+        startSignal.countDown();
+        for(Thread client : clients) {
+            client.join();
+        }
+        long elapsedTime = System.nanoTime() - benchmarkStartTime;
+
+        Arrays.sort(latencies);
+        System.out.println(executionModel.name().toLowerCase() + "\t" + String.valueOf(numberOfClients)
+            + "\t" + String.format("%.0f", (long) numberOfClients * requestsPerClient * 1e9 / elapsedTime)
+            + "\t" + String.valueOf(getPercentile(latencies, 5000) / 1000) + "\t" + String.valueOf(getPercentile(latencies, 9900) / 1000)
+            + "\t" + String.valueOf(latencies[latencies.length - 1] / 1000) + "\t" + String.valueOf(failedRequests.sum()));
+
+    }
+
+    private static long getPercentile(long[] sortedLatencies, int basisPoints) {
+        return sortedLatencies[Math.min(sortedLatencies.length - 1, (int) (sortedLatencies.length * (long) basisPoints / 10000))];
+    }
+}
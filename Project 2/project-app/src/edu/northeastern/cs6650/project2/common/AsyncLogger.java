@@ -0,0 +1,477 @@
+package edu.northeastern.cs6650.project2.common;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/*
+ * A logger for the request path, which hands its messages to a background thread instead of
+ * formatting and writing them on the thread that serves the request
+ *
+ * Every kind of message is declared once as a Message, with a format in which each {} is replaced
+ * by an argument. Logging a message only checks the level of the underlying Logger, samples and
+ * rate limits the message, and copies the references to its arguments into a preallocated slot
+ * of a ring buffer shared by all the loggers. The arguments are only formatted by the background
+ * thread, so they must not be changed after they are logged. When the ring buffer is full the
+ * message is dropped rather than blocking the request, and the number of dropped messages is
+ * reported with a warning.
+ *
+ * In the text mode, the background thread formats the messages and publishes them to the
+ * underlying Logger, so they go through the usual handlers and formatters. In the binary mode, it
+ * writes a compact record of each message to a file instead : its id, the time, the client port
+ * and, for each argument, its length or its value if it is a number. The first record of each
+ * message defines its id, name and format.
+ *
+ * The logger is configured with the logging properties, where the prefix is the name of this
+ * class : mode (text or binary), bufferSize, binaryPath and maxArgumentLength. Each message can
+ * be sampled and rate limited with <logger name>.<message name>.sampling, which logs one in
+ * every sampling messages, and <logger name>.<message name>.rateLimit, the number of messages
+ * logged per second.
+ */
+public class AsyncLogger {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncLogger.class.getName());
+
+    private static final String PROPERTY_PREFIX = AsyncLogger.class.getName() + ".";
+    public static final int BINARY_MAGIC = 0x4b564c47;
+    private static final byte DEFINITION_RECORD = 0;
+    private static final byte MESSAGE_RECORD = 1;
+    private static final int MAX_ARGUMENTS = 4;
+
+    private static final AtomicInteger nextMessageId = new AtomicInteger();
+
+    private final Logger logger;
+
+    private AsyncLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public static AsyncLogger getLogger(Class<?> loggingClass) {
+        return new AsyncLogger(Logger.getLogger(loggingClass.getName()));
+    }
+
+    /*
+     * Declares a message logged at the INFO level
+     */
+    public Message message(String name, String format) {
+        return message(name, Level.INFO, format);
+    }
+
+    public Message message(String name, Level level, String format) {
+
+        String propertyPrefix = logger.getName() + "." + name + ".";
+        return new Message(this, nextMessageId.getAndIncrement(), name, level, format,
+            getIntProperty(propertyPrefix + "sampling", 1), getIntProperty(propertyPrefix + "rateLimit", 0));
+
+    }
+
+    private static String getProperty(String name, String defaultValue) {
+
+        String value = LogManager.getLogManager().getProperty(name);
+        return value == null ? defaultValue : value.trim();
+
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+
+        String value = getProperty(name, null);
+        if(value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch(NumberFormatException e) {
+            LOGGER.warning("The logging property " + name + " is not a number, " + String.valueOf(defaultValue) + " is used instead.");
+            return defaultValue;
+        }
+
+    }
+
+    /*
+     * A kind of message, with the sampling and the rate limit it is logged with
+     */
+    public static class Message {
+
+        private final AsyncLogger asyncLogger;
+        private final int id;
+        private final String name;
+        private final Level level;
+        private final String format;
+        private final int sampling;
+        private final int rateLimit;
+        private volatile long rateLimitWindow;
+        private final AtomicInteger messagesInWindow = new AtomicInteger();
+        private volatile boolean isDefined;
+
+        private Message(AsyncLogger asyncLogger, int id, String name, Level level, String format, int sampling, int rateLimit) {
+            this.asyncLogger = asyncLogger;
+            this.id = id;
+            this.name = name;
+            this.level = level;
+            this.format = format;
+            this.sampling = sampling;
+            this.rateLimit = rateLimit;
+        }
+
+        public void log(Object first) {
+            log(null, -1, 1, first, null, null, null);
+        }
+
+        public void log(Object first, Object second) {
+            log(null, -1, 2, first, second, null, null);
+        }
+
+        /*
+         * Logs the message for a request of a client, prefixed with the address and the port of the client,
+         * where a negative port is left out
+         */
+        public void logRequest(String clientAddress, int clientPort, Object first) {
+            log(clientAddress, clientPort, 1, first, null, null, null);
+        }
+
+        public void logRequest(String clientAddress, int clientPort, Object first, Object second) {
+            log(clientAddress, clientPort, 2, first, second, null, null);
+        }
+
+        public void logRequest(String clientAddress, int clientPort, Object first, Object second, Object third) {
+            log(clientAddress, clientPort, 3, first, second, third, null);
+        }
+
+        public void logRequest(String clientAddress, int clientPort, Object first, Object second, Object third, Object fourth) {
+            log(clientAddress, clientPort, 4, first, second, third, fourth);
+        }
+
+        private void log(String clientAddress, int clientPort, int numberOfArguments, Object first, Object second, Object third, Object fourth) {
+
+            if(!asyncLogger.logger.isLoggable(level)) {
+                return;
+            }
+
+            if(sampling > 1 && ThreadLocalRandom.current().nextInt(sampling) != 0) {
+                return;
+            }
+
+            if(rateLimit > 0 && !isWithinRateLimit()) {
+                return;
+            }
+
+            Dispatcher.INSTANCE.publish(this, clientAddress, clientPort, numberOfArguments, first, second, third, fourth);
+
+        }
+
+        /*
+         * Counts the message in the window of the current second, the window is reset without locking
+         * so a few more messages than the limit may be logged when the second changes
+         */
+        private boolean isWithinRateLimit() {
+
+            long window = System.currentTimeMillis() / 1000;
+            if(window != rateLimitWindow) {
+                rateLimitWindow = window;
+                messagesInWindow.set(0);
+            }
+
+            return messagesInWindow.incrementAndGet() <= rateLimit;
+
+        }
+
+    }
+
+    /*
+     * A slot of the ring buffer, which is published by setting its sequence to one past the position it was claimed at
+     */
+    private static class Slot {
+
+        private volatile long sequence;
+        private Message message;
+        private long time;
+        private String clientAddress;
+        private int clientPort;
+        private int numberOfArguments;
+        private final Object arguments[] = new Object[MAX_ARGUMENTS];
+
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+    }
+
+    /*
+     * The ring buffer shared by all the loggers and the background thread that drains it
+     *
+     * Producers claim a position with a compare and set on the next position, the slot at a
+     * position is free once its sequence has caught up with the position, so the ring buffer is
+     * full when the slot still holds the message of the previous lap.
+     */
+    private static class Dispatcher {
+
+        private static final Dispatcher INSTANCE = new Dispatcher();
+
+        private final Slot slots[];
+        private final int mask;
+        private final AtomicLong nextPosition = new AtomicLong();
+        private long consumerPosition;
+        private long lastDroppedWarning;
+        private final LongAdder droppedMessages = new LongAdder();
+        private final boolean isBinary;
+        private final int maxArgumentLength;
+        private final StringBuilder text = new StringBuilder();
+        private DataOutputStream binaryOutput;
+
+        private Dispatcher() {
+
+            int bufferSize = Integer.highestOneBit(Math.max(getIntProperty(PROPERTY_PREFIX + "bufferSize", 8192) - 1, 1)) << 1;
+            this.slots = new Slot[bufferSize];
+            for(int i = 0; i < bufferSize; i++) {
+                slots[i] = new Slot(i);
+            }
+
+            this.mask = bufferSize - 1;
+            this.maxArgumentLength = getIntProperty(PROPERTY_PREFIX + "maxArgumentLength", 1024);
+            this.isBinary = getProperty(PROPERTY_PREFIX + "mode", "text").equalsIgnoreCase("binary");
+            if(isBinary) {
+                String binaryPath = getProperty(PROPERTY_PREFIX + "binaryPath", "requests.log");
+                try {
+                    binaryOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryPath), 1 << 16));
+                    binaryOutput.writeInt(BINARY_MAGIC);
+                } catch(IOException e) {
+                    LOGGER.severe("Error opening the binary log " + binaryPath + ", the messages are dropped.");
+                    binaryOutput = null;
+                }
+            }
+
+            Thread consumer = new Thread(this::drainInBackground, "async-logger");
+            consumer.setDaemon(true);
+            consumer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+
+        }
+
+        private void publish(Message message, String clientAddress, int clientPort, int numberOfArguments, Object first, Object second, Object third, Object fourth) {
+
+            long position;
+            Slot slot;
+            while(true) {
+                position = nextPosition.get();
+                slot = slots[(int) position & mask];
+                long sequence = slot.sequence;
+                if(sequence < position) {
+                    droppedMessages.increment();
+                    return;
+                }
+                if(sequence == position && nextPosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            }
+
+            slot.message = message;
+            slot.time = System.currentTimeMillis();
+            slot.clientAddress = clientAddress;
+            slot.clientPort = clientPort;
+            slot.numberOfArguments = numberOfArguments;
+            slot.arguments[0] = first;
+            slot.arguments[1] = second;
+            slot.arguments[2] = third;
+            slot.arguments[3] = fourth;
+            slot.sequence = position + 1;
+
+        }
+
+        private void drainInBackground() {
+
+            while(true) {
+                if(drain() == 0) {
+                    LockSupport.parkNanos(1_000_000);
+                }
+            }
+
+        }
+
+        /*
+         * Writes out every published message and returns how many there were
+         */
+        private synchronized int drain() {
+
+            int drained = 0;
+            while(true) {
+                Slot slot = slots[(int) consumerPosition & mask];
+                if(slot.sequence != consumerPosition + 1) {
+                    break;
+                }
+
+                try {
+                    if(isBinary) {
+                        writeBinary(slot);
+                    } else {
+                        writeText(slot);
+                    }
+                } catch(RuntimeException e) {
+                    LOGGER.severe("Error writing the message " + slot.message.name + " to the log.");
+                }
+
+                slot.message = null;
+                slot.clientAddress = null;
+                for(int i = 0; i < MAX_ARGUMENTS; i++) {
+                    slot.arguments[i] = null;
+                }
+                slot.sequence = consumerPosition + slots.length;
+                consumerPosition++;
+                drained++;
+            }
+
+            // Report the dropped messages at most once per second
+            long now = System.currentTimeMillis();
+            if(now - lastDroppedWarning >= 1000) {
+                long dropped = droppedMessages.sumThenReset();
+                if(dropped > 0) {
+                    lastDroppedWarning = now;
+                    LOGGER.warning(String.valueOf(dropped) + " log messages were dropped since the log buffer was full.");
+                }
+            }
+
+            if(drained == 0) {
+                flushBinaryOutput();
+            }
+
+            return drained;
+
+        }
+
+        /*
+         * Writes out the messages left in the ring buffer when the server shuts down
+         */
+        private synchronized void close() {
+
+            drain();
+            flushBinaryOutput();
+
+        }
+
+        private void flushBinaryOutput() {
+
+            if(binaryOutput == null) {
+                return;
+            }
+
+            try {
+                binaryOutput.flush();
+            } catch(IOException e) {
+                LOGGER.severe("Error flushing the binary log.");
+            }
+
+        }
+
+        private void writeText(Slot slot) {
+
+            Message message = slot.message;
+            text.setLength(0);
+            if(slot.clientAddress != null) {
+                text.append(slot.clientAddress);
+                if(slot.clientPort >= 0) {
+                    text.append(':').append(slot.clientPort);
+                }
+                text.append("::");
+            }
+
+            int argument = 0;
+            int start = 0;
+            int placeholder;
+            while((placeholder = message.format.indexOf("{}", start)) >= 0) {
+                text.append(message.format, start, placeholder);
+                if(argument < slot.numberOfArguments) {
+                    appendArgument(String.valueOf(slot.arguments[argument++]));
+                } else {
+                    text.append("{}");
+                }
+                start = placeholder + 2;
+            }
+            text.append(message.format, start, message.format.length());
+
+            LogRecord record = new LogRecord(message.level, text.toString());
+            record.setInstant(Instant.ofEpochMilli(slot.time));
+            record.setLoggerName(message.asyncLogger.logger.getName());
+            record.setSourceClassName(message.asyncLogger.logger.getName());
+            record.setSourceMethodName(message.name);
+            message.asyncLogger.logger.log(record);
+
+        }
+
+        private void appendArgument(String argument) {
+
+            if(maxArgumentLength <= 0 || argument.length() <= maxArgumentLength) {
+                text.append(argument);
+                return;
+            }
+
+            text.append(argument, 0, maxArgumentLength).append("... (").append(argument.length() - maxArgumentLength).append(" more characters)");
+
+        }
+
+        private void writeBinary(Slot slot) {
+
+            if(binaryOutput == null) {
+                return;
+            }
+
+            Message message = slot.message;
+            try {
+                if(!message.isDefined) {
+                    binaryOutput.writeByte(DEFINITION_RECORD);
+                    binaryOutput.writeInt(message.id);
+                    binaryOutput.writeUTF(message.asyncLogger.logger.getName() + "." + message.name);
+                    binaryOutput.writeUTF(message.format);
+                    message.isDefined = true;
+                }
+
+                binaryOutput.writeByte(MESSAGE_RECORD);
+                binaryOutput.writeInt(message.id);
+                binaryOutput.writeLong(slot.time);
+                binaryOutput.writeInt(slot.clientPort);
+                binaryOutput.writeByte(slot.numberOfArguments);
+                for(int i = 0; i < slot.numberOfArguments; i++) {
+                    Object argument = slot.arguments[i];
+                    if(argument instanceof Number) {
+                        binaryOutput.writeLong(((Number) argument).longValue());
+                    } else if(argument instanceof CharSequence) {
+                        binaryOutput.writeLong(((CharSequence) argument).length());
+                    } else {
+                        binaryOutput.writeLong(argument == null ? -1 : String.valueOf(argument).length());
+                    }
+                }
+            } catch(IOException e) {
+                LOGGER.severe("Error writing to the binary log, the messages are dropped from now on.");
+                binaryOutput = null;
+            }
+
+        }
+
+    }
+
+}
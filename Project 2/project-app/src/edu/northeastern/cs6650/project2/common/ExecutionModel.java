@@ -0,0 +1,28 @@
+package edu.northeastern.cs6650.project2.common;
+/**
+ * Copyright 2023 Ashish Kumar
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * Enum containing values for the ways the server can execute the accesses to the key value storage
+ *
+ * INLINE runs them on the RMI thread that received the call, POOL hands them to a fixed number of
+ * worker threads through a bounded queue, and VIRTUAL runs each of them on a new virtual thread.
+ */
+public enum ExecutionModel {
+    INLINE,
+    POOL,
+    VIRTUAL
+}
@@ -18,28 +18,130 @@ package edu.northeastern.cs6650.project2.server;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.rmi.Naming;
 import java.rmi.RemoteException;
 import java.rmi.RMISecurityManager;
 import java.rmi.server.UnicastRemoteObject;
 
+import edu.northeastern.cs6650.project2.common.AsyncLogger;
+import edu.northeastern.cs6650.project2.common.ExecutionModel;
 import edu.northeastern.cs6650.project2.common.ServerResponseCode;
 import edu.northeastern.cs6650.project2.common.Utils;
 import edu.northeastern.cs6650.project2.interfaces.KeyValueStoreInterface;
 
 /*
  * Class that implements an RMI server for key value storage
+ *
+ * RMI already runs every call on a thread of its own, so the accesses to the storage are executed
+ * in one of three ways chosen when the server is created. INLINE runs them on the calling thread,
+ * which costs nothing more than the lock on the storage. POOL hands them to a fixed number of
+ * worker threads through a bounded queue, which caps the threads contending for the lock and
+ * rejects calls once the queue is full, and keeps metrics of the queue. VIRTUAL runs each of
+ * them on a new virtual thread, which needs Java 21, and falls back to INLINE on older runtimes.
+ * Every call returns after its access is executed, so a GET always sees an earlier PUT.
  */
 public class KeyValueStoreRMIServer extends UnicastRemoteObject implements KeyValueStoreInterface {
 
     private static final Logger LOGGER = Logger.getLogger(KeyValueStoreRMIServer.class.getName());
+    private static final AsyncLogger ASYNC_LOGGER = AsyncLogger.getLogger(KeyValueStoreRMIServer.class);
+    private static final AsyncLogger.Message PUT_RECEIVED = ASYNC_LOGGER.message("PUT_RECEIVED", "The key received for PUT request is : {}.\nThe value received for PUT request is : {}.");
+    private static final AsyncLogger.Message DELETE_RECEIVED = ASYNC_LOGGER.message("DELETE_RECEIVED", "The key received for DELETE request is : {}");
+    private static final AsyncLogger.Message GET_RECEIVED = ASYNC_LOGGER.message("GET_RECEIVED", "The key received for GET request is : {}.");
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final long METRICS_INTERVAL_SECONDS = 60;
 
     protected Map<String, String> keyValueStore = new HashMap<String, String>();
     Object keyValueStoreMutex = new Object();
 
+    private final ExecutionModel executionModel;
+    // Executes the accesses to the storage, or is null when they are executed inline
+    private final ExecutorService executor;
+    private final ScheduledExecutorService metricsLogger;
+
+    private final LongAdder submittedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private final LongAccumulator largestQueueDepth = new LongAccumulator(Long::max, 0);
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Long::max, 0);
+
     public KeyValueStoreRMIServer() throws RemoteException {
+        this(ExecutionModel.INLINE, 0, 0);
+    }
+
+    public KeyValueStoreRMIServer(ExecutionModel executionModel, int poolSize, int queueCapacity) throws RemoteException {
         super();
+
+        if(executionModel == ExecutionModel.POOL) {
+            if(poolSize < 1 || queueCapacity < 1) {
+                throw new IllegalArgumentException("The pool size and the queue capacity should be positive.");
+            }
+            executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), createDaemonThreadFactory("key-value-store-worker-"));
+        } else if(executionModel == ExecutionModel.VIRTUAL) {
+            executor = createVirtualThreadExecutor();
+        } else {
+            executor = null;
+        }
+
+        this.executionModel = executor == null ? ExecutionModel.INLINE : executionModel;
+        if(executor != null) {
+            metricsLogger = Executors.newSingleThreadScheduledExecutor(createDaemonThreadFactory("key-value-store-metrics-"));
+            metricsLogger.scheduleAtFixedRate(() -> LOGGER.info(getExecutorMetrics()), METRICS_INTERVAL_SECONDS, METRICS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } else {
+            metricsLogger = null;
+        }
+
+        LOGGER.info("The server executes the requests with the " + this.executionModel.name().toLowerCase() + " execution model.");
+    }
+
+    public ExecutionModel getExecutionModel() {
+        return executionModel;
+    }
+
+    /*
+     * Returns the number of accesses handed to the executor and rejected by it, the current and largest
+     * depth of its queue, and the mean and longest time an access waited before it started
+     */
+    public String getExecutorMetrics() {
+
+        long submitted = submittedTasks.sum();
+        int queueDepth = executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+        return "Execution model : " + executionModel.name().toLowerCase()
+            + ", submitted : " + String.valueOf(submitted)
+            + ", rejected : " + String.valueOf(rejectedTasks.sum())
+            + ", queue depth : " + String.valueOf(queueDepth)
+            + ", largest queue depth : " + String.valueOf(largestQueueDepth.get())
+            + ", mean queue wait (us) : " + String.valueOf(submitted == 0 ? 0 : queueWaitNanos.sum() / submitted / 1000)
+            + ", max queue wait (us) : " + String.valueOf(maxQueueWaitNanos.get() / 1000) + ".";
+
+    }
+
+    /*
+     * Stops the worker threads once the accesses already handed to them are executed
+     */
+    public void shutdown() {
+
+        if(executor != null) {
+            executor.shutdown();
+            metricsLogger.shutdownNow();
+        }
+
     }
 
     /*
@@ -58,15 +160,14 @@ public class KeyValueStoreRMIServer extends UnicastRemoteObject implements KeyVa
             throw new IllegalArgumentException("The key or value or both are invalid.");
         }
 
-        LOGGER.info(clientAddress + "::" + "The key received for PUT request is : " + key + ".\nThe value received for PUT request is : " + value + ".");
+        PUT_RECEIVED.logRequest(clientAddress, -1, key, value);
         
-        new Thread(new Runnable() {
-            public void run() {
-                synchronized (keyValueStoreMutex) {
-                    keyValueStore.put(key, value);
-                }
+        execute(() -> {
+            synchronized (keyValueStoreMutex) {
+                keyValueStore.put(key, value);
             }
-        }).start();
+            return null;
+        });
     }
 
 
@@ -86,30 +187,21 @@ public class KeyValueStoreRMIServer extends UnicastRemoteObject implements KeyVa
             throw new IllegalArgumentException("The key is empty or invalid.");
         }
 
-        LOGGER.info(clientAddress + "::" + "The key received for DELETE request is : " + key);
+        DELETE_RECEIVED.logRequest(clientAddress, -1, key);
 
         // Check if local key value storage contains a key, then delete the key
         // If key does not exist, throw a NoSuchElementException
-        final boolean flag[] = { false };
-        Thread runner = new Thread(new Runnable() {
-            public void run() {
-                synchronized (keyValueStoreMutex) {
-                    if(keyValueStore.containsKey(key)) {
-                        keyValueStore.remove(key);
-                        flag[0] = true;
-                    } 
+        boolean deleted = execute(() -> {
+            synchronized (keyValueStoreMutex) {
+                if(keyValueStore.containsKey(key)) {
+                    keyValueStore.remove(key);
+                    return true;
                 }
+                return false;
             }
         });
-        
-        runner.start();
-        try {
-            runner.join();
-        } catch (Exception exp) {
-            LOGGER.severe("The server was interrupted.");
-        }
 
-        if(!flag[0]) {
+        if(!deleted) {
             throw new NoSuchElementException("This key does not exist in the system : "+ key + ".");
         }
     }
@@ -130,35 +222,93 @@ public class KeyValueStoreRMIServer extends UnicastRemoteObject implements KeyVa
             throw new IllegalArgumentException("The key is empty or invalid.");
         }
 
-        LOGGER.info(clientAddress + "::" + "The key received for GET request is : " + key + ".");
+        GET_RECEIVED.logRequest(clientAddress, -1, key);
 
         // Check if local key value storage contains a key, fetch and return the corresponding value
         // If key does not exist, throw a NoSuchElementException
-        final String[] valueString = {""};
-        
-        // run the synchronized block in a thread
-        Thread runner = new Thread(new Runnable() {
-            public void run() {
-                synchronized (keyValueStoreMutex) {
-                    if(keyValueStore.containsKey(key)) {
-                        valueString[0] = keyValueStore.get(key);
-                    } 
-                }
+        String value = execute(() -> {
+            synchronized (keyValueStoreMutex) {
+                return keyValueStore.get(key);
             }
         });
 
-        runner.start();
+        if(value == null) {
+            throw new NoSuchElementException("This key does not exist in the system : "+ key + ".");
+        }
+
+        return value;
+    }
+
+    /*
+     * Executes an access to the storage with the execution model of the server and waits for its result
+     *
+     * An access rejected because the queue of the pool is full fails the call with a RemoteException,
+     * so that the client sees the server is overloaded instead of waiting behind the queue.
+     */
+    private <T> T execute(Supplier<T> task) throws RemoteException {
+
+        if(executor == null) {
+            return task.get();
+        }
+
+        long submitTime = System.nanoTime();
+        Future<T> future;
         try {
-            runner.join();
-        } catch (Exception exp) {
-            LOGGER.severe("The server was interrupted.");
+            future = executor.submit(() -> {
+                long queueWait = System.nanoTime() - submitTime;
+                queueWaitNanos.add(queueWait);
+                maxQueueWaitNanos.accumulate(queueWait);
+                return task.get();
+            });
+        } catch (RejectedExecutionException ree) {
+            rejectedTasks.increment();
+            throw new RemoteException("The server is overloaded, the request queue is full.");
         }
 
-        if(valueString[0].equals("")) {
-            throw new NoSuchElementException("This key does not exist in the system : "+ key + ".");
+        submittedTasks.increment();
+        if(executor instanceof ThreadPoolExecutor) {
+            largestQueueDepth.accumulate(((ThreadPoolExecutor) executor).getQueue().size());
         }
 
-        return valueString[0];
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("The server was interrupted.");
+        } catch (ExecutionException ee) {
+            if(ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new RemoteException("The request could not be executed.", ee.getCause());
+        }
+
+    }
+
+    /*
+     * Returns an executor that starts a virtual thread per task, or null if the runtime has no virtual threads
+     *
+     * The executor is looked up by reflection, so that the project still compiles and runs before Java 21.
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException roe) {
+            LOGGER.warning("Virtual threads are not available in this Java runtime, the requests are executed inline.");
+            return null;
+        }
+
+    }
+
+    private static ThreadFactory createDaemonThreadFactory(String namePrefix) {
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + String.valueOf(threadNumber.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+
     }
     
 }
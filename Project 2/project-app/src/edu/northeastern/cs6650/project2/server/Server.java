@@ -23,6 +23,7 @@ import java.rmi.registry.Registry;
 import java.rmi.registry.LocateRegistry;
 
 import edu.northeastern.cs6650.project2.server.KeyValueStoreRMIServer;
+import edu.northeastern.cs6650.project2.common.ExecutionModel;
 import edu.northeastern.cs6650.project2.common.Utils;
 
 /*
@@ -32,27 +33,32 @@ import edu.northeastern.cs6650.project2.common.Utils;
  * hosting the remote object. Before a client executes a method on the remote object, it performs
  * a lookup on the registry using the remote object name and the server returns a "reference" to the
  * remote object. The client calls these methods, the methods are executed by the remote object on this
- * server and results are returned. To terminate the server, press Control-C.
+ * server and results are returned. The optional arguments choose how the server executes the
+ * requests, inline by default, and the size of the pool and its queue for the pool execution model.
+ * To terminate the server, press Control-C.
  */
 public class Server {
     public static void main(String[] arguments) {  
 
-        if(arguments.length != 2) {
-            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project2.server.Server <server ip> <server port>.");
+        if(arguments.length < 2 || arguments.length > 5) {
+            System.err.println("Incorrect number of arguments. Correct usage: java -classpath classes edu.northeastern.cs6650.project2.server.Server <server ip> <server port> [<execution model> [<pool size> [<queue capacity>]]].");
         } else {
             try {
                 String ipAddress = arguments[0];
                 int registryPort = Integer.parseInt(arguments[1]);
+                ExecutionModel executionModel = arguments.length > 2 ? ExecutionModel.valueOf(arguments[2].toUpperCase()) : ExecutionModel.INLINE;
+                int poolSize = arguments.length > 3 ? Integer.parseInt(arguments[3]) : Runtime.getRuntime().availableProcessors();
+                int queueCapacity = arguments.length > 4 ? Integer.parseInt(arguments[4]) : KeyValueStoreRMIServer.DEFAULT_QUEUE_CAPACITY;
                 System.setProperty("java.rmi.server.hostname", ipAddress);
 
-                KeyValueStoreRMIServer serverApp = new KeyValueStoreRMIServer();
+                KeyValueStoreRMIServer serverApp = new KeyValueStoreRMIServer(executionModel, poolSize, queueCapacity);
 
                 Registry rmiRegistry = LocateRegistry.createRegistry(registryPort);
                 rmiRegistry.rebind(Utils.KEY_VALUE_STORE_RMI_SERVER_NAME, serverApp);
             } catch (NumberFormatException nfe) {
-                System.err.println("The port number should be an integer.");
+                System.err.println("The port number, pool size and queue capacity should be integers.");
             } catch(IllegalArgumentException iae) {
-                System.err.println("The server type should be either tcp or udp.");
+                System.err.println("The execution model should be either inline, pool or virtual, with a positive pool size and queue capacity.");
             } catch(Exception exp) {
                 exp.printStackTrace();
                 System.err.println("Problem encountered while starting the server.");